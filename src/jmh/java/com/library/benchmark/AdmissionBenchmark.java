@@ -0,0 +1,146 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop overload test of admission control: requests arrive at a fixed rate above what the service can
+ * serve, whether or not earlier ones were answered, with and without the admission layer.
+ * <p>
+ * Three in four requests page through the catalog and the rest borrow a book, spread over 64 clients. Latency is
+ * taken from the moment a request was due to be sent, so a backlog on the client side counts too. Percentiles of
+ * served reads and writes, and of refusals, are printed per iteration; the score is the time to send the whole
+ * run and drain every answer.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AdmissionBenchmark {
+
+    private static final int CLIENTS = 64;
+
+    @Param({"false", "true"})
+    public boolean admission;
+
+    @Param({"800"})
+    public int requestsPerSecond;
+
+    @Param({"10"})
+    public int seconds;
+
+    private ConfigurableApplicationContext context;
+
+    private ExecutorService clientExecutor;
+
+    private HttpClient httpClient;
+
+    private String base;
+
+    private List<Long> ids;
+
+    /**
+     * What happened to one request: whether it was a write, its status and its latency.
+     */
+    private record Outcome(boolean write, int status, long latencyNanos) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startWeb("library.admission.enabled=" + admission,
+                "library.admission.client-header=X-Client-Id", "library.admission.rate=1000", "library.admission.burst=1000");
+        ids = BenchmarkContext.insertBooks(context, 10_000, Integer.MAX_VALUE);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        base = "http://localhost:" + port + "/api/books";
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public long overload() {
+        int total = requestsPerSecond * seconds;
+        long interval = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        List<CompletableFuture<Outcome>> outcomes = new ArrayList<>(total);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + i * interval;
+            LockSupport.parkNanos(due - System.nanoTime());
+            boolean write = i % 4 == 3;
+            long id = ids.get(random.nextInt(ids.size()));
+            HttpRequest.Builder request = write
+                    ? HttpRequest.newBuilder(URI.create(base + "/" + id + "/borrow"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    : HttpRequest.newBuilder(URI.create(base + "/page?size=100&cursor=" + id)).GET();
+            request.header("X-Client-Id", "client-" + i % CLIENTS).timeout(Duration.ofMinutes(1));
+            outcomes.add(httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, ex) -> new Outcome(write, response == null ? 0 : response.statusCode(),
+                            System.nanoTime() - due)));
+        }
+        List<Outcome> results = outcomes.stream().map(CompletableFuture::join).toList();
+        report(results);
+        return results.stream().filter(outcome -> outcome.status() == 200).count();
+    }
+
+    private void report(List<Outcome> results) {
+        System.out.printf("%nadmission=%s, %d requests/s for %d s%n", admission, requestsPerSecond, seconds);
+        print("served reads", results.stream().filter(o -> !o.write() && o.status() == 200).toList());
+        print("served writes", results.stream().filter(o -> o.write() && o.status() == 200).toList());
+        print("refused (429/503)", results.stream().filter(o -> o.status() == 429 || o.status() == 503).toList());
+        print("failed", results.stream().filter(o -> o.status() != 200 && o.status() != 429 && o.status() != 503)
+                .toList());
+    }
+
+    private static void print(String label, List<Outcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            System.out.printf("  %-18s %6d%n", label, 0);
+            return;
+        }
+        long[] latencies = outcomes.stream().mapToLong(Outcome::latencyNanos).sorted().toArray();
+        System.out.printf("  %-18s %6d   p50 %7.1f ms   p99 %7.1f ms   p99.9 %7.1f ms   max %7.1f ms%n", label,
+                latencies.length, millis(latencies, 0.5), millis(latencies, 0.99), millis(latencies, 0.999),
+                millis(latencies, 1.0));
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
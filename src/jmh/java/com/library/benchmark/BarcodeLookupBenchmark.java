@@ -0,0 +1,138 @@
+package com.library.benchmark;
+
+import com.library.cache.BarcodeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of resolving a scanned barcode to its book ID with the {@link BarcodeIndex}, compared with a
+ * {@code HashMap<Long, Long>} holding the same copies and with the primary-key query the index replaces.
+ * Barcodes are looked up in random order, so that most lookups miss the CPU caches as a busy desk would.
+ * <p>
+ * The heap taken by the index and by the map is printed per million copies once per trial, the map's measured
+ * as the growth of the heap after a full GC.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BarcodeLookupBenchmark {
+
+    // EAN-13 barcodes of a library's own prefix, handed out with gaps as labels get spoiled
+    private static final long FIRST_BARCODE = 2_000_000_000_000L;
+
+    private static final int LOOKUPS = 1 << 20;
+
+    @Param({"1000000"})
+    public int copies;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BarcodeIndex barcodeIndex;
+
+    private Map<Long, Long> boxedMap;
+
+    private long[] lookups;
+
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:barcodes;DB_CLOSE_DELAY=-1", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE book_copy (barcode BIGINT PRIMARY KEY, book_id BIGINT NOT NULL)");
+        List<Object[]> rows = new ArrayList<>(copies);
+        for (int i = 0; i < copies; i++) {
+            rows.add(new Object[]{barcode(i), (long) i / 5});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_copy VALUES (?, ?)", rows);
+        rows = null;
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        barcodeIndex = new BarcodeIndex(dataSource);
+        long start = System.nanoTime();
+        barcodeIndex.rebuild();
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        boxedMap = new HashMap<>();
+        for (int i = 0; i < copies; i++) {
+            boxedMap.put(barcode(i), (long) i / 5);
+        }
+        System.gc();
+        long boxedBytes = memory.getHeapMemoryUsage().getUsed() - before;
+
+        Random random = new Random(42);
+        lookups = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = barcode(random.nextInt(copies));
+        }
+        double millions = copies / 1_000_000.0;
+        System.out.printf("%nIndex built from %d copies in %d ms: %.1f MB per million copies (%.1f bytes per copy)"
+                        + "%nHashMap<Long, Long>: %.1f MB per million copies (%.1f bytes per copy)%n",
+                copies, buildMillis, barcodeIndex.sizeInBytes() / millions / 1e6,
+                (double) barcodeIndex.sizeInBytes() / copies, boxedBytes / millions / 1e6,
+                (double) boxedBytes / copies);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE book_copy");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public long index() {
+        return barcodeIndex.bookIdOf(nextBarcode());
+    }
+
+    @Benchmark
+    public Long boxedHashMap() {
+        return boxedMap.get(nextBarcode());
+    }
+
+    /**
+     * The lookup before the index was built, or in a separate service: one primary-key query per scan.
+     */
+    @Benchmark
+    public Long query() {
+        return jdbcTemplate.queryForObject("SELECT book_id FROM book_copy WHERE barcode = ?", Long.class,
+                nextBarcode());
+    }
+
+    private long nextBarcode() {
+        return lookups[invocation++ & (LOOKUPS - 1)];
+    }
+
+    private static long barcode(int i) {
+        return FIRST_BARCODE + i * 3L;
+    }
+}
@@ -0,0 +1,86 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import com.library.cache.BookIdFilter;
+import com.library.entity.Book;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application against a private in-memory H2 database, unless another datasource URL is given, with
+ * SQL logging off so that it does not dominate the measurements.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        return start(WebApplicationType.NONE, extraProperties);
+    }
+
+    /**
+     * Like {@link #start(String...)}, but with the embedded web server listening on a random port.
+     */
+    static ConfigurableApplicationContext startWeb(String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(extraProperties));
+        properties.add("server.port=0");
+        return start(WebApplicationType.SERVLET, properties.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType webApplicationType,
+                                                        String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.jpa.show-sql=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN"));
+        properties.addAll(List.of(extraProperties));
+        if (properties.stream().noneMatch(property -> property.startsWith("spring.datasource.url="))) {
+            properties.add("spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        }
+        // Passed as command-line arguments, which take precedence over application.properties
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(webApplicationType)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Inserts the given number of books with plain JDBC batches, which is much faster than going through
+     * the service for large catalogs. IDs come from the same sequence the entity uses, which increments by
+     * the allocation size, so they are not consecutive.
+     *
+     * @return the IDs of all books, in ascending order
+     */
+    static List<Long> insertBooks(ConfigurableApplicationContext context, int count, int totalCopies) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Benchmark Title " + i, "Benchmark Author " + i % 1000, totalCopies});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book (id, title, author, total_copies, borrowed_copies, version)"
+                + " VALUES (NEXT VALUE FOR book_seq, ?, ?, ?, 0, 0)", rows);
+        // Rows inserted behind JPA's back are unknown to the ID filter until it is rebuilt
+        context.getBean(BookIdFilter.class).rebuild();
+        return jdbcTemplate.queryForList("SELECT id FROM book ORDER BY id", Long.class);
+    }
+
+    static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setId((long) i + 1);
+            book.setTitle("Benchmark Title " + i);
+            book.setAuthor("Benchmark Author " + i % 1000);
+            book.setTotalCopies(5);
+            book.setBorrowedCopies(i % 5);
+            books.add(book);
+        }
+        return books;
+    }
+}
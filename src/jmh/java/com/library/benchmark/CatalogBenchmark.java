@@ -0,0 +1,87 @@
+package com.library.benchmark;
+
+import com.library.api.BookPage;
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of listing the catalog at several sizes: the unbounded {@link BookService#findAllBooks()}
+ * against the first and the last keyset page of {@link BookService#findBooksPage}, and the lookup of a book
+ * that does not exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private Long lastPageCursor;
+
+    private Long missingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.insertBooks(context, catalogSize, 5);
+        bookService = context.getBean(BookService.class);
+        List<Book> books = bookService.findAllBooks();
+        lastPageCursor = books.get(books.size() - 51).getId();
+        missingId = books.get(books.size() - 1).getId() + 1_000_000;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> findAllBooks() {
+        return bookService.findAllBooks();
+    }
+
+    @Benchmark
+    public BookPage findBooksPage_First() {
+        return bookService.findBooksPage(null, 50, null, null);
+    }
+
+    @Benchmark
+    public BookPage findBooksPage_Last() {
+        return bookService.findBooksPage(lastPageCursor, 50, null, null);
+    }
+
+    @Benchmark
+    public String findBookById_Missing() {
+        try {
+            return bookService.findBookById(missingId).getTitle();
+        } catch (BookNotFoundException ex) {
+            return ex.getMessage();
+        }
+    }
+}
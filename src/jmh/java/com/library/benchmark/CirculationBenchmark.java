@@ -0,0 +1,126 @@
+package com.library.benchmark;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BookService#borrowBook(Long)} followed by {@link BookService#returnBook(Long)} on a
+ * single title, against embedded H2, with 1, 4 and 16 threads contending for the same row, through the guarded
+ * UPDATE and through the {@link com.library.ledger.AvailabilityLedger}. The {@code readModifyWrite} benchmarks run
+ * the find-check-save sequence borrowBook used before the guarded update, as a baseline; under contention some of
+ * its updates are lost or fail on the version check, which shows up as extra throughput rather than as errors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CirculationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean ledger;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    private BookRepository bookRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long bookId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("library.circulation.ledger.enabled=" + ledger);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        Book book = new Book();
+        book.setTitle("Bestseller");
+        book.setAuthor("Popular Author");
+        // Enough copies that no borrow is ever rejected, whatever the thread count
+        book.setTotalCopies(Integer.MAX_VALUE);
+        bookId = bookRepository.save(book).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void borrowReturn_1Thread() {
+        borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void borrowReturn_4Threads() {
+        borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void borrowReturn_16Threads() {
+        borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void readModifyWrite_1Thread() {
+        readModifyWriteBorrow();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void readModifyWrite_4Threads() {
+        readModifyWriteBorrow();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void readModifyWrite_16Threads() {
+        readModifyWriteBorrow();
+    }
+
+    private void readModifyWriteBorrow() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Book book = bookRepository.findById(bookId).orElseThrow();
+                if (book.getBorrowedCopies() < book.getTotalCopies()) {
+                    book.setBorrowedCopies(book.getBorrowedCopies() + 1);
+                    bookRepository.save(book);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Stale versions and lock timeouts are part of what this baseline measures
+        }
+    }
+
+    private void borrowAndReturn() {
+        bookService.borrowBook(bookId);
+        bookService.returnBook(bookId);
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.benchmark;
+
+import com.library.api.ImportChunkResult;
+import com.library.entity.Book;
+import com.library.service.BookImportService;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second stored by {@link BookImportService#importBooks} with JDBC batching, compared with saving the
+ * same books one at a time through {@link BookService#saveBook(Book)}. The table is emptied after every
+ * iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportBenchmark {
+
+    private static final int ROWS = 2_000;
+
+    @Param({"500"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BookImportService bookImportService;
+
+    private BookService bookService;
+
+    private byte[] ndjson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookImportService = context.getBean(BookImportService.class);
+        bookService = context.getBean(BookService.class);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            body.append("{\"title\":\"Title ").append(i).append("\",\"author\":\"Author ").append(i)
+                    .append("\",\"totalCopies\":").append(i % 5 + 1).append("}\n");
+        }
+        ndjson = body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE book");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<ImportChunkResult> bulkImport() throws IOException {
+        return bookImportService.importBooks(new ByteArrayInputStream(ndjson), chunkSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleSaves() {
+        for (int i = 0; i < ROWS; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setTotalCopies(i % 5 + 1);
+            bookService.saveBook(book);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.benchmark;
+
+import com.library.api.BookPage;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of looking books up by author and title at large catalog sizes, with the secondary indexes
+ * declared on {@link com.library.entity.Book} and, for comparison, with them dropped. Every author has
+ * {@code catalogSize / 1000} books, and every title prefix below matches a handful.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class IndexedLookupBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+
+    private BookService bookService;
+
+    // H2 hands back the previous result of a query repeated with the same arguments on an unchanged table,
+    // so every invocation looks up a different author or title
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.insertBooks(context, catalogSize, 5);
+        if (!indexed) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("DROP INDEX idx_book_author");
+            jdbcTemplate.execute("DROP INDEX idx_book_title");
+        }
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookPage byAuthor_Exact() {
+        return bookService.findBooksByAuthor(nextAuthor(), false, false, null, 50);
+    }
+
+    @Benchmark
+    public BookPage byAuthor_ExactAvailable() {
+        return bookService.findBooksByAuthor(nextAuthor(), false, true, null, 50);
+    }
+
+    /**
+     * An author with no books, which without an index means reading the whole table to find nothing.
+     */
+    @Benchmark
+    public BookPage byAuthor_Missing() {
+        return bookService.findBooksByAuthor("Unknown Author " + invocation++, false, false, null, 50);
+    }
+
+    @Benchmark
+    public BookPage byTitle_Prefix() {
+        return bookService.findBooksByTitle("Benchmark Title " + (1000 + invocation++ % 9000), true, false, null, 50);
+    }
+
+    /**
+     * The exact-author lookup through the generic page query, whose optional filters keep the planner from
+     * seeking on the author index.
+     */
+    @Benchmark
+    public BookPage byAuthor_PageFilter() {
+        return bookService.findBooksPage(null, 50, nextAuthor(), null);
+    }
+
+    private String nextAuthor() {
+        return "Benchmark Author " + invocation++ % 1000;
+    }
+}
@@ -0,0 +1,80 @@
+package com.library.benchmark;
+
+import com.library.constant.CirculationOperation;
+import com.library.journal.CirculationJournal;
+import com.library.metrics.CirculationMetrics.Outcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends per second to the {@link CirculationJournal} with 1 and 8 threads, waiting for group commit when
+ * {@code sync} is set. The commit count is printed at the end of each trial, to show how many appends each
+ * force covered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sync;
+
+    private Path directory;
+
+    private CirculationJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new CirculationJournal(true, directory.toString(), DataSize.ofMegabytes(64),
+                Duration.ofMillis(2), sync, 8);
+        journal.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException, IOException {
+        System.out.printf("%n%d group commits%n", journal.commitCount());
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void append_1Thread() {
+        append();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void append_8Threads() {
+        append();
+    }
+
+    private void append() {
+        journal.append(ThreadLocalRandom.current().nextLong(1, 10_000), CirculationOperation.BORROW, Outcome.SUCCESS);
+    }
+}
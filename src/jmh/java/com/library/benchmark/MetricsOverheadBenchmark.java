@@ -0,0 +1,76 @@
+package com.library.benchmark;
+
+import com.library.constant.CirculationOperation;
+import com.library.metrics.CirculationMetrics;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost that {@link CirculationMetrics} adds to a borrow or return, measured around an empty operation with
+ * the Prometheus registry the application exports to and the percentiles configured in
+ * {@code application.properties}. Compare with the latency of the operation itself in
+ * {@link CirculationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private CirculationMetrics circulationMetrics;
+
+    private Runnable operation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99)
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        });
+        circulationMetrics = new CirculationMetrics(registry);
+        operation = () -> Blackhole.consumeCPU(10);
+    }
+
+    @Benchmark
+    public void baseline() {
+        operation.run();
+    }
+
+    @Benchmark
+    public void recorded() {
+        circulationMetrics.record(CirculationOperation.BORROW, operation);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recorded_4Threads() {
+        circulationMetrics.record(CirculationOperation.BORROW, operation);
+    }
+}
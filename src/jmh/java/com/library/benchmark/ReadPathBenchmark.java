@@ -0,0 +1,86 @@
+package com.library.benchmark;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the catalog read paths loading managed entities, as the list and search endpoints used to, against
+ * the row queries of {@link BookRepository} they use now. Run with {@code -prof gc} for the allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReadPathBenchmark {
+
+    private static final int SEARCH_HITS = 20;
+
+    @Param({"1000", "10000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private BookRepository bookRepository;
+
+    private List<Long> ids;
+
+    // H2 hands back the previous result of a query repeated with the same arguments on an unchanged table,
+    // so the search hits move through the catalog
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        ids = BenchmarkContext.insertBooks(context, catalogSize, 5);
+        bookRepository = context.getBean(BookRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Book> list_Entities() {
+        return bookRepository.findAll();
+    }
+
+    @Benchmark
+    public List<Book> list_Rows() {
+        return bookRepository.findAllRows();
+    }
+
+    @Benchmark
+    public List<Book> search_Entities() {
+        return bookRepository.findAllById(nextHits());
+    }
+
+    @Benchmark
+    public List<Book> search_Rows() {
+        return bookRepository.findRowsByIdIn(nextHits());
+    }
+
+    private List<Long> nextHits() {
+        int from = invocation++ % (ids.size() - SEARCH_HITS);
+        return ids.subList(from, from + SEARCH_HITS);
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load comparison of Tomcat's platform-thread pool against the {@code virtual-threads} profile.
+ * <p>
+ * Each invocation fires a burst of concurrent requests at the catalog page and circulation endpoints over
+ * real HTTP and waits for every response, so the score is the time to drain a burst of that many clients.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"1000"})
+    public int concurrentClients;
+
+    private ConfigurableApplicationContext context;
+
+    private ExecutorService clientExecutor;
+
+    private HttpClient httpClient;
+
+    private List<HttpRequest> burst;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = virtualThreads ? BenchmarkContext.startWeb("spring.profiles.active=virtual-threads")
+                : BenchmarkContext.startWeb();
+        List<Long> ids = BenchmarkContext.insertBooks(context, 10_000, Integer.MAX_VALUE);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port + "/api/books";
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder().executor(clientExecutor).build();
+        burst = new ArrayList<>(concurrentClients);
+        for (int i = 0; i < concurrentClients; i++) {
+            // Half the clients browse the catalog, the other half borrow a book
+            burst.add(i % 2 == 0
+                    ? HttpRequest.newBuilder(URI.create(base + "/page?size=50&cursor=" + ids.get(i))).GET().build()
+                    : HttpRequest.newBuilder(URI.create(base + "/" + ids.get(i) + "/borrow"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(burst.size());
+        for (HttpRequest request : burst) {
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int failed = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() != 200) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + burst.size() + " requests failed");
+        }
+        return burst.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import com.library.api.ResponseEnvelopeConverter;
+import com.library.api.ResponseResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes on the wire and time spent per catalog response for every negotiable format, uncompressed and
+ * compressed the way {@link com.library.encoding.ResponseCompressionFilter} does. The benchmark runs on one
+ * thread, so its time per response is the CPU time of encoding it; the size is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"100000"})
+    public int resultSize;
+
+    @Param({"json", "columnar", "cbor", "smile"})
+    public String format;
+
+    @Param({"identity", "gzip", "zstd"})
+    public String compression;
+
+    @Param({"6"})
+    public int gzipLevel;
+
+    @Param({"3"})
+    public int zstdLevel;
+
+    private ResponseEnvelopeConverter converter;
+
+    private ObjectMapper binaryMapper;
+
+    private ResponseResult response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Configured like the ObjectMapper Spring Boot creates, which writes dates as ISO strings
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        converter = new ResponseEnvelopeConverter(objectMapper);
+        binaryMapper = switch (format) {
+            case "cbor" -> objectMapper.copyWith(new CBORFactory());
+            case "smile" -> objectMapper.copyWith(new SmileFactory());
+            default -> null;
+        };
+        response = new ResponseResult.Builder()
+                .statusCode(200)
+                .responseMessage("Total of " + resultSize + " book(s) found")
+                .queryResult(BenchmarkContext.books(resultSize))
+                .build();
+        System.out.printf("%n%s with %s: %d bytes per response%n", format, compression, encode());
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        SerializationBenchmark.CountingOutputStream counted = new SerializationBenchmark.CountingOutputStream();
+        try (OutputStream out = compress(counted)) {
+            if (binaryMapper != null) {
+                binaryMapper.writeValue(out, response);
+            } else {
+                converter.write(response, out, format.equals("columnar"));
+            }
+        }
+        return counted.count;
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        return switch (compression) {
+            case "gzip" -> new GZIPOutputStream(out, 8192) {
+                {
+                    def.setLevel(gzipLevel);
+                }
+            };
+            case "zstd" -> new ZstdOutputStreamNoFinalizer(out, zstdLevel);
+            default -> out;
+        };
+    }
+}
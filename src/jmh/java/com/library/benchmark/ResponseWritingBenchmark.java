@@ -0,0 +1,163 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.library.api.BaseResponse;
+import com.library.api.ResponseEnvelopeConverter;
+import com.library.api.ResponseError;
+import com.library.api.ResponseResult;
+import com.library.constant.ApiConstant;
+import com.library.constant.ExceptionConstant;
+import com.library.entity.Book;
+import com.library.util.CoarseClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of building a response envelope and writing it to the response body, as the controller
+ * and exception handler do: the old way ({@code String.format}, {@link LocalDateTime#now()} and the Jackson
+ * message converter) against template messages, {@link CoarseClock} and {@link ResponseEnvelopeConverter}.
+ * <p>
+ * Run with {@code -prof gc} to see the bytes allocated per request ({@code gc.alloc.rate.norm}).
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseWritingBenchmark {
+
+    /**
+     * borrow: a success message with one ID, notFound: an error envelope, page: a page of 50 books.
+     */
+    @Param({"borrow", "notFound", "page"})
+    public String endpoint;
+
+    private HttpMessageConverter<Object> jacksonConverter;
+
+    private ResponseEnvelopeConverter envelopeConverter;
+
+    private List<Book> page;
+
+    private DiscardingOutputMessage outputMessage;
+
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Configured like the ObjectMapper Spring Boot creates, which writes dates as ISO strings
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        envelopeConverter = new ResponseEnvelopeConverter(objectMapper);
+        page = BenchmarkContext.books(50);
+        outputMessage = new DiscardingOutputMessage();
+    }
+
+    @Benchmark
+    public long objectMapper() throws IOException {
+        long bookId = ++id;
+        BaseResponse response = switch (endpoint) {
+            case "borrow" -> new ResponseResult.Builder()
+                    .statusCode(200)
+                    .responseMessage(String.format(ApiConstant.BOOK_BORROW_SUCCESS, bookId))
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            case "notFound" -> new ResponseError.Builder()
+                    .statusCode(404)
+                    .responseMessage(String.format(ExceptionConstant.BOOK_NOT_FOUND, bookId))
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            default -> new ResponseResult.Builder()
+                    .statusCode(200)
+                    .responseMessage(String.format(ApiConstant.BOOK_QUERY_ALL, page.size()))
+                    .timestamp(LocalDateTime.now())
+                    .queryResult(page)
+                    .nextCursor(bookId)
+                    .build();
+        };
+        return write(jacksonConverter, response);
+    }
+
+    @Benchmark
+    public long envelope() throws IOException {
+        long bookId = ++id;
+        BaseResponse response = switch (endpoint) {
+            case "borrow" -> new ResponseResult.Builder()
+                    .statusCode(200)
+                    .responseMessage(ApiConstant.BOOK_BORROW_SUCCESS, bookId)
+                    .timestamp(CoarseClock.now())
+                    .build();
+            case "notFound" -> new ResponseError.Builder()
+                    .statusCode(404)
+                    .responseMessage(ExceptionConstant.BOOK_NOT_FOUND, bookId)
+                    .timestamp(CoarseClock.now())
+                    .build();
+            default -> new ResponseResult.Builder()
+                    .statusCode(200)
+                    .responseMessage(ApiConstant.BOOK_QUERY_ALL, page.size())
+                    .timestamp(CoarseClock.now())
+                    .queryResult(page)
+                    .nextCursor(bookId)
+                    .build();
+        };
+        return write(envelopeConverter, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long write(HttpMessageConverter<?> converter, BaseResponse response) throws IOException {
+        outputMessage.reset();
+        ((HttpMessageConverter<Object>) converter).write(response, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.body.count;
+    }
+
+    /**
+     * A response whose body only counts the bytes written, reused across invocations.
+     */
+    static final class DiscardingOutputMessage implements HttpOutputMessage {
+
+        final HttpHeaders headers = new HttpHeaders();
+
+        final SerializationBenchmark.CountingOutputStream body = new SerializationBenchmark.CountingOutputStream();
+
+        void reset() {
+            headers.clear();
+            body.count = 0;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.benchmark;
+
+import com.library.search.BookSearchIndex;
+import com.library.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link BookSearchIndex#search} over a synthetic catalog whose titles and authors draw words from
+ * a 20,000-word vocabulary with a Zipf-like distribution, as in real titles. Half the queries are a three-letter
+ * prefix of a single word, half are two whole words.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    private BookSearchIndex index;
+
+    private String[] queries;
+
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The repository is only needed to rebuild from the database
+        index = new BookSearchIndex(null, null, null);
+        Random random = new Random(42);
+        String[] words = new String[20_000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random);
+        }
+        for (int id = 1; id <= catalogSize; id++) {
+            index.put(id, zipfWord(random, words) + " " + zipfWord(random, words) + " " + zipfWord(random, words),
+                    zipfWord(random, words) + " " + zipfWord(random, words));
+        }
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String word = zipfWord(random, words);
+            queries[i] = i % 2 == 0 ? word.substring(0, Math.min(3, word.length())) : word + " " + zipfWord(random, words);
+        }
+    }
+
+    @Benchmark
+    public List<SearchHit> search() {
+        return index.search(queries[invocation++ & (queries.length - 1)], 20);
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(7);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Picks common words far more often than rare ones.
+     */
+    private static String zipfWord(Random random, String[] words) {
+        return words[(int) Math.min(words.length - 1, Math.floor(Math.pow(words.length, random.nextDouble())) - 1)];
+    }
+}
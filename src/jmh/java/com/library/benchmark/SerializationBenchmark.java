@@ -0,0 +1,76 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.api.ResponseResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing a {@link ResponseResult} envelope with a large {@code query_result} collection, using
+ * an ObjectMapper configured the way Spring Boot configures the one used for responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int resultSize;
+
+    private ObjectMapper objectMapper;
+
+    private ResponseResult response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        response = new ResponseResult.Builder()
+                .statusCode(200)
+                .responseMessage("Total of " + resultSize + " book(s) found")
+                .queryResult(BenchmarkContext.books(resultSize))
+                .build();
+    }
+
+    @Benchmark
+    public long serializeResponseResult() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        objectMapper.writeValue(out, response);
+        return out.count;
+    }
+
+    /**
+     * Discards the bytes written, so the benchmark measures encoding rather than buffer growth.
+     */
+    static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
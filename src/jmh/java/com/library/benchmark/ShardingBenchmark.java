@@ -0,0 +1,97 @@
+package com.library.benchmark;
+
+import com.library.shard.ShardRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Borrow throughput through the shard router as nodes are added.
+ * <p>
+ * The catalog is loaded into the first node, and the other nodes are added through the router, which moves
+ * their share of the partitions to them; the time that takes is printed. Every node and the router run in this
+ * JVM, so the nodes share its CPUs: throughput can only grow with the node count when each node gets cores of
+ * its own, and on a single CPU the score mostly shows the cost of the extra hop through the router.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(32)
+@Fork(1)
+public class ShardingBenchmark {
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private HttpClient httpClient;
+
+    private String base;
+
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigurableApplicationContext first = BenchmarkContext.startWeb();
+        contexts.add(first);
+        ids = BenchmarkContext.insertBooks(first, 10_000, Integer.MAX_VALUE);
+        ConfigurableApplicationContext router = BenchmarkContext.startWeb("spring.profiles.active=router",
+                "library.shard.nodes=" + baseUrl(first));
+        contexts.add(router);
+        for (int shard = 1; shard < shards; shard++) {
+            ConfigurableApplicationContext node = BenchmarkContext.startWeb();
+            contexts.add(node);
+            long start = System.nanoTime();
+            List<Integer> moved = router.getBean(ShardRouter.class).addNode(baseUrl(node));
+            System.out.printf("%nMoved %d partition(s) to node %d in %d ms%n", moved.size(), shard + 1,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        base = baseUrl(router) + "/api/books/";
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        contexts.reversed().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Benchmark
+    public int borrow() throws IOException, InterruptedException {
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return httpClient.send(HttpRequest.newBuilder(URI.create(base + id + "/borrow"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
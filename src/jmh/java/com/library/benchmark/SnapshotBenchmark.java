@@ -0,0 +1,119 @@
+package com.library.benchmark;
+
+import com.library.api.ImportChunkResult;
+import com.library.api.SnapshotResult;
+import com.library.constant.ExportFormat;
+import com.library.service.BookExportService;
+import com.library.service.BookImportService;
+import com.library.service.BookSnapshotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to save and reload the whole catalog: writing a snapshot, restoring it into an empty table, and for
+ * comparison replaying the same catalog as inserts through the bulk import. Runs against the in-memory
+ * database and against a file store with the settings of the durable profile. The snapshot and NDJSON sizes
+ * are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotBenchmark {
+
+    @Param({"1000000"})
+    public int catalogSize;
+
+    @Param({"memory", "file"})
+    public String database;
+
+    private ConfigurableApplicationContext context;
+
+    private Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BookSnapshotService bookSnapshotService;
+
+    private BookImportService bookImportService;
+
+    private byte[] ndjson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        String url = database.equals("file")
+                ? "jdbc:h2:file:" + directory.resolve("library") + ";CACHE_SIZE=262144;WRITE_DELAY=100"
+                : "jdbc:h2:mem:snapshot-benchmark;DB_CLOSE_DELAY=-1";
+        context = BenchmarkContext.start("spring.datasource.url=" + url,
+                "library.snapshot.file=" + directory.resolve("catalog.snapshot"));
+        BenchmarkContext.insertBooks(context, catalogSize, 5);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookSnapshotService = context.getBean(BookSnapshotService.class);
+        bookImportService = context.getBean(BookImportService.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        context.getBean(BookExportService.class).exportBooks(ExportFormat.NDJSON, out);
+        ndjson = out.toByteArray();
+        SnapshotResult snapshot = bookSnapshotService.takeSnapshot();
+        System.out.printf("%n%d books: snapshot %d bytes (%.1f per book), NDJSON %d bytes%n", snapshot.books(),
+                snapshot.bytes(), (double) snapshot.bytes() / snapshot.books(), ndjson.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    /**
+     * Restores the catalog after each measurement, so that every one starts from the same table.
+     */
+    @TearDown(Level.Iteration)
+    public void refill() throws IOException {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class) != catalogSize) {
+            jdbcTemplate.execute("TRUNCATE TABLE book");
+            bookSnapshotService.restore();
+        }
+    }
+
+    @Benchmark
+    public SnapshotResult takeSnapshot() throws IOException {
+        return bookSnapshotService.takeSnapshot();
+    }
+
+    @Benchmark
+    public SnapshotResult restore() throws IOException {
+        jdbcTemplate.execute("TRUNCATE TABLE book");
+        return bookSnapshotService.restore();
+    }
+
+    @Benchmark
+    public List<ImportChunkResult> replayInserts() throws IOException {
+        jdbcTemplate.execute("TRUNCATE TABLE book");
+        return bookImportService.importBooks(new ByteArrayInputStream(ndjson), null);
+    }
+}
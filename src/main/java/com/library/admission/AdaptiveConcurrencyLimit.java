@@ -0,0 +1,180 @@
+package com.library.admission;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on requests in progress that follows the latency the service is observed to have.
+ * <p>
+ * Completed requests are averaged per window of {@value #WINDOW_SAMPLES} samples and compared with the
+ * service's latency without load. While a window stays within the tolerance of it, the limit grows by about its
+ * square root so that it keeps probing for spare capacity; once requests start queueing and latency rises
+ * further, the limit shrinks in proportion, by at most half per window. Each new limit is blended with the
+ * previous one to damp oscillation, and it only grows while at least half of it was in use, so an idle service
+ * does not drift to the maximum. The limit settles where queueing adds about the tolerance to latency.
+ * </p>
+ * <p>
+ * The latency without load cannot be learned from a service kept at its limit, where every request queues. It
+ * is measured by holding the limit at its minimum for one window of requests admitted under it: first at
+ * startup, before the initial limit applies, and again every {@value #PROBE_INTERVAL_WINDOWS} windows, so that
+ * a service that has become slower for good, with a larger catalog say, is not mistaken for an overloaded one
+ * forever. In between, any faster window lowers it, as one does once a service started cold has warmed up.
+ * </p>
+ * <p>
+ * Requests never wait for a permit: one that would exceed the limit is refused at once. Reads may only fill
+ * part of the limit, so under overload they are turned away first and the remaining headroom is kept for
+ * writes.
+ * </p>
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    static final int WINDOW_SAMPLES = 20;
+
+    static final int PROBE_INTERVAL_WINDOWS = 500;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    /**
+     * Which share of the limit a request may use.
+     */
+    public enum Priority {
+
+        READ,
+
+        WRITE;
+
+        public String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double readShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    // Window state, guarded by this
+    private long windowLatencySum;
+
+    private int windowSamples;
+
+    private int windowMaxInFlight;
+
+    private double noLoadLatency;
+
+    private int windowsUntilProbe = PROBE_INTERVAL_WINDOWS;
+
+    // The limit to go back to once the probe window is complete, or 0 when not probing
+    private double limitBeforeProbe;
+
+    /**
+     * Constructs a new AdaptiveConcurrencyLimit.
+     *
+     * @param initialLimit the limit once the latency without load has been measured
+     * @param minLimit     the lowest the limit goes
+     * @param maxLimit     the highest the limit goes
+     * @param tolerance    how many times its latency without load a window may take before the limit shrinks
+     * @param readShare    the share of the limit reads may use, between 0 and 1
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                    double readShare) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1 || readShare <= 0 || readShare > 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.readShare = readShare;
+        this.limit = minLimit;
+        this.limitBeforeProbe = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Takes a permit if the requests in progress leave room for one of the given priority.
+     *
+     * @param priority the priority of the request
+     * @return true if the request may proceed, in which case {@link #release(long)} must follow
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = limit(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit and records how long its request took.
+     *
+     * @param latencyNanos the time from admission to completion
+     */
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        onSample(latencyNanos, current);
+    }
+
+    /**
+     * Returns the number of requests of the given priority that may be in progress at once.
+     */
+    public int limit(Priority priority) {
+        int current = (int) limit;
+        return priority == Priority.WRITE ? current : Math.max(1, (int) (current * readShare));
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long latencyNanos, int inFlightAtCompletion) {
+        // While probing, wait for the requests admitted under the previous limit to drain
+        if (limitBeforeProbe > 0 && inFlightAtCompletion > minLimit) {
+            return;
+        }
+        windowLatencySum += latencyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+        if (++windowSamples < WINDOW_SAMPLES) {
+            return;
+        }
+        double latency = Math.max(1.0, (double) windowLatencySum / windowSamples);
+        if (limitBeforeProbe > 0) {
+            noLoadLatency = latency;
+            limit = limitBeforeProbe;
+            limitBeforeProbe = 0;
+        } else {
+            adjust(latency);
+        }
+        windowLatencySum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+    }
+
+    private void adjust(double latency) {
+        noLoadLatency = Math.min(noLoadLatency, latency);
+        double current = limit;
+        double gradient = Math.clamp(tolerance * noLoadLatency / latency, MIN_GRADIENT, 1.0);
+        double target = current * gradient + Math.sqrt(current);
+        if (target < current || windowMaxInFlight >= current / 2) {
+            current = Math.clamp(current * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+        }
+        if (--windowsUntilProbe == 0) {
+            windowsUntilProbe = PROBE_INTERVAL_WINDOWS;
+            limitBeforeProbe = current;
+            current = minLimit;
+        }
+        limit = current;
+    }
+}
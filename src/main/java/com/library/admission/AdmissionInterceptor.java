@@ -0,0 +1,151 @@
+package com.library.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.admission.AdaptiveConcurrencyLimit.Priority;
+import com.library.exception.ServiceOverloadedException;
+import com.library.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.library.constant.ExceptionConstant.SERVICE_OVERLOADED;
+import static com.library.constant.ExceptionConstant.TOO_MANY_REQUESTS;
+
+/**
+ * Admission control in front of the book endpoints: a request is served now or refused now, never queued.
+ * <p>
+ * Each client, identified by its address, draws from its own {@link TokenBucket}, and a client over its rate is
+ * answered with 429 and a Retry-After. A client picks its own header values, so a header naming the client is
+ * only trusted when one is configured, e.g. behind an authenticating proxy that sets it; otherwise a client
+ * could dodge its limit, and push other clients' buckets out, by sending a new value with every request.
+ * Admitted requests then need a permit from the shared {@link AdaptiveConcurrencyLimit}, in which GET and HEAD
+ * requests are reads and everything else (borrow, return, save, update, delete) a write; a request without one
+ * is answered with 503. Both are thrown as exceptions and answered by the GlobalExceptionHandler.
+ * </p>
+ * <p>
+ * The {@code library.admission.limit} gauge reports the current limit per priority, and
+ * {@code library.admission.in-flight} the admitted requests in progress.
+ * </p>
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    public static final String LIMIT_GAUGE_NAME = "library.admission.limit";
+
+    public static final String IN_FLIGHT_GAUGE_NAME = "library.admission.in-flight";
+
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+
+    private final boolean enabled;
+
+    private final String clientHeader;
+
+    private final double rate;
+
+    private final int burst;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    /**
+     * Constructs a new AdmissionInterceptor.
+     *
+     * @param registry        the MeterRegistry the limit gauges are registered with
+     * @param enabled         whether requests go through admission control at all
+     * @param clientHeader    the request header that identifies a client, set by a trusted proxy; blank to
+     *                        identify clients by their address only
+     * @param rate            the requests per second each client may make
+     * @param burst           the requests a client may make at once above its rate
+     * @param maxClients      the most clients whose buckets are kept
+     * @param idleClientAfter how long an idle client's bucket is kept
+     * @param initialLimit    the requests in progress allowed once latency without load is measured
+     * @param minLimit        the fewest requests in progress the limit allows
+     * @param maxLimit        the most requests in progress the limit allows
+     * @param tolerance       how many times its usual latency the service may take before the limit shrinks
+     * @param readShare       the share of the limit reads may use
+     */
+    public AdmissionInterceptor(MeterRegistry registry,
+                                @Value("${library.admission.enabled:false}") boolean enabled,
+                                @Value("${library.admission.client-header:}") String clientHeader,
+                                @Value("${library.admission.rate:100}") double rate,
+                                @Value("${library.admission.burst:200}") int burst,
+                                @Value("${library.admission.max-clients:100000}") long maxClients,
+                                @Value("${library.admission.idle-client-after:10m}") Duration idleClientAfter,
+                                @Value("${library.admission.initial-limit:20}") int initialLimit,
+                                @Value("${library.admission.min-limit:4}") int minLimit,
+                                @Value("${library.admission.max-limit:200}") int maxLimit,
+                                @Value("${library.admission.latency-tolerance:1.5}") double tolerance,
+                                @Value("${library.admission.read-share:0.8}") double readShare) {
+        this.enabled = enabled;
+        this.clientHeader = clientHeader == null || clientHeader.isBlank() ? null : clientHeader;
+        this.rate = rate;
+        this.burst = burst;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleClientAfter)
+                .build();
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, readShare);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder(LIMIT_GAUGE_NAME, concurrencyLimit, limit -> limit.limit(priority))
+                    .description("Requests in progress admitted per priority")
+                    .tag("priority", priority.tag())
+                    .register(registry);
+        }
+        Gauge.builder(IN_FLIGHT_GAUGE_NAME, concurrencyLimit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Admitted requests in progress")
+                .register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.nanoTime();
+        String client = clientId(request);
+        long wait = buckets.get(client, key -> new TokenBucket(rate, burst, now)).tryAcquire(now);
+        if (wait > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            throw new TooManyRequestsException(String.format(TOO_MANY_REQUESTS, seconds), seconds);
+        }
+        Priority priority = priority(request);
+        if (!concurrencyLimit.tryAcquire(priority)) {
+            throw new ServiceOverloadedException(String.format(SERVICE_OVERLOADED, priority.tag()));
+        }
+        request.setAttribute(ADMITTED_AT, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ADMITTED_AT) instanceof Long admittedAt) {
+            request.removeAttribute(ADMITTED_AT);
+            concurrencyLimit.release(System.nanoTime() - admittedAt);
+        }
+    }
+
+    private String clientId(HttpServletRequest request) {
+        if (clientHeader == null) {
+            return request.getRemoteAddr();
+        }
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+
+    private static Priority priority(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? Priority.READ : Priority.WRITE;
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.admission;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the {@link AdmissionInterceptor} in front of the book endpoints when admission control is enabled.
+ * <p>
+ * Exports, bulk imports and snapshots are left out: they run for seconds to minutes, would hold a permit all
+ * that time and would look to the limit like a service that has become very slow. So is the availability feed,
+ * whose streams stay open for as long as the client listens and are capped on their own.
+ * </p>
+ */
+@Configuration
+public class AdmissionWebConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    /**
+     * Constructs a new AdmissionWebConfig.
+     *
+     * @param admissionInterceptor the AdmissionInterceptor to register
+     */
+    public AdmissionWebConfig(AdmissionInterceptor admissionInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!admissionInterceptor.isEnabled()) {
+            return;
+        }
+        registry.addInterceptor(admissionInterceptor)
+                .addPathPatterns("/api/books/**")
+                .excludePathPatterns("/api/books/export", "/api/books/bulk", "/api/books/snapshot",
+                        "/api/books/feed");
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code burst} tokens, refilled at {@code rate} tokens per second.
+ * <p>
+ * Rather than a token count and a refill timestamp, the bucket keeps a single value: the time at which it
+ * will be full again (the generic cell rate algorithm). Taking a token moves that time one refill interval
+ * further, and is refused while it lies more than a full burst ahead of now. One compare-and-set per request,
+ * and no background refill.
+ * </p>
+ */
+public final class TokenBucket {
+
+    private final long interval;
+
+    private final long tolerance;
+
+    // When the bucket is full again, in System.nanoTime() units
+    private final AtomicLong fullAt;
+
+    /**
+     * Constructs a new TokenBucket that starts full.
+     *
+     * @param rate  the tokens added per second
+     * @param burst the most tokens the bucket holds
+     * @param now   the current System.nanoTime()
+     */
+    public TokenBucket(double rate, int burst, long now) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a burst of at least 1");
+        }
+        this.interval = Math.max(1, (long) (1_000_000_000L / rate));
+        this.tolerance = interval * burst;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @param now the current System.nanoTime()
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next one is available
+     */
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Circulation of every title by one author in the statistics.
+ *
+ * @param author         the author
+ * @param titles         the number of titles by the author
+ * @param totalCopies    the copies of those titles the library owns
+ * @param borrowedCopies the copies of those titles currently borrowed
+ * @param utilization    the ratio of borrowed to total copies, 0.0 when there are no copies
+ */
+public record AuthorCirculation(
+        @JsonProperty("author") String author,
+        @JsonProperty("titles") long titles,
+        @JsonProperty("total_copies") long totalCopies,
+        @JsonProperty("borrowed_copies") long borrowedCopies,
+        @JsonProperty("utilization") double utilization) {
+}
@@ -0,0 +1,22 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The copy counts of one book after a committed change, as streamed by the availability feed.
+ *
+ * @param sequence       the position of this change in the feed
+ * @param bookId         the ID of the book
+ * @param borrowedCopies the copies currently borrowed, 0 for a deleted book
+ * @param totalCopies    the copies the library owns, 0 for a deleted book
+ * @param version        the version of the stored row, 0 for a deleted book
+ * @param deleted        whether the book was deleted
+ */
+public record AvailabilityDelta(
+        @JsonProperty("sequence") long sequence,
+        @JsonProperty("book_id") long bookId,
+        @JsonProperty("borrowed_copies") int borrowedCopies,
+        @JsonProperty("total_copies") int totalCopies,
+        @JsonProperty("version") long version,
+        @JsonProperty("deleted") boolean deleted) {
+}
@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
 
+import static com.library.util.BookUtils.getFormattedMessage;
+
 public class BaseResponse {
 
     private LocalDateTime timestamp;
@@ -14,6 +16,12 @@ public class BaseResponse {
     @JsonProperty("response_message")
     private String responseMessage;
 
+    // Set instead of responseMessage when the message is given as a template, which is only formatted
+    // if the message is read; ResponseEnvelopeConverter writes it from its pre-encoded template instead
+    private String messageTemplate;
+
+    private Object[] messageArgs;
+
     // Feel free to add more necessary fields such as
     // timestamp, id, etc... as needed for debugging purpose
 
@@ -30,11 +38,28 @@ public class BaseResponse {
     }
 
     public String getResponseMessage() {
+        if (responseMessage == null && messageTemplate != null) {
+            responseMessage = getFormattedMessage(messageTemplate, messageArgs);
+        }
         return responseMessage;
     }
 
     public void setResponseMessage(String responseMessage) {
         this.responseMessage = responseMessage;
+        this.messageTemplate = null;
+        this.messageArgs = null;
+    }
+
+    /**
+     * Sets the message as a template and the arguments for its placeholders, deferring the formatting.
+     *
+     * @param template the message template, as accepted by {@link com.library.util.BookUtils#getFormattedMessage}
+     * @param args     the arguments for the placeholders of the template
+     */
+    public void setResponseMessage(String template, Object... args) {
+        this.responseMessage = null;
+        this.messageTemplate = template;
+        this.messageArgs = args;
     }
 
     public int getStatusCode() {
@@ -44,4 +69,15 @@ public class BaseResponse {
     public void setStatusCode(int statusCode) {
         this.statusCode = statusCode;
     }
+
+    /**
+     * Returns the message template, or null once the message has been formatted or was set as plain text.
+     */
+    String messageTemplate() {
+        return responseMessage == null ? messageTemplate : null;
+    }
+
+    Object[] messageArgs() {
+        return messageArgs;
+    }
 }
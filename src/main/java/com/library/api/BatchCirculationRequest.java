@@ -0,0 +1,16 @@
+package com.library.api;
+
+import com.library.constant.BatchMode;
+import com.library.constant.CirculationOperation;
+
+import java.util.List;
+
+/**
+ * Request body for borrowing or returning several books in one transaction.
+ *
+ * @param operation whether to borrow or return the books
+ * @param ids       the IDs of the books, one entry per copy
+ * @param mode      how failures are handled, all-or-nothing when omitted
+ */
+public record BatchCirculationRequest(CirculationOperation operation, List<Long> ids, BatchMode mode) {
+}
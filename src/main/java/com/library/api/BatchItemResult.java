@@ -0,0 +1,17 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of one book in a batch borrow or return, using the same status codes and messages as the
+ * single-book endpoints.
+ *
+ * @param id              the ID of the book
+ * @param statusCode      the HTTP status the single-book endpoint would have answered with
+ * @param responseMessage the message the single-book endpoint would have answered with
+ */
+public record BatchItemResult(
+        @JsonProperty("id") Long id,
+        @JsonProperty("status_code") int statusCode,
+        @JsonProperty("response_message") String responseMessage) {
+}
@@ -0,0 +1,20 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Snapshot of the book lookup cache counters since startup.
+ *
+ * @param size          the approximate number of cached books
+ * @param hitCount      the number of lookups answered from the cache
+ * @param missCount     the number of lookups that went to the database
+ * @param hitRate       the ratio of hits to lookups, 1.0 when there were no lookups
+ * @param evictionCount the number of books dropped for size or age, not counting invalidations
+ */
+public record BookCacheStats(
+        @JsonProperty("size") long size,
+        @JsonProperty("hit_count") long hitCount,
+        @JsonProperty("miss_count") long missCount,
+        @JsonProperty("hit_rate") double hitRate,
+        @JsonProperty("eviction_count") long evictionCount) {
+}
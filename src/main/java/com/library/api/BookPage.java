@@ -0,0 +1,14 @@
+package com.library.api;
+
+import com.library.entity.Book;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated book listing.
+ *
+ * @param books      the books on this page, in ascending ID order
+ * @param nextCursor the cursor to request the following page with, or null if this is the last page
+ */
+public record BookPage(List<Book> books, Long nextCursor) {
+}
@@ -0,0 +1,28 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Catalog-wide circulation statistics for the dashboard.
+ *
+ * @param titles               the number of titles in the catalog
+ * @param totalCopies          the copies the library owns
+ * @param borrowedCopies       the copies currently borrowed
+ * @param utilization          the ratio of borrowed to total copies, 0.0 when there are no copies
+ * @param fullyBorrowedCount   the number of titles with every copy borrowed
+ * @param hottestTitles        the titles with the most copies borrowed, most first
+ * @param busiestAuthors       the authors with the most copies borrowed, most first
+ * @param fullyBorrowedTitles  titles with every copy borrowed, in ID order, at most as many as the hottest titles
+ */
+public record CirculationSummary(
+        @JsonProperty("titles") long titles,
+        @JsonProperty("total_copies") long totalCopies,
+        @JsonProperty("borrowed_copies") long borrowedCopies,
+        @JsonProperty("utilization") double utilization,
+        @JsonProperty("fully_borrowed_count") long fullyBorrowedCount,
+        @JsonProperty("hottest_titles") List<TitleCirculation> hottestTitles,
+        @JsonProperty("busiest_authors") List<AuthorCirculation> busiestAuthors,
+        @JsonProperty("fully_borrowed_titles") List<TitleCirculation> fullyBorrowedTitles) {
+}
@@ -0,0 +1,133 @@
+package com.library.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializer;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@code query_result} collection written column by column: one JSON object holding, for every property of
+ * the rows, the array of its values in row order, e.g. {@code {"id":[1,2],"title":["A","B"]}}. Property names
+ * are written once instead of once per row.
+ * <p>
+ * The rows must all be beans of the same class, or JSON objects, whose first row gives the columns. Any other
+ * collection, such as a mix of classes, is written as the usual array of rows; an empty one as {@code {}}.
+ * Values are written by each property's own serializer, so they are encoded as in a row.
+ * </p>
+ *
+ * @param rows the query result to write
+ */
+@JsonSerialize(using = ColumnarQueryResult.Serializer.class)
+public record ColumnarQueryResult(Collection<?> rows) {
+
+    static final class Serializer extends StdSerializer<ColumnarQueryResult> {
+
+        Serializer() {
+            super(ColumnarQueryResult.class);
+        }
+
+        @Override
+        public void serialize(ColumnarQueryResult value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            Collection<?> rows = value.rows();
+            if (rows.isEmpty()) {
+                generator.writeStartObject();
+                generator.writeEndObject();
+                return;
+            }
+            Class<?> type = rowType(rows);
+            List<BeanPropertyWriter> columns = type == null ? null : beanColumns(provider.findValueSerializer(type));
+            if (columns != null) {
+                writeBeans(rows, columns, generator, provider);
+            } else if (type != null && ObjectNode.class.isAssignableFrom(type)) {
+                writeNodes(rows, generator);
+            } else {
+                provider.defaultSerializeValue(rows, generator);
+            }
+        }
+
+        private static void writeBeans(Collection<?> rows, List<BeanPropertyWriter> columns,
+                                       JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            for (BeanPropertyWriter column : columns) {
+                generator.writeFieldName(column.getName());
+                generator.writeStartArray();
+                for (Object row : rows) {
+                    try {
+                        column.serializeAsElement(row, generator, provider);
+                    } catch (IOException | RuntimeException ex) {
+                        throw ex;
+                    } catch (Exception ex) {
+                        throw new IOException(ex);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeNodes(Collection<?> rows, JsonGenerator generator) throws IOException {
+            List<String> columns = new ArrayList<>();
+            ((JsonNode) rows.iterator().next()).fieldNames().forEachRemaining(columns::add);
+            generator.writeStartObject();
+            for (String column : columns) {
+                generator.writeFieldName(column);
+                generator.writeStartArray();
+                for (Object row : rows) {
+                    JsonNode field = ((JsonNode) row).get(column);
+                    if (field == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeTree(field);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Returns the class shared by every row, or null when a row is null or of another class.
+         */
+        private static Class<?> rowType(Collection<?> rows) {
+            Class<?> type = null;
+            for (Object row : rows) {
+                if (row == null || (type != null && row.getClass() != type)) {
+                    return null;
+                }
+                type = row.getClass();
+            }
+            return type;
+        }
+
+        /**
+         * Returns the properties written by a plain bean serializer, or null for any other serializer, whose
+         * output may not be an object of those properties.
+         */
+        private static List<BeanPropertyWriter> beanColumns(JsonSerializer<Object> serializer) {
+            if (serializer.getClass() != BeanSerializer.class) {
+                return null;
+            }
+            List<BeanPropertyWriter> columns = new ArrayList<>();
+            for (Iterator<PropertyWriter> properties = serializer.properties(); properties.hasNext(); ) {
+                if (!(properties.next() instanceof BeanPropertyWriter column)) {
+                    return null;
+                }
+                columns.add(column);
+            }
+            return columns;
+        }
+    }
+}
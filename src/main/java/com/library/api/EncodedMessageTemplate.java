@@ -0,0 +1,160 @@
+package com.library.api;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.library.constant.ApiConstant;
+import com.library.constant.ExceptionConstant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A message template split once into JSON-escaped UTF-8 literal segments and the placeholders between them,
+ * so a message can be written as a JSON string without formatting it first.
+ * <p>
+ * Only the {@code %s} and {@code %d} conversions without flags, width or precision are supported, which is
+ * what every {@link ApiConstant} and {@link ExceptionConstant} message uses. The templates of both classes
+ * are encoded up front; other templates are encoded on first use.
+ * </p>
+ */
+final class EncodedMessageTemplate {
+
+    /**
+     * Upper bound on the templates encoded on first use, in case a caller passes computed strings as templates.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+
+    /**
+     * Whether String.format writes integers with ASCII digits and sign in the default format locale, which
+     * is the only case the %d placeholders are written directly.
+     */
+    private static final boolean ASCII_INTEGERS;
+
+    private static final Map<String, EncodedMessageTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    // Stands in for templates that need the full Formatter, since the map cannot hold nulls
+    private static final EncodedMessageTemplate UNSUPPORTED = new EncodedMessageTemplate(new byte[0][], new char[0]);
+
+    static {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        ASCII_INTEGERS = symbols.getZeroDigit() == '0' && symbols.getMinusSign() == '-';
+        for (Class<?> constants : new Class<?>[]{ApiConstant.class, ExceptionConstant.class}) {
+            for (Field field : constants.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                    try {
+                        String template = (String) field.get(null);
+                        TEMPLATES.put(template, parse(template));
+                    } catch (IllegalAccessException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            }
+        }
+    }
+
+    private final byte[][] literals;
+
+    private final char[] conversions;
+
+    private EncodedMessageTemplate(byte[][] literals, char[] conversions) {
+        this.literals = literals;
+        this.conversions = conversions;
+    }
+
+    /**
+     * Writes the message the template formats to with the given arguments, as a quoted JSON string.
+     *
+     * @return false, with nothing written, if the template or an argument needs the full Formatter
+     */
+    static boolean write(OutputStream out, String template, Object[] args) throws IOException {
+        EncodedMessageTemplate encoded = TEMPLATES.get(template);
+        if (encoded == null) {
+            encoded = parse(template);
+            if (TEMPLATES.size() < MAX_CACHED_TEMPLATES) {
+                TEMPLATES.put(template, encoded);
+            }
+        }
+        return encoded != UNSUPPORTED && encoded.writeWith(out, args);
+    }
+
+    private boolean writeWith(OutputStream out, Object[] args) throws IOException {
+        if (args.length < conversions.length) {
+            return false;
+        }
+        for (int i = 0; i < conversions.length; i++) {
+            boolean supported = conversions[i] == 'd' ? ASCII_INTEGERS && isInteger(args[i]) : !(args[i] instanceof Formattable);
+            if (!supported) {
+                return false;
+            }
+        }
+        out.write('"');
+        for (int i = 0; i < conversions.length; i++) {
+            out.write(literals[i]);
+            writeArgument(out, args[i]);
+        }
+        out.write(literals[conversions.length]);
+        out.write('"');
+        return true;
+    }
+
+    /**
+     * Writes an argument the way %s and %d render it, escaped for a JSON string.
+     */
+    private static void writeArgument(OutputStream out, Object arg) throws IOException {
+        if (isInteger(arg)) {
+            writeLong(out, ((Number) arg).longValue());
+        } else {
+            out.write(JsonStringEncoder.getInstance().quoteAsUTF8(String.valueOf(arg)));
+        }
+    }
+
+    static void writeLong(OutputStream out, long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        byte[] digits = new byte[20];
+        int position = digits.length;
+        long remaining = Math.abs(value);
+        do {
+            digits[--position] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--position] = '-';
+        }
+        out.write(digits, position, digits.length - position);
+    }
+
+    private static boolean isInteger(Object arg) {
+        return arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte;
+    }
+
+    private static EncodedMessageTemplate parse(String template) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        ArrayList<byte[]> literals = new ArrayList<>();
+        StringBuilder conversions = new StringBuilder();
+        int start = 0;
+        int percent = template.indexOf('%');
+        while (percent >= 0) {
+            char conversion = percent + 1 < template.length() ? template.charAt(percent + 1) : 0;
+            if (conversion != 's' && conversion != 'd') {
+                return UNSUPPORTED;
+            }
+            literals.add(encoder.quoteAsUTF8(template.substring(start, percent)));
+            conversions.append(conversion);
+            start = percent + 2;
+            percent = template.indexOf('%', start);
+        }
+        literals.add(encoder.quoteAsUTF8(template.substring(start)));
+        return new EncodedMessageTemplate(literals.toArray(new byte[0][]), conversions.toString().toCharArray());
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of one chunk of a bulk import. Each chunk is committed or rolled back on its own.
+ *
+ * @param chunk       the zero-based index of the chunk
+ * @param firstRecord the zero-based position of the chunk's first record in the request body
+ * @param records     the number of records in the chunk
+ * @param imported    the number of books committed, either all records or none
+ * @param error       why the chunk was rolled back, or null if it was committed
+ */
+public record ImportChunkResult(
+        @JsonProperty("chunk") int chunk,
+        @JsonProperty("first_record") long firstRecord,
+        @JsonProperty("records") int records,
+        @JsonProperty("imported") int imported,
+        @JsonInclude(JsonInclude.Include.NON_NULL) @JsonProperty("error") String error) {
+
+    public boolean succeeded() {
+        return error == null;
+    }
+}
@@ -0,0 +1,225 @@
+package com.library.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes {@link ResponseResult} and {@link ResponseError} envelopes straight to the response body.
+ * <p>
+ * The envelope fields are written from pre-encoded JSON fragments, messages set as a template are written
+ * from their {@link EncodedMessageTemplate} without being formatted, and the timestamp encoding is reused for
+ * as long as responses carry the same {@link com.library.util.CoarseClock} instant. Only the
+ * {@code query_result} collection goes through the ObjectMapper.
+ * </p>
+ * <p>
+ * The output is byte for byte what the ObjectMapper would write for the whole envelope. This is checked once
+ * against the configured ObjectMapper on startup; if its settings change the encoding (indentation, numeric
+ * timestamps, ...), every envelope is handed to the ObjectMapper instead.
+ * </p>
+ * <p>
+ * Clients accepting {@value #COLUMNAR_JSON_VALUE} get the same envelope with the {@code query_result} written
+ * as a {@link ColumnarQueryResult}. It is only written when asked for, since plain JSON comes first in the
+ * supported media types.
+ * </p>
+ */
+@Component
+public class ResponseEnvelopeConverter extends AbstractHttpMessageConverter<BaseResponse> {
+
+    /**
+     * The media type of envelopes whose {@code query_result} is written column by column.
+     */
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.library.columnar+json";
+
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseEnvelopeConverter.class);
+
+    private static final byte[] TIMESTAMP_FIELD = ascii("{\"timestamp\":");
+
+    private static final byte[] STATUS_CODE_FIELD = ascii(",\"status_code\":");
+
+    private static final byte[] RESPONSE_MESSAGE_FIELD = ascii(",\"response_message\":");
+
+    private static final byte[] QUERY_RESULT_FIELD = ascii(",\"query_result\":");
+
+    private static final byte[] NEXT_CURSOR_FIELD = ascii(",\"next_cursor\":");
+
+    private static final byte[] NULL = ascii("null");
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean compatible;
+
+    private volatile EncodedTimestamp lastTimestamp = new EncodedTimestamp(null, NULL);
+
+    private record EncodedTimestamp(LocalDateTime timestamp, byte[] json) {
+    }
+
+    /**
+     * Constructs a new ResponseEnvelopeConverter.
+     *
+     * @param objectMapper the ObjectMapper the query results are written with, and whose output is matched
+     */
+    public ResponseEnvelopeConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, COLUMNAR_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        this.compatible = matchesObjectMapper();
+        if (!compatible) {
+            log.info("ObjectMapper settings change the response envelope encoding, envelopes are written by the ObjectMapper");
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // Subclasses may add fields this converter does not know about
+        return clazz == ResponseResult.class || clazz == ResponseError.class || clazz == BaseResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BaseResponse readInternal(Class<? extends BaseResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Response envelopes are not read", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(BaseResponse response, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (contentType != null && COLUMNAR_JSON.isCompatibleWith(contentType)) {
+            write(response, body, true);
+        } else if (compatible) {
+            write(response, body);
+        } else {
+            objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(body, response);
+        }
+        body.flush();
+    }
+
+    /**
+     * Writes the envelope as JSON to the given stream, which is left open.
+     *
+     * @param response the envelope to write
+     * @param out      the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(BaseResponse response, OutputStream out) throws IOException {
+        write(response, out, false);
+    }
+
+    /**
+     * Writes the envelope as JSON to the given stream, which is left open, with the {@code query_result}
+     * written column by column if asked.
+     *
+     * @param response the envelope to write
+     * @param out      the stream to write to
+     * @param columnar whether to write the {@code query_result} as a {@link ColumnarQueryResult}
+     * @throws IOException if writing to the stream fails
+     */
+    public void write(BaseResponse response, OutputStream out, boolean columnar) throws IOException {
+        out.write(TIMESTAMP_FIELD);
+        out.write(encodeTimestamp(response.getTimestamp()));
+        out.write(STATUS_CODE_FIELD);
+        EncodedMessageTemplate.writeLong(out, response.getStatusCode());
+        out.write(RESPONSE_MESSAGE_FIELD);
+        String template = response.messageTemplate();
+        if (template == null || !EncodedMessageTemplate.write(out, template, response.messageArgs())) {
+            writeString(out, response.getResponseMessage());
+        }
+        if (response instanceof ResponseResult result) {
+            if (result.getQueryResult() != null) {
+                out.write(QUERY_RESULT_FIELD);
+                // Flushing the body here would send the envelope head as a chunk of its own
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)) {
+                    objectMapper.writeValue(generator, columnar
+                            ? new ColumnarQueryResult(result.getQueryResult()) : result.getQueryResult());
+                }
+            }
+            if (result.getNextCursor() != null) {
+                out.write(NEXT_CURSOR_FIELD);
+                EncodedMessageTemplate.writeLong(out, result.getNextCursor());
+            }
+        }
+        out.write('}');
+    }
+
+    private byte[] encodeTimestamp(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NULL;
+        }
+        EncodedTimestamp last = lastTimestamp;
+        if (!timestamp.equals(last.timestamp())) {
+            last = new EncodedTimestamp(timestamp, ascii('"' + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) + '"'));
+            lastTimestamp = last;
+        }
+        return last.json();
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+            return;
+        }
+        out.write('"');
+        out.write(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        out.write('"');
+    }
+
+    /**
+     * Encodes sample envelopes both ways and reports whether the ObjectMapper produced the same bytes.
+     */
+    private boolean matchesObjectMapper() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 2, 29, 23, 59, 1, 120_000_000);
+        List<BaseResponse> samples = List.of(
+                new ResponseResult.Builder()
+                        .statusCode(200)
+                        .responseMessage("Book with ID %s found \"%s\" é\t", 42L, "a\\b")
+                        .timestamp(timestamp)
+                        .queryResult(List.of("x"))
+                        .nextCursor(-7L)
+                        .build(),
+                new ResponseError.Builder()
+                        .statusCode(404)
+                        .timestamp(timestamp.withNano(0))
+                        .build());
+        try {
+            for (BaseResponse sample : samples) {
+                ByteArrayOutputStream direct = new ByteArrayOutputStream();
+                write(sample, direct);
+                if (!Arrays.equals(direct.toByteArray(), objectMapper.writeValueAsBytes(sample))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
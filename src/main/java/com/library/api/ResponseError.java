@@ -1,5 +1,7 @@
 package com.library.api;
 
+import com.library.util.CoarseClock;
+
 import java.time.LocalDateTime;
 
 public class ResponseError extends BaseResponse {
@@ -7,20 +9,35 @@ public class ResponseError extends BaseResponse {
     public ResponseError(ResponseError.Builder builder) {
         this.setStatusCode(builder.statusCode);
         this.setTimestamp(builder.timestamp);
-        this.setResponseMessage(builder.responseMessage);
+        if (builder.messageTemplate != null) {
+            this.setResponseMessage(builder.messageTemplate, builder.messageArgs);
+        } else {
+            this.setResponseMessage(builder.responseMessage);
+        }
     }
 
     // Static inner Builder class
     public static class Builder {
         private String responseMessage;
+        private String messageTemplate;
+        private Object[] messageArgs;
         private int statusCode;
         private LocalDateTime timestamp;
 
         public ResponseError.Builder responseMessage(String responseMessage) {
             this.responseMessage = responseMessage;
+            this.messageTemplate = null;
+            this.messageArgs = null;
             return this; // Return the Builder instance for method chaining
         }
 
+        public ResponseError.Builder responseMessage(String template, Object... args) {
+            this.responseMessage = null;
+            this.messageTemplate = template;
+            this.messageArgs = args;
+            return this;
+        }
+
         public ResponseError.Builder timestamp(LocalDateTime timestamp) {
             this.timestamp = timestamp;
             return this;
@@ -33,7 +50,7 @@ public class ResponseError extends BaseResponse {
 
         public ResponseError build() {
             if (this.timestamp == null) {
-                this.timestamp = LocalDateTime.now(); // Set a default timestamp if not provided
+                this.timestamp = CoarseClock.now(); // Set a default timestamp if not provided
             }
             return new ResponseError(this); // Return the constructed ResponseError
         }
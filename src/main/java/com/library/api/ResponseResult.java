@@ -2,6 +2,7 @@ package com.library.api;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.library.util.CoarseClock;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -12,25 +13,46 @@ public class ResponseResult extends BaseResponse {
     @JsonProperty("query_result")
     private Collection<?> queryResult;
 
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Exclude when null
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
+
     public ResponseResult(Builder builder) {
         this.setStatusCode(builder.statusCode);
         this.setTimestamp(builder.timestamp);
-        this.setResponseMessage(builder.responseMessage);
+        if (builder.messageTemplate != null) {
+            this.setResponseMessage(builder.messageTemplate, builder.messageArgs);
+        } else {
+            this.setResponseMessage(builder.responseMessage);
+        }
         this.setQueryResult(builder.queryResult);
+        this.setNextCursor(builder.nextCursor);
     }
 
     // Static inner Builder class
     public static class Builder {
         private String responseMessage;
+        private String messageTemplate;
+        private Object[] messageArgs;
         private int statusCode;
         private LocalDateTime timestamp;
         private Collection<?> queryResult;
+        private Long nextCursor;
 
         public Builder responseMessage(String responseMessage) {
             this.responseMessage = responseMessage;
+            this.messageTemplate = null;
+            this.messageArgs = null;
             return this; // Return the Builder instance for method chaining
         }
 
+        public Builder responseMessage(String template, Object... args) {
+            this.responseMessage = null;
+            this.messageTemplate = template;
+            this.messageArgs = args;
+            return this;
+        }
+
         public Builder timestamp(LocalDateTime timestamp) {
             this.timestamp = timestamp;
             return this;
@@ -46,9 +68,14 @@ public class ResponseResult extends BaseResponse {
             return this;
         }
 
+        public Builder nextCursor(Long nextCursor) {
+            this.nextCursor = nextCursor;
+            return this;
+        }
+
         public ResponseResult build() {
             if (this.timestamp == null) {
-                this.timestamp = LocalDateTime.now(); // Set a default timestamp if not provided
+                this.timestamp = CoarseClock.now(); // Set a default timestamp if not provided
             }
             return new ResponseResult(this); // Return the constructed ResponseResult
         }
@@ -61,4 +88,12 @@ public class ResponseResult extends BaseResponse {
     public void setQueryResult(Collection<?> queryResult) {
         this.queryResult = queryResult;
     }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
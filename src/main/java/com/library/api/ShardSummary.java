@@ -0,0 +1,14 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One node of a sharded catalog.
+ *
+ * @param node       the base URL of the node
+ * @param partitions the number of partitions the node owns
+ */
+public record ShardSummary(
+        @JsonProperty("node") String node,
+        @JsonProperty("partitions") int partitions) {
+}
@@ -0,0 +1,18 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The outcome of writing or restoring a catalog snapshot.
+ *
+ * @param file   the snapshot file
+ * @param books  the number of books written or restored
+ * @param bytes  the size of the snapshot file
+ * @param millis the time taken, in milliseconds
+ */
+public record SnapshotResult(
+        @JsonProperty("file") String file,
+        @JsonProperty("books") long books,
+        @JsonProperty("bytes") long bytes,
+        @JsonProperty("millis") long millis) {
+}
@@ -0,0 +1,20 @@
+package com.library.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Circulation of one title in the statistics.
+ *
+ * @param id             the ID of the book
+ * @param title          the title of the book
+ * @param author         the author of the book
+ * @param totalCopies    the copies the library owns
+ * @param borrowedCopies the copies currently borrowed
+ */
+public record TitleCirculation(
+        @JsonProperty("id") long id,
+        @JsonProperty("title") String title,
+        @JsonProperty("author") String author,
+        @JsonProperty("total_copies") int totalCopies,
+        @JsonProperty("borrowed_copies") int borrowedCopies) {
+}
@@ -0,0 +1,185 @@
+package com.library.cache;
+
+import com.library.event.BookChangedEvent;
+import com.library.event.BookCopyChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory index from the barcode of every registered copy to the ID of its book, so that a scanned barcode is
+ * resolved without a query.
+ * <p>
+ * Entries live in a {@link LongLongMap}, two primitive arrays costing 16 bytes per slot and no object per copy,
+ * unlike a {@code HashMap<Long, Long>}. Lookups read the arrays under an optimistic stamp and only take the
+ * read lock when a change overlapped them. Changes are applied once they are committed.
+ * </p>
+ * <p>
+ * The index is built from the table once the application is ready. Until then, lookups query the table.
+ * Changes committed while the build reads the table are recorded and replayed on the built index before it
+ * is used.
+ * </p>
+ */
+@Component
+public class BarcodeIndex {
+
+    /**
+     * Returned by {@link #bookIdOf} for a barcode no copy is registered with.
+     */
+    public static final long NOT_FOUND = LongLongMap.MISSING;
+
+    private static final String COUNT_COPIES = "SELECT COUNT(*) FROM book_copy";
+
+    private static final String SELECT_COPIES = "SELECT barcode, book_id FROM book_copy";
+
+    private static final String SELECT_BOOK_ID = "SELECT book_id FROM book_copy WHERE barcode = ?";
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final StampedLock lock = new StampedLock();
+
+    // The fields below are written under the write lock
+    private LongLongMap map = new LongLongMap(0);
+
+    private volatile boolean built;
+
+    // Changes committed while a build is reading the table, replayed on the built map before it is swapped in
+    private List<Consumer<LongLongMap>> pendingChanges;
+
+    /**
+     * Constructs a new BarcodeIndex.
+     *
+     * @param dataSource the DataSource the index is built from
+     */
+    public BarcodeIndex(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Resolves a barcode to the ID of the book its copy belongs to.
+     *
+     * @param barcode the barcode of the copy
+     * @return the ID of the book, or {@link #NOT_FOUND} if no copy is registered with the barcode
+     */
+    public long bookIdOf(long barcode) {
+        if (!built) {
+            List<Long> bookIds = jdbcTemplate.queryForList(SELECT_BOOK_ID, Long.class, barcode);
+            return bookIds.isEmpty() ? NOT_FOUND : bookIds.get(0);
+        }
+        long stamp = lock.tryOptimisticRead();
+        long bookId = map.get(barcode);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                bookId = map.get(barcode);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return bookId;
+    }
+
+    /**
+     * Returns the number of barcodes in the index.
+     *
+     * @return the number of copies, 0 before the first build
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the memory taken by the index's arrays.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        long stamp = lock.readLock();
+        try {
+            return map.sizeInBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCopyChanged(BookCopyChangedEvent event) {
+        switch (event.type()) {
+            case REGISTERED -> apply(index -> index.put(event.barcode(), event.bookId()));
+            case REMOVED -> apply(index -> index.remove(event.barcode()));
+        }
+    }
+
+    /**
+     * Drops the copies of a deleted book, which are deleted along with it and named in the event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.DELETED && !event.barcodes().isEmpty()) {
+            apply(index -> event.barcodes().forEach(index::remove));
+        }
+    }
+
+    /**
+     * Builds the index from the copies in the table, presized for their number. Lookups keep querying the
+     * table, or using the previous index, until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try {
+            LongLongMap rebuilt = new LongLongMap(jdbcTemplate.queryForObject(COUNT_COPIES, Long.class));
+            jdbcTemplate.query(SELECT_COPIES, (RowCallbackHandler) resultSet ->
+                    rebuilt.put(resultSet.getLong(1), resultSet.getLong(2)));
+            stamp = lock.writeLock();
+            try {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                map = rebuilt;
+                built = true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private void apply(Consumer<LongLongMap> change) {
+        long stamp = lock.writeLock();
+        try {
+            change.accept(map);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.library.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.api.BookCacheStats;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of books by ID, evicting by size and by age.
+ * <p>
+ * Entries are dropped as soon as a change to the book is committed, so counts read from the cache are
+ * never older than the last committed write. Each entry is the future of a load: the first caller to miss
+ * loads the book on its own thread while later callers wait for that future, and no lock is held while
+ * the database is queried. An invalidation removes the future without waiting for it, so a load that read
+ * the row before the commit finishes for its waiting callers but is never kept in the cache.
+ * </p>
+ * <p>
+ * Cached books are shared between requests and must not be modified; write paths load their own copy.
+ * </p>
+ */
+@Component
+public class BookCache {
+
+    private final AsyncCache<Long, Book> cache;
+
+    /**
+     * Constructs a new BookCache.
+     *
+     * @param maximumSize      the maximum number of books kept
+     * @param expireAfterWrite how long a book is kept after it was loaded
+     */
+    public BookCache(@Value("${library.cache.book.maximum-size:10000}") long maximumSize,
+                     @Value("${library.cache.book.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached book, loading and caching it on a miss. Concurrent misses for the same ID share
+     * one load. Nothing is cached when the loader returns null or fails.
+     *
+     * @param id     the ID of the book
+     * @param loader loads the book from the database, returning null if it does not exist
+     * @return the book, or null if it does not exist
+     */
+    public Book get(Long id, Function<Long, Book> loader) {
+        CompletableFuture<Book> load = new CompletableFuture<>();
+        CompletableFuture<Book> future = cache.get(id, (key, executor) -> load);
+        if (future == load) {
+            try {
+                load.complete(loader.apply(id));
+            } catch (RuntimeException ex) {
+                load.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Drops the cached book with the given ID, if any. Never waits for an in-flight load.
+     *
+     * @param id the ID of the book
+     */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    /**
+     * Drops a changed book once its transaction has committed. Without a transaction the event is
+     * handled immediately.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(event.bookId());
+    }
+
+    public BookCacheStats stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new BookCacheStats(cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,267 @@
+package com.library.cache;
+
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.repository.BookRepository;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Compact set of existing book IDs, used to answer lookups of IDs that certainly do not exist without a query.
+ * <p>
+ * Backed by a Bloom filter, so it may report a missing ID as present (at about the configured false-positive
+ * rate) but never the other way round. Through {@link Listener}, registered as a JPA entity listener on
+ * {@link Book}, it learns every ID as soon as the book is persisted, whichever path persisted it, and it adds
+ * the ID again once the {@link BookChangedEvent} of the insert has committed; see {@link #rebuild()}. A
+ * rolled-back insert only leaves a false positive behind.
+ * </p>
+ * <p>
+ * Deleted IDs cannot be removed from a Bloom filter and keep costing a query. The filter is rebuilt from the
+ * table once the application is ready, and again in the background once more books were added than it was
+ * sized for or once a quarter of that capacity was deleted. Until the first build every ID is reported as
+ * possibly present.
+ * </p>
+ */
+@Component
+public class BookIdFilter {
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long expectedBooks;
+
+    private final double falsePositiveRate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile BloomFilter filter;
+
+    // The fields below are guarded by lock
+    private long capacity;
+
+    private long added;
+
+    private long removed;
+
+    // IDs inserted while a rebuild is reading the table, added to the rebuilt filter before it is swapped in
+    private List<Long> pendingIds;
+
+    /**
+     * Constructs a new BookIdFilter.
+     *
+     * @param bookRepository     the BookRepository the filter is rebuilt from
+     * @param transactionManager the PlatformTransactionManager the rebuild reads the table with
+     * @param expectedBooks      the number of books the filter is sized for at least, which sets its memory use
+     * @param falsePositiveRate  the share of missing IDs still looked up in the database at that size
+     */
+    public BookIdFilter(BookRepository bookRepository, PlatformTransactionManager transactionManager,
+                        @Value("${library.cache.book-ids.expected-books:1000000}") long expectedBooks,
+                        @Value("${library.cache.book-ids.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Also see rows whose insert has not committed yet; see rebuild()
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_UNCOMMITTED);
+        transactionTemplate.setReadOnly(true);
+        this.expectedBooks = expectedBooks;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Tells whether a book with the given ID might exist.
+     *
+     * @param id the ID of the book
+     * @return false if the book certainly does not exist, true if it might
+     */
+    public boolean mightContain(Long id) {
+        BloomFilter current = filter;
+        return id == null || current == null || current.mightContain(id);
+    }
+
+    /**
+     * Returns the memory taken by the filter's bit array.
+     *
+     * @return the size in bytes, 0 before the first build
+     */
+    public long sizeInBytes() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.bitSize() / Byte.SIZE;
+    }
+
+    /**
+     * JPA entity listener forwarding inserts and deletes of books to the filter. Hibernate creates it while
+     * the EntityManagerFactory is built, before the filter and its repository can exist, so the filter is
+     * looked up on first use. Without a filter bean (e.g. in repository slice tests) events are ignored.
+     */
+    public static class Listener {
+
+        private final ObjectProvider<BookIdFilter> bookIdFilter;
+
+        public Listener(ObjectProvider<BookIdFilter> bookIdFilter) {
+            this.bookIdFilter = bookIdFilter;
+        }
+
+        @PostPersist
+        public void onPersist(Book book) {
+            bookIdFilter.ifAvailable(filter -> filter.add(book.getId()));
+        }
+
+        @PostRemove
+        public void onRemove(Book book) {
+            bookIdFilter.ifAvailable(BookIdFilter::remove);
+        }
+    }
+
+    /**
+     * Records that a book was deleted. Its ID stays in the filter until the next rebuild.
+     */
+    public void remove() {
+        boolean stale;
+        lock.lock();
+        try {
+            stale = ++removed > capacity / 4;
+        } finally {
+            lock.unlock();
+        }
+        if (stale) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Records that a book with the given ID exists.
+     *
+     * @param id the ID of the book
+     */
+    public void add(long id) {
+        boolean full;
+        lock.lock();
+        try {
+            put(id);
+            full = filter != null && ++added > capacity;
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Adds the ID of a created book once its insert has committed, to whichever filter is current by then.
+     * The book was already counted when it was persisted, so this does not count towards a rebuild. Without a
+     * transaction the event is handled immediately.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == ChangeType.CREATED && event.bookId() != null) {
+            lock.lock();
+            try {
+                put(event.bookId());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Puts the ID into the current filter and, during a rebuild, into the pending IDs. Must hold lock.
+     */
+    private void put(long id) {
+        if (filter != null) {
+            filter.put(id);
+        }
+        if (pendingIds != null) {
+            pendingIds.add(id);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the IDs in the table, sized for twice the current number of books and at least
+     * the configured size. Lookups keep using the previous filter until the new one is complete.
+     * <p>
+     * The table is read uncommitted. The entity listener adds an ID when the book is persisted, which with
+     * JDBC batching can be before its INSERT runs, so a rebuild starting in between may neither see the row nor
+     * record the ID as pending. The ID is therefore added again after its insert committed: by then the scan
+     * either is still running, and records it as pending, or has finished, and the rebuilt filter is current.
+     * On databases that treat READ UNCOMMITTED as READ COMMITTED, only inserts made without a
+     * {@link BookChangedEvent} may be missed until the next rebuild.
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.lock();
+        try {
+            pendingIds = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            BloomFilter rebuilt = transactionTemplate.execute(status -> {
+                long size = Math.max(expectedBooks, 2 * bookRepository.count());
+                BloomFilter candidate = BloomFilter.create(size, falsePositiveRate);
+                try (Stream<Long> ids = bookRepository.streamAllIds()) {
+                    ids.forEach(candidate::put);
+                }
+                return candidate;
+            });
+            lock.lock();
+            try {
+                pendingIds.forEach(rebuilt::put);
+                filter = rebuilt;
+                capacity = capacityOf(rebuilt);
+                added = 0;
+                removed = 0;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            lock.lock();
+            try {
+                pendingIds = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void rebuildInBackground() {
+        if (rebuilding.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * The number of values a filter of this size holds at the configured false-positive rate.
+     */
+    private long capacityOf(BloomFilter bloomFilter) {
+        return (long) (bloomFilter.bitSize() * Math.log(2) * Math.log(2) / -Math.log(falsePositiveRate));
+    }
+}
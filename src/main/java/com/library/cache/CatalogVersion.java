@@ -0,0 +1,79 @@
+package com.library.cache;
+
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide change counter the listing endpoints derive their ETag and Last-Modified from.
+ * <p>
+ * The counter moves on every committed {@link BookChangedEvent} and on every flush of the
+ * {@link com.library.ledger.AvailabilityLedger}, so an unchanged catalog is recognized without reading it.
+ * Listing ETags are prefixed with the start time of this instance, so an ETag issued before a restart
+ * never matches one issued after it.
+ * </p>
+ * <p>
+ * Endpoints read the counter before they read the catalog. A change committed in between is then in the
+ * body but not yet in the ETag, which costs the client one more full response and never a stale 304.
+ * </p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final String instancePrefix = "\"" + Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile long lastModified = System.currentTimeMillis();
+
+    /**
+     * Returns the strong ETag of the catalog as it is now, shared by every listing of it.
+     *
+     * @return the quoted ETag
+     */
+    public String catalogETag() {
+        return instancePrefix + changes.get() + "\"";
+    }
+
+    /**
+     * Returns the strong ETag of one book. The version moves with every change written to the database, and
+     * the borrowed count covers circulation held in the ledger that has not been flushed yet.
+     *
+     * @param book the book as it is returned to the client
+     * @return the quoted ETag
+     */
+    public static String bookETag(Book book) {
+        return "\"" + book.getId() + "-" + book.getVersion() + "-" + book.getBorrowedCopies() + "\"";
+    }
+
+    /**
+     * Returns when the catalog last changed, in epoch milliseconds, or the start of this instance if it has
+     * not changed since.
+     *
+     * @return the time of the last change
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Records a change to the catalog that has become visible to readers.
+     */
+    public void changed() {
+        lastModified = System.currentTimeMillis();
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Moves the counter once the change is committed, when readers can see it.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changed();
+    }
+}
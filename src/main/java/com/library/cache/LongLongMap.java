@@ -0,0 +1,151 @@
+package com.library.cache;
+
+/**
+ * Open-addressing hash map from positive long keys to long values, stored in two parallel arrays so that an
+ * entry costs 16 bytes and no object. Collisions are resolved by linear probing, and removals shift the
+ * following entries back instead of leaving tombstones, so lookups never slow down with churn.
+ * <p>
+ * Not thread-safe for writes. A {@link #get} racing a write always returns, though possibly a wrong value,
+ * so readers may run it optimistically and retry under a lock when a write overlapped.
+ * </p>
+ */
+final class LongLongMap {
+
+    static final long MISSING = -1;
+
+    private static final long EMPTY = 0;
+
+    private static final double MAX_LOAD = 0.75;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private int size;
+
+    LongLongMap(long expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memory taken by the two arrays.
+     */
+    long sizeInBytes() {
+        return 2L * Long.BYTES * keys.length;
+    }
+
+    long get(long key) {
+        long[] keyTable = keys;
+        long[] valueTable = values;
+        if (keyTable.length != valueTable.length) {
+            // A concurrent resize replaced one array but not yet the other
+            return MISSING;
+        }
+        int mask = keyTable.length - 1;
+        int slot = slot(key, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = keyTable[slot];
+            if (current == key) {
+                return valueTable[slot];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Associates the value with the key, replacing any previous value.
+     *
+     * @throws IllegalArgumentException if the key is not positive
+     */
+    void put(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive: " + key);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size + 1 > keys.length * MAX_LOAD) {
+            resize(keys.length * 2);
+            put(key, value);
+            return;
+        }
+        // The value is written first, so that an optimistic reader finding the key finds its value too
+        values[slot] = value;
+        keys[slot] = key;
+        size++;
+    }
+
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift back every following entry of the run that probed past the freed slot
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                values[free] = values[next];
+                keys[free] = keys[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        values = new long[capacity];
+        keys = new long[capacity];
+    }
+
+    private static int capacityFor(long expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / MAX_LOAD);
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    private static int slot(long key, int mask) {
+        // Barcodes are often sequential; the finalizer of MurmurHash3 spreads them over the table
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
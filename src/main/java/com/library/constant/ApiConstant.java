@@ -4,6 +4,14 @@ public class ApiConstant {
 
     public static final String BOOK_QUERY_ALL = "Total of %d book(s) found";
 
+    public static final String BOOK_QUERY_ONE = "Book with ID %s found";
+
+    public static final String BOOK_CACHE_STATS = "Book cache statistics";
+
+    public static final String CIRCULATION_STATS = "Circulation statistics";
+
+    public static final String AUTHOR_CIRCULATION_STATS = "Circulation statistics of author %s";
+
     public static final String BOOK_CREATE_SUCCESS = "Book is created successfully";
 
     public static final String BOOK_UPDATE_SUCCESS = "Book ID %s is updated successfully";
@@ -14,4 +22,44 @@ public class ApiConstant {
 
     public static final String BOOK_RETURN_SUCCESS = "Book with ID %s is returned successfully.";
 
+    public static final String BOOK_IMPORT_RESULT = "Imported %d of %d book(s) in %d chunk(s), %d chunk(s) failed";
+
+    public static final String BOOK_BATCH_RESULT = "%d of %d book(s) processed successfully";
+
+    public static final String BOOK_SNAPSHOT_RESULT = "Snapshot of %d book(s) written to %s";
+
+    public static final String SHARD_IMPORT_RESULT = "Stored %d book(s) moved from another shard";
+
+    public static final String SHARD_DELETE_RESULT = "Removed %d book(s) moved to another shard";
+
+    public static final String SHARD_MAP = "%d partition(s) over %d shard(s)";
+
+    public static final String SHARD_REBALANCE_RESULT = "Moved %d partition(s) to %s";
+
+    public static final String COPY_QUERY_ONE = "Copy with barcode %s found";
+
+    public static final String COPY_QUERY_ALL = "Total of %d copies of book with ID %s found";
+
+    public static final String COPY_REGISTER_SUCCESS = "Copy with barcode %s of book with ID %s is registered successfully";
+
+    public static final String COPY_REMOVED_SUCCESS = "Copy with barcode %s is removed successfully";
+
+    public static final String COPY_CHECKOUT_SUCCESS = "Copy with barcode %s of book with ID %s is checked out successfully";
+
+    public static final String COPY_RETURN_SUCCESS = "Copy with barcode %s of book with ID %s is returned successfully";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public static final int MAX_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    public static final int DEFAULT_STATS_TOP = 10;
+
+    public static final int MAX_STATS_TOP = 100;
+
 }
@@ -0,0 +1,14 @@
+package com.library.constant;
+
+public enum BatchMode {
+
+    /**
+     * Every item must succeed; the first failure rolls back the whole batch.
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * Every item is attempted; successful items are committed even if others fail.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,8 @@
+package com.library.constant;
+
+public enum CirculationOperation {
+
+    BORROW,
+
+    RETURN
+}
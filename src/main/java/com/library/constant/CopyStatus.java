@@ -0,0 +1,14 @@
+package com.library.constant;
+
+public enum CopyStatus {
+
+    /**
+     * On the shelf, counted among the available copies of its book.
+     */
+    AVAILABLE,
+
+    /**
+     * Checked out, counted among the borrowed copies of its book.
+     */
+    BORROWED
+}
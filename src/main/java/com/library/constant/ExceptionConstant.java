@@ -7,4 +7,48 @@ public class ExceptionConstant {
     public final static String NO_AVAILABLE_COPIES = "No available copies of book with ID %s to borrow";
 
     public final static String NO_BORROWED_COPIES = "No borrowed copies of book with ID %s to return";
+
+    public final static String UNSUPPORTED_FORMAT = "Unsupported format %s";
+
+    public final static String IMPORT_CHUNK_FAILED = "Records %d to %d could not be stored and were rolled back, check that every book is valid";
+
+    public final static String IMPORT_BODY_UNREADABLE = "The body could not be read from record %d on, nothing after it was imported";
+
+    public final static String INVALID_BATCH = "A batch needs an operation and between 1 and %d book ID(s)";
+
+    public final static String BATCH_ROLLED_BACK = "Batch rolled back: %s";
+
+    public final static String BATCH_ITEM_ROLLED_BACK = "Book with ID %s was not processed because the batch was rolled back";
+
+    public final static String TOO_MANY_REQUESTS = "Request rate limit exceeded, retry in %d second(s)";
+
+    public final static String SERVICE_OVERLOADED = "Too many %s requests in progress, try again shortly";
+
+    public final static String FEED_FULL = "The availability feed already has %d subscriber(s), try again shortly";
+
+    public final static String SHARD_UNAVAILABLE = "Shard %s is unavailable";
+
+    public final static String PARTITION_MOVING = "Book ID %s is being moved to another shard, try again shortly";
+
+    public final static String INVALID_PARTITION = "Partition %d is not between 0 and %d";
+
+    public final static String INVALID_SHARD_NODE = "Node %s cannot be added to shards %s";
+
+    public final static String PARTITION_HAS_COPIES = "Partitions %s hold registered copies, which stay on their node and cannot be moved";
+
+    public final static String COPY_NOT_FOUND = "Copy with barcode %s not found";
+
+    public final static String COPY_NOT_AVAILABLE = "Copy with barcode %s is not available to check out";
+
+    public final static String COPY_NOT_BORROWED = "Copy with barcode %s is not checked out";
+
+    public final static String COPY_BORROWED = "Copy with barcode %s is checked out and cannot be removed";
+
+    public final static String INVALID_BARCODE = "Barcode %s is not a positive number";
+
+    public final static String DUPLICATE_BARCODE = "Barcode %s is already registered";
+
+    public final static String COPIES_EXCEED_TOTAL = "Book with ID %s has %d registered copies, more than %d total copies";
+
+    public final static String CONCURRENT_UPDATE = "The book was changed by another request, reload it and try again";
 }
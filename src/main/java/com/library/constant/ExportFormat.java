@@ -0,0 +1,40 @@
+package com.library.constant;
+
+import java.util.Arrays;
+
+public enum ExportFormat {
+
+    NDJSON("ndjson", "application/x-ndjson"),
+
+    CSV("csv", "text/csv");
+
+    private final String extension;
+
+    private final String mediaType;
+
+    ExportFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Resolves a format from its file extension, ignoring case.
+     *
+     * @param value the requested format, e.g. {@code ndjson} or {@code csv}
+     * @return the matching format, or null if none matches
+     */
+    public static ExportFormat fromExtension(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(value))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -5,4 +5,80 @@ public class TestConstant {
     public final static String BOOK_TITLE_MATCH = "The title of the book should match the expected value";
 
     public final static String RETURN_BOOK_SHOULD_NOT_NULL = "The returned book should not be null";
+
+    public final static String BORROWED_COPIES_MATCH = "The borrowed copies should match the number of successful operations";
+
+    public final static String NO_OVER_BORROWING = "Successful borrows should never exceed the total copies";
+
+    public final static String EXPORT_ROW_COUNT_MATCH = "Every book should be exported exactly once";
+
+    public final static String PERSISTENCE_CONTEXT_BOUNDED = "Exported books should be detached as they are written";
+
+    public final static String IMPORTED_COUNT_MATCH = "The number of imported books should match the committed chunks";
+
+    public final static String CACHE_NOT_STALE = "The cache should never serve a value older than the last committed write";
+
+    public final static String SEARCH_RANKING_MATCH = "Search hits should be ranked by relevance";
+
+    public final static String METRIC_COUNT_MATCH = "Every operation should be recorded once under its outcome";
+
+    public final static String VIRTUAL_THREAD_EXECUTION = "Requests should be handled on virtual threads when the profile is active";
+
+    public final static String LEDGER_FLUSHED = "Every ledger change should reach the database once flushed";
+
+    public final static String NO_FALSE_NEGATIVES = "Every existing book ID should be reported as possibly present";
+
+    public final static String FALSE_POSITIVE_RATE_BOUNDED = "Missing IDs should rarely be reported as present";
+
+    public final static String ENVELOPE_BYTES_MATCH = "The response envelope should be written exactly as the ObjectMapper writes it";
+
+    public final static String ENVELOPE_CONVERTER_USED = "Response envelopes should be written by the envelope converter";
+
+    public final static String BOOK_VERSION_MATCH = "The version should move once per write to the book";
+
+    public final static String NOT_MODIFIED_WITHOUT_QUERY = "An unchanged catalog should be answered with 304 without reading it";
+
+    public final static String JOURNAL_REPLAY_MATCH = "Replaying the journal should yield every durable record exactly once";
+
+    public final static String GROUP_COMMIT_BATCHED = "One group commit should force the records of several appenders";
+
+    public final static String JOURNAL_RECOVERED = "Recovery should keep every complete record and drop the torn tail";
+
+    public final static String COMPACTION_KEEPS_BALANCE = "Compaction should not change the borrowed copies rebuilt from the journal";
+
+    public final static String STATS_MATCH_CATALOG = "Incrementally maintained statistics should match the catalog they describe";
+
+    public final static String QUERY_USES_INDEX = "The query should be planned on its secondary index instead of a table scan";
+
+    public final static String ROW_NOT_MANAGED = "Books read as rows should not be managed, so changing them should not be written back";
+
+    public final static String MIGRATION_MATCH_ENTITY = "The schema migrations should create the indexes the entity declares";
+
+    public final static String SNAPSHOT_RESTORED = "Restoring a snapshot should bring back every book exactly and move the ID sequence past them";
+
+    public final static String ADMISSION_LIMIT_ADAPTS = "The concurrency limit should settle near what the service can serve without queueing";
+
+    public final static String ADMISSION_WRITES_KEEP_HEADROOM = "Reads should be refused at their share of the limit while writes are still admitted";
+
+    public final static String FEED_DELTAS_COALESCED = "Every change since the last publish should arrive as one event with a single delta per book";
+
+    public final static String FEED_RESUMED = "A subscriber should resume from its last event ID, or be told to reload when that position is lost";
+
+    public final static String SHARD_BOOKS_ON_OWNER = "Every book should be stored on the node owning its partition";
+
+    public final static String SHARD_PAGES_MERGED = "Paging through the router should return every book of every node once, in ID order";
+
+    public final static String SHARD_REBALANCE_MOVES_SHARE = "Adding a node should move its share of the partitions without losing or duplicating a book";
+
+    public final static String ENCODINGS_CARRY_SAME_RESULT = "Every negotiated encoding should carry the same books as the JSON response";
+
+    public final static String COMPRESSED_ABOVE_THRESHOLD = "Responses should be compressed with the accepted encoding above the minimum size, and only then";
+
+    public final static String BARCODE_INDEX_MATCHES_COPIES = "The barcode index should resolve every registered copy to its book and nothing else";
+
+    public final static String COPY_COUNTS_CONSISTENT = "The copies and borrowed copies of a book should account for its registered copies and their status";
+
+    public final static String SHARD_COPIES_STAY = "Partitions holding registered copies should stay on their node with their books and copies";
+
+    public final static String SINGLE_CHECKOUT_PER_COPY = "Concurrent scans of one copy should check it out exactly once";
 }
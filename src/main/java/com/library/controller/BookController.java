@@ -1,10 +1,31 @@
 package com.library.controller;
 
+import com.library.api.AuthorCirculation;
+import com.library.api.BatchCirculationRequest;
+import com.library.api.BatchItemResult;
+import com.library.api.BookCacheStats;
+import com.library.api.BookPage;
+import com.library.api.CirculationSummary;
+import com.library.api.ImportChunkResult;
 import com.library.api.ResponseResult;
+import com.library.api.SnapshotResult;
+import com.library.cache.CatalogVersion;
 import com.library.constant.ApiConstant;
+import com.library.constant.ExportFormat;
 import com.library.entity.Book;
+import com.library.exception.UnsupportedFormatException;
+import com.library.feed.AvailabilityFeed;
+import com.library.service.BookExportService;
+import com.library.service.BookImportService;
+import com.library.service.BookSearchService;
 import com.library.service.BookService;
+import com.library.service.BookSnapshotService;
+import com.library.service.BookStatsService;
+import com.library.util.CoarseClock;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,12 +33,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
+import static com.library.constant.ExceptionConstant.UNSUPPORTED_FORMAT;
 import static com.library.util.BookUtils.getFormattedMessage;
 
 /**
@@ -25,39 +53,312 @@ import static com.library.util.BookUtils.getFormattedMessage;
  * <p>
  * This controller provides endpoints for fetching, saving, updating, deleting, and borrowing/returning books.
  * </p>
+ * <p>
+ * Responses are written in the encoding the client accepts, JSON by default, by
+ * {@link com.library.api.ResponseEnvelopeConverter} and {@link com.library.encoding.BinaryFormatsConfig}, and
+ * compressed by {@link com.library.encoding.ResponseCompressionFilter}.
+ * </p>
+ * <p>
+ * A shard router serves the same paths from its nodes with {@link ShardRouterController} instead.
+ * </p>
  */
 @RestController
 @RequestMapping("/api/books")
+@Profile("!router")
 public class BookController {
 
     private final BookService bookService;
 
+    private final BookExportService bookExportService;
+
+    private final BookImportService bookImportService;
+
+    private final BookSearchService bookSearchService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final BookStatsService bookStatsService;
+
+    private final BookSnapshotService bookSnapshotService;
+
+    private final AvailabilityFeed availabilityFeed;
+
     /**
-     * Constructs a new BookController with the given BookService.
+     * Constructs a new BookController with the given services.
      *
-     * @param bookService the BookService used to perform book-related operations
+     * @param bookService       the BookService used to perform book-related operations
+     * @param bookExportService the BookExportService used to stream the catalog
+     * @param bookImportService the BookImportService used to load books in bulk
+     * @param bookSearchService the BookSearchService used to search titles and authors
+     * @param catalogVersion    the CatalogVersion conditional requests are answered from
+     * @param bookStatsService    the BookStatsService used to report circulation statistics
+     * @param bookSnapshotService the BookSnapshotService used to snapshot the catalog
+     * @param availabilityFeed    the AvailabilityFeed availability changes are streamed from
      */
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookExportService bookExportService,
+                          BookImportService bookImportService, BookSearchService bookSearchService,
+                          CatalogVersion catalogVersion, BookStatsService bookStatsService,
+                          BookSnapshotService bookSnapshotService, AvailabilityFeed availabilityFeed) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
+        this.bookImportService = bookImportService;
+        this.bookSearchService = bookSearchService;
+        this.catalogVersion = catalogVersion;
+        this.bookStatsService = bookStatsService;
+        this.bookSnapshotService = bookSnapshotService;
+        this.availabilityFeed = availabilityFeed;
     }
 
     /**
      * Fetches all books in the library.
+     * <p>
+     * The response carries the ETag and Last-Modified of the catalog. A poll with a matching
+     * {@code If-None-Match} (or, without one, {@code If-Modified-Since}) is answered with 304 Not Modified
+     * without reading the catalog.
+     * </p>
      *
-     * @return a list of all books
+     * @param request the current request, checked for conditional headers
+     * @return a list of all books, or null when the client's copy is current
      */
     @GetMapping("/get")
-    public ResponseEntity<ResponseResult> getAllBooks() {
+    public ResponseEntity<ResponseResult> getAllBooks(WebRequest request) {
+        if (request.checkNotModified(catalogVersion.catalogETag(), catalogVersion.lastModified())) {
+            return null;
+        }
         List<Book> bookList = bookService.findAllBooks();
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
-                .responseMessage(getFormattedMessage(ApiConstant.BOOK_QUERY_ALL, bookList.size()))
-                .timestamp(LocalDateTime.now())
+                .responseMessage(ApiConstant.BOOK_QUERY_ALL, bookList.size())
+                .timestamp(CoarseClock.now())
                 .queryResult(bookList)
                 .build();
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Fetches one page of books using keyset pagination on the book ID.
+     * <p>
+     * Pass the {@code next_cursor} of a response as {@code cursor} to fetch the following page; it is
+     * omitted on the last page. Every page costs the same regardless of how deep the client is.
+     * </p>
+     *
+     * @param cursor  the ID of the last book on the previous page, omitted for the first page
+     * @param size    the number of books per page, capped at {@link ApiConstant#MAX_PAGE_SIZE}
+     * @param author  optional exact author filter
+     * @param title   optional title prefix filter
+     * @param request the current request, checked for conditional headers like {@link #getAllBooks}
+     * @return a page of books and the cursor of the following page, or null when the client's copy is current
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ResponseResult> getBooksPage(@RequestParam(required = false) Long cursor,
+                                                       @RequestParam(required = false) Integer size,
+                                                       @RequestParam(required = false) String author,
+                                                       @RequestParam(required = false) String title,
+                                                       WebRequest request) {
+        if (request.checkNotModified(catalogVersion.catalogETag(), catalogVersion.lastModified())) {
+            return null;
+        }
+        return pageResult(bookService.findBooksPage(cursor, size, author, title));
+    }
+
+    /**
+     * Fetches books by author, served by the author index instead of a scan of the catalog.
+     * <p>
+     * An exact match is paged like {@link #getBooksPage}. With {@code prefix}, the first books whose author
+     * starts with {@code name} are returned in author order, without a cursor, for type-ahead.
+     * </p>
+     *
+     * @param name      the author, or the start of it with {@code prefix}
+     * @param prefix    whether to match authors starting with {@code name}
+     * @param available whether to return only books with a copy available
+     * @param cursor    the ID of the last book on the previous page of an exact match, omitted for the first page
+     * @param size      the number of books per page, capped at {@link ApiConstant#MAX_PAGE_SIZE}
+     * @param request   the current request, checked for conditional headers like {@link #getAllBooks}
+     * @return the matching books and the cursor of the following page, or null when the client's copy is current
+     */
+    @GetMapping("/by-author")
+    public ResponseEntity<ResponseResult> getBooksByAuthor(@RequestParam String name,
+                                                           @RequestParam(defaultValue = "false") boolean prefix,
+                                                           @RequestParam(defaultValue = "false") boolean available,
+                                                           @RequestParam(required = false) Long cursor,
+                                                           @RequestParam(required = false) Integer size,
+                                                           WebRequest request) {
+        if (request.checkNotModified(catalogVersion.catalogETag(), catalogVersion.lastModified())) {
+            return null;
+        }
+        return pageResult(bookService.findBooksByAuthor(name, prefix, available, cursor, size));
+    }
+
+    /**
+     * Fetches books by title, served by the title index, like {@link #getBooksByAuthor}.
+     *
+     * @param name      the title, or the start of it with {@code prefix}
+     * @param prefix    whether to match titles starting with {@code name}
+     * @param available whether to return only books with a copy available
+     * @param cursor    the ID of the last book on the previous page of an exact match, omitted for the first page
+     * @param size      the number of books per page, capped at {@link ApiConstant#MAX_PAGE_SIZE}
+     * @param request   the current request, checked for conditional headers like {@link #getAllBooks}
+     * @return the matching books and the cursor of the following page, or null when the client's copy is current
+     */
+    @GetMapping("/by-title")
+    public ResponseEntity<ResponseResult> getBooksByTitle(@RequestParam String name,
+                                                          @RequestParam(defaultValue = "false") boolean prefix,
+                                                          @RequestParam(defaultValue = "false") boolean available,
+                                                          @RequestParam(required = false) Long cursor,
+                                                          @RequestParam(required = false) Integer size,
+                                                          WebRequest request) {
+        if (request.checkNotModified(catalogVersion.catalogETag(), catalogVersion.lastModified())) {
+            return null;
+        }
+        return pageResult(bookService.findBooksByTitle(name, prefix, available, cursor, size));
+    }
+
+    /**
+     * Searches book titles and authors. Every query term must match a whole word or the start of a word,
+     * ignoring case and accents; results are ranked by relevance.
+     *
+     * @param q     the free-text query, e.g. {@code "dune herb"}
+     * @param limit the maximum number of books to return, capped at {@link ApiConstant#MAX_SEARCH_LIMIT}
+     * @return the matching books, most relevant first
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ResponseResult> searchBooks(@RequestParam String q,
+                                                      @RequestParam(required = false) Integer limit) {
+        List<Book> books = bookSearchService.searchBooks(q, limit);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_QUERY_ALL, books.size())
+                .timestamp(CoarseClock.now())
+                .queryResult(books)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Exports the whole catalog as NDJSON (one book per line) or CSV.
+     * <p>
+     * Rows are streamed from a database cursor straight to the response body, so memory use does not
+     * depend on catalog size. The body is written on an async request thread.
+     * </p>
+     *
+     * @param format the export format, {@code ndjson} (default) or {@code csv}
+     * @return a streaming response body containing every book
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromExtension(format);
+        if (exportFormat == null) {
+            throw new UnsupportedFormatException(getFormattedMessage(UNSUPPORTED_FORMAT, format));
+        }
+        StreamingResponseBody body = outputStream -> bookExportService.exportBooks(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + exportFormat.getExtension())
+                .body(body);
+    }
+
+    /**
+     * Streams availability changes as Server-Sent Events, for displays that would otherwise poll the catalog.
+     * <p>
+     * The stream opens with a {@code ready} event carrying the last sequence number published. Each
+     * {@code availability} event then holds the latest counts of every book changed since the previous one,
+     * with the last sequence number in it as its ID. A client reconnecting with {@code Last-Event-ID}, or with
+     * {@code since}, first gets the changes it missed, or a {@code reset} event if they are no longer kept, after
+     * which it should reload the catalog.
+     * </p>
+     *
+     * @param lastEventId the ID of the last event the client received, sent by EventSource when reconnecting
+     * @param since       the last sequence number the client has, for clients that cannot set the header
+     * @return the emitter the events are sent through
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                         @RequestParam(required = false) Long since) {
+        return availabilityFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Fetches a single book by its ID.
+     * <p>
+     * The response carries the ETag of the book, and a matching {@code If-None-Match} is answered with
+     * 304 Not Modified. The book itself usually comes from the cache, so such a poll costs no query.
+     * </p>
+     *
+     * @param id      the ID of the book to fetch
+     * @param request the current request, checked for conditional headers
+     * @return a ResponseEntity containing the book, or null when the client's copy is current
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ResponseResult> getBook(@PathVariable Long id, WebRequest request) {
+        long lastModified = catalogVersion.lastModified();
+        Book book = bookService.findBookById(id);
+        if (request.checkNotModified(CatalogVersion.bookETag(book), lastModified)) {
+            return null;
+        }
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_QUERY_ONE, id)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(book))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches the hit, miss and eviction statistics of the book lookup cache.
+     *
+     * @return a ResponseEntity containing the cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ResponseResult> getCacheStats() {
+        BookCacheStats stats = bookService.getCacheStats();
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_CACHE_STATS)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(stats))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches the circulation statistics of the whole catalog, kept current as books change, so the cost
+     * does not depend on the size of the catalog.
+     *
+     * @param top the number of hottest titles, busiest authors and fully borrowed titles to list, capped at
+     *            {@link ApiConstant#MAX_STATS_TOP}
+     * @return a ResponseEntity containing the circulation summary
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ResponseResult> getCirculationStats(@RequestParam(required = false) Integer top) {
+        CirculationSummary summary = bookStatsService.getCirculationSummary(top);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.CIRCULATION_STATS)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(summary))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches the circulation statistics of the titles by one author.
+     *
+     * @param name the exact author
+     * @return a ResponseEntity containing the author's copies owned and borrowed and their utilization
+     */
+    @GetMapping("/stats/author")
+    public ResponseEntity<ResponseResult> getAuthorCirculationStats(@RequestParam String name) {
+        AuthorCirculation stats = bookStatsService.getAuthorCirculation(name);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.AUTHOR_CIRCULATION_STATS, name)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(stats))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Saves a new book in the library.
      *
@@ -70,7 +371,54 @@ public class BookController {
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
                 .responseMessage(ApiConstant.BOOK_CREATE_SUCCESS)
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Saves many new books in one request, committing them in chunks with batched inserts.
+     * <p>
+     * The body is a JSON array of books or NDJSON with one book per line, and is parsed as it arrives.
+     * The response reports every chunk; a failed chunk is rolled back on its own.
+     * </p>
+     *
+     * @param body      the request body containing the books
+     * @param chunkSize optional number of books per transaction
+     * @return a ResponseEntity containing the outcome of every chunk
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ResponseResult> addBooks(InputStream body,
+                                                   @RequestParam(required = false) Integer chunkSize) throws IOException {
+        List<ImportChunkResult> chunks = bookImportService.importBooks(body, chunkSize);
+        long records = chunks.stream().mapToLong(ImportChunkResult::records).sum();
+        long imported = chunks.stream().mapToLong(ImportChunkResult::imported).sum();
+        long failed = chunks.stream().filter(chunk -> !chunk.succeeded()).count();
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_IMPORT_RESULT, imported, records, chunks.size(), failed)
+                .timestamp(CoarseClock.now())
+                .queryResult(chunks)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Writes the whole catalog to the snapshot file, which is restored into an empty database at startup when
+     * {@code library.snapshot.restore-on-startup} is set.
+     *
+     * @return a ResponseEntity containing the number of books written, the snapshot size and the time taken
+     * @throws IOException if the snapshot cannot be written
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<ResponseResult> takeSnapshot() throws IOException {
+        SnapshotResult snapshot = bookSnapshotService.takeSnapshot();
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_SNAPSHOT_RESULT, snapshot.books(), snapshot.file())
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(snapshot))
                 .build();
         return ResponseEntity.ok(result);
     }
@@ -87,8 +435,8 @@ public class BookController {
         bookService.updateBook(id, updatedBook);
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
-                .responseMessage(getFormattedMessage(ApiConstant.BOOK_UPDATE_SUCCESS, id))
-                .timestamp(LocalDateTime.now())
+                .responseMessage(ApiConstant.BOOK_UPDATE_SUCCESS, id)
+                .timestamp(CoarseClock.now())
                 .build();
         return ResponseEntity.ok(result);
     }
@@ -104,8 +452,8 @@ public class BookController {
         bookService.deleteBook(id);
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
-                .responseMessage(getFormattedMessage(ApiConstant.BOOK_DELETED_SUCCESS, id))
-                .timestamp(LocalDateTime.now())
+                .responseMessage(ApiConstant.BOOK_DELETED_SUCCESS, id)
+                .timestamp(CoarseClock.now())
                 .build();
         return ResponseEntity.ok(result);
     }
@@ -121,8 +469,8 @@ public class BookController {
         bookService.borrowBook(id);
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
-                .responseMessage(getFormattedMessage(ApiConstant.BOOK_BORROW_SUCCESS, id))
-                .timestamp(LocalDateTime.now())
+                .responseMessage(ApiConstant.BOOK_BORROW_SUCCESS, id)
+                .timestamp(CoarseClock.now())
                 .build();
         return ResponseEntity.ok(result);
     }
@@ -138,8 +486,43 @@ public class BookController {
         bookService.returnBook(id);
         ResponseResult result = new ResponseResult.Builder()
                 .statusCode(HttpStatus.OK.value())
-                .responseMessage(getFormattedMessage(ApiConstant.BOOK_RETURN_SUCCESS, id))
-                .timestamp(LocalDateTime.now())
+                .responseMessage(ApiConstant.BOOK_RETURN_SUCCESS, id)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Borrows or returns several books in one transaction, e.g. a whole kiosk checkout.
+     * <p>
+     * Each book gets the outcome the single-book endpoint would have returned. An all-or-nothing batch
+     * (the default) answers with the failing book's status and commits nothing; a best-effort batch
+     * commits every book that succeeded.
+     * </p>
+     *
+     * @param request the operation, the book IDs and the batch mode
+     * @return a ResponseEntity containing the outcome of every book
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ResponseResult> processBatch(@RequestBody BatchCirculationRequest request) {
+        List<BatchItemResult> results = bookService.processBatch(request.operation(), request.ids(), request.mode());
+        long succeeded = results.stream().filter(item -> item.statusCode() == HttpStatus.OK.value()).count();
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_BATCH_RESULT, succeeded, results.size())
+                .timestamp(CoarseClock.now())
+                .queryResult(results)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    private static ResponseEntity<ResponseResult> pageResult(BookPage page) {
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_QUERY_ALL, page.books().size())
+                .timestamp(CoarseClock.now())
+                .queryResult(page.books())
+                .nextCursor(page.nextCursor())
                 .build();
         return ResponseEntity.ok(result);
     }
@@ -0,0 +1,171 @@
+package com.library.controller;
+
+import com.library.api.ResponseResult;
+import com.library.constant.ApiConstant;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.service.BookCopyService;
+import com.library.util.CoarseClock;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for the physical copies of books, identified by the barcode on their label.
+ * <p>
+ * This controller provides endpoints for registering and removing copies, looking them and their books up by
+ * barcode, and checking them out and returning them at a circulation desk.
+ * </p>
+ * <p>
+ * Copies are kept by the node they were registered on and are not served by a shard router.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api")
+@Profile("!router")
+public class BookCopyController {
+
+    private final BookCopyService bookCopyService;
+
+    /**
+     * Constructs a new BookCopyController with the given service.
+     *
+     * @param bookCopyService the BookCopyService used to perform copy-related operations
+     */
+    public BookCopyController(BookCopyService bookCopyService) {
+        this.bookCopyService = bookCopyService;
+    }
+
+    /**
+     * Registers a new copy of a book, adding it to the book's total copies.
+     *
+     * @param id   the ID of the book
+     * @param copy the copy with its barcode and location
+     * @return a ResponseEntity containing the registered copy
+     */
+    @PostMapping("/books/{id}/copies")
+    public ResponseEntity<ResponseResult> registerCopy(@PathVariable Long id, @RequestBody BookCopy copy) {
+        BookCopy registered = bookCopyService.registerCopy(id, copy);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_REGISTER_SUCCESS, registered.getBarcode(), id)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(registered))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches the registered copies of a book in barcode order.
+     *
+     * @param id the ID of the book
+     * @return a ResponseEntity containing the copies of the book
+     */
+    @GetMapping("/books/{id}/copies")
+    public ResponseEntity<ResponseResult> getCopiesOfBook(@PathVariable Long id) {
+        List<BookCopy> copies = bookCopyService.findCopiesOfBook(id);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_QUERY_ALL, copies.size(), id)
+                .timestamp(CoarseClock.now())
+                .queryResult(copies)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches a copy by its barcode.
+     *
+     * @param barcode the barcode of the copy
+     * @return a ResponseEntity containing the copy
+     */
+    @GetMapping("/copies/{barcode}")
+    public ResponseEntity<ResponseResult> getCopy(@PathVariable long barcode) {
+        BookCopy copy = bookCopyService.findCopy(barcode);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_QUERY_ONE, barcode)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(copy))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Fetches the book a copy belongs to, as scanned at a circulation desk.
+     *
+     * @param barcode the barcode of the copy
+     * @return a ResponseEntity containing the book
+     */
+    @GetMapping("/copies/{barcode}/book")
+    public ResponseEntity<ResponseResult> getBookByBarcode(@PathVariable long barcode) {
+        Book book = bookCopyService.findBookByBarcode(barcode);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_QUERY_ONE, book.getId())
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(book))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Checks a copy out by its barcode, borrowing its book.
+     *
+     * @param barcode the barcode of the copy
+     * @return a ResponseEntity containing the result of the operation
+     */
+    @PostMapping("/copies/{barcode}/checkout")
+    public ResponseEntity<ResponseResult> checkoutCopy(@PathVariable long barcode) {
+        long bookId = bookCopyService.checkoutCopy(barcode);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_CHECKOUT_SUCCESS, barcode, bookId)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Returns a checked-out copy by its barcode, returning its book.
+     *
+     * @param barcode the barcode of the copy
+     * @return a ResponseEntity containing the result of the operation
+     */
+    @PostMapping("/copies/{barcode}/return")
+    public ResponseEntity<ResponseResult> returnCopy(@PathVariable long barcode) {
+        long bookId = bookCopyService.returnCopy(barcode);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_RETURN_SUCCESS, barcode, bookId)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Removes an available copy, taking it off its book's total copies.
+     *
+     * @param barcode the barcode of the copy
+     * @return a ResponseEntity containing the result of the operation
+     */
+    @DeleteMapping("/copies/{barcode}")
+    public ResponseEntity<ResponseResult> removeCopy(@PathVariable long barcode) {
+        bookCopyService.removeCopy(barcode);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.COPY_REMOVED_SUCCESS, barcode)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.controller;
+
+import com.library.api.ResponseResult;
+import com.library.constant.ApiConstant;
+import com.library.entity.Book;
+import com.library.service.BookShardService;
+import com.library.util.CoarseClock;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * REST controller for the requests the shard router makes to a node: creating books in a partition and moving
+ * partitions between nodes. Clients use the router's {@code /api/books} endpoints instead.
+ */
+@RestController
+@RequestMapping("/api/shard")
+@Profile("!router")
+public class ShardController {
+
+    private final BookShardService bookShardService;
+
+    /**
+     * Constructs a new ShardController.
+     *
+     * @param bookShardService the BookShardService used to create and move books
+     */
+    public ShardController(BookShardService bookShardService) {
+        this.bookShardService = bookShardService;
+    }
+
+    /**
+     * Creates a book with an ID in the given partition, which the router picked among those this node owns.
+     *
+     * @param partition the partition of the new book's ID
+     * @param book      the book to be added
+     * @return a ResponseEntity containing the created book
+     */
+    @PostMapping("/partitions/{partition}/books")
+    public ResponseEntity<ResponseResult> addBook(@PathVariable int partition, @RequestBody Book book) {
+        Book created = bookShardService.createBook(partition, book);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_CREATE_SUCCESS)
+                .timestamp(CoarseClock.now())
+                .queryResult(List.of(created))
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams every book of the given partitions as a catalog snapshot, for the node they are moving to.
+     * Partitions that cannot move are refused before the response starts, so the router sees a 400.
+     *
+     * @param partitions the partitions to export
+     * @return a streaming response body containing the snapshot
+     */
+    @GetMapping(value = "/partitions", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPartitions(@RequestParam List<Integer> partitions) {
+        bookShardService.checkMovable(partitions);
+        StreamingResponseBody body = outputStream -> bookShardService.exportPartitions(partitions, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(body);
+    }
+
+    /**
+     * Stores the books of partitions moving to this node, sent as a catalog snapshot by the node they leave.
+     *
+     * @param body the snapshot
+     * @return a ResponseEntity containing the result of the operation
+     * @throws IOException if the snapshot cannot be read or is corrupt, in which case nothing is stored
+     */
+    @PostMapping(value = "/partitions", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ResponseResult> importBooks(InputStream body) throws IOException {
+        long books = bookShardService.importBooks(body);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.SHARD_IMPORT_RESULT, books)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Removes the books of partitions that have moved to another node.
+     *
+     * @param partitions the partitions to remove
+     * @return a ResponseEntity containing the result of the operation
+     */
+    @DeleteMapping("/partitions")
+    public ResponseEntity<ResponseResult> deletePartitions(@RequestParam List<Integer> partitions) {
+        long books = bookShardService.deletePartitions(partitions);
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.SHARD_DELETE_RESULT, books)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.ok(result);
+    }
+}
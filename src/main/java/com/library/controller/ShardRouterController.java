@@ -0,0 +1,228 @@
+package com.library.controller;
+
+import com.library.api.ResponseResult;
+import com.library.api.ShardSummary;
+import com.library.constant.ApiConstant;
+import com.library.shard.ShardMap;
+import com.library.shard.ShardRouter;
+import com.library.util.CoarseClock;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller of the shard router, which serves the book endpoints of {@link BookController} from the
+ * nodes the catalog is partitioned across, and manages the partitioning.
+ * <p>
+ * Requests for one book and new books are forwarded to the node that owns them, listings and searches are
+ * sent to every node and merged. Circulation batches, bulk imports, exports, snapshots, statistics and the
+ * availability feed are served by each node for its own books.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api")
+@Profile("router")
+public class ShardRouterController {
+
+    private final ShardRouter shardRouter;
+
+    /**
+     * Constructs a new ShardRouterController.
+     *
+     * @param shardRouter the ShardRouter requests are routed by
+     */
+    public ShardRouterController(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Fetches all books of every node, in ID order.
+     *
+     * @param request the current request, sent to every node
+     * @return a list of all books
+     */
+    @GetMapping("/books/get")
+    public ResponseEntity<?> getAllBooks(HttpServletRequest request) {
+        return shardRouter.gatherAll(request);
+    }
+
+    /**
+     * Fetches one page of books using keyset pagination on the book ID, merged from every node.
+     *
+     * @param size    the number of books per page
+     * @param request the current request, sent to every node with its cursor and filters
+     * @return a page of books and the cursor of the following page
+     */
+    @GetMapping("/books/page")
+    public ResponseEntity<?> getBooksPage(@RequestParam(required = false) Integer size, HttpServletRequest request) {
+        return shardRouter.gatherPage(request, size);
+    }
+
+    /**
+     * Fetches books by author from every node, merged by ID, or by author for a prefix.
+     *
+     * @param prefix  whether to match authors starting with the name
+     * @param size    the number of books per page
+     * @param request the current request, sent to every node with its parameters
+     * @return the matching books and, for an exact match, the cursor of the following page
+     */
+    @GetMapping("/books/by-author")
+    public ResponseEntity<?> getBooksByAuthor(@RequestParam(defaultValue = "false") boolean prefix,
+                                              @RequestParam(required = false) Integer size,
+                                              HttpServletRequest request) {
+        return prefix ? shardRouter.gatherOrdered(request, "author", size) : shardRouter.gatherPage(request, size);
+    }
+
+    /**
+     * Fetches books by title from every node, like {@link #getBooksByAuthor}.
+     *
+     * @param prefix  whether to match titles starting with the name
+     * @param size    the number of books per page
+     * @param request the current request, sent to every node with its parameters
+     * @return the matching books and, for an exact match, the cursor of the following page
+     */
+    @GetMapping("/books/by-title")
+    public ResponseEntity<?> getBooksByTitle(@RequestParam(defaultValue = "false") boolean prefix,
+                                             @RequestParam(required = false) Integer size,
+                                             HttpServletRequest request) {
+        return prefix ? shardRouter.gatherOrdered(request, "title", size) : shardRouter.gatherPage(request, size);
+    }
+
+    /**
+     * Searches book titles and authors on every node, interleaving their results by rank.
+     *
+     * @param limit   the maximum number of books to return
+     * @param request the current request, sent to every node with its query
+     * @return the matching books
+     */
+    @GetMapping("/books/search")
+    public ResponseEntity<?> searchBooks(@RequestParam(required = false) Integer limit, HttpServletRequest request) {
+        return shardRouter.gatherRanked(request, limit);
+    }
+
+    /**
+     * Fetches a single book from the node owning it, conditional requests included.
+     *
+     * @param id      the ID of the book to fetch
+     * @param request the current request
+     * @return the node's answer
+     */
+    @GetMapping("/books/{id}")
+    public ResponseEntity<byte[]> getBook(@PathVariable Long id, HttpServletRequest request) {
+        return shardRouter.forward(id, false, request, null);
+    }
+
+    /**
+     * Saves a new book on the node owning the next partition in turn.
+     *
+     * @param book    the book to be added, as sent
+     * @param request the current request
+     * @return the node's answer, containing the created book
+     */
+    @PostMapping("/books/save")
+    public ResponseEntity<byte[]> addBook(@RequestBody byte[] book, HttpServletRequest request) {
+        return shardRouter.create(request, book);
+    }
+
+    /**
+     * Updates a book on the node owning it.
+     *
+     * @param id          the ID of the book to be updated
+     * @param updatedBook the updated book details, as sent
+     * @param request     the current request
+     * @return the node's answer
+     */
+    @PutMapping("/books/{id}")
+    public ResponseEntity<byte[]> updateBook(@PathVariable Long id, @RequestBody byte[] updatedBook,
+                                             HttpServletRequest request) {
+        return shardRouter.forward(id, true, request, updatedBook);
+    }
+
+    /**
+     * Deletes a book on the node owning it.
+     *
+     * @param id      the ID of the book to be deleted
+     * @param request the current request
+     * @return the node's answer
+     */
+    @DeleteMapping("/books/{id}")
+    public ResponseEntity<byte[]> deleteBook(@PathVariable Long id, HttpServletRequest request) {
+        return shardRouter.forward(id, true, request, null);
+    }
+
+    /**
+     * Borrows a book on the node owning it.
+     *
+     * @param id      the ID of the book to be borrowed
+     * @param request the current request
+     * @return the node's answer
+     */
+    @PostMapping("/books/{id}/borrow")
+    public ResponseEntity<byte[]> borrowBook(@PathVariable Long id, HttpServletRequest request) {
+        return shardRouter.forward(id, true, request, null);
+    }
+
+    /**
+     * Returns a book on the node owning it.
+     *
+     * @param id      the ID of the book to be returned
+     * @param request the current request
+     * @return the node's answer
+     */
+    @PostMapping("/books/{id}/return")
+    public ResponseEntity<byte[]> returnBook(@PathVariable Long id, HttpServletRequest request) {
+        return shardRouter.forward(id, true, request, null);
+    }
+
+    /**
+     * Lists the nodes and the number of partitions each owns.
+     *
+     * @return a ResponseEntity containing every node
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<ResponseResult> getShards() {
+        ShardMap map = shardRouter.shardMap();
+        return shardsResult(map, ApiConstant.SHARD_MAP, map.partitions(), map.nodes().size());
+    }
+
+    /**
+     * Adds a node and moves to it its share of the partitions, holding off writes to each group of partitions
+     * while it moves. Posting a node already added finishes a move that failed.
+     *
+     * @param url the base URL of the node, e.g. {@code http://shard-3:8080}
+     * @return a ResponseEntity containing every node after the move
+     */
+    @PostMapping("/shards/nodes")
+    public ResponseEntity<ResponseResult> addNode(@RequestParam String url) {
+        List<Integer> moved = shardRouter.addNode(url);
+        return shardsResult(shardRouter.shardMap(), ApiConstant.SHARD_REBALANCE_RESULT, moved.size(), url);
+    }
+
+    private static ResponseEntity<ResponseResult> shardsResult(ShardMap map, String template, Object... args) {
+        List<ShardSummary> shards = new ArrayList<>();
+        List<Integer> counts = map.partitionCounts();
+        for (int node = 0; node < map.nodes().size(); node++) {
+            shards.add(new ShardSummary(map.nodes().get(node), counts.get(node)));
+        }
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(template, args)
+                .timestamp(CoarseClock.now())
+                .queryResult(shards)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+}
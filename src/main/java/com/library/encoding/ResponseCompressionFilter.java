@@ -0,0 +1,493 @@
+package com.library.encoding;
+
+import com.github.luben.zstd.ZstdOutputStreamNoFinalizer;
+import com.github.luben.zstd.util.Native;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses response bodies of at least a minimum size with the first of the configured encodings the client
+ * accepts, zstd or gzip, at a configurable level.
+ * <p>
+ * The body is held in memory until it reaches the minimum size, so the choice is made knowing whether it is
+ * worth compressing: smaller bodies are sent as they are, with their Content-Length. Only the configured media
+ * types are compressed, and never a body the application has already encoded. A compressed response drops its
+ * Content-Length, and a strong ETag becomes weak, since the bytes are no longer those it was computed for;
+ * {@code If-None-Match} still matches it.
+ * </p>
+ * <p>
+ * Bodies written after the request went asynchronous (catalog exports, the availability feed) are streamed
+ * as they are, since they outlive this filter and must not wait for a threshold.
+ * </p>
+ */
+@Component
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCompressionFilter.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean enabled;
+
+    private final int minResponseSize;
+
+    private final List<Encoding> encodings = new ArrayList<>();
+
+    private final List<MediaType> mimeTypes;
+
+    /**
+     * A content coding and how to wrap a stream in it.
+     */
+    private record Encoding(String name, Compressor compressor) {
+    }
+
+    @FunctionalInterface
+    private interface Compressor {
+
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Constructs a new ResponseCompressionFilter.
+     *
+     * @param enabled         whether responses are compressed at all
+     * @param minResponseSize the smallest body worth compressing
+     * @param encodings       the encodings offered, in order of preference, among {@code zstd} and {@code gzip}
+     * @param gzipLevel       the gzip level, from 1 (fastest) to 9 (smallest)
+     * @param zstdLevel       the zstd level, from 1 (fastest) to 19 (smallest), or negative for faster still
+     * @param mimeTypes       the media types compressed, wildcards included
+     */
+    public ResponseCompressionFilter(@Value("${library.compression.enabled:true}") boolean enabled,
+                                     @Value("${library.compression.min-response-size:2KB}") DataSize minResponseSize,
+                                     @Value("${library.compression.encodings:zstd,gzip}") String encodings,
+                                     @Value("${library.compression.gzip-level:6}") int gzipLevel,
+                                     @Value("${library.compression.zstd-level:3}") int zstdLevel,
+                                     @Value("${library.compression.mime-types:application/json,application/*+json,"
+                                             + "application/cbor,application/x-jackson-smile,application/x-ndjson,"
+                                             + "text/csv}") String mimeTypes) {
+        this.enabled = enabled;
+        this.minResponseSize = (int) Math.max(1, Math.min(minResponseSize.toBytes(), Integer.MAX_VALUE - 8));
+        this.mimeTypes = MediaType.parseMediaTypes(mimeTypes);
+        for (String name : StringUtils.commaDelimitedListToSet(encodings.toLowerCase(Locale.ROOT).replace(" ", ""))) {
+            switch (name) {
+                case "gzip" -> this.encodings.add(new Encoding(name, out -> new LeveledGzipOutputStream(out, gzipLevel)));
+                case "zstd" -> {
+                    if (zstdAvailable()) {
+                        this.encodings.add(new Encoding(name, out -> new ZstdOutputStreamNoFinalizer(out, zstdLevel)));
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unsupported response encoding: " + name);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || encodings.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Encoding encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressing = new CompressingResponse(request, response, encoding);
+        chain.doFilter(request, compressing);
+        if (request.isAsyncStarted()) {
+            compressing.release();
+        } else {
+            compressing.finish();
+        }
+    }
+
+    /**
+     * Returns the first encoding offered that the Accept-Encoding header accepts, explicitly or through
+     * {@code *}, or null if none is.
+     */
+    private Encoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        Map<String, Double> weights = new HashMap<>();
+        for (String coding : StringUtils.commaDelimitedListToStringArray(acceptEncoding)) {
+            String[] parts = coding.split(";");
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException ex) {
+                        weight = 0;
+                    }
+                }
+            }
+            weights.put(parts[0].trim().toLowerCase(Locale.ROOT), weight);
+        }
+        for (Encoding encoding : encodings) {
+            if (weights.getOrDefault(encoding.name(), weights.getOrDefault("*", 0.0)) > 0) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.includes(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean zstdAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (UnsatisfiedLinkError | RuntimeException ex) {
+            log.warn("zstd is not available on this platform, responses are not compressed with it: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+
+    private enum State {
+        BUFFERING, COMPRESSING, PASSING
+    }
+
+    /**
+     * Holds the body back until it reaches the minimum size, then either compresses it or passes it through.
+     * The Content-Length set by the application is held back too, and only applied to a body sent as is.
+     * <p>
+     * Once the request has gone asynchronous, the filter thread releasing the body may race the first write of
+     * the thread producing it, so leaving the buffering state is guarded by a lock. Later writes do not take it.
+     * </p>
+     */
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private final Encoding encoding;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+
+        private volatile State state = State.BUFFERING;
+
+        private OutputStream compressor;
+
+        private long contentLength = -1;
+
+        private CompressingOutputStream outputStream;
+
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletRequest request, HttpServletResponse response, Encoding encoding) {
+            super(response);
+            this.request = request;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (state == State.PASSING) {
+                super.setContentLengthLong(length);
+            } else {
+                contentLength = length;
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value == null ? -1 : Long.parseLong(value));
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            discard();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            discard();
+            super.sendError(status);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (state == State.BUFFERING) {
+                buffer.reset();
+                contentLength = -1;
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (state == State.BUFFERING) {
+                buffer.reset();
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (state != State.BUFFERING) {
+                if (compressor != null) {
+                    compressor.flush();
+                }
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called for this response");
+            }
+            if (outputStream == null) {
+                outputStream = new CompressingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called for this response");
+                }
+                outputStream = new CompressingOutputStream(super.getOutputStream());
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        /**
+         * Ends the body: a body still held back is sent as is with its length, a compressed one is terminated.
+         */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            lock.lock();
+            try {
+                if (state == State.BUFFERING) {
+                    if (buffer.size() > 0) {
+                        contentLength = buffer.size();
+                    }
+                    if (contentLength >= 0) {
+                        addVary();
+                    }
+                    pass();
+                } else if (state == State.COMPRESSING) {
+                    state = State.PASSING;
+                    compressor.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Sends what is held back as is and passes the rest of the body through, for a request gone asynchronous.
+         */
+        void release() throws IOException {
+            lock.lock();
+            try {
+                if (state == State.BUFFERING) {
+                    pass();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void pass() throws IOException {
+            state = State.PASSING;
+            if (contentLength >= 0) {
+                super.setContentLengthLong(contentLength);
+            }
+            if (buffer.size() > 0) {
+                buffer.writeTo(getResponse().getOutputStream());
+                buffer.reset();
+            }
+        }
+
+        private void discard() {
+            lock.lock();
+            try {
+                if (state == State.BUFFERING) {
+                    state = State.PASSING;
+                    buffer.reset();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Appends to the body held back, and decides how to send it once it has reached the minimum size or is
+         * written asynchronously.
+         */
+        private void buffer(byte[] b, int off, int len) throws IOException {
+            lock.lock();
+            try {
+                if (state != State.BUFFERING) {
+                    outputStream.write(b, off, len);
+                    return;
+                }
+                buffer.write(b, off, len);
+                if (buffer.size() < minResponseSize && !request.isAsyncStarted()) {
+                    return;
+                }
+                HttpServletResponse response = (HttpServletResponse) getResponse();
+                if (!isCompressible(response.getContentType()) || request.isAsyncStarted()
+                        || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+                    pass();
+                    return;
+                }
+                addVary();
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.name());
+                String eTag = response.getHeader(HttpHeaders.ETAG);
+                if (eTag != null && !eTag.startsWith("W/")) {
+                    response.setHeader(HttpHeaders.ETAG, "W/" + eTag);
+                }
+                compressor = encoding.compressor().wrap(response.getOutputStream());
+                state = State.COMPRESSING;
+                buffer.writeTo(compressor);
+                buffer.reset();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void addVary() {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (isCompressible(response.getContentType()) && response.getHeaders(HttpHeaders.VARY).stream()
+                    .noneMatch(vary -> vary.toLowerCase(Locale.ROOT).contains("accept-encoding"))) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+        }
+
+        private final class CompressingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            CompressingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                switch (state) {
+                    case BUFFERING -> buffer(b, off, len);
+                    case COMPRESSING -> compressor.write(b, off, len);
+                    case PASSING -> delegate.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // A body still held back is not sent early: its size decides how it is sent
+                switch (state) {
+                    case BUFFERING -> {
+                    }
+                    case COMPRESSING -> compressor.flush();
+                    case PASSING -> delegate.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
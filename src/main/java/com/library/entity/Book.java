@@ -1,17 +1,35 @@
 package com.library.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.library.cache.BookIdFilter;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.util.Objects;
 
+// The ID is the last index column so that lookups by author or title return rows in ID order for keyset
+// pagination. Availability compares two columns, which no index can seek on, so it is filtered on the rows
+// these indexes return
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_title", columnList = "title, id")
+})
+@EntityListeners(BookIdFilter.Listener.class)
 public class Book {
 
+    // A pooled sequence hands out IDs in blocks without a round-trip per insert, which lets
+    // Hibernate batch inserts; IDENTITY would force one INSERT statement per book
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -22,6 +40,28 @@ public class Book {
 
     private int borrowedCopies;
 
+    // Incremented by every write to the row, including the guarded circulation updates and ledger flushes,
+    // which update it in their own statements since bulk updates bypass Hibernate's versioning
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    public Book() {
+    }
+
+    /**
+     * Creates a book from the columns of a projection query. Books built this way are never managed by a
+     * persistence context, so loading them costs neither an entity snapshot nor a dirty check on flush.
+     */
+    public Book(Long id, String title, String author, int totalCopies, int borrowedCopies, long version) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.totalCopies = totalCopies;
+        this.borrowedCopies = borrowedCopies;
+        this.version = version;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -63,6 +103,14 @@ public class Book {
         this.borrowedCopies = borrowedCopies;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Book{" +
@@ -71,6 +119,7 @@ public class Book {
                 ", author='" + author + '\'' +
                 ", totalCopies=" + totalCopies +
                 ", borrowedCopies=" + borrowedCopies +
+                ", version=" + version +
                 '}';
     }
 
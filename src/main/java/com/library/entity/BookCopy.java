@@ -0,0 +1,141 @@
+package com.library.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.library.constant.CopyStatus;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+import org.springframework.data.domain.Persistable;
+
+// A physical copy of a book, identified by the barcode on its label. The barcode is the last index column so
+// that the copies of a book are listed in barcode order straight from the index
+@Entity
+@Table(indexes = @Index(name = "idx_book_copy_book", columnList = "bookId, barcode"))
+public class BookCopy implements Persistable<Long> {
+
+    // Assigned from the label rather than generated, so the copy is always inserted, never merged into a row
+    // that already holds the barcode
+    @Id
+    private long barcode;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private CopyStatus status;
+
+    private String location;
+
+    // Incremented by every write to the row, including the guarded status updates, which update it in their
+    // own statements since bulk updates bypass Hibernate's versioning
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
+    @Transient
+    private boolean isNew = true;
+
+    public BookCopy() {
+    }
+
+    public BookCopy(long barcode, long bookId, CopyStatus status, String location) {
+        this.barcode = barcode;
+        this.bookId = bookId;
+        this.status = status;
+        this.location = location;
+    }
+
+    // Getters and Setters
+    public long getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(long barcode) {
+        this.barcode = barcode;
+    }
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(long bookId) {
+        this.bookId = bookId;
+    }
+
+    public CopyStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CopyStatus status) {
+        this.status = status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    @JsonIgnore
+    public Long getId() {
+        return barcode;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String toString() {
+        return "BookCopy{" +
+                "barcode=" + barcode +
+                ", bookId=" + bookId +
+                ", status=" + status +
+                ", location='" + location + '\'' +
+                ", version=" + version +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        BookCopy copy = (BookCopy) o;
+
+        return barcode == copy.barcode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(barcode);
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.event;
+
+import com.library.entity.Book;
+
+import java.util.List;
+
+/**
+ * Published by the service layer whenever a book is created, changed, deleted, borrowed or returned.
+ * <p>
+ * Listeners that keep derived state (caches, indexes) should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener} so they only react once the
+ * change is committed.
+ * </p>
+ *
+ * @param type     what happened to the book
+ * @param bookId   the ID of the book
+ * @param book     the saved book for {@link ChangeType#CREATED} and {@link ChangeType#UPDATED}, otherwise null
+ * @param barcodes the barcodes of the copies deleted along with the book for {@link ChangeType#DELETED},
+ *                 otherwise empty
+ */
+public record BookChangedEvent(ChangeType type, Long bookId, Book book, List<Long> barcodes) {
+
+    public BookChangedEvent(ChangeType type, Long bookId, Book book) {
+        this(type, bookId, book, List.of());
+    }
+
+    public enum ChangeType {
+
+        CREATED,
+
+        /**
+         * The title, author or total copies changed. Borrowed copies only change through {@link #BORROWED} and
+         * {@link #RETURNED}, so listeners counting those keep their own count over the saved row's.
+         */
+        UPDATED,
+
+        DELETED,
+
+        BORROWED,
+
+        RETURNED
+    }
+
+    public static BookChangedEvent of(ChangeType type, Long bookId) {
+        return new BookChangedEvent(type, bookId, null);
+    }
+
+    public static BookChangedEvent deleted(Long bookId, List<Long> barcodes) {
+        return new BookChangedEvent(ChangeType.DELETED, bookId, null, List.copyOf(barcodes));
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.event;
+
+/**
+ * Published by the service layer whenever a copy is registered or removed. Checkouts and returns change the
+ * borrowed copies of the book and are announced as a {@link BookChangedEvent} of it.
+ *
+ * @param type    what happened to the copy
+ * @param barcode the barcode of the copy
+ * @param bookId  the ID of the book the copy belongs to
+ */
+public record BookCopyChangedEvent(ChangeType type, long barcode, long bookId) {
+
+    public enum ChangeType {
+
+        REGISTERED,
+
+        REMOVED
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.exception;
+
+import com.library.api.BatchItemResult;
+
+import java.util.List;
+
+/**
+ * Thrown when an all-or-nothing batch fails, so that its transaction is rolled back. Carries the
+ * per-book outcomes and the status of the item that failed.
+ */
+public class BatchRolledBackException extends RuntimeException {
+
+    private final int statusCode;
+
+    private final List<BatchItemResult> results;
+
+    public BatchRolledBackException(String message, int statusCode, List<BatchItemResult> results) {
+        super(message);
+        this.statusCode = statusCode;
+        this.results = results;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+}
@@ -2,6 +2,8 @@ package com.library.exception;
 
 public class BookNotFoundException extends RuntimeException {
     public BookNotFoundException(String message) {
-        super(message);
+        // Thrown for every lookup of a missing ID and always answered as a 404, so the stack trace is never
+        // read; skipping it saves walking and storing the stack on each one
+        super(message, null, false, false);
     }
 }
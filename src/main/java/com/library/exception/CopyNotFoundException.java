@@ -0,0 +1,8 @@
+package com.library.exception;
+
+public class CopyNotFoundException extends RuntimeException {
+    public CopyNotFoundException(String message) {
+        // Answered as a 404 like BookNotFoundException, for every scan of an unknown label
+        super(message, null, false, false);
+    }
+}
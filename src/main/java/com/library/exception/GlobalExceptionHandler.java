@@ -1,23 +1,44 @@
 package com.library.exception;
 
 import com.library.api.ResponseError;
+import com.library.api.ResponseResult;
+import com.library.util.CoarseClock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.time.LocalDateTime;
+import static com.library.constant.ExceptionConstant.CONCURRENT_UPDATE;
+
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    public static final String ERROR_COUNTER_NAME = "library.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new GlobalExceptionHandler.
+     *
+     * @param meterRegistry the MeterRegistry every handled error is counted in, by exception type and status
+     */
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(BookNotFoundException.class)
     public ResponseEntity<ResponseError> handleBookNotFoundException(BookNotFoundException ex) {
         HttpStatus status = HttpStatus.NOT_FOUND;
+        countError(ex, status.value());
         ResponseError errorResponse = new ResponseError.Builder()
                 .statusCode(status.value())
                 .responseMessage(ex.getMessage())
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.now())
                 .build();
         return ResponseEntity.status(status).body(errorResponse);
     }
@@ -25,13 +46,151 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(NoAvailableCopiesException.class)
     public ResponseEntity<ResponseError> handleNoAvailableCopiesException(NoAvailableCopiesException ex) {
         HttpStatus status = HttpStatus.CONFLICT;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @ExceptionHandler(UnsupportedFormatException.class)
+    public ResponseEntity<ResponseError> handleUnsupportedFormatException(UnsupportedFormatException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidBatchException.class)
+    public ResponseEntity<ResponseError> handleInvalidBatchException(InvalidBatchException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        countError(ex, status.value());
         ResponseError errorResponse = new ResponseError.Builder()
                 .statusCode(status.value())
                 .responseMessage(ex.getMessage())
-                .timestamp(LocalDateTime.now())
+                .timestamp(CoarseClock.now())
                 .build();
         return ResponseEntity.status(status).body(errorResponse);
     }
 
+    @ExceptionHandler(BatchRolledBackException.class)
+    public ResponseEntity<ResponseResult> handleBatchRolledBackException(BatchRolledBackException ex) {
+        countError(ex, ex.getStatusCode());
+        // Answer with the status of the book that failed, and keep the per-book outcomes
+        ResponseResult errorResponse = new ResponseResult.Builder()
+                .statusCode(ex.getStatusCode())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .queryResult(ex.getResults())
+                .build();
+        return ResponseEntity.status(ex.getStatusCode()).body(errorResponse);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ResponseError> handleTooManyRequestsException(TooManyRequestsException ex) {
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ResponseError> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<ResponseError> handleShardUnavailableException(ShardUnavailableException ex) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidShardRequestException.class)
+    public ResponseEntity<ResponseError> handleInvalidShardRequestException(InvalidShardRequestException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @ExceptionHandler(CopyNotFoundException.class)
+    public ResponseEntity<ResponseError> handleCopyNotFoundException(CopyNotFoundException ex) {
+        HttpStatus status = HttpStatus.NOT_FOUND;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidCopyRequestException.class)
+    public ResponseEntity<ResponseError> handleInvalidCopyRequestException(InvalidCopyRequestException ex) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(ex.getMessage())
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    /**
+     * Answers a write that lost a race on the version of a row with 409 instead of a server error.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ResponseError> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        HttpStatus status = HttpStatus.CONFLICT;
+        countError(ex, status.value());
+        ResponseError errorResponse = new ResponseError.Builder()
+                .statusCode(status.value())
+                .responseMessage(CONCURRENT_UPDATE)
+                .timestamp(CoarseClock.now())
+                .build();
+        return ResponseEntity.status(status).body(errorResponse);
+    }
+
+    private void countError(Exception ex, int status) {
+        Counter.builder(ERROR_COUNTER_NAME)
+                .description("Errors answered by the API")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status))
+                .register(meterRegistry)
+                .increment();
+    }
+
     // Add other exception handlers as needed
 }
@@ -0,0 +1,7 @@
+package com.library.exception;
+
+public class InvalidCopyRequestException extends RuntimeException {
+    public InvalidCopyRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.exception;
+
+public class InvalidShardRequestException extends RuntimeException {
+    public InvalidShardRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.exception;
+
+/**
+ * Thrown when a request is turned away because the service already has as many requests in progress as it
+ * can serve without queueing.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        // Thrown by the thousand exactly when the service is saturated and always answered as a 503, so no stack
+        // trace is filled in
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.exception;
+
+/**
+ * Thrown by the shard router when the node owning a request cannot be reached, or when its partition is being
+ * moved to another node and writes to it are held off until the move completes.
+ */
+public class ShardUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ShardUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
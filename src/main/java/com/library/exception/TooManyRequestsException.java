@@ -0,0 +1,20 @@
+package com.library.exception;
+
+/**
+ * Thrown when a client has used up its request rate and must wait before its next request is admitted.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        // Thrown for each request a client sends past its rate and always answered as a 429, so the stack trace
+        // is never read
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,367 @@
+package com.library.feed;
+
+import com.library.api.AvailabilityDelta;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.exception.ServiceOverloadedException;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.library.constant.ExceptionConstant.FEED_FULL;
+import static com.library.util.BookUtils.getFormattedMessage;
+
+/**
+ * Server-Sent Events feed of committed availability changes, so that displays need not poll the catalog.
+ * <p>
+ * Every committed borrow, return, save and delete marks its book as changed. Once per publish interval the
+ * changed books are read back in one query, with the {@link AvailabilityLedger}'s counts applied, and appended
+ * to a ring buffer as {@link AvailabilityDelta}s, each with the next sequence number. A book changed many times
+ * within an interval therefore yields a single delta with its latest counts.
+ * </p>
+ * <p>
+ * Subscribers hold nothing but an async {@link SseEmitter} and a cursor into the shared ring, so an idle one
+ * costs no thread and no queue. When deltas are published, each subscriber that is behind is sent everything
+ * after its cursor as one {@value #AVAILABILITY_EVENT} event, coalesced per book and identified by the last
+ * sequence number in it, on a virtual thread of its own. A slow consumer thus only delays itself, and gets one
+ * larger batch once it catches up; one that falls further behind than the ring holds is sent a
+ * {@value #RESET_EVENT} event instead and should reload the catalog. Idle subscribers get a comment every
+ * heartbeat interval, which also finds connections that are gone.
+ * </p>
+ * <p>
+ * A client resumes by reconnecting with the last event ID it saw, as browsers do with {@code Last-Event-ID}.
+ * Sequence numbers start from the wall clock at startup, so an ID from before a restart is never mistaken for
+ * one of this run and is answered with a reset.
+ * </p>
+ */
+@Component
+public class AvailabilityFeed {
+
+    public static final String READY_EVENT = "ready";
+
+    public static final String AVAILABILITY_EVENT = "availability";
+
+    public static final String RESET_EVENT = "reset";
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityFeed.class);
+
+    // Books read back per query when publishing
+    private static final int PUBLISH_CHUNK_SIZE = 1000;
+
+    // Deltas sent to a subscriber in one event
+    private static final int MAX_BATCH = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final Duration publishInterval;
+
+    private final Duration heartbeatInterval;
+
+    private final Duration subscriberTimeout;
+
+    private final int maxSubscribers;
+
+    private final AtomicReferenceArray<AvailabilityDelta> ring;
+
+    private final int mask;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Object publishLock = new Object();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    // The sequence number the next delta gets; deltas below it are published
+    private volatile long head;
+
+    private ScheduledExecutorService publisher;
+
+    /**
+     * One open stream and how far it has been sent.
+     */
+    private static final class Subscriber {
+
+        final SseEmitter emitter;
+
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        // The next sequence number to send, only moved by the thread that set sending
+        volatile long cursor;
+
+        volatile long lastSentNanos = System.nanoTime();
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+
+    /**
+     * Constructs a new AvailabilityFeed.
+     *
+     * @param bookRepository     the BookRepository changed books are read back from
+     * @param availabilityLedger the AvailabilityLedger whose counts are streamed when it is enabled
+     * @param bufferSize         the deltas kept for subscribers to catch up and resume from, rounded up to a
+     *                           power of two
+     * @param publishInterval    how often changed books are published
+     * @param heartbeatInterval  how long a subscriber may go without any event before a comment is sent
+     * @param subscriberTimeout  how long a stream stays open before the client has to reconnect
+     * @param maxSubscribers     the most streams open at once
+     */
+    public AvailabilityFeed(BookRepository bookRepository, AvailabilityLedger availabilityLedger,
+                            @Value("${library.feed.buffer-size:65536}") int bufferSize,
+                            @Value("${library.feed.publish-interval:250ms}") Duration publishInterval,
+                            @Value("${library.feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+                            @Value("${library.feed.subscriber-timeout:30m}") Duration subscriberTimeout,
+                            @Value("${library.feed.max-subscribers:5000}") int maxSubscribers) {
+        this.bookRepository = bookRepository;
+        this.availabilityLedger = availabilityLedger;
+        this.publishInterval = publishInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.subscriberTimeout = subscriberTimeout;
+        this.maxSubscribers = maxSubscribers;
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.head = System.currentTimeMillis() * 1000;
+    }
+
+    /**
+     * Opens a stream of availability changes. It starts with a {@value #READY_EVENT} event carrying the last
+     * sequence number published, followed, when resuming, by the changes missed since the given one.
+     *
+     * @param lastSequence the last sequence number the client received, or null to only receive new changes
+     * @return the emitter the changes are sent through
+     * @throws ServiceOverloadedException if the feed already has its maximum number of subscribers
+     */
+    public SseEmitter subscribe(Long lastSequence) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceOverloadedException(getFormattedMessage(FEED_FULL, maxSubscribers));
+        }
+        SseEmitter emitter = new SseEmitter(subscriberTimeout.toMillis());
+        long published = head;
+        long cursor = published;
+        try {
+            emitter.send(SseEmitter.event().name(READY_EVENT).id(Long.toString(published - 1))
+                    .data(published - 1));
+            if (lastSequence != null) {
+                if (lastSequence >= published || published - lastSequence > ring.length()) {
+                    emitter.send(SseEmitter.event().name(RESET_EVENT).id(Long.toString(published - 1))
+                            .data(published - 1));
+                } else {
+                    cursor = lastSequence + 1;
+                }
+            }
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        if (cursor < head) {
+            dispatch(subscriber, false);
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Marks the book of every committed change as changed, to be published with the next interval.
+     *
+     * @param event the change that was committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changed.add(event.bookId());
+    }
+
+    /**
+     * Publishes the books changed since the last call and sends the new deltas to every subscriber behind.
+     * Runs every publish interval once the application is ready. Books that could not be read back stay
+     * marked as changed for the next call.
+     */
+    public void publish() {
+        synchronized (publishLock) {
+            if (!changed.isEmpty()) {
+                List<Long> ids = new ArrayList<>(changed);
+                ids.sort(null);
+                changed.removeAll(ids);
+                int from = 0;
+                try {
+                    for (; from < ids.size(); from += PUBLISH_CHUNK_SIZE) {
+                        append(ids.subList(from, Math.min(ids.size(), from + PUBLISH_CHUNK_SIZE)));
+                    }
+                } catch (RuntimeException ex) {
+                    // The books not appended yet are published with the next attempt
+                    changed.addAll(ids.subList(from, ids.size()));
+                    throw ex;
+                }
+            }
+        }
+        long now = System.nanoTime();
+        long heartbeatNanos = heartbeatInterval.toNanos();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cursor < head) {
+                dispatch(subscriber, false);
+            } else if (now - subscriber.lastSentNanos >= heartbeatNanos) {
+                dispatch(subscriber, true);
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic publish once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (publisher != null) {
+            return;
+        }
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-feed-publish");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(() -> {
+            try {
+                publish();
+            } catch (RuntimeException ex) {
+                log.warn("Publishing availability changes failed, retrying in {}", publishInterval, ex);
+            }
+        }, publishInterval.toMillis(), publishInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops publishing and closes every stream; clients reconnect and resume once the application is back.
+     *
+     * @throws InterruptedException if interrupted while waiting for a running publish
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (publisher != null) {
+            publisher.shutdown();
+            publisher.awaitTermination(publishInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        }
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private void append(List<Long> ids) {
+        Map<Long, Book> books = new HashMap<>();
+        for (Book book : bookRepository.findRowsByIdIn(ids)) {
+            books.put(book.getId(), availabilityLedger.overlay(book));
+        }
+        long sequence = head;
+        for (Long id : ids) {
+            Book book = books.get(id);
+            ring.set((int) (sequence & mask), book == null
+                    ? new AvailabilityDelta(sequence, id, 0, 0, 0, true)
+                    : new AvailabilityDelta(sequence, id, book.getBorrowedCopies(), book.getTotalCopies(),
+                    book.getVersion(), false));
+            sequence++;
+        }
+        head = sequence;
+    }
+
+    /**
+     * Starts sending to a subscriber on a virtual thread, unless a send to it is already running, in which case
+     * that one picks up the new deltas before it finishes.
+     */
+    private void dispatch(Subscriber subscriber, boolean heartbeat) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber, heartbeat));
+        }
+    }
+
+    private void drain(Subscriber subscriber, boolean heartbeat) {
+        try {
+            if (heartbeat) {
+                subscriber.emitter.send(SseEmitter.event().comment(""));
+                subscriber.lastSentNanos = System.nanoTime();
+            }
+            while (true) {
+                long end = head;
+                if (subscriber.cursor >= end) {
+                    subscriber.sending.set(false);
+                    // A publish may have missed the flag just before it was cleared
+                    if (subscriber.cursor >= head || !subscriber.sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                end = Math.min(end, subscriber.cursor + MAX_BATCH);
+                List<AvailabilityDelta> batch = read(subscriber.cursor, end);
+                if (batch == null) {
+                    end = head;
+                    subscriber.emitter.send(SseEmitter.event().name(RESET_EVENT).id(Long.toString(end - 1))
+                            .data(end - 1));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().name(AVAILABILITY_EVENT)
+                            .id(Long.toString(end - 1)).data(batch, MediaType.APPLICATION_JSON));
+                }
+                subscriber.cursor = end;
+                subscriber.lastSentNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the stream already completed
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(ex);
+        }
+    }
+
+    /**
+     * Reads the deltas from one sequence number up to another, keeping only the latest of each book, or returns
+     * null if some of them were already overwritten.
+     */
+    private List<AvailabilityDelta> read(long from, long end) {
+        if (head - from > ring.length()) {
+            return null;
+        }
+        Map<Long, AvailabilityDelta> latest = new LinkedHashMap<>();
+        for (long sequence = from; sequence < end; sequence++) {
+            AvailabilityDelta delta = ring.get((int) (sequence & mask));
+            if (delta == null || delta.sequence() != sequence) {
+                return null;
+            }
+            // Reinsert so that the batch stays in the order of each book's latest change
+            latest.remove(delta.bookId());
+            latest.put(delta.bookId(), delta);
+        }
+        return new ArrayList<>(latest.values());
+    }
+}
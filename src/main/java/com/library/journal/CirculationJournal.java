@@ -0,0 +1,524 @@
+package com.library.journal;
+
+import com.library.constant.CirculationOperation;
+import com.library.event.BookChangedEvent;
+import com.library.metrics.CirculationMetrics.Outcome;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Append-only history of every borrow and return, kept in segmented memory-mapped files next to the database
+ * rather than in it.
+ * <p>
+ * Successful operations are journaled once committed, from their {@link BookChangedEvent}, so a rolled-back
+ * batch leaves no trace; failed ones are journaled by the service as they fail, without waiting for disk, since
+ * they change no state and should not hold up a refusal or the locks of its caller. Appending copies a 32-byte
+ * record into the mapping of the current segment under a short lock. A background thread forces new records
+ * to disk every group-commit interval, or as soon as an appender waits for durability, so one force covers
+ * every record appended since the previous one. With {@code sync} on, an append returns only once its record
+ * is on disk.
+ * </p>
+ * <p>
+ * A full segment is forced and sealed, and appending continues in a new one. Once more than the configured
+ * number of segments are sealed, they are compacted into a single segment holding one {@link
+ * JournalRecord.Type#BALANCE} per book, which keeps {@link #borrowedCopies(long)} exact and drops the
+ * individual operations. On startup, segments are recovered up to their last complete record.
+ * </p>
+ */
+@Component
+public class CirculationJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(CirculationJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int recordsPerSegment;
+
+    private final Duration groupCommitInterval;
+
+    private final boolean sync;
+
+    private final int compactAfterSegments;
+
+    // Guards the active segment, the sealed list and appendedCount
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    private final Condition commitRequested = commitLock.newCondition();
+
+    private final Condition committed = commitLock.newCondition();
+
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    private final AtomicLong forces = new AtomicLong();
+
+    private List<JournalSegment> sealed = List.of();
+
+    private JournalSegment active;
+
+    private long appendedCount;
+
+    private volatile long durableCount;
+
+    private volatile boolean running;
+
+    private Thread committer;
+
+    /**
+     * Constructs a new CirculationJournal.
+     *
+     * @param enabled              whether circulation is journaled at all
+     * @param directory            the directory the segment files are kept in
+     * @param segmentSize          the size of each segment file
+     * @param groupCommitInterval  the longest a record stays in memory only
+     * @param sync                 whether appends wait until their record is on disk
+     * @param compactAfterSegments the number of sealed segments that triggers a compaction
+     */
+    public CirculationJournal(@Value("${library.circulation.journal.enabled:false}") boolean enabled,
+                              @Value("${library.circulation.journal.directory:journal}") String directory,
+                              @Value("${library.circulation.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${library.circulation.journal.group-commit-interval:5ms}") Duration groupCommitInterval,
+                              @Value("${library.circulation.journal.sync:true}") boolean sync,
+                              @Value("${library.circulation.journal.compact-after-segments:8}") int compactAfterSegments) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.recordsPerSegment = (int) Math.max(1, Math.min(segmentSize.toBytes(), Integer.MAX_VALUE / 2)
+                / JournalSegment.RECORD_SIZE - 1);
+        this.groupCommitInterval = groupCommitInterval;
+        this.sync = sync;
+        this.compactAfterSegments = Math.max(2, compactAfterSegments);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Recovers the segments in the journal directory and starts the group-commit thread.
+     *
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<JournalSegment> segments = recover();
+        appendLock.lock();
+        try {
+            if (segments.isEmpty()) {
+                active = JournalSegment.create(segmentPath(1), 1, 1, recordsPerSegment);
+            } else {
+                active = segments.remove(segments.size() - 1);
+            }
+            sealed = List.copyOf(segments);
+        } finally {
+            appendLock.unlock();
+        }
+        running = true;
+        committer = new Thread(this::commitLoop, "circulation-journal-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Stops the group-commit thread and forces whatever was appended since the last commit.
+     *
+     * @throws InterruptedException if interrupted while waiting for the group-commit thread
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        signalCommit();
+        committer.join(TimeUnit.SECONDS.toMillis(5));
+        commit();
+    }
+
+    /**
+     * Journals a committed borrow or return. Other changes are not circulation, except that a book created
+     * with copies already borrowed is journaled as a balance so that its borrowed copies can be rebuilt.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case BORROWED -> append(event.bookId(), CirculationOperation.BORROW, Outcome.SUCCESS);
+            case RETURNED -> append(event.bookId(), CirculationOperation.RETURN, Outcome.SUCCESS);
+            case CREATED -> {
+                if (event.book().getBorrowedCopies() != 0) {
+                    append(new JournalRecord(event.bookId(), JournalRecord.Type.BALANCE, Outcome.SUCCESS,
+                            System.currentTimeMillis(), event.book().getBorrowedCopies()));
+                }
+            }
+            default -> {
+                // Edits and deletions do not change borrowed copies
+            }
+        }
+    }
+
+    /**
+     * Journals a borrow or return, timestamped now.
+     *
+     * @param bookId    the ID of the book
+     * @param operation whether the book was borrowed or returned
+     * @param outcome   how the operation ended
+     */
+    public void append(long bookId, CirculationOperation operation, Outcome outcome) {
+        if (!enabled) {
+            return;
+        }
+        JournalRecord.Type type = operation == CirculationOperation.BORROW ? JournalRecord.Type.BORROW
+                : JournalRecord.Type.RETURN;
+        append(new JournalRecord(bookId, type, outcome, System.currentTimeMillis(), 0));
+    }
+
+    /**
+     * Journals a failed borrow or return, timestamped now, without waiting until it is on disk even when the
+     * journal is synchronous. It is forced with the next group commit.
+     *
+     * @param bookId    the ID of the book
+     * @param operation whether the book was to be borrowed or returned
+     * @param outcome   why the operation failed
+     */
+    public void appendFailure(long bookId, CirculationOperation operation, Outcome outcome) {
+        if (!enabled) {
+            return;
+        }
+        JournalRecord.Type type = operation == CirculationOperation.BORROW ? JournalRecord.Type.BORROW
+                : JournalRecord.Type.RETURN;
+        append(new JournalRecord(bookId, type, outcome, System.currentTimeMillis(), 0), false);
+    }
+
+    /**
+     * Appends a record, waiting until it is on disk when the journal is synchronous.
+     *
+     * @param record the record to append
+     * @throws IllegalStateException if the journal is not open
+     */
+    public void append(JournalRecord record) {
+        append(record, sync);
+    }
+
+    private void append(JournalRecord record, boolean awaitDurable) {
+        long sequence;
+        appendLock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("The circulation journal is not open");
+            }
+            if (!active.append(record)) {
+                rollOver();
+                active.append(record);
+            }
+            sequence = ++appendedCount;
+        } finally {
+            appendLock.unlock();
+        }
+        if (awaitDurable) {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Passes every record to the consumer, oldest first. Compacted history comes first, as balances.
+     *
+     * @param consumer receives each record
+     */
+    public void replay(Consumer<JournalRecord> consumer) {
+        if (!enabled) {
+            return;
+        }
+        List<JournalSegment> segments;
+        JournalSegment current;
+        int currentCount;
+        appendLock.lock();
+        try {
+            segments = sealed;
+            current = active;
+            currentCount = active.count();
+        } finally {
+            appendLock.unlock();
+        }
+        // Segments compacted away meanwhile stay mapped, so reading them is still safe
+        for (JournalSegment segment : segments) {
+            segment.forEach(segment.count(), consumer);
+        }
+        current.forEach(currentCount, consumer);
+    }
+
+    /**
+     * Rebuilds the borrowed copies of one book from its journaled history.
+     *
+     * @param bookId the ID of the book
+     * @return the borrowed copies the journal accounts for
+     */
+    public int borrowedCopies(long bookId) {
+        int[] borrowed = new int[1];
+        replay(record -> {
+            if (record.bookId() == bookId) {
+                borrowed[0] += record.borrowedDelta();
+            }
+        });
+        return borrowed[0];
+    }
+
+    /**
+     * Rebuilds the borrowed copies of every book with journaled history.
+     *
+     * @return the borrowed copies the journal accounts for, by book ID
+     */
+    public Map<Long, Integer> borrowedCopies() {
+        Map<Long, Integer> borrowed = new HashMap<>();
+        replay(record -> borrowed.merge(record.bookId(), record.borrowedDelta(), Integer::sum));
+        return borrowed;
+    }
+
+    /**
+     * Folds every sealed segment into one holding a balance per book. The compacted segment replaces the
+     * newest of them in a single rename, and records the oldest one it covers, so that if the process dies
+     * before the others are deleted they are recognized as folded and deleted on the next start.
+     *
+     * @throws UncheckedIOException if the compacted segment cannot be written
+     */
+    public void compact() {
+        compactionLock.lock();
+        try {
+            List<JournalSegment> folded;
+            appendLock.lock();
+            try {
+                folded = sealed;
+            } finally {
+                appendLock.unlock();
+            }
+            if (folded.size() < 2) {
+                return;
+            }
+            Map<Long, long[]> balances = new HashMap<>();
+            for (JournalSegment segment : folded) {
+                segment.forEach(segment.count(), record -> {
+                    long[] balance = balances.computeIfAbsent(record.bookId(), id -> new long[2]);
+                    balance[0] += record.borrowedDelta();
+                    balance[1] = Math.max(balance[1], record.timestamp());
+                });
+            }
+            balances.values().removeIf(balance -> balance[0] == 0);
+
+            JournalSegment newest = folded.get(folded.size() - 1);
+            Path compacting = directory.resolve(newest.path().getFileName() + COMPACTING_SUFFIX);
+            Files.deleteIfExists(compacting);
+            JournalSegment compacted = JournalSegment.create(compacting, newest.id(), folded.get(0).coversFrom(),
+                    balances.size());
+            balances.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry ->
+                    compacted.append(new JournalRecord(entry.getKey(), JournalRecord.Type.BALANCE, Outcome.SUCCESS,
+                            entry.getValue()[1], (int) entry.getValue()[0])));
+            compacted.force();
+            Files.move(compacting, newest.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            appendLock.lock();
+            try {
+                List<JournalSegment> remaining = new ArrayList<>();
+                remaining.add(compacted);
+                remaining.addAll(sealed.subList(folded.size(), sealed.size()));
+                sealed = List.copyOf(remaining);
+            } finally {
+                appendLock.unlock();
+            }
+            for (JournalSegment segment : folded.subList(0, folded.size() - 1)) {
+                Files.deleteIfExists(segment.path());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many times records have been forced to disk, which is far fewer than the records appended
+     * when appends are grouped.
+     *
+     * @return the number of group commits so far
+     */
+    public long commitCount() {
+        return forces.get();
+    }
+
+    public int segmentCount() {
+        appendLock.lock();
+        try {
+            return sealed.size() + 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void rollOver() {
+        active.force();
+        long id = active.id() + 1;
+        try {
+            JournalSegment next = JournalSegment.create(segmentPath(id), id, id, recordsPerSegment);
+            List<JournalSegment> withActive = new ArrayList<>(sealed);
+            withActive.add(active);
+            sealed = List.copyOf(withActive);
+            active = next;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        commitLock.lock();
+        try {
+            while (durableCount < sequence) {
+                commitRequested.signal();
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void commitLoop() {
+        while (running) {
+            commitLock.lock();
+            try {
+                if (!commitLock.hasWaiters(committed)) {
+                    commitRequested.awaitNanos(groupCommitInterval.toNanos());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                commitLock.unlock();
+            }
+            try {
+                commit();
+                if (segmentCount() - 1 > compactAfterSegments) {
+                    compact();
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Committing the circulation journal failed, retrying in {}", groupCommitInterval, ex);
+            }
+        }
+    }
+
+    /**
+     * Forces everything appended so far and wakes the appenders waiting for it. Sealed segments were forced
+     * when they were sealed, so only the active one needs it.
+     */
+    private void commit() {
+        long target;
+        JournalSegment current;
+        appendLock.lock();
+        try {
+            target = appendedCount;
+            current = active;
+        } finally {
+            appendLock.unlock();
+        }
+        if (target == durableCount) {
+            return;
+        }
+        current.force();
+        forces.incrementAndGet();
+        commitLock.lock();
+        try {
+            durableCount = target;
+            committed.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void signalCommit() {
+        commitLock.lock();
+        try {
+            commitRequested.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * Opens every segment in the directory, oldest first, dropping unfinished compactions and the segments a
+     * finished compaction already folded.
+     */
+    private List<JournalSegment> recover() throws IOException {
+        List<JournalSegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    JournalSegment segment = JournalSegment.open(file);
+                    if (segment == null) {
+                        // A header is forced before anything is appended, so a segment without one is empty
+                        log.warn("Deleting journal segment {} without a valid header", file);
+                        Files.delete(file);
+                    } else {
+                        segments.add(segment);
+                    }
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(JournalSegment::id));
+        List<JournalSegment> live = new ArrayList<>();
+        long coveredFrom = Long.MAX_VALUE;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            JournalSegment segment = segments.get(i);
+            if (segment.id() >= coveredFrom) {
+                Files.delete(segment.path());
+                continue;
+            }
+            live.add(0, segment);
+            coveredFrom = segment.coversFrom();
+        }
+        return live;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%019d", id) + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.journal;
+
+import com.library.metrics.CirculationMetrics.Outcome;
+
+/**
+ * One entry of the {@link CirculationJournal}.
+ *
+ * @param bookId    the ID of the book
+ * @param type      what the entry records
+ * @param outcome   how the operation ended, always {@link Outcome#SUCCESS} for a {@link Type#BALANCE}
+ * @param timestamp when the operation ended, in epoch milliseconds
+ * @param balance   for a {@link Type#BALANCE}, the net number of copies it adds to borrowedCopies, otherwise 0
+ */
+public record JournalRecord(long bookId, Type type, Outcome outcome, long timestamp, int balance) {
+
+    public enum Type {
+
+        BORROW,
+
+        RETURN,
+
+        /**
+         * A net change in borrowed copies: the copies a book was created with, or the sum of the entries
+         * that compaction folded away.
+         */
+        BALANCE
+    }
+
+    /**
+     * Returns how much this entry changes the borrowed copies of its book.
+     *
+     * @return +1 for a successful borrow, -1 for a successful return, the balance of a balance entry, else 0
+     */
+    public int borrowedDelta() {
+        if (type == Type.BALANCE) {
+            return balance;
+        }
+        if (outcome != Outcome.SUCCESS) {
+            return 0;
+        }
+        return type == Type.BORROW ? 1 : -1;
+    }
+}
@@ -0,0 +1,245 @@
+package com.library.journal;
+
+import com.library.metrics.CirculationMetrics.Outcome;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of the {@link CirculationJournal}.
+ * <p>
+ * The file is a 32-byte header followed by fixed-size 32-byte records, each protected by a CRC32C. The file
+ * is created at its full size up front, so appending is a copy into the mapping and durability is a
+ * {@link MappedByteBuffer#force(int, int)} of the records written since the last one. Not thread-safe for
+ * appends; {@link CirculationJournal} serializes them, while reads up to {@link #count()} may run
+ * concurrently with appends.
+ * </p>
+ * <pre>
+ * header: int magic, int format version, long segment ID, long first covered segment ID, 8 reserved bytes
+ * record: long book ID, long timestamp, byte type, byte outcome, short reserved, int balance,
+ *         int CRC32C of the preceding 24 bytes, 4 reserved bytes
+ * </pre>
+ */
+final class JournalSegment {
+
+    static final int HEADER_SIZE = 32;
+
+    static final int RECORD_SIZE = 32;
+
+    private static final int CHECKED_SIZE = 24;
+
+    private static final int MAGIC = 0x434A4E4C; // "CJNL"
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final Path path;
+
+    private final long id;
+
+    private final long coversFrom;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final byte[] scratch = new byte[RECORD_SIZE];
+
+    private final CRC32C crc = new CRC32C();
+
+    // A lock rather than a monitor, so a virtual thread flushing on rollover does not pin its carrier
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    // Written by the appender after the record bytes, so readers never see a record before its contents
+    private volatile int count;
+
+    private int forcedCount;
+
+    private JournalSegment(Path path, long id, long coversFrom, MappedByteBuffer buffer, int count) {
+        this.path = path;
+        this.id = id;
+        this.coversFrom = coversFrom;
+        this.buffer = buffer;
+        this.capacity = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        this.count = count;
+        this.forcedCount = count;
+    }
+
+    /**
+     * Creates an empty segment file of the given size, with its header already forced to disk.
+     *
+     * @param path       the file to create, which must not exist
+     * @param id         the ID of the segment
+     * @param coversFrom the ID of the oldest segment whose entries this one holds, its own ID unless compacted
+     * @param records    the number of records the segment has room for
+     */
+    static JournalSegment create(Path path, long id, long coversFrom, int records) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) records * RECORD_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(8, id);
+            buffer.putLong(16, coversFrom);
+            buffer.force(0, HEADER_SIZE);
+            return new JournalSegment(path, id, coversFrom, buffer, 0);
+        }
+    }
+
+    /**
+     * Maps an existing segment file and finds where its records end.
+     * <p>
+     * The records end at the first one whose checksum does not match: a record torn by a crash, or a slot
+     * that was never written. Every slot after it is zeroed, so that records written before the crash
+     * but flushed out of order can never be read back once appending resumes over the torn one.
+     * </p>
+     *
+     * @param path the segment file
+     * @return the segment, or null if the file has no valid header
+     */
+    static JournalSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                return null;
+            }
+            JournalSegment segment = new JournalSegment(path, buffer.getLong(8), buffer.getLong(16), buffer, 0);
+            int valid = 0;
+            while (valid < segment.capacity && segment.read(valid) != null) {
+                valid++;
+            }
+            segment.zeroFrom(valid);
+            segment.count = valid;
+            segment.forcedCount = valid;
+            return segment;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long id() {
+        return id;
+    }
+
+    long coversFrom() {
+        return coversFrom;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    /**
+     * Appends a record, if there is room for it.
+     *
+     * @return false if the segment is full
+     */
+    boolean append(JournalRecord record) {
+        int slot = count;
+        if (slot == capacity) {
+            return false;
+        }
+        ByteBuffer encoded = ByteBuffer.wrap(scratch);
+        encoded.putLong(0, record.bookId());
+        encoded.putLong(8, record.timestamp());
+        encoded.put(16, (byte) (record.type().ordinal() + 1));
+        encoded.put(17, (byte) (record.outcome().ordinal() + 1));
+        encoded.putShort(18, (short) 0);
+        encoded.putInt(20, record.balance());
+        crc.reset();
+        crc.update(scratch, 0, CHECKED_SIZE);
+        encoded.putInt(CHECKED_SIZE, (int) crc.getValue());
+        encoded.putInt(28, 0);
+        buffer.put(offset(slot), scratch);
+        count = slot + 1;
+        return true;
+    }
+
+    /**
+     * Forces the records appended since the last call to disk.
+     */
+    void force() {
+        forceLock.lock();
+        try {
+            int upTo = count;
+            if (upTo > forcedCount) {
+                buffer.force(offset(forcedCount), (upTo - forcedCount) * RECORD_SIZE);
+                forcedCount = upTo;
+            }
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the first {@code limit} records to the consumer, in the order they were appended.
+     */
+    void forEach(int limit, Consumer<JournalRecord> consumer) {
+        for (int slot = 0; slot < limit; slot++) {
+            consumer.accept(read(slot));
+        }
+    }
+
+    /**
+     * Decodes the record in a slot.
+     *
+     * @return the record, or null if the slot does not hold a complete record
+     */
+    private JournalRecord read(int slot) {
+        byte[] bytes = new byte[RECORD_SIZE];
+        buffer.get(offset(slot), bytes);
+        CRC32C check = new CRC32C();
+        check.update(bytes, 0, CHECKED_SIZE);
+        ByteBuffer encoded = ByteBuffer.wrap(bytes);
+        int type = encoded.get(16);
+        int outcome = encoded.get(17);
+        if (encoded.getInt(CHECKED_SIZE) != (int) check.getValue()
+                || type < 1 || type > TYPES.length || outcome < 1 || outcome > OUTCOMES.length) {
+            return null;
+        }
+        return new JournalRecord(encoded.getLong(0), TYPES[type - 1], OUTCOMES[outcome - 1], encoded.getLong(8),
+                encoded.getInt(20));
+    }
+
+    private void zeroFrom(int firstSlot) {
+        byte[] zeros = new byte[RECORD_SIZE];
+        boolean zeroed = false;
+        for (int slot = firstSlot; slot < capacity; slot++) {
+            int offset = offset(slot);
+            // Only slots holding something are written, so the untouched tail of the file stays sparse
+            if (buffer.getLong(offset) != 0 || buffer.getLong(offset + 8) != 0 || buffer.getLong(offset + 16) != 0
+                    || buffer.getLong(offset + 24) != 0) {
+                buffer.put(offset, zeros);
+                zeroed = true;
+            }
+        }
+        if (zeroed) {
+            buffer.force();
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,505 @@
+package com.library.ledger;
+
+import com.library.cache.CatalogVersion;
+import com.library.constant.CirculationOperation;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional in-memory circulation engine for titles too hot to borrow through a row lock.
+ * <p>
+ * When enabled, copy counts are kept in memory per book, guarded by a fixed set of lock stripes, and borrow
+ * and return never touch the database. A borrow only succeeds while borrowedCopies is below totalCopies, so
+ * the ledger never oversells. The net change per book is written behind to the {@code book} table in one
+ * JDBC batch every flush interval, as relative updates, so concurrent edits of other columns are kept.
+ * A change made inside a transaction, such as a copy checkout, takes effect at once and is undone if the
+ * transaction rolls back.
+ * </p>
+ * <p>
+ * Books are loaded from the database on first use, which is also how the ledger recovers after a restart.
+ * From then on the ledger's borrowed copies are the current ones: edits only bring in a new total, since a
+ * saved row's borrowed copies may predate a flush that ran while it was announced.
+ * Pending changes are flushed on shutdown; after a crash, changes from at most one flush interval are lost.
+ * Until they are flushed, catalog listings and exports read counts up to one interval old; book lookups
+ * see the ledger's counts.
+ * </p>
+ */
+@Component
+public class AvailabilityLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityLedger.class);
+
+    private static final int STRIPES = 64;
+
+    private static final String FLUSH_SQL = "UPDATE book SET borrowed_copies = borrowed_copies + ?, version = version + 1 WHERE id = ?";
+
+    private final BookRepository bookRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CatalogVersion catalogVersion;
+
+    private final boolean enabled;
+
+    private final Duration flushInterval;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService flusher;
+
+    /**
+     * Copy counts of one book. Fields are guarded by the book's stripe lock.
+     */
+    private static final class Entry {
+
+        int totalCopies;
+
+        int borrowedCopies;
+
+        // Change to borrowedCopies not yet written to the database
+        int pendingDelta;
+
+        // Version of the row totalCopies was last taken from, so that an older row announced late is ignored
+        long version;
+
+        boolean removed;
+
+        Entry(int totalCopies, int borrowedCopies, long version) {
+            this.totalCopies = totalCopies;
+            this.borrowedCopies = borrowedCopies;
+            this.version = version;
+        }
+
+        boolean canApply(int delta) {
+            return !removed && (delta > 0 ? borrowedCopies < totalCopies : borrowedCopies > 0);
+        }
+
+        void apply(int delta) {
+            borrowedCopies += delta;
+            pendingDelta += delta;
+        }
+    }
+
+    /**
+     * Constructs a new AvailabilityLedger.
+     *
+     * @param bookRepository      the BookRepository books are loaded from on first use
+     * @param jdbcTemplate        the JdbcTemplate pending changes are flushed with
+     * @param transactionTemplate the TransactionTemplate each flush is committed with
+     * @param catalogVersion      the CatalogVersion moved by every flush, which changes the stored rows
+     * @param enabled             whether circulation goes through the ledger at all
+     * @param flushInterval       how often pending changes are written to the database
+     */
+    public AvailabilityLedger(BookRepository bookRepository, JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate, CatalogVersion catalogVersion,
+                              @Value("${library.circulation.ledger.enabled:false}") boolean enabled,
+                              @Value("${library.circulation.ledger.flush-interval:200ms}") Duration flushInterval) {
+        this.bookRepository = bookRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes one copy of a book out of circulation if one is available.
+     *
+     * @param id the ID of the book to borrow
+     * @return true if a copy was borrowed, false if the book does not exist or has no available copies
+     */
+    public boolean borrow(long id) {
+        return adjust(id, 1);
+    }
+
+    /**
+     * Puts one borrowed copy of a book back into circulation if any is borrowed.
+     *
+     * @param id the ID of the book to return
+     * @return true if a copy was returned, false if the book does not exist or has no borrowed copies
+     */
+    public boolean release(long id) {
+        return adjust(id, -1);
+    }
+
+    /**
+     * Borrows or returns every book in the list, or none of them. The stripes of all books are held
+     * together, so no other caller observes part of the batch.
+     *
+     * @param operation whether to borrow or return the books
+     * @param ids       the IDs of the books, where an ID may appear more than once
+     * @return the index of the first book that could not be processed, or -1 if all were
+     */
+    public int applyAll(CirculationOperation operation, List<Long> ids) {
+        int delta = operation == CirculationOperation.BORROW ? 1 : -1;
+        List<Entry> batch = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Entry entry = entry(ids.get(i));
+            if (entry == null) {
+                return i;
+            }
+            batch.add(entry);
+        }
+
+        // Lock stripes in ascending order so that concurrent batches cannot deadlock
+        int[] locked = ids.stream().mapToInt(AvailabilityLedger::stripeIndex).distinct().sorted().toArray();
+        for (int stripe : locked) {
+            stripes[stripe].lock();
+        }
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (!batch.get(i).canApply(delta)) {
+                    for (int j = 0; j < i; j++) {
+                        batch.get(j).apply(-delta);
+                    }
+                    return i;
+                }
+                batch.get(i).apply(delta);
+            }
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--) {
+                stripes[locked[i]].unlock();
+            }
+        }
+        dirty.addAll(ids);
+        undoOnRollback(() -> ids.forEach(id -> undo(id, delta)));
+        return -1;
+    }
+
+    /**
+     * Takes an available copy off the total copies of a book, for a copy being removed. The check and the
+     * change run under the book's stripe lock, so no borrow takes the copy in between. Like a borrow, the change
+     * is undone if the transaction it was made in rolls back.
+     *
+     * @param id the ID of the book
+     * @return true if the copy was taken off, false if the book does not exist or every copy is borrowed
+     */
+    public boolean removeAvailableCopy(long id) {
+        Entry entry = entry(id);
+        if (entry == null) {
+            return false;
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            if (entry.removed || entry.borrowedCopies >= entry.totalCopies) {
+                return false;
+            }
+            entry.totalCopies--;
+        } finally {
+            lock.unlock();
+        }
+        undoOnRollback(() -> {
+            lock.lock();
+            try {
+                entry.totalCopies++;
+            } finally {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Returns the book with the ledger's current counts, which may be ahead of the database. The given book
+     * is returned as is when the ledger holds nothing newer; otherwise a copy is returned, since the given
+     * book may be shared.
+     *
+     * @param book the book as loaded from the database or the cache
+     * @return the book with current counts
+     */
+    public Book overlay(Book book) {
+        Entry entry = enabled ? entries.get(book.getId()) : null;
+        if (entry == null) {
+            return book;
+        }
+        int totalCopies;
+        int borrowedCopies;
+        ReentrantLock lock = stripe(book.getId());
+        lock.lock();
+        try {
+            totalCopies = entry.totalCopies;
+            borrowedCopies = entry.borrowedCopies;
+        } finally {
+            lock.unlock();
+        }
+        if (totalCopies == book.getTotalCopies() && borrowedCopies == book.getBorrowedCopies()) {
+            return book;
+        }
+        Book current = new Book();
+        current.setId(book.getId());
+        current.setTitle(book.getTitle());
+        current.setAuthor(book.getAuthor());
+        current.setTotalCopies(totalCopies);
+        current.setBorrowedCopies(borrowedCopies);
+        current.setVersion(book.getVersion());
+        return current;
+    }
+
+    /**
+     * Writes the pending change of every book touched since the last flush in one JDBC batch, in ascending ID
+     * order. If the batch fails, the changes are kept pending for the next flush.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Long> ids = new ArrayList<>(dirty);
+            ids.sort(null);
+            List<Object[]> updates = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                dirty.remove(id);
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                int delta;
+                ReentrantLock lock = stripe(id);
+                lock.lock();
+                try {
+                    delta = entry.pendingDelta;
+                    entry.pendingDelta = 0;
+                } finally {
+                    lock.unlock();
+                }
+                if (delta != 0) {
+                    updates.add(new Object[]{delta, id});
+                }
+            }
+            if (updates.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, updates));
+            } catch (RuntimeException ex) {
+                for (Object[] update : updates) {
+                    restorePending((Long) update[1], (Integer) update[0]);
+                }
+                throw ex;
+            }
+            // Listings read the stored rows, whose counts and versions just moved
+            catalogVersion.changed();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Keeps the ledger in step with committed edits: a new total replaces the old one, unless a newer row
+     * was seen already, and a deleted book is dropped along with its pending change. Borrowed copies are left
+     * alone, since edits never change them.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case UPDATED -> {
+                Entry entry = entries.get(event.bookId());
+                if (entry != null) {
+                    ReentrantLock lock = stripe(event.bookId());
+                    lock.lock();
+                    try {
+                        if (event.book().getVersion() > entry.version) {
+                            entry.totalCopies = event.book().getTotalCopies();
+                            entry.version = event.book().getVersion();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            case DELETED -> {
+                Entry entry = entries.remove(event.bookId());
+                if (entry != null) {
+                    ReentrantLock lock = stripe(event.bookId());
+                    lock.lock();
+                    try {
+                        entry.removed = true;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+            default -> {
+                // New books are loaded on first use; circulation events come from the ledger itself
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic flush once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-ledger-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException ex) {
+                log.warn("Flushing the availability ledger failed, retrying in {}", flushInterval, ex);
+            }
+        }, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still pending.
+     *
+     * @throws InterruptedException if interrupted while waiting for a running flush
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(flushInterval.toMillis() + 5000, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    private boolean adjust(long id, int delta) {
+        Entry entry = entry(id);
+        if (entry == null) {
+            return false;
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            if (!entry.canApply(delta)) {
+                return false;
+            }
+            entry.apply(delta);
+        } finally {
+            lock.unlock();
+        }
+        dirty.add(id);
+        undoOnRollback(() -> undo(id, delta));
+        return true;
+    }
+
+    /**
+     * Runs the undo of a change if the transaction it was made in rolls back. Changes made outside a
+     * transaction are final.
+     */
+    private static void undoOnRollback(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    undo.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Takes back a borrow (+1) or a return (-1) of a rolled-back transaction.
+     */
+    private void undo(long id, int delta) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            entry.apply(-delta);
+        } finally {
+            lock.unlock();
+        }
+        dirty.add(id);
+    }
+
+    /**
+     * Returns the entry of a book, loading it from the database on first use. The load runs without any
+     * lock held; if two callers load the same book, the first entry stored wins.
+     */
+    private Entry entry(long id) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            return entry;
+        }
+        Book book = bookRepository.findById(id).orElse(null);
+        if (book == null) {
+            return null;
+        }
+        Entry loaded = new Entry(book.getTotalCopies(), book.getBorrowedCopies(), book.getVersion());
+        Entry existing = entries.putIfAbsent(id, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void restorePending(Long id, int delta) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return;
+        }
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            entry.pendingDelta += delta;
+        } finally {
+            lock.unlock();
+        }
+        dirty.add(id);
+    }
+
+    private ReentrantLock stripe(long id) {
+        return stripes[stripeIndex(id)];
+    }
+
+    private static int stripeIndex(long id) {
+        // Spread sequential IDs, which the pooled sequence hands out in blocks, across the stripes
+        return (Long.hashCode(id) * 0x9E3779B9) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES));
+    }
+}
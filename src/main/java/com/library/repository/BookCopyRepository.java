@@ -0,0 +1,66 @@
+package com.library.repository;
+
+import com.library.constant.CopyStatus;
+import com.library.entity.BookCopy;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookCopyRepository extends JpaRepository<BookCopy, Long> {
+
+    /**
+     * Atomically moves a copy from one status to another. The status check and the change run as a single
+     * UPDATE, so of two desks scanning the same copy only one checks it out.
+     *
+     * @param barcode the barcode of the copy
+     * @param from    the status the copy must be in
+     * @param to      the status to move it to
+     * @return the number of rows updated, 1 if the copy moved and 0 if it does not exist or is in another status
+     */
+    @Modifying
+    @Query("UPDATE BookCopy c SET c.status = :to, c.version = c.version + 1"
+            + " WHERE c.barcode = :barcode AND c.status = :from")
+    int updateStatus(@Param("barcode") long barcode, @Param("from") CopyStatus from, @Param("to") CopyStatus to);
+
+    /**
+     * Fetches the copies of a book in barcode order, served by the book index.
+     *
+     * @param bookId the ID of the book
+     * @return the copies of the book
+     */
+    @Query("SELECT c FROM BookCopy c WHERE c.bookId = :bookId ORDER BY c.barcode")
+    List<BookCopy> findByBookId(@Param("bookId") long bookId);
+
+    /**
+     * Fetches the barcodes of a book's copies, served by the book index.
+     *
+     * @param bookId the ID of the book
+     * @return the barcodes of the book's copies
+     */
+    @Query("SELECT c.barcode FROM BookCopy c WHERE c.bookId = :bookId")
+    List<Long> findBarcodesByBookId(@Param("bookId") long bookId);
+
+    /**
+     * Counts the copies of a book, served by the book index.
+     *
+     * @param bookId the ID of the book
+     * @return the number of copies registered for the book
+     */
+    @Query("SELECT COUNT(c) FROM BookCopy c WHERE c.bookId = :bookId")
+    long countByBookId(@Param("bookId") long bookId);
+
+    /**
+     * Deletes the copies of a book.
+     *
+     * @param bookId the ID of the book
+     * @return the number of copies deleted
+     */
+    @Modifying
+    @Query("DELETE FROM BookCopy c WHERE c.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") long bookId);
+}
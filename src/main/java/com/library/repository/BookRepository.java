@@ -1,9 +1,240 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    /**
+     * Selects the columns of a book into an unmanaged {@link Book} instead of loading the entity. The read
+     * queries below start with it so that their rows go straight to serialization, without Hibernate
+     * hydrating entities and registering each in the persistence context for dirty checking on flush.
+     */
+    String SELECT_BOOK_ROW = "SELECT new com.library.entity.Book(b.id, b.title, b.author, b.totalCopies,"
+            + " b.borrowedCopies, b.version) FROM Book b";
+
+    /**
+     * Atomically takes one copy of a book out of circulation. The availability check and the
+     * increment run as a single UPDATE, so concurrent borrowers can never push borrowedCopies
+     * past totalCopies.
+     *
+     * @param id the ID of the book to borrow
+     * @return the number of rows updated, 1 if a copy was borrowed and 0 if the book does not exist
+     *         or has no available copies
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.borrowedCopies = b.borrowedCopies + 1, b.version = b.version + 1"
+            + " WHERE b.id = :id AND b.borrowedCopies < b.totalCopies")
+    int incrementBorrowedCopies(@Param("id") Long id);
+
+    /**
+     * Atomically puts one borrowed copy of a book back into circulation.
+     *
+     * @param id the ID of the book to return
+     * @return the number of rows updated, 1 if a copy was returned and 0 if the book does not exist
+     *         or has no borrowed copies
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.borrowedCopies = b.borrowedCopies - 1, b.version = b.version + 1"
+            + " WHERE b.id = :id AND b.borrowedCopies > 0")
+    int decrementBorrowedCopies(@Param("id") Long id);
+
+    /**
+     * Atomically replaces the title, author and total copies of a book. The borrowed copies are left to the
+     * guarded updates above, so an edit racing a borrow or return neither loses it nor fails on the version.
+     *
+     * @param id          the ID of the book to update
+     * @param title       the new title
+     * @param author      the new author
+     * @param totalCopies the new number of total copies
+     * @return the number of rows updated, 1 if the book was updated and 0 if it does not exist
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.title = :title, b.author = :author, b.totalCopies = :totalCopies,"
+            + " b.version = b.version + 1 WHERE b.id = :id")
+    int updateDetails(@Param("id") Long id, @Param("title") String title, @Param("author") String author,
+                      @Param("totalCopies") int totalCopies);
+
+    /**
+     * Atomically adds copies to the total copies of a book, or takes them off when the delta is negative.
+     * The update is refused when it would leave fewer total copies than borrowed ones.
+     *
+     * @param id    the ID of the book
+     * @param delta the number of copies to add, negative to take copies off
+     * @return the number of rows updated, 1 if the total changed and 0 if the book does not exist
+     *         or has too few available copies
+     */
+    @Modifying
+    @Query("UPDATE Book b SET b.totalCopies = b.totalCopies + :delta, b.version = b.version + 1"
+            + " WHERE b.id = :id AND b.borrowedCopies <= b.totalCopies + :delta")
+    int addTotalCopies(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Fetches the next page of books after the given cursor, ordered by ID. Seeking past the cursor
+     * on the primary key costs the same for every page, unlike an OFFSET that has to skip all rows
+     * before it.
+     *
+     * <p>
+     * A title prefix is passed as a range rather than a LIKE pattern, so that wildcard characters in it
+     * match only themselves.
+     * </p>
+     *
+     * @param cursor    the ID of the last book on the previous page, 0 for the first page
+     * @param author    the exact author to match, or null for any author
+     * @param titleFrom the inclusive lower bound of the title, the prefix itself, or null for any title
+     * @param titleTo   the exclusive upper bound of the title, just past every title starting with the prefix
+     * @param limit     the maximum number of books to return
+     * @return the books after the cursor matching the filters, in ascending ID order
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.id > :cursor"
+            + " AND (:author IS NULL OR b.author = :author)"
+            + " AND (:titleFrom IS NULL OR (b.title >= :titleFrom AND b.title < :titleTo))"
+            + " ORDER BY b.id")
+    List<Book> findPageAfter(@Param("cursor") Long cursor, @Param("author") String author,
+                             @Param("titleFrom") String titleFrom, @Param("titleTo") String titleTo, Limit limit);
+
+    /**
+     * Fetches the books by an author after the given cursor, ordered by ID, served by the
+     * {@code idx_book_author} index on (author, id). Ordering by the author as well, a constant here, lets
+     * the planner read the rows off the index in order and stop at the limit instead of sorting every match.
+     *
+     * @param author        the exact author
+     * @param cursor        the ID of the last book on the previous page, 0 for the first page
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param limit         the maximum number of books to return
+     * @return the matching books after the cursor, in ascending ID order
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.author = :author AND b.id > :cursor"
+            + " AND (:availableOnly = FALSE OR b.borrowedCopies < b.totalCopies)"
+            + " ORDER BY b.author, b.id")
+    List<Book> findByAuthor(@Param("author") String author, @Param("cursor") Long cursor,
+                            @Param("availableOnly") boolean availableOnly, Limit limit);
+
+    /**
+     * Fetches the books whose author falls in the given range, in author order, read straight off the
+     * {@code idx_book_author} index. A prefix is passed as a range rather than a LIKE pattern because a
+     * bound parameter is opaque to the planner, which would then scan the table.
+     *
+     * @param from          the inclusive lower bound, the prefix itself
+     * @param to            the exclusive upper bound, just past every author starting with the prefix
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param limit         the maximum number of books to return
+     * @return the matching books, ordered by author and then ID
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.author >= :from AND b.author < :to"
+            + " AND (:availableOnly = FALSE OR b.borrowedCopies < b.totalCopies)"
+            + " ORDER BY b.author, b.id")
+    List<Book> findByAuthorRange(@Param("from") String from, @Param("to") String to,
+                                 @Param("availableOnly") boolean availableOnly, Limit limit);
+
+    /**
+     * Fetches the books with a title after the given cursor, ordered by ID, served by the
+     * {@code idx_book_title} index on (title, id), in index order like {@link #findByAuthor}.
+     *
+     * @param title         the exact title
+     * @param cursor        the ID of the last book on the previous page, 0 for the first page
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param limit         the maximum number of books to return
+     * @return the matching books after the cursor, in ascending ID order
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.title = :title AND b.id > :cursor"
+            + " AND (:availableOnly = FALSE OR b.borrowedCopies < b.totalCopies)"
+            + " ORDER BY b.title, b.id")
+    List<Book> findByTitle(@Param("title") String title, @Param("cursor") Long cursor,
+                           @Param("availableOnly") boolean availableOnly, Limit limit);
+
+    /**
+     * Fetches the books whose title falls in the given range, in title order, read straight off the
+     * {@code idx_book_title} index. See {@link #findByAuthorRange}.
+     *
+     * @param from          the inclusive lower bound, the prefix itself
+     * @param to            the exclusive upper bound, just past every title starting with the prefix
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param limit         the maximum number of books to return
+     * @return the matching books, ordered by title and then ID
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.title >= :from AND b.title < :to"
+            + " AND (:availableOnly = FALSE OR b.borrowedCopies < b.totalCopies)"
+            + " ORDER BY b.title, b.id")
+    List<Book> findByTitleRange(@Param("from") String from, @Param("to") String to,
+                                @Param("availableOnly") boolean availableOnly, Limit limit);
+
+    /**
+     * Fetches every book, ordered by ID, as unmanaged rows in a read-only transaction.
+     *
+     * @return all books
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " ORDER BY b.id")
+    List<Book> findAllRows();
+
+    /**
+     * Fetches the books with the given IDs, in no particular order, as unmanaged rows in a read-only
+     * transaction. IDs without a book are skipped.
+     *
+     * @param ids the IDs of the books
+     * @return the books found
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.id IN :ids")
+    List<Book> findRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Fetches a book as an unmanaged row, read from the table even when the entity is already loaded in the
+     * current persistence context, e.g. to see the effect of a guarded update.
+     *
+     * @param id the ID of the book
+     * @return the book, or empty if it does not exist
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_BOOK_ROW + " WHERE b.id = :id")
+    Optional<Book> findRowById(@Param("id") Long id);
+
+    /**
+     * Streams every book in ascending ID order over a forward-only cursor instead of materializing a list.
+     * <p>
+     * Rows are fetched from the driver in fixed-size chunks and loaded read-only, so Hibernate keeps no
+     * dirty-checking snapshot for them. The caller must consume the stream inside a transaction, close it
+     * when done and detach each book once written, otherwise the persistence context still grows with
+     * the table.
+     * </p>
+     *
+     * @return a stream over all books
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+
+    /**
+     * Streams the ID of every book, in no particular order, without loading the books themselves.
+     * The caller must consume the stream inside a transaction and close it when done.
+     *
+     * @return a stream over all book IDs
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id FROM Book b")
+    Stream<Long> streamAllIds();
 }
@@ -0,0 +1,177 @@
+package com.library.search;
+
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory full-text index over book titles and authors.
+ * <p>
+ * The index is built from {@link BookRepository} once the application is ready and then kept current from
+ * committed {@link BookChangedEvent}s. Searches share a read lock and run concurrently; each change holds
+ * the write lock only for the few posting lists it touches.
+ * </p>
+ */
+@Component
+public class BookSearchIndex {
+
+    private final BookRepository bookRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private InvertedIndex index = new InvertedIndex();
+
+    // Changes made while a rebuild is reading the table, replayed onto the rebuilt index before it is swapped in
+    private List<Consumer<InvertedIndex>> pendingChanges;
+
+    /**
+     * Constructs a new BookSearchIndex.
+     *
+     * @param bookRepository      the BookRepository the index is rebuilt from
+     * @param transactionTemplate the TransactionTemplate the rebuild reads the table in
+     * @param entityManager       the EntityManager books are detached from once indexed
+     */
+    public BookSearchIndex(BookRepository bookRepository, TransactionTemplate transactionTemplate,
+                           EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Finds the books whose title or author contain every term of the query, as whole words or prefixes.
+     *
+     * @param query the free-text query
+     * @param limit the maximum number of hits to return
+     * @return the best hits, most relevant first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes or re-indexes a book.
+     *
+     * @param id     the ID of the book
+     * @param title  the title of the book
+     * @param author the author of the book
+     */
+    public void put(long id, String title, String author) {
+        apply(target -> target.put(id, title, author));
+    }
+
+    /**
+     * Removes a book from the index.
+     *
+     * @param id the ID of the book
+     */
+    public void remove(long id) {
+        apply(target -> target.remove(id));
+    }
+
+    /**
+     * Applies a committed change. Circulation changes do not affect the indexed fields and are ignored.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> put(event.bookId(), event.book().getTitle(), event.book().getAuthor());
+            case DELETED -> remove(event.bookId());
+            default -> {
+                // Borrowing and returning do not change titles or authors
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database, streaming the table so that only the index itself is held in
+     * memory. Searches keep using the previous index until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            setPendingChanges(new ArrayList<>());
+            InvertedIndex rebuilt = new InvertedIndex();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Book> books = bookRepository.streamAll()) {
+                        books.forEach(book -> {
+                            rebuilt.put(book.getId(), book.getTitle(), book.getAuthor());
+                            entityManager.detach(book);
+                        });
+                    }
+                });
+            } catch (RuntimeException ex) {
+                setPendingChanges(null);
+                throw ex;
+            }
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                pendingChanges = null;
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPendingChanges(List<Consumer<InvertedIndex>> changes) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
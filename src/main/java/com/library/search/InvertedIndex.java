@@ -0,0 +1,228 @@
+package com.library.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from title and author terms to the books containing them.
+ * <p>
+ * A query matches books containing every query term, either exactly or as a prefix of an indexed term.
+ * Each match scores its field weight times the inverse document frequency of the indexed term, halved
+ * for prefix matches, and a book's score is the sum of its best match per query term. Not thread-safe;
+ * {@link BookSearchIndex} guards it.
+ * </p>
+ */
+final class InvertedIndex {
+
+    static final double TITLE_WEIGHT = 2.0;
+
+    static final double AUTHOR_WEIGHT = 1.0;
+
+    static final double PREFIX_FACTOR = 0.5;
+
+    /**
+     * Shorter query terms only match exactly, since a one-letter prefix would expand to most of the dictionary.
+     */
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * Upper bound on the indexed terms a single query term expands to, per field.
+     */
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparingLong(SearchHit::bookId);
+
+    private final TreeMap<String, PostingList> titleTerms = new TreeMap<>();
+
+    private final TreeMap<String, PostingList> authorTerms = new TreeMap<>();
+
+    private final Map<Long, IndexedTerms> documents = new HashMap<>();
+
+    private record IndexedTerms(String[] title, String[] author) {
+    }
+
+    /**
+     * A posting list an expanded query term matched, with the score every book in it earns.
+     */
+    private record Expansion(PostingList postings, double weight) {
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * Indexes a book, replacing any terms it was indexed with before.
+     */
+    void put(long id, String title, String author) {
+        remove(id);
+        documents.put(id, new IndexedTerms(addTerms(titleTerms, id, Tokenizer.tokenize(title)),
+                addTerms(authorTerms, id, Tokenizer.tokenize(author))));
+    }
+
+    void remove(long id) {
+        IndexedTerms terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        removeTerms(titleTerms, id, terms.title());
+        removeTerms(authorTerms, id, terms.author());
+    }
+
+    /**
+     * Returns the best matching books, highest score first and by ascending ID among equal scores.
+     */
+    List<SearchHit> search(String query, int limit) {
+        Set<String> queryTerms = Tokenizer.tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<List<Expansion>> terms = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            List<Expansion> expansions = expand(term);
+            if (expansions.isEmpty()) {
+                return List.of();
+            }
+            terms.add(expansions);
+        }
+        if (terms.size() == 1) {
+            return searchSingleTerm(terms.get(0), limit);
+        }
+
+        // Drive the search from the rarest term and probe the others only for its candidates
+        terms.sort(Comparator.comparingLong(InvertedIndex::postingCount));
+        Map<Long, Double> candidates = new HashMap<>();
+        for (Expansion expansion : terms.get(0)) {
+            for (int i = 0; i < expansion.postings().size(); i++) {
+                candidates.merge(expansion.postings().get(i), expansion.weight(), Math::max);
+            }
+        }
+        for (List<Expansion> expansions : terms.subList(1, terms.size())) {
+            candidates.entrySet().removeIf(candidate -> {
+                double best = 0;
+                for (Expansion expansion : expansions) {
+                    if (expansion.weight() > best && expansion.postings().contains(candidate.getKey())) {
+                        best = expansion.weight();
+                    }
+                }
+                candidate.setValue(candidate.getValue() + best);
+                return best == 0;
+            });
+        }
+
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(RANKING.reversed());
+        candidates.forEach((id, score) -> offer(top, new SearchHit(id, score), limit));
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    /**
+     * With one query term every book in an expansion earns the same score, so expansions are visited from
+     * the highest weight down and the search stops once no remaining expansion can beat the current top.
+     */
+    private static List<SearchHit> searchSingleTerm(List<Expansion> expansions, int limit) {
+        List<Expansion> byWeight = new ArrayList<>(expansions);
+        byWeight.sort(Comparator.comparingDouble(Expansion::weight).reversed());
+        Map<Long, Double> scores = new HashMap<>();
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(RANKING.reversed());
+        for (Expansion expansion : byWeight) {
+            if (top.size() == limit && top.peek().score() > expansion.weight()) {
+                break;
+            }
+            for (int i = 0; i < expansion.postings().size(); i++) {
+                long id = expansion.postings().get(i);
+                if (scores.putIfAbsent(id, expansion.weight()) == null) {
+                    offer(top, new SearchHit(id, expansion.weight()), limit);
+                }
+            }
+        }
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private static void offer(PriorityQueue<SearchHit> top, SearchHit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (RANKING.compare(hit, top.peek()) < 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private List<Expansion> expand(String term) {
+        List<Expansion> expansions = new ArrayList<>();
+        expand(titleTerms, term, TITLE_WEIGHT, expansions);
+        expand(authorTerms, term, AUTHOR_WEIGHT, expansions);
+        return expansions;
+    }
+
+    private void expand(TreeMap<String, PostingList> dictionary, String term, double fieldWeight,
+                        List<Expansion> expansions) {
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            PostingList exact = dictionary.get(term);
+            if (exact != null) {
+                expansions.add(new Expansion(exact, fieldWeight * idf(exact)));
+            }
+            return;
+        }
+        NavigableMap<String, PostingList> matches = dictionary.subMap(term, true, term + Character.MAX_VALUE, false);
+        int expanded = 0;
+        for (Map.Entry<String, PostingList> match : matches.entrySet()) {
+            if (expanded++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            double factor = match.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+            expansions.add(new Expansion(match.getValue(), fieldWeight * factor * idf(match.getValue())));
+        }
+    }
+
+    private double idf(PostingList postings) {
+        return Math.log(1.0 + (double) documents.size() / postings.size());
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        return expansions.stream().mapToLong(expansion -> expansion.postings().size()).sum();
+    }
+
+    /**
+     * Adds the book to the posting list of every term, and returns the terms using the dictionary's own
+     * key instances so that per-book term arrays do not hold duplicate strings.
+     */
+    private static String[] addTerms(TreeMap<String, PostingList> dictionary, long id, Set<String> terms) {
+        String[] indexed = new String[terms.size()];
+        int i = 0;
+        for (String term : terms) {
+            Map.Entry<String, PostingList> entry = dictionary.ceilingEntry(term);
+            if (entry == null || !entry.getKey().equals(term)) {
+                dictionary.put(term, new PostingList());
+                entry = dictionary.ceilingEntry(term);
+            }
+            entry.getValue().add(id);
+            indexed[i++] = entry.getKey();
+        }
+        return indexed;
+    }
+
+    private static void removeTerms(TreeMap<String, PostingList> dictionary, long id, String[] terms) {
+        for (String term : terms) {
+            PostingList postings = dictionary.get(term);
+            if (postings == null) {
+                continue;
+            }
+            postings.remove(id);
+            if (postings.size() == 0) {
+                dictionary.remove(term);
+            }
+        }
+    }
+}
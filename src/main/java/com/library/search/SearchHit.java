@@ -0,0 +1,10 @@
+package com.library.search;
+
+/**
+ * A book matching a search, with its relevance score.
+ *
+ * @param bookId the ID of the matching book
+ * @param score  the relevance of the book, higher is better
+ */
+public record SearchHit(long bookId, double score) {
+}
@@ -0,0 +1,258 @@
+package com.library.service;
+
+import com.library.cache.BarcodeIndex;
+import com.library.constant.CopyStatus;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookCopyChangedEvent;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.CopyNotFoundException;
+import com.library.exception.InvalidCopyRequestException;
+import com.library.exception.NoAvailableCopiesException;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookCopyRepository;
+import com.library.repository.BookRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.library.constant.ExceptionConstant.BOOK_NOT_FOUND;
+import static com.library.constant.ExceptionConstant.COPY_BORROWED;
+import static com.library.constant.ExceptionConstant.COPY_NOT_AVAILABLE;
+import static com.library.constant.ExceptionConstant.COPY_NOT_BORROWED;
+import static com.library.constant.ExceptionConstant.COPY_NOT_FOUND;
+import static com.library.constant.ExceptionConstant.DUPLICATE_BARCODE;
+import static com.library.constant.ExceptionConstant.INVALID_BARCODE;
+import static com.library.util.BookUtils.getFormattedMessage;
+
+/**
+ * Circulation of physical copies by the barcode on their label.
+ * <p>
+ * Every copy is counted in the {@code totalCopies} of its book, and every checked-out copy in its
+ * {@code borrowedCopies}: registering and removing a copy change the total, checking one out and returning it
+ * borrow and return the book in the same transaction as the status change. Books may also own copies that
+ * were never registered, which are still borrowed and returned through the book.
+ * </p>
+ */
+@Service
+public class BookCopyService {
+
+    private final BookCopyRepository bookCopyRepository;
+
+    private final BookRepository bookRepository;
+
+    private final BookService bookService;
+
+    private final BarcodeIndex barcodeIndex;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructs a new BookCopyService.
+     *
+     * @param bookCopyRepository  the BookCopyRepository copies are stored in
+     * @param bookRepository      the BookRepository the total copies of books are changed in
+     * @param bookService         the BookService books are looked up, borrowed and returned through
+     * @param barcodeIndex        the BarcodeIndex scanned barcodes are resolved with
+     * @param availabilityLedger  the AvailabilityLedger holding the current counts when it is enabled
+     * @param eventPublisher      the ApplicationEventPublisher registrations and removals are announced on
+     * @param transactionTemplate the TransactionTemplate checkouts and returns run in
+     */
+    public BookCopyService(BookCopyRepository bookCopyRepository, BookRepository bookRepository,
+                           BookService bookService, BarcodeIndex barcodeIndex,
+                           AvailabilityLedger availabilityLedger, ApplicationEventPublisher eventPublisher,
+                           TransactionTemplate transactionTemplate) {
+        this.bookCopyRepository = bookCopyRepository;
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.barcodeIndex = barcodeIndex;
+        this.availabilityLedger = availabilityLedger;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Registers a new copy of a book as available and adds it to the total copies of the book, with a guarded
+     * relative UPDATE that cannot lose a concurrent borrow or return.
+     *
+     * @param bookId the ID of the book
+     * @param copy   the copy with its barcode and location
+     * @return the registered copy
+     * @throws InvalidCopyRequestException if the barcode is not positive or already registered
+     * @throws BookNotFoundException if the book with the given ID is not found
+     */
+    @Transactional
+    public BookCopy registerCopy(Long bookId, BookCopy copy) {
+        if (copy.getBarcode() <= 0) {
+            throw new InvalidCopyRequestException(getFormattedMessage(INVALID_BARCODE, copy.getBarcode()));
+        }
+        if (!bookRepository.existsById(bookId)) {
+            throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, bookId));
+        }
+        BookCopy registered;
+        try {
+            registered = bookCopyRepository.saveAndFlush(new BookCopy(copy.getBarcode(), bookId,
+                    CopyStatus.AVAILABLE, copy.getLocation()));
+        } catch (DataIntegrityViolationException ex) {
+            throw new InvalidCopyRequestException(getFormattedMessage(DUPLICATE_BARCODE, copy.getBarcode()));
+        }
+        if (bookRepository.addTotalCopies(bookId, 1) == 0) {
+            throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, bookId));
+        }
+        publishBookUpdated(bookId);
+        eventPublisher.publishEvent(new BookCopyChangedEvent(BookCopyChangedEvent.ChangeType.REGISTERED,
+                registered.getBarcode(), bookId));
+        return registered;
+    }
+
+    /**
+     * Retrieves a copy by its barcode.
+     *
+     * @param barcode the barcode of the copy
+     * @return the copy
+     * @throws CopyNotFoundException if no copy is registered with the barcode
+     */
+    public BookCopy findCopy(long barcode) {
+        requireBookIdOf(barcode);
+        return bookCopyRepository.findById(barcode)
+                .orElseThrow(() -> new CopyNotFoundException(getFormattedMessage(COPY_NOT_FOUND, barcode)));
+    }
+
+    /**
+     * Retrieves the book a copy belongs to, resolving the barcode in the {@link BarcodeIndex} and reading the
+     * book through the book cache, so that a scan usually costs no query.
+     *
+     * @param barcode the barcode of the copy
+     * @return the book of the copy
+     * @throws CopyNotFoundException if no copy is registered with the barcode
+     */
+    public Book findBookByBarcode(long barcode) {
+        return bookService.findBookById(requireBookIdOf(barcode));
+    }
+
+    /**
+     * Retrieves the registered copies of a book in barcode order.
+     *
+     * @param bookId the ID of the book
+     * @return the copies of the book
+     * @throws BookNotFoundException if the book with the given ID is not found
+     */
+    public List<BookCopy> findCopiesOfBook(Long bookId) {
+        bookService.findBookById(bookId);
+        return bookCopyRepository.findByBookId(bookId);
+    }
+
+    /**
+     * Checks a copy out by its barcode and borrows its book.
+     * <p>
+     * The status change is a guarded UPDATE like the borrow itself, and both run in one transaction: of two
+     * desks scanning the same copy only one checks it out, and a borrow the book refuses leaves the copy
+     * available. A borrow from the {@link AvailabilityLedger} is taken back if the transaction rolls back.
+     * </p>
+     *
+     * @param barcode the barcode of the copy
+     * @return the ID of the book the copy belongs to
+     * @throws CopyNotFoundException if no copy is registered with the barcode
+     * @throws NoAvailableCopiesException if the copy is already checked out, or its book has no copy left
+     */
+    public long checkoutCopy(long barcode) {
+        return moveCopy(barcode, CopyStatus.AVAILABLE, CopyStatus.BORROWED, COPY_NOT_AVAILABLE);
+    }
+
+    /**
+     * Returns a checked-out copy by its barcode and returns its book, like {@link #checkoutCopy}.
+     *
+     * @param barcode the barcode of the copy
+     * @return the ID of the book the copy belongs to
+     * @throws CopyNotFoundException if no copy is registered with the barcode
+     * @throws NoAvailableCopiesException if the copy is not checked out
+     */
+    public long returnCopy(long barcode) {
+        return moveCopy(barcode, CopyStatus.BORROWED, CopyStatus.AVAILABLE, COPY_NOT_BORROWED);
+    }
+
+    /**
+     * Removes an available copy and takes it off the total copies of its book, with a guarded relative UPDATE
+     * like {@link #registerCopy}. With the {@link AvailabilityLedger} enabled, whose borrowed copies the stored
+     * row lags behind, the ledger checks for an available copy and takes it off under its own lock.
+     *
+     * @param barcode the barcode of the copy
+     * @throws CopyNotFoundException if no copy is registered with the barcode
+     * @throws NoAvailableCopiesException if the copy is checked out, or every copy of its book is borrowed
+     */
+    @Transactional
+    public void removeCopy(long barcode) {
+        BookCopy copy = findCopy(barcode);
+        if (copy.getStatus() != CopyStatus.AVAILABLE) {
+            throw new NoAvailableCopiesException(getFormattedMessage(COPY_BORROWED, barcode));
+        }
+        if (availabilityLedger.isEnabled()) {
+            if (!availabilityLedger.removeAvailableCopy(copy.getBookId())) {
+                throw new NoAvailableCopiesException(getFormattedMessage(COPY_BORROWED, barcode));
+            }
+        } else {
+            Book book = bookRepository.findRowById(copy.getBookId()).orElseThrow(() ->
+                    new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, copy.getBookId())));
+            if (book.getBorrowedCopies() >= book.getTotalCopies()) {
+                throw new NoAvailableCopiesException(getFormattedMessage(COPY_BORROWED, barcode));
+            }
+        }
+        bookCopyRepository.delete(copy);
+        bookCopyRepository.flush();
+        // Also refused when a borrow committed since the check above took the last available copy
+        if (bookRepository.addTotalCopies(copy.getBookId(), -1) == 0) {
+            throw new NoAvailableCopiesException(getFormattedMessage(COPY_BORROWED, barcode));
+        }
+        publishBookUpdated(copy.getBookId());
+        eventPublisher.publishEvent(new BookCopyChangedEvent(BookCopyChangedEvent.ChangeType.REMOVED, barcode,
+                copy.getBookId()));
+    }
+
+    private long moveCopy(long barcode, CopyStatus from, CopyStatus to, String template) {
+        long bookId = requireBookIdOf(barcode);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (bookCopyRepository.updateStatus(barcode, from, to) == 0) {
+                if (!bookCopyRepository.existsById(barcode)) {
+                    throw new CopyNotFoundException(getFormattedMessage(COPY_NOT_FOUND, barcode));
+                }
+                throw new NoAvailableCopiesException(getFormattedMessage(template, barcode));
+            }
+            // A refused borrow or return rolls the status change back. With the ledger enabled, the borrow or
+            // return takes effect at once and the ledger undoes it if this transaction rolls back
+            if (to == CopyStatus.BORROWED) {
+                bookService.borrowBook(bookId);
+            } else {
+                bookService.returnBook(bookId);
+            }
+        });
+        return bookId;
+    }
+
+    /**
+     * Announces the new total copies of a book, as saving the book would have.
+     */
+    private void publishBookUpdated(long bookId) {
+        bookRepository.findRowById(bookId).ifPresent(book ->
+                eventPublisher.publishEvent(new BookChangedEvent(BookChangedEvent.ChangeType.UPDATED, bookId, book)));
+    }
+
+    /**
+     * Resolves a barcode to the ID of its book, throwing a CopyNotFoundException for an unknown barcode.
+     */
+    private long requireBookIdOf(long barcode) {
+        long bookId = barcodeIndex.bookIdOf(barcode);
+        if (bookId == BarcodeIndex.NOT_FOUND) {
+            throw new CopyNotFoundException(getFormattedMessage(COPY_NOT_FOUND, barcode));
+        }
+        return bookId;
+    }
+}
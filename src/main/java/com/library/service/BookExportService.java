@@ -0,0 +1,124 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.constant.ExportFormat;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog to an output stream without holding it in memory.
+ * <p>
+ * Books are pulled from a database cursor one at a time, written, and detached from the persistence
+ * context straight away, so heap use stays flat no matter how many rows the table has.
+ * </p>
+ */
+@Service
+public class BookExportService {
+
+    private static final String CSV_HEADER = "id,title,author,totalCopies,borrowedCopies\n";
+
+    private final BookRepository bookRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new BookExportService.
+     *
+     * @param bookRepository the BookRepository the catalog is streamed from
+     * @param entityManager  the EntityManager books are detached from once written
+     * @param objectMapper   the ObjectMapper used to encode NDJSON rows
+     */
+    public BookExportService(BookRepository bookRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Streams every book, in ascending ID order, to the given output stream.
+     * The output stream is flushed but not closed.
+     *
+     * @param format       the format to write the books in
+     * @param outputStream the stream to write to
+     * @return the number of books written
+     * @throws IOException if writing to the output stream fails
+     */
+    @Transactional
+    public long exportBooks(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            return switch (format) {
+                case NDJSON -> writeNdjson(books.iterator(), outputStream);
+                case CSV -> writeCsv(books.iterator(), outputStream);
+            };
+        }
+    }
+
+    private long writeNdjson(Iterator<Book> books, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            while (books.hasNext()) {
+                Book book = books.next();
+                generator.writeObject(book);
+                generator.writeRaw('\n');
+                entityManager.detach(book);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<Book> books, OutputStream outputStream) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        while (books.hasNext()) {
+            Book book = books.next();
+            writer.write(String.valueOf(book.getId()));
+            writer.write(',');
+            writeCsvField(writer, book.getTitle());
+            writer.write(',');
+            writeCsvField(writer, book.getAuthor());
+            writer.write(',');
+            writer.write(String.valueOf(book.getTotalCopies()));
+            writer.write(',');
+            writer.write(String.valueOf(book.getBorrowedCopies()));
+            writer.write('\n');
+            entityManager.detach(book);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes a field, quoting it as described in RFC 4180 when it contains a separator, quote or line break.
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
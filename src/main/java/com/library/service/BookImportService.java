@@ -0,0 +1,136 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.api.ImportChunkResult;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.library.constant.ExceptionConstant.IMPORT_BODY_UNREADABLE;
+import static com.library.constant.ExceptionConstant.IMPORT_CHUNK_FAILED;
+import static com.library.util.BookUtils.getFormattedMessage;
+
+/**
+ * Loads large numbers of books in one request.
+ * <p>
+ * The request body is parsed incrementally, so only one chunk of books is held in memory at a time.
+ * Each chunk is persisted in its own transaction, and the inserts are sent to the database as JDBC batches
+ * (see {@code hibernate.jdbc.batch_size}). A failing chunk is rolled back and reported without affecting
+ * the chunks before or after it. Failures are reported with a fixed message and logged with their cause,
+ * which may quote SQL.
+ * </p>
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int defaultChunkSize;
+
+    /**
+     * Constructs a new BookImportService.
+     *
+     * @param entityManager       the EntityManager books are persisted through
+     * @param transactionTemplate the TransactionTemplate each chunk is committed with
+     * @param objectMapper        the ObjectMapper used to parse the request body
+     * @param eventPublisher      the ApplicationEventPublisher every imported book is announced on
+     * @param defaultChunkSize    the number of books per chunk when the caller does not choose one
+     */
+    public BookImportService(EntityManager entityManager, TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                             @Value("${library.bulk-import.chunk-size:1000}") int defaultChunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    /**
+     * Imports the books in the given body, which is either a JSON array of books or NDJSON (one book per line).
+     * Book IDs in the body are ignored; every record is inserted as a new book.
+     * <p>
+     * If the body is malformed, the records read so far are still imported, the unreadable remainder is
+     * reported as a failed chunk and parsing stops.
+     * </p>
+     *
+     * @param body      the request body to read books from
+     * @param chunkSize the number of books per transaction, or null for the configured default
+     * @return the outcome of every chunk, in order
+     * @throws IOException if the body cannot be read
+     */
+    public List<ImportChunkResult> importBooks(InputStream body, Integer chunkSize) throws IOException {
+        int size = chunkSize == null || chunkSize <= 0 ? defaultChunkSize : chunkSize;
+        List<ImportChunkResult> results = new ArrayList<>();
+        List<Book> chunk = new ArrayList<>(size);
+        long position = 0;
+
+        // A root-level array is unwrapped; otherwise consecutive root values (NDJSON) are read
+        try (MappingIterator<Book> books = objectMapper.readerFor(Book.class).readValues(body)) {
+            while (books.hasNextValue()) {
+                chunk.add(books.nextValue());
+                if (chunk.size() == size) {
+                    results.add(persistChunk(results.size(), position, chunk));
+                    position += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (!chunk.isEmpty()) {
+                results.add(persistChunk(results.size(), position, chunk));
+                position += chunk.size();
+                chunk.clear();
+            }
+            log.warn("Bulk import stopped at unreadable record {}", position, ex);
+            results.add(new ImportChunkResult(results.size(), position, 0, 0,
+                    getFormattedMessage(IMPORT_BODY_UNREADABLE, position)));
+            return results;
+        }
+        if (!chunk.isEmpty()) {
+            results.add(persistChunk(results.size(), position, chunk));
+        }
+        return results;
+    }
+
+    private ImportChunkResult persistChunk(int index, long firstRecord, List<Book> books) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Book book : books) {
+                    book.setId(null);
+                    entityManager.persist(book);
+                    eventPublisher.publishEvent(new BookChangedEvent(ChangeType.CREATED, book.getId(), book));
+                }
+                entityManager.flush();
+                // Detach the chunk so the persistence context does not grow across chunks. The context may be
+                // the request's own, so whatever else it holds is left managed
+                books.forEach(entityManager::detach);
+            });
+            return new ImportChunkResult(index, firstRecord, books.size(), books.size(), null);
+        } catch (RuntimeException ex) {
+            log.warn("Bulk import chunk {} was rolled back", index, ex);
+            return new ImportChunkResult(index, firstRecord, books.size(), 0,
+                    getFormattedMessage(IMPORT_CHUNK_FAILED, firstRecord, firstRecord + books.size() - 1));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.search.BookSearchIndex;
+import com.library.search.SearchHit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.library.constant.ApiConstant.DEFAULT_SEARCH_LIMIT;
+import static com.library.constant.ApiConstant.MAX_SEARCH_LIMIT;
+
+@Service
+public class BookSearchService {
+
+    private final BookSearchIndex bookSearchIndex;
+
+    private final BookRepository bookRepository;
+
+    /**
+     * Constructs a new BookSearchService.
+     *
+     * @param bookSearchIndex the BookSearchIndex queries are answered from
+     * @param bookRepository  the BookRepository the matching books are loaded from
+     */
+    public BookSearchService(BookSearchIndex bookSearchIndex, BookRepository bookRepository) {
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Searches titles and authors for every term of the query, matching whole words or prefixes, and
+     * returns the matching books most relevant first. Title matches rank above author matches and rare
+     * terms above common ones.
+     *
+     * @param query the free-text query
+     * @param limit the maximum number of books, the default when null or not positive, capped at the maximum
+     * @return the matching books in order of relevance
+     */
+    public List<Book> searchBooks(String query, Integer limit) {
+        int maxHits = limit == null || limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        List<SearchHit> hits = bookSearchIndex.search(query, maxHits);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        // One primary-key lookup for all hits, then restore the ranking
+        Map<Long, Book> books = bookRepository.findRowsByIdIn(hits.stream().map(SearchHit::bookId).toList())
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return hits.stream()
+                .map(hit -> books.get(hit.bookId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -1,15 +1,48 @@
 package com.library.service;
 
+import com.library.api.BatchItemResult;
+import com.library.api.BookCacheStats;
+import com.library.api.BookPage;
+import com.library.cache.BookCache;
+import com.library.cache.BookIdFilter;
+import com.library.constant.BatchMode;
+import com.library.constant.CirculationOperation;
 import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.exception.BatchRolledBackException;
 import com.library.exception.BookNotFoundException;
+import com.library.exception.InvalidBatchException;
+import com.library.exception.InvalidCopyRequestException;
 import com.library.exception.NoAvailableCopiesException;
+import com.library.journal.CirculationJournal;
+import com.library.ledger.AvailabilityLedger;
+import com.library.metrics.CirculationMetrics;
+import com.library.metrics.CirculationMetrics.Outcome;
+import com.library.repository.BookCopyRepository;
 import com.library.repository.BookRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.IntSupplier;
 
+import static com.library.constant.ApiConstant.BOOK_BORROW_SUCCESS;
+import static com.library.constant.ApiConstant.BOOK_RETURN_SUCCESS;
+import static com.library.constant.ApiConstant.DEFAULT_PAGE_SIZE;
+import static com.library.constant.ApiConstant.MAX_BATCH_SIZE;
+import static com.library.constant.ApiConstant.MAX_PAGE_SIZE;
+import static com.library.constant.ExceptionConstant.BATCH_ITEM_ROLLED_BACK;
+import static com.library.constant.ExceptionConstant.BATCH_ROLLED_BACK;
 import static com.library.constant.ExceptionConstant.BOOK_NOT_FOUND;
+import static com.library.constant.ExceptionConstant.COPIES_EXCEED_TOTAL;
+import static com.library.constant.ExceptionConstant.INVALID_BATCH;
 import static com.library.constant.ExceptionConstant.NO_AVAILABLE_COPIES;
 import static com.library.constant.ExceptionConstant.NO_BORROWED_COPIES;
 import static com.library.util.BookUtils.getFormattedMessage;
@@ -18,13 +51,48 @@ import static com.library.util.BookUtils.getFormattedMessage;
 public class BookService {
     private final BookRepository bookRepository;
 
+    private final BookCache bookCache;
+
+    private final BookIdFilter bookIdFilter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CirculationMetrics circulationMetrics;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CirculationJournal circulationJournal;
+
+    private final BookCopyRepository bookCopyRepository;
+
     /**
-     * Constructs a new BookService with the given BookRepository.
+     * Constructs a new BookService.
      *
-     * @param bookRepository the BookRepository used for interacting with the database
+     * @param bookRepository      the BookRepository used for interacting with the database
+     * @param bookCache           the BookCache that book lookups are read through
+     * @param bookIdFilter        the BookIdFilter that answers lookups of missing IDs without a query
+     * @param eventPublisher      the ApplicationEventPublisher every change is announced on
+     * @param circulationMetrics  the CirculationMetrics borrows and returns are recorded in
+     * @param availabilityLedger  the AvailabilityLedger circulation goes through when it is enabled
+     * @param transactionTemplate the TransactionTemplate guarded circulation updates run in
+     * @param circulationJournal  the CirculationJournal failed borrows and returns are journaled in
+     * @param bookCopyRepository  the BookCopyRepository the registered copies of a book are checked against
      */
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookCache bookCache, BookIdFilter bookIdFilter,
+                       ApplicationEventPublisher eventPublisher, CirculationMetrics circulationMetrics,
+                       AvailabilityLedger availabilityLedger, TransactionTemplate transactionTemplate,
+                       CirculationJournal circulationJournal, BookCopyRepository bookCopyRepository) {
         this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.bookIdFilter = bookIdFilter;
+        this.eventPublisher = eventPublisher;
+        this.circulationMetrics = circulationMetrics;
+        this.availabilityLedger = availabilityLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.circulationJournal = circulationJournal;
+        this.bookCopyRepository = bookCopyRepository;
     }
 
     /**
@@ -33,99 +101,428 @@ public class BookService {
      * @return a list of all books
      */
     public List<Book> findAllBooks() {
-        return bookRepository.findAll();
+        return bookRepository.findAllRows();
+    }
+
+    /**
+     * Retrieves one page of books after the given cursor, optionally filtered by author and title.
+     * The page size falls back to the default when missing or not positive and is capped at the maximum.
+     *
+     * @param cursor the ID of the last book on the previous page, or null for the first page
+     * @param size   the requested number of books per page
+     * @param author the exact author to match, or null/blank for any author
+     * @param title  the title prefix to match, or null/blank for any title
+     * @return the page of books and the cursor of the following page
+     */
+    public BookPage findBooksPage(Long cursor, Integer size, String author, String title) {
+        int pageSize = pageSize(size);
+        // Fetch one extra row to learn whether another page follows without a COUNT query
+        String titlePrefix = blankToNull(title);
+        List<Book> books = bookRepository.findPageAfter(cursor == null ? 0L : cursor, blankToNull(author),
+                titlePrefix, titlePrefix == null ? null : prefixEnd(titlePrefix), Limit.of(pageSize + 1));
+        return keysetPage(books, pageSize);
+    }
+
+    /**
+     * Retrieves books by author, either one page of an exact match after the given cursor, or the first books
+     * whose author starts with the given prefix. Both are served by the author index.
+     * <p>
+     * Prefix lookups are meant for type-ahead: they return the first page in author order and no cursor.
+     * </p>
+     *
+     * @param author        the author, or the start of it when {@code prefix} is set
+     * @param prefix        whether to match authors starting with {@code author}
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param cursor        the ID of the last book on the previous page of an exact match, or null
+     * @param size          the requested number of books per page, defaulted and capped like
+     *                      {@link #findBooksPage}
+     * @return the page of books and, for an exact match, the cursor of the following page
+     */
+    public BookPage findBooksByAuthor(String author, boolean prefix, boolean availableOnly, Long cursor,
+                                      Integer size) {
+        int pageSize = pageSize(size);
+        if (prefix) {
+            return new BookPage(bookRepository.findByAuthorRange(author, prefixEnd(author), availableOnly,
+                    Limit.of(pageSize)), null);
+        }
+        return keysetPage(bookRepository.findByAuthor(author, cursor == null ? 0L : cursor, availableOnly,
+                Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Retrieves books by title, like {@link #findBooksByAuthor}, served by the title index.
+     *
+     * @param title         the title, or the start of it when {@code prefix} is set
+     * @param prefix        whether to match titles starting with {@code title}
+     * @param availableOnly whether to skip books with every copy borrowed
+     * @param cursor        the ID of the last book on the previous page of an exact match, or null
+     * @param size          the requested number of books per page
+     * @return the page of books and, for an exact match, the cursor of the following page
+     */
+    public BookPage findBooksByTitle(String title, boolean prefix, boolean availableOnly, Long cursor,
+                                     Integer size) {
+        int pageSize = pageSize(size);
+        if (prefix) {
+            return new BookPage(bookRepository.findByTitleRange(title, prefixEnd(title), availableOnly,
+                    Limit.of(pageSize)), null);
+        }
+        return keysetPage(bookRepository.findByTitle(title, cursor == null ? 0L : cursor, availableOnly,
+                Limit.of(pageSize + 1)), pageSize);
     }
 
     /**
      * Retrieves a book by its ID. Throws a BookNotFoundException if no book is found.
+     * <p>
+     * IDs the {@link BookIdFilter} rules out are answered without a query. Other lookups are read through
+     * the {@link BookCache}. The returned book is shared with other callers and must not be modified.
+     * </p>
      *
      * @param id the ID of the book to retrieve
      * @return the book with the given ID
      * @throws BookNotFoundException if the book with the given ID is not found
      */
     public Book findBookById(Long id) {
-        return bookRepository.findById(id).orElseThrow(() -> new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id)));
+        requireMightExist(id);
+        // A primary-key load already runs read-only and through a prepared loader, which measured cheaper than
+        // the row queries the list and search endpoints use
+        Book book = bookCache.get(id, bookId -> bookRepository.findById(bookId).orElse(null));
+        if (book == null) {
+            throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id));
+        }
+        return availabilityLedger.overlay(book);
     }
 
     /**
-     * Saves a new book or updates an existing book.
+     * Returns the hit, miss and eviction counters of the book lookup cache.
+     *
+     * @return the current cache statistics
+     */
+    public BookCacheStats getCacheStats() {
+        return bookCache.stats();
+    }
+
+    /**
+     * Saves a new book or updates an existing book. An existing book cannot have fewer total copies than it
+     * has registered copies.
+     * <p>
+     * A book with the ID of an existing one is updated like {@link #updateBook}: its title, author and total
+     * copies are written, and its borrowed copies are left to borrows and returns. A book with an unknown ID
+     * is saved as a new book.
+     * </p>
      *
      * @param book the book to save or update
      * @return the saved or updated book
+     * @throws InvalidCopyRequestException if the book has more registered copies than total copies
      */
     @Transactional
     public Book saveBook(Book book) {
-        return bookRepository.save(book);
+        if (book.getId() != null && bookRepository.existsById(book.getId())) {
+            return updateBook(book.getId(), book);
+        }
+        // Like the merge of an unknown ID did, insert the book under a newly generated ID
+        book.setId(null);
+        Book saved = bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(ChangeType.CREATED, saved.getId(), saved));
+        return saved;
     }
 
     /**
-     * Deletes a book by its ID. Throws a BookNotFoundException if no book is found.
+     * Deletes a book and its registered copies by its ID. Throws a BookNotFoundException if no book is found.
      *
      * @param id the ID of the book to delete
      * @throws BookNotFoundException if the book with the given ID is not found
      */
     @Transactional
     public void deleteBook(Long id) {
-        if (!bookRepository.existsById(id)) {
+        if (!bookIdFilter.mightContain(id) || !bookRepository.existsById(id)) {
             throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id));
         }
+        List<Long> barcodes = bookCopyRepository.findBarcodesByBookId(id);
+        bookCopyRepository.deleteByBookId(id);
         bookRepository.deleteById(id);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(id, barcodes));
     }
 
     /**
      * Borrows a book by its ID. Increments the borrowedCopies if there are available copies.
      * Throws a NoAvailableCopiesException if there are no available copies.
+     * <p>
+     * The availability check and the increment are a single guarded UPDATE, so concurrent borrowers
+     * never over-borrow and the happy path costs one statement. The book is only looked up again
+     * when the update matched no row, to tell a missing book apart from an exhausted one.
+     * </p>
+     * <p>
+     * When the {@link AvailabilityLedger} is enabled, the copy is taken from the ledger instead and the
+     * database is updated later, so no connection is needed.
+     * </p>
+     * <p>
+     * Latency and outcome are recorded in {@link CirculationMetrics}, including the commit.
+     * </p>
      *
      * @param id the ID of the book to borrow
+     * @throws BookNotFoundException if the book with the given ID is not found
      * @throws NoAvailableCopiesException if no copies are available to borrow
      */
-    @Transactional
     public void borrowBook(Long id) {
-        Book book = findBookById(id);
-        if (book.getBorrowedCopies() < book.getTotalCopies()) {
-            book.setBorrowedCopies(book.getBorrowedCopies() + 1);
-            bookRepository.save(book);
-        } else {
-            throw new NoAvailableCopiesException(getFormattedMessage(NO_AVAILABLE_COPIES, id));
-        }
+        circulationMetrics.record(CirculationOperation.BORROW, () -> journalingFailures(CirculationOperation.BORROW, id, () -> {
+            requireMightExist(id);
+            boolean borrowed = availabilityLedger.isEnabled() ? availabilityLedger.borrow(id)
+                    : updateInTransaction(() -> bookRepository.incrementBorrowedCopies(id)) != 0;
+            if (!borrowed) {
+                throw circulationFailure(id, NO_AVAILABLE_COPIES);
+            }
+            eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.BORROWED, id));
+        }));
     }
 
     /**
      * Returns a borrowed book by its ID. Decrements the borrowedCopies if there are borrowed copies.
      * Throws a NoAvailableCopiesException if no copies have been borrowed.
+     * <p>
+     * Like {@link #borrowBook(Long)}, this is a single guarded UPDATE, or an update of the
+     * {@link AvailabilityLedger} when it is enabled.
+     * </p>
      *
      * @param id the ID of the book to return
+     * @throws BookNotFoundException if the book with the given ID is not found
      * @throws NoAvailableCopiesException if no borrowed copies exist to return
      */
-    @Transactional
     public void returnBook(Long id) {
-        Book book = findBookById(id);
-        if (book.getBorrowedCopies() > 0) {
-            book.setBorrowedCopies(book.getBorrowedCopies() - 1);
-            bookRepository.save(book);
-        } else {
-            throw new NoAvailableCopiesException(getFormattedMessage(NO_BORROWED_COPIES, id));
+        circulationMetrics.record(CirculationOperation.RETURN, () -> journalingFailures(CirculationOperation.RETURN, id, () -> {
+            requireMightExist(id);
+            boolean returned = availabilityLedger.isEnabled() ? availabilityLedger.release(id)
+                    : updateInTransaction(() -> bookRepository.decrementBorrowedCopies(id)) != 0;
+            if (!returned) {
+                throw circulationFailure(id, NO_BORROWED_COPIES);
+            }
+            eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.RETURNED, id));
+        }));
+    }
+
+    /**
+     * Borrows or returns several books in one transaction.
+     * <p>
+     * Books are processed in ascending ID order whatever order they were requested in. Every guarded
+     * update locks its row until commit, so two batches always take their locks in the same order and
+     * cannot deadlock each other. A book ID may appear more than once to borrow or return several copies.
+     * </p>
+     * <p>
+     * In {@link BatchMode#BEST_EFFORT} mode every book is attempted and the successful ones are committed.
+     * In {@link BatchMode#ALL_OR_NOTHING} mode the first failure stops the batch and rolls back every
+     * change made so far. With the {@link AvailabilityLedger} enabled, an all-or-nothing batch is checked and
+     * applied to the ledger as a whole instead.
+     * </p>
+     *
+     * @param operation whether to borrow or return the books
+     * @param ids       the IDs of the books to process
+     * @param mode      how failures are handled, all-or-nothing when null
+     * @return the outcome of every book, in processing order
+     * @throws InvalidBatchException if the operation is missing or the batch is empty or too large
+     * @throws BatchRolledBackException if an all-or-nothing batch failed and was rolled back
+     */
+    @Transactional
+    public List<BatchItemResult> processBatch(CirculationOperation operation, List<Long> ids, BatchMode mode) {
+        if (operation == null || ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE
+                || ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidBatchException(getFormattedMessage(INVALID_BATCH, MAX_BATCH_SIZE));
+        }
+        boolean allOrNothing = mode != BatchMode.BEST_EFFORT;
+        List<Long> orderedIds = ids.stream().sorted().toList();
+        if (allOrNothing && availabilityLedger.isEnabled()) {
+            return processLedgerBatch(operation, orderedIds);
+        }
+        List<BatchItemResult> results = new ArrayList<>(orderedIds.size());
+
+        for (int i = 0; i < orderedIds.size(); i++) {
+            Long id = orderedIds.get(i);
+            BatchItemResult result = processBatchItem(operation, id);
+            results.add(result);
+            if (allOrNothing && result.statusCode() != HttpStatus.OK.value()) {
+                throw new BatchRolledBackException(getFormattedMessage(BATCH_ROLLED_BACK, result.responseMessage()),
+                        result.statusCode(), rolledBack(results, orderedIds.subList(i + 1, orderedIds.size())));
+            }
+        }
+        return results;
+    }
+
+    private BatchItemResult processBatchItem(CirculationOperation operation, Long id) {
+        try {
+            if (operation == CirculationOperation.BORROW) {
+                borrowBook(id);
+            } else {
+                returnBook(id);
+            }
+            return succeeded(operation, id);
+        } catch (BookNotFoundException | NoAvailableCopiesException ex) {
+            return failed(id, ex);
+        }
+    }
+
+    private List<BatchItemResult> processLedgerBatch(CirculationOperation operation, List<Long> orderedIds) {
+        int failedIndex = availabilityLedger.applyAll(operation, orderedIds);
+        if (failedIndex >= 0) {
+            Long failedId = orderedIds.get(failedIndex);
+            BatchItemResult failure = failed(failedId, circulationFailure(failedId,
+                    operation == CirculationOperation.BORROW ? NO_AVAILABLE_COPIES : NO_BORROWED_COPIES));
+            List<BatchItemResult> results = new ArrayList<>(orderedIds.size());
+            orderedIds.subList(0, failedIndex).forEach(id -> results.add(notProcessed(id)));
+            results.add(failure);
+            orderedIds.subList(failedIndex + 1, orderedIds.size()).forEach(id -> results.add(notProcessed(id)));
+            throw new BatchRolledBackException(getFormattedMessage(BATCH_ROLLED_BACK, failure.responseMessage()),
+                    failure.statusCode(), results);
+        }
+        ChangeType type = operation == CirculationOperation.BORROW ? ChangeType.BORROWED : ChangeType.RETURNED;
+        List<BatchItemResult> results = new ArrayList<>(orderedIds.size());
+        for (Long id : orderedIds) {
+            eventPublisher.publishEvent(BookChangedEvent.of(type, id));
+            results.add(succeeded(operation, id));
         }
+        return results;
+    }
+
+    private static BatchItemResult succeeded(CirculationOperation operation, Long id) {
+        String template = operation == CirculationOperation.BORROW ? BOOK_BORROW_SUCCESS : BOOK_RETURN_SUCCESS;
+        return new BatchItemResult(id, HttpStatus.OK.value(), getFormattedMessage(template, id));
+    }
+
+    private static BatchItemResult failed(Long id, RuntimeException ex) {
+        HttpStatus status = ex instanceof BookNotFoundException ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+        return new BatchItemResult(id, status.value(), ex.getMessage());
+    }
+
+    /**
+     * Rewrites the outcomes of a failed all-or-nothing batch: books that succeeded before the failure and
+     * books never reached are reported as not processed, the failing book keeps its own outcome.
+     */
+    private static List<BatchItemResult> rolledBack(List<BatchItemResult> attempted, List<Long> remainingIds) {
+        List<BatchItemResult> results = new ArrayList<>(attempted.size() + remainingIds.size());
+        for (BatchItemResult result : attempted) {
+            results.add(result.statusCode() == HttpStatus.OK.value() ? notProcessed(result.id()) : result);
+        }
+        remainingIds.forEach(id -> results.add(notProcessed(id)));
+        return results;
+    }
+
+    private static BatchItemResult notProcessed(Long id) {
+        return new BatchItemResult(id, HttpStatus.FAILED_DEPENDENCY.value(), getFormattedMessage(BATCH_ITEM_ROLLED_BACK, id));
+    }
+
+    /**
+     * Resolves why a guarded circulation update matched no row.
+     *
+     * @param id the ID of the book that was borrowed or returned
+     * @param template the message template to use when the book exists
+     * @return a BookNotFoundException if the book does not exist, otherwise a NoAvailableCopiesException
+     */
+    private RuntimeException circulationFailure(Long id, String template) {
+        if (!bookIdFilter.mightContain(id) || !bookRepository.existsById(id)) {
+            return new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id));
+        }
+        return new NoAvailableCopiesException(getFormattedMessage(template, id));
     }
 
     /**
      * Updates the details of an existing book. If the book with the given ID is found, the book's fields
-     * are updated and saved. If the book is not found, a 404 (Not Found) response is returned.
+     * are updated and saved. If the book is not found, a BookNotFoundException is thrown.
+     * <p>
+     * The title, author and total copies are written with a single UPDATE that leaves the borrowed copies
+     * alone, so an update racing a borrow or return neither loses it nor fails on the version check.
+     * </p>
      *
      * @param id the ID of the book to update
      * @param updatedBook the updated book object with new details
-     * @return a ResponseEntity containing the updated book if successful, or a 404 response if not found
+     * @return the updated book
+     * @throws BookNotFoundException if the book with the given ID is not found
+     * @throws InvalidCopyRequestException if the book has more registered copies than the new total copies
      */
+    @Transactional
     public Book updateBook(Long id, Book updatedBook) {
-        // Fetch the existing book
-        Book existingBook = findBookById(id);
+        requireMightExist(id);
+        requireRoomForCopies(id, updatedBook.getTotalCopies());
+        if (bookRepository.updateDetails(id, updatedBook.getTitle(), updatedBook.getAuthor(),
+                updatedBook.getTotalCopies()) == 0) {
+            throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id));
+        }
+        // Read the row the update wrote, never the shared cached instance
+        Book updated = bookRepository.findRowById(id)
+                .orElseThrow(() -> new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id)));
+        eventPublisher.publishEvent(new BookChangedEvent(ChangeType.UPDATED, id, updated));
+        return updated;
+    }
+
+    /**
+     * Throws an InvalidCopyRequestException if a book has more registered copies than the given total.
+     */
+    private void requireRoomForCopies(Long id, int totalCopies) {
+        long copies = bookCopyRepository.countByBookId(id);
+        if (copies > totalCopies) {
+            throw new InvalidCopyRequestException(getFormattedMessage(COPIES_EXCEED_TOTAL, id, copies, totalCopies));
+        }
+    }
 
-        // Update the fields
-        existingBook.setTitle(updatedBook.getTitle());
-        existingBook.setAuthor(updatedBook.getAuthor());
-        existingBook.setTotalCopies(updatedBook.getTotalCopies());
+    /**
+     * Throws a BookNotFoundException without querying the database if the book certainly does not exist.
+     */
+    private void requireMightExist(Long id) {
+        if (!bookIdFilter.mightContain(id)) {
+            throw new BookNotFoundException(getFormattedMessage(BOOK_NOT_FOUND, id));
+        }
+    }
+
+    /**
+     * Runs a borrow or return, journaling it if it fails, without waiting for the record to reach disk.
+     * Successful ones are journaled by the {@link CirculationJournal} itself once they are committed.
+     */
+    private void journalingFailures(CirculationOperation operation, Long id, Runnable action) {
+        try {
+            action.run();
+        } catch (BookNotFoundException ex) {
+            circulationJournal.appendFailure(id, operation, Outcome.NOT_FOUND);
+            throw ex;
+        } catch (NoAvailableCopiesException ex) {
+            circulationJournal.appendFailure(id, operation, Outcome.NO_AVAILABLE_COPIES);
+            throw ex;
+        }
+    }
+
+    /**
+     * Runs a guarded update in its own transaction, or in the caller's when there is one (a batch).
+     */
+    private int updateInTransaction(IntSupplier update) {
+        Integer rows = transactionTemplate.execute(status -> update.getAsInt());
+        return rows == null ? 0 : rows;
+    }
+
+    private static int pageSize(Integer size) {
+        return size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Cuts the extra row fetched past the page off, using it only to tell whether a following page exists.
+     */
+    private static BookPage keysetPage(List<Book> books, int pageSize) {
+        if (books.size() <= pageSize) {
+            return new BookPage(books, null);
+        }
+        List<Book> page = books.subList(0, pageSize);
+        return new BookPage(page, page.get(pageSize - 1).getId());
+    }
+
+    /**
+     * Returns the smallest string greater than every string starting with the prefix: the prefix with its last
+     * character incremented, after dropping trailing U+FFFF characters, which cannot be incremented.
+     */
+    private static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            if (prefix.charAt(i) != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (prefix.charAt(i) + 1);
+            }
+        }
+        // Only reached for a prefix of U+FFFF characters or none, which no real author or title starts beyond
+        return prefix + Character.MAX_VALUE;
+    }
 
-        // Save the updated book
-        return saveBook(existingBook);
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 }
\ No newline at end of file
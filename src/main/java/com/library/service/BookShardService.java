@@ -0,0 +1,333 @@
+package com.library.service;
+
+import com.library.cache.BookIdFilter;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.exception.InvalidShardRequestException;
+import com.library.ledger.AvailabilityLedger;
+import com.library.snapshot.SnapshotReader;
+import com.library.snapshot.SnapshotWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import static com.library.constant.ExceptionConstant.INVALID_PARTITION;
+import static com.library.constant.ExceptionConstant.PARTITION_HAS_COPIES;
+import static com.library.util.BookUtils.getFormattedMessage;
+
+/**
+ * The part of a shard node the router drives: creating books in a given partition, and moving whole partitions
+ * to and from other nodes.
+ * <p>
+ * A book created through the router gets the ID {@code n * partitions + partition}, with {@code n} from a
+ * sequence of this node's own, so that the router finds it again from its ID alone. The sequence is created on
+ * first use and kept above every ID in the table, including books moved in from other nodes, so IDs never
+ * collide whichever node minted them. Books saved on a node directly take IDs from the entity's sequence
+ * instead, which pays no attention to partitions, so once nodes sit behind a router, books are created through
+ * the router only.
+ * </p>
+ * <p>
+ * Partitions move in the catalog snapshot format: the old node streams their books with
+ * {@link #exportPartitions}, the new one stores them in a single transaction with {@link #importBooks}, which a
+ * truncated or corrupt stream rolls back, and once the router has switched the partitions over the old node
+ * drops them with {@link #deletePartitions}. Every change is announced as usual, so the caches, indexes,
+ * statistics and feed of both nodes follow.
+ * </p>
+ * <p>
+ * Registered copies do not move: desks resolve barcodes on the node the copies were registered on, and a book
+ * without its copies would lose the share of its total they account for. Partitions holding copies are refused
+ * by {@link #checkMovable} and stay on their node.
+ * </p>
+ */
+@Service
+public class BookShardService {
+
+    private static final String SELECT_BOOKS = "SELECT id, title, author, total_copies, borrowed_copies, version"
+            + " FROM book WHERE MOD(id, ?) IN (%s) ORDER BY id";
+
+    private static final String SELECT_IDS = "SELECT id FROM book WHERE MOD(id, ?) IN (%s)";
+
+    private static final String DELETE_BOOKS = "DELETE FROM book WHERE MOD(id, ?) IN (%s)";
+
+    private static final String COUNT_COPIES = "SELECT COUNT(*) FROM book_copy WHERE MOD(book_id, ?) IN (%s)";
+
+    private static final String INSERT_BOOK = "INSERT INTO book (id, title, author, total_copies, borrowed_copies,"
+            + " version) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Storing a partition again after a failed move replaces what the first attempt left behind
+    private static final String MERGE_BOOK = "MERGE INTO book (id, title, author, total_copies, borrowed_copies,"
+            + " version) KEY (id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SEQUENCE = "book_shard_seq";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BookIdFilter bookIdFilter;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final int partitions;
+
+    private final ReentrantLock sequenceLock = new ReentrantLock();
+
+    private volatile boolean sequenceReady;
+
+    /**
+     * Constructs a new BookShardService.
+     *
+     * @param dataSource         the DataSource books are created, moved and removed in
+     * @param transactionManager the PlatformTransactionManager every change runs in
+     * @param bookIdFilter       the BookIdFilter new IDs are added to
+     * @param eventPublisher     the ApplicationEventPublisher every change is announced on
+     * @param availabilityLedger the AvailabilityLedger whose unflushed counts moved books carry
+     * @param partitions         the number of partitions, the same on the router and every node
+     */
+    public BookShardService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                            BookIdFilter bookIdFilter, ApplicationEventPublisher eventPublisher,
+                            AvailabilityLedger availabilityLedger,
+                            @Value("${library.shard.partitions:1024}") int partitions) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookIdFilter = bookIdFilter;
+        this.eventPublisher = eventPublisher;
+        this.availabilityLedger = availabilityLedger;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Creates a book with an ID in the given partition.
+     *
+     * @param partition the partition the router picked for the book
+     * @param book      the book to create; its ID and version are ignored
+     * @return the created book
+     * @throws InvalidShardRequestException if the partition is out of range
+     */
+    public Book createBook(int partition, Book book) {
+        checkPartitions(List.of(partition));
+        prepareSequence();
+        return transactionTemplate.execute(status -> {
+            Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + SEQUENCE, Long.class);
+            long id = Math.addExact(Math.multiplyExact(next, partitions), partition);
+            Book created = new Book(id, book.getTitle(), book.getAuthor(), book.getTotalCopies(),
+                    book.getBorrowedCopies(), 0);
+            jdbcTemplate.update(INSERT_BOOK, id, created.getTitle(), created.getAuthor(), created.getTotalCopies(),
+                    created.getBorrowedCopies(), created.getVersion());
+            bookIdFilter.add(id);
+            eventPublisher.publishEvent(new BookChangedEvent(ChangeType.CREATED, id, created));
+            return created;
+        });
+    }
+
+    /**
+     * Checks that the given partitions can move to another node.
+     *
+     * @param partitionList the partitions to move
+     * @throws InvalidShardRequestException if a partition is out of range or holds registered copies
+     */
+    public void checkMovable(Collection<Integer> partitionList) {
+        checkPartitions(partitionList);
+        Long copies = jdbcTemplate.queryForObject(inPartitions(COUNT_COPIES, partitionList), Long.class, partitions);
+        if (copies > 0) {
+            throw new InvalidShardRequestException(getFormattedMessage(PARTITION_HAS_COPIES, partitionList));
+        }
+    }
+
+    /**
+     * Writes every book of the given partitions to the stream as a catalog snapshot, with the
+     * {@link AvailabilityLedger}'s unflushed counts applied. The stream is left open.
+     *
+     * @param partitionList the partitions to export
+     * @param out           the stream to write to
+     * @return the number of books written
+     * @throws IOException                  if writing to the stream fails
+     * @throws InvalidShardRequestException if the partitions cannot move, see {@link #checkMovable}
+     */
+    public long exportPartitions(Collection<Integer> partitionList, OutputStream out) throws IOException {
+        checkMovable(partitionList);
+        SnapshotWriter writer = new SnapshotWriter(out);
+        try {
+            jdbcTemplate.query(inPartitions(SELECT_BOOKS, partitionList), (RowCallbackHandler) resultSet -> {
+                Book book = new Book(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                        resultSet.getInt(4), resultSet.getInt(5), resultSet.getLong(6));
+                try {
+                    writer.write(availabilityLedger.overlay(book));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, partitions);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        // Finished but not closed, which would close the response the snapshot is written to
+        writer.finish();
+        return writer.count();
+    }
+
+    /**
+     * Stores the books of a snapshot written by {@link #exportPartitions} on another node, keeping their IDs
+     * and versions, in one transaction. The stream is left open.
+     *
+     * @param in the snapshot to read
+     * @return the number of books stored
+     * @throws IOException if the snapshot cannot be read or is corrupt, in which case nothing is stored
+     */
+    public long importBooks(InputStream in) throws IOException {
+        prepareSequence();
+        List<Book> books;
+        try {
+            books = transactionTemplate.execute(status -> {
+                try {
+                    SnapshotReader reader = new SnapshotReader(in);
+                    List<Book> stored = jdbcTemplate.execute(MERGE_BOOK,
+                            (PreparedStatement statement) -> merge(reader, statement));
+                    stored.forEach(book -> eventPublisher.publishEvent(
+                            new BookChangedEvent(ChangeType.CREATED, book.getId(), book)));
+                    return stored;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        books.forEach(book -> bookIdFilter.add(book.getId()));
+        long maxId = books.stream().mapToLong(Book::getId).max().orElse(0);
+        advanceSequence(maxId);
+        return books.size();
+    }
+
+    /**
+     * Removes every book of the given partitions, once they have moved to another node.
+     *
+     * @param partitionList the partitions to remove
+     * @return the number of books removed
+     * @throws InvalidShardRequestException if the partitions cannot move, see {@link #checkMovable}, which
+     *                                      includes a copy registered here while they were moving
+     */
+    public long deletePartitions(Collection<Integer> partitionList) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            checkMovable(partitionList);
+            List<Long> deleted = jdbcTemplate.queryForList(inPartitions(SELECT_IDS, partitionList), Long.class,
+                    partitions);
+            jdbcTemplate.update(inPartitions(DELETE_BOOKS, partitionList), partitions);
+            deleted.forEach(id -> eventPublisher.publishEvent(BookChangedEvent.of(ChangeType.DELETED, id)));
+            return deleted;
+        });
+        ids.forEach(id -> bookIdFilter.remove());
+        return ids.size();
+    }
+
+    private void checkPartitions(Collection<Integer> partitionList) {
+        for (int partition : partitionList) {
+            if (partition < 0 || partition >= partitions) {
+                throw new InvalidShardRequestException(getFormattedMessage(INVALID_PARTITION, partition,
+                        partitions - 1));
+            }
+        }
+    }
+
+    /**
+     * Fills the partition list into a statement. The partitions are checked integers, so they go into the SQL
+     * as literals; the partition count is its only parameter.
+     */
+    private static String inPartitions(String statement, Collection<Integer> partitionList) {
+        return String.format(statement, partitionList.isEmpty() ? "NULL"
+                : partitionList.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Creates the ID sequence on first use, starting past every ID already in the table. DDL commits, so it
+     * runs outside any transaction.
+     */
+    private void prepareSequence() {
+        if (sequenceReady) {
+            return;
+        }
+        sequenceLock.lock();
+        try {
+            if (!sequenceReady) {
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE);
+                advanceSequence(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM book", Long.class));
+                sequenceReady = true;
+            }
+        } finally {
+            sequenceLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the sequence past the given ID, so that no ID it yields can be one already taken. Books moved in
+     * belong to partitions the router holds writes to until the move completes, so no book is created in them
+     * while this runs.
+     */
+    private void advanceSequence(long maxId) {
+        sequenceLock.lock();
+        try {
+            long needed = Math.floorDiv(maxId, partitions) + 1;
+            Long next = jdbcTemplate.queryForObject("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES"
+                    + " WHERE SEQUENCE_NAME = UPPER(?)", Long.class, SEQUENCE);
+            if (next < needed) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + needed);
+            }
+        } finally {
+            sequenceLock.unlock();
+        }
+    }
+
+    /**
+     * Stores every book of the snapshot as JDBC batches and returns them.
+     */
+    private static List<Book> merge(SnapshotReader reader, PreparedStatement statement) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        int batched = 0;
+        try {
+            for (Book book = reader.next(); book != null; book = reader.next()) {
+                statement.setLong(1, book.getId());
+                statement.setString(2, book.getTitle());
+                statement.setString(3, book.getAuthor());
+                statement.setInt(4, book.getTotalCopies());
+                statement.setInt(5, book.getBorrowedCopies());
+                statement.setLong(6, book.getVersion());
+                statement.addBatch();
+                books.add(book);
+                if (++batched == IMPORT_BATCH_SIZE) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (batched > 0) {
+            statement.executeBatch();
+        }
+        return books;
+    }
+}
@@ -0,0 +1,272 @@
+package com.library.service;
+
+import com.library.api.SnapshotResult;
+import com.library.entity.Book;
+import com.library.ledger.AvailabilityLedger;
+import com.library.snapshot.SnapshotReader;
+import com.library.snapshot.SnapshotWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves the whole catalog to a compact binary snapshot file and loads it back into an empty database.
+ * <p>
+ * A snapshot is written from a plain JDBC cursor, with the {@link AvailabilityLedger}'s unflushed counts
+ * applied, to a temporary file that replaces the previous snapshot only once complete. Restoring inserts the
+ * rows with their IDs and versions as JDBC batches in a single transaction, so a snapshot that turns out to be
+ * corrupt leaves the table empty, then moves the ID sequence past the restored books and builds the
+ * secondary indexes.
+ * </p>
+ * <p>
+ * Restoring runs once every bean is created, before the web server accepts requests and before the
+ * in-memory indexes are built from the table on {@code ApplicationReadyEvent}. It only happens into an empty
+ * table, so a durable database that kept its rows is left alone.
+ * </p>
+ */
+@Service
+public class BookSnapshotService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSnapshotService.class);
+
+    private static final String SELECT_BOOKS = "SELECT id, title, author, total_copies, borrowed_copies, version"
+            + " FROM book ORDER BY id";
+
+    private static final String INSERT_BOOK = "INSERT INTO book (id, title, author, total_copies, borrowed_copies,"
+            + " version) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // The name of every non-unique index of the book table and the statement that creates it again
+    private static final String SELECT_SECONDARY_INDEXES = "SELECT i.INDEX_NAME, 'CREATE INDEX ' || i.INDEX_NAME"
+            + " || ' ON book (' || LISTAGG(c.COLUMN_NAME, ', ') WITHIN GROUP (ORDER BY c.ORDINAL_POSITION) || ')'"
+            + " FROM INFORMATION_SCHEMA.INDEXES i JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c"
+            + " ON c.INDEX_SCHEMA = i.INDEX_SCHEMA AND c.INDEX_NAME = i.INDEX_NAME"
+            + " WHERE i.TABLE_SCHEMA = SCHEMA() AND i.TABLE_NAME = 'BOOK' AND i.INDEX_TYPE_NAME = 'INDEX'"
+            + " GROUP BY i.INDEX_NAME ORDER BY i.INDEX_NAME";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int RESTORE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final Path file;
+
+    private final boolean restoreOnStartup;
+
+    private final boolean snapshotOnShutdown;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private record SecondaryIndex(String name, String definition) {
+    }
+
+    /**
+     * Constructs a new BookSnapshotService.
+     *
+     * @param dataSource         the DataSource the catalog is read from and restored into
+     * @param transactionManager the PlatformTransactionManager a restore runs in
+     * @param availabilityLedger the AvailabilityLedger whose unflushed counts snapshots include
+     * @param file               the snapshot file
+     * @param restoreOnStartup   whether to restore the snapshot into an empty table at startup
+     * @param snapshotOnShutdown whether to write a snapshot when the application shuts down
+     */
+    public BookSnapshotService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               AvailabilityLedger availabilityLedger,
+                               @Value("${library.snapshot.file:data/catalog.snapshot}") String file,
+                               @Value("${library.snapshot.restore-on-startup:false}") boolean restoreOnStartup,
+                               @Value("${library.snapshot.on-shutdown:false}") boolean snapshotOnShutdown) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.availabilityLedger = availabilityLedger;
+        this.file = Path.of(file);
+        this.restoreOnStartup = restoreOnStartup;
+        this.snapshotOnShutdown = snapshotOnShutdown;
+    }
+
+    /**
+     * Writes every book to the snapshot file, replacing the previous snapshot once the new one is complete.
+     *
+     * @return the number of books written, the size of the snapshot and the time taken
+     * @throws IOException if the snapshot cannot be written
+     */
+    public SnapshotResult takeSnapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long start = System.nanoTime();
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                long books;
+                long bytes;
+                try (SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(temporary))) {
+                    jdbcTemplate.query(SELECT_BOOKS, (RowCallbackHandler) resultSet -> {
+                        Book book = new Book(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                                resultSet.getInt(4), resultSet.getInt(5), resultSet.getLong(6));
+                        try {
+                            writer.write(availabilityLedger.overlay(book));
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+                    writer.finish();
+                    books = writer.count();
+                    bytes = writer.bytesWritten();
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return new SnapshotResult(file.toString(), books, bytes, elapsedMillis(start));
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the snapshot file into the book table, provided the table is empty.
+     *
+     * @return the number of books restored, the size of the snapshot and the time taken, or null if there is
+     *         no snapshot file or the table already has books
+     * @throws IOException if the snapshot cannot be read or is corrupt, in which case nothing is restored
+     */
+    public SnapshotResult restore() throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class) > 0) {
+            return null;
+        }
+        // Filling the secondary indexes row by row costs more than building them once the rows are in. DDL
+        // commits, so the indexes are dropped before the transaction and created again whatever its outcome
+        List<SecondaryIndex> indexes = jdbcTemplate.query(SELECT_SECONDARY_INDEXES,
+                (resultSet, rowNum) -> new SecondaryIndex(resultSet.getString(1), resultSet.getString(2)));
+        for (SecondaryIndex index : indexes) {
+            jdbcTemplate.execute("DROP INDEX " + index.name());
+        }
+        try {
+            Long books = transactionTemplate.execute(status -> {
+                try (SnapshotReader reader = new SnapshotReader(Files.newInputStream(file))) {
+                    long maxId = jdbcTemplate.execute(INSERT_BOOK, (PreparedStatement statement) -> insert(reader,
+                            statement));
+                    restartSequence(maxId);
+                    return reader.count();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            return new SnapshotResult(file.toString(), books, Files.size(file), elapsedMillis(start));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            indexes.forEach(index -> jdbcTemplate.execute(index.definition()));
+        }
+    }
+
+    /**
+     * Restores the snapshot at startup when enabled. A snapshot that cannot be read stops the application
+     * rather than letting it start empty and overwrite the snapshot on shutdown.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!restoreOnStartup) {
+            return;
+        }
+        try {
+            SnapshotResult result = restore();
+            if (result != null) {
+                log.info("Restored {} book(s) from {} ({} bytes) in {} ms", result.books(), result.file(),
+                        result.bytes(), result.millis());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Restoring the catalog snapshot " + file + " failed", ex);
+        }
+    }
+
+    /**
+     * Writes a snapshot on shutdown when enabled, while the ledger still holds its unflushed counts.
+     */
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        if (!snapshotOnShutdown) {
+            return;
+        }
+        try {
+            SnapshotResult result = takeSnapshot();
+            log.info("Wrote {} book(s) to {} ({} bytes) in {} ms", result.books(), result.file(), result.bytes(),
+                    result.millis());
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Writing the catalog snapshot {} on shutdown failed", file, ex);
+        }
+    }
+
+    /**
+     * Inserts every book of the snapshot as JDBC batches and returns the highest ID.
+     */
+    private static long insert(SnapshotReader reader, PreparedStatement statement) throws SQLException {
+        long maxId = 0;
+        int batched = 0;
+        try {
+            for (Book book = reader.next(); book != null; book = reader.next()) {
+                statement.setLong(1, book.getId());
+                statement.setString(2, book.getTitle());
+                statement.setString(3, book.getAuthor());
+                statement.setInt(4, book.getTotalCopies());
+                statement.setInt(5, book.getBorrowedCopies());
+                statement.setLong(6, book.getVersion());
+                statement.addBatch();
+                maxId = book.getId();
+                if (++batched == RESTORE_BATCH_SIZE) {
+                    statement.executeBatch();
+                    batched = 0;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        if (batched > 0) {
+            statement.executeBatch();
+        }
+        return maxId;
+    }
+
+    /**
+     * Moves the ID sequence past the restored books. Hibernate's pooled optimizer hands out the block of IDs
+     * just below each value it fetches, so the next value must be a full increment above the highest ID.
+     */
+    private void restartSequence(long maxId) {
+        Long increment = jdbcTemplate.queryForObject("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES"
+                + " WHERE SEQUENCE_NAME = 'BOOK_SEQ'", Long.class);
+        jdbcTemplate.execute("ALTER SEQUENCE book_seq RESTART WITH " + (maxId + increment + 1));
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
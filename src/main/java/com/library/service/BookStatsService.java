@@ -0,0 +1,48 @@
+package com.library.service;
+
+import com.library.api.AuthorCirculation;
+import com.library.api.CirculationSummary;
+import com.library.stats.CirculationStats;
+import org.springframework.stereotype.Service;
+
+import static com.library.constant.ApiConstant.DEFAULT_STATS_TOP;
+import static com.library.constant.ApiConstant.MAX_STATS_TOP;
+
+@Service
+public class BookStatsService {
+
+    private final CirculationStats circulationStats;
+
+    /**
+     * Constructs a new BookStatsService.
+     *
+     * @param circulationStats the CirculationStats queries are answered from
+     */
+    public BookStatsService(CirculationStats circulationStats) {
+        this.circulationStats = circulationStats;
+    }
+
+    /**
+     * Summarizes the circulation of the whole catalog: copies owned and borrowed, utilization, the hottest
+     * titles, the busiest authors and the titles with every copy borrowed. The cost does not depend on the
+     * size of the catalog.
+     *
+     * @param top the number of titles and authors to list, the default when missing or not positive and
+     *            capped at the maximum
+     * @return the circulation summary
+     */
+    public CirculationSummary getCirculationSummary(Integer top) {
+        int k = top == null || top <= 0 ? DEFAULT_STATS_TOP : Math.min(top, MAX_STATS_TOP);
+        return circulationStats.summary(k);
+    }
+
+    /**
+     * Summarizes the circulation of the titles by one author.
+     *
+     * @param author the exact author
+     * @return the copies owned and borrowed and the utilization of the author's titles
+     */
+    public AuthorCirculation getAuthorCirculation(String author) {
+        return circulationStats.author(author);
+    }
+}
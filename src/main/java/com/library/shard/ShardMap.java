@@ -0,0 +1,156 @@
+package com.library.shard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Which node owns each book when the catalog is partitioned across several nodes.
+ * <p>
+ * A book belongs to partition {@code id mod partitions}, and every partition belongs to one node. The
+ * balanced assignment is built by adding the nodes one at a time, each new node taking an equal share of the
+ * partitions from the nodes holding the most, highest partition first. It depends only on the node list and
+ * the partition count, so a router restarted with the same list builds the same map, and appending a node
+ * moves only the partitions it takes over, about 1/N of the catalog.
+ * </p>
+ * <p>
+ * Maps are immutable. While partitions are being moved the router works with an intermediate map, in which
+ * some partitions already belong to their new node and the rest still to their old one.
+ * </p>
+ */
+public final class ShardMap {
+
+    private final List<String> nodes;
+
+    private final int[] owners;
+
+    private ShardMap(List<String> nodes, int[] owners) {
+        this.nodes = List.copyOf(nodes);
+        this.owners = owners;
+    }
+
+    /**
+     * Builds the balanced assignment of the given number of partitions to the given nodes.
+     *
+     * @param nodes      the base URLs of the nodes, in the order they were added
+     * @param partitions the number of partitions, which must never change once books are stored
+     * @return the balanced map
+     * @throws IllegalArgumentException if there is no node, a node is listed twice, or the partitions are fewer
+     *                                  than the nodes
+     */
+    public static ShardMap balanced(List<String> nodes, int partitions) {
+        if (nodes.isEmpty() || partitions < nodes.size()) {
+            throw new IllegalArgumentException("Cannot spread " + partitions + " partition(s) over "
+                    + nodes.size() + " node(s)");
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Nodes must be listed once each: " + nodes);
+        }
+        List<List<Integer>> owned = new ArrayList<>();
+        List<Integer> all = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            all.add(partition);
+        }
+        owned.add(all);
+        for (int node = 1; node < nodes.size(); node++) {
+            List<Integer> taken = new ArrayList<>();
+            for (int share = partitions / (node + 1); taken.size() < share; ) {
+                List<Integer> largest = owned.get(0);
+                for (List<Integer> candidate : owned) {
+                    if (candidate.size() > largest.size()) {
+                        largest = candidate;
+                    }
+                }
+                taken.add(largest.remove(largest.size() - 1));
+            }
+            owned.add(taken);
+        }
+        int[] owners = new int[partitions];
+        for (int node = 0; node < owned.size(); node++) {
+            for (int partition : owned.get(node)) {
+                owners[partition] = node;
+            }
+        }
+        return new ShardMap(nodes, owners);
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public int partitions() {
+        return owners.length;
+    }
+
+    public int partitionOf(long id) {
+        return (int) Math.floorMod(id, (long) owners.length);
+    }
+
+    /**
+     * Returns the index in {@link #nodes()} of the node owning the given partition.
+     */
+    public int ownerOf(int partition) {
+        return owners[partition];
+    }
+
+    /**
+     * Returns the base URL of the node owning the given book.
+     */
+    public String nodeOf(long id) {
+        return nodes.get(owners[partitionOf(id)]);
+    }
+
+    /**
+     * Tells whether a book returned by the given node is the copy that counts. Books of a partition being
+     * moved are on both nodes for a while, and only the owner's copy is served.
+     */
+    public boolean owns(int node, long id) {
+        return owners[partitionOf(id)] == node;
+    }
+
+    /**
+     * Returns the number of partitions each node owns, in node order.
+     */
+    public List<Integer> partitionCounts() {
+        int[] counts = new int[nodes.size()];
+        for (int owner : owners) {
+            counts[owner]++;
+        }
+        return Arrays.stream(counts).boxed().toList();
+    }
+
+    /**
+     * Returns the partitions whose owner differs in the given map, which must list this map's nodes first.
+     */
+    public List<Integer> partitionsMovingTo(ShardMap target) {
+        requireExtendedBy(target);
+        List<Integer> moving = new ArrayList<>();
+        for (int partition = 0; partition < owners.length; partition++) {
+            if (owners[partition] != target.owners[partition]) {
+                moving.add(partition);
+            }
+        }
+        return moving;
+    }
+
+    /**
+     * Returns a map with the nodes of the given map, in which the given partitions belong to their owner there
+     * and every other partition keeps its owner here.
+     */
+    public ShardMap withOwnersOf(ShardMap target, Collection<Integer> partitions) {
+        requireExtendedBy(target);
+        int[] moved = owners.clone();
+        for (int partition : partitions) {
+            moved[partition] = target.owners[partition];
+        }
+        return new ShardMap(target.nodes, moved);
+    }
+
+    private void requireExtendedBy(ShardMap target) {
+        if (target.owners.length != owners.length || target.nodes.size() < nodes.size()
+                || !target.nodes.subList(0, nodes.size()).equals(nodes)) {
+            throw new IllegalArgumentException("Shard map " + target.nodes + " does not extend " + nodes);
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.library.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.api.ResponseResult;
+import com.library.constant.ApiConstant;
+import com.library.exception.InvalidShardRequestException;
+import com.library.exception.ShardUnavailableException;
+import com.library.util.CoarseClock;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import static com.library.constant.ApiConstant.DEFAULT_PAGE_SIZE;
+import static com.library.constant.ApiConstant.DEFAULT_SEARCH_LIMIT;
+import static com.library.constant.ApiConstant.MAX_PAGE_SIZE;
+import static com.library.constant.ApiConstant.MAX_SEARCH_LIMIT;
+import static com.library.constant.ExceptionConstant.INVALID_SHARD_NODE;
+import static com.library.constant.ExceptionConstant.PARTITION_MOVING;
+import static com.library.constant.ExceptionConstant.SHARD_UNAVAILABLE;
+import static com.library.util.BookUtils.getFormattedMessage;
+
+/**
+ * Routes book requests to the shard nodes that own them, for a catalog partitioned across several nodes by a
+ * {@link ShardMap}.
+ * <p>
+ * A request for one book goes to the node owning its ID and its answer, including a 304 or an error, is passed
+ * back as is. A new book goes to the next partition in turn, so books spread over the nodes in proportion to
+ * the partitions they own. Listings and searches are sent to every node at once and their answers merged:
+ * keyset pages by ID, prefix lookups by author or title, and search results by rank, since relevance scores
+ * are computed per node and are not comparable across nodes. Only books a node owns are taken from its
+ * answer, which hides the copies a partition has on two nodes while it moves.
+ * </p>
+ * <p>
+ * Adding a node moves the partitions it takes over from their current owners, a group of partitions from one
+ * node at a time. Writes to the group are held off with a 503 and every request already routed is awaited,
+ * the group's books are streamed from the old node to the new one, the map is switched over and, once the
+ * requests routed by the old map are done, the old node drops its copies. Reads are served throughout. A move
+ * that fails leaves the group with its old node, and adding the same node again resumes where it stopped.
+ * </p>
+ */
+@Component
+@Profile("router")
+public class ShardRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    private static final String SHARD_PATH = "/api/shard/partitions";
+
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.ACCEPT, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+    // Scattered requests are answered in JSON whatever the client accepts, since the router reads the answers
+    private static final List<String> SCATTERED_REQUEST_HEADERS = List.of(HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.RETRY_AFTER);
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * The map requests are routed by, the partitions whose writes are held off, and the requests routed by
+     * them that are still in progress.
+     */
+    private record Routing(ShardMap map, Set<Integer> frozen, LongAdder inFlight) {
+    }
+
+    /**
+     * The answers of every node to a scattered request, in node order, and the map they were routed by.
+     */
+    private record Gathered(ShardMap map, List<JsonNode> answers, ResponseEntity<byte[]> failure) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final HttpClient httpClient;
+
+    private final Duration requestTimeout;
+
+    private final Duration moveTimeout;
+
+    private final int partitionsPerMove;
+
+    private final AtomicLong nextPartition = new AtomicLong();
+
+    private final ReentrantLock rebalanceLock = new ReentrantLock();
+
+    private volatile Routing routing;
+
+    /**
+     * Constructs a new ShardRouter.
+     *
+     * @param objectMapper      the ObjectMapper the answers of the nodes are read with
+     * @param nodes             the base URLs of the nodes, in the order they were added
+     * @param partitions        the number of partitions, the same on every node
+     * @param requestTimeout    how long a node may take to answer a request
+     * @param moveTimeout       how long a node may take to send or store the books of a group of partitions
+     * @param partitionsPerMove the most partitions moved at once, whose writes are held off together
+     */
+    public ShardRouter(ObjectMapper objectMapper,
+                       @Value("${library.shard.nodes}") List<String> nodes,
+                       @Value("${library.shard.partitions:1024}") int partitions,
+                       @Value("${library.shard.request-timeout:10s}") Duration requestTimeout,
+                       @Value("${library.shard.move-timeout:10m}") Duration moveTimeout,
+                       @Value("${library.shard.partitions-per-move:64}") int partitionsPerMove) {
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .executor(executor)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.moveTimeout = moveTimeout;
+        this.partitionsPerMove = partitionsPerMove;
+        this.routing = new Routing(ShardMap.balanced(nodes, partitions), Set.of(), new LongAdder());
+    }
+
+    public ShardMap shardMap() {
+        return routing.map();
+    }
+
+    /**
+     * Sends a request for one book to the node owning it and returns its answer.
+     *
+     * @param id      the ID of the book
+     * @param write   whether the request changes the book, which is held off while its partition moves
+     * @param request the request to forward, with its method, path, query and headers
+     * @param body    the request body, or null
+     * @return the node's answer
+     */
+    public ResponseEntity<byte[]> forward(long id, boolean write, HttpServletRequest request, byte[] body) {
+        Routing current = enter();
+        try {
+            ShardMap map = current.map();
+            if (write && current.frozen().contains(map.partitionOf(id))) {
+                throw new ShardUnavailableException(getFormattedMessage(PARTITION_MOVING, id), RETRY_AFTER_SECONDS);
+            }
+            String query = request.getQueryString();
+            return send(map.nodeOf(id), request.getRequestURI() + (query == null ? "" : "?" + query),
+                    request.getMethod(), request, body);
+        } finally {
+            current.inFlight().decrement();
+        }
+    }
+
+    /**
+     * Creates a book on the node owning the next partition in turn.
+     *
+     * @param request the request to forward, for its headers
+     * @param body    the book to create
+     * @return the node's answer
+     */
+    public ResponseEntity<byte[]> create(HttpServletRequest request, byte[] body) {
+        Routing current = enter();
+        try {
+            ShardMap map = current.map();
+            for (int attempt = 0; attempt < map.partitions(); attempt++) {
+                int partition = (int) Math.floorMod(nextPartition.getAndIncrement(), (long) map.partitions());
+                if (!current.frozen().contains(partition)) {
+                    return send(map.nodes().get(map.ownerOf(partition)), SHARD_PATH + "/" + partition + "/books",
+                            "POST", request, body);
+                }
+            }
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, map.nodes()),
+                    RETRY_AFTER_SECONDS);
+        } finally {
+            current.inFlight().decrement();
+        }
+    }
+
+    /**
+     * Sends a listing to every node and merges the pages they return, each in ascending ID order, into one
+     * page of the given size in ID order.
+     * <p>
+     * A node returning a full page may hold more books before the next pages of the others, so the merged
+     * page stops at the smallest last ID of the full pages, and its cursor is either its own last ID or that
+     * bound.
+     * </p>
+     *
+     * @param request the listing to send
+     * @param size    the requested page size, defaulted and capped like the nodes do
+     * @return the merged page, or the answer of the first node that failed
+     */
+    public ResponseEntity<?> gatherPage(HttpServletRequest request, Integer size) {
+        Gathered gathered = scatter(request);
+        if (gathered.failure() != null) {
+            return gathered.failure();
+        }
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        long bound = Long.MAX_VALUE;
+        List<JsonNode> books = new ArrayList<>();
+        for (int node = 0; node < gathered.answers().size(); node++) {
+            JsonNode answer = gathered.answers().get(node);
+            JsonNode page = answer.path("query_result");
+            if (answer.hasNonNull("next_cursor") && !page.isEmpty()) {
+                bound = Math.min(bound, id(page.get(page.size() - 1)));
+            }
+            books.addAll(owned(gathered.map(), node, page));
+        }
+        long last = bound;
+        List<JsonNode> merged = books.stream()
+                .filter(book -> id(book) <= last)
+                .sorted(Comparator.comparingLong(ShardRouter::id))
+                .toList();
+        if (merged.size() > pageSize) {
+            List<JsonNode> page = merged.subList(0, pageSize);
+            return result(page, id(page.get(pageSize - 1)));
+        }
+        return result(merged, bound == Long.MAX_VALUE ? null : bound);
+    }
+
+    /**
+     * Sends a lookup to every node and merges the books they return in the order of the given field and then
+     * ID, keeping the first of the given number.
+     *
+     * @param request the lookup to send
+     * @param field   the field the books are ordered by, {@code author} or {@code title}
+     * @param size    the requested number of books, defaulted and capped like the nodes do
+     * @return the merged books, or the answer of the first node that failed
+     */
+    public ResponseEntity<?> gatherOrdered(HttpServletRequest request, String field, Integer size) {
+        Gathered gathered = scatter(request);
+        if (gathered.failure() != null) {
+            return gathered.failure();
+        }
+        int limit = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        List<JsonNode> books = new ArrayList<>();
+        for (int node = 0; node < gathered.answers().size(); node++) {
+            books.addAll(owned(gathered.map(), node, gathered.answers().get(node).path("query_result")));
+        }
+        return result(books.stream()
+                .sorted(Comparator.comparing((JsonNode book) -> book.path(field).asText())
+                        .thenComparingLong(ShardRouter::id))
+                .limit(limit)
+                .toList(), null);
+    }
+
+    /**
+     * Sends a search to every node and interleaves their results by rank, keeping the first of the given
+     * number.
+     *
+     * @param request the search to send
+     * @param limit   the requested number of books, defaulted and capped like the nodes do
+     * @return the merged results, or the answer of the first node that failed
+     */
+    public ResponseEntity<?> gatherRanked(HttpServletRequest request, Integer limit) {
+        Gathered gathered = scatter(request);
+        if (gathered.failure() != null) {
+            return gathered.failure();
+        }
+        int max = limit == null || limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        List<List<JsonNode>> ranked = new ArrayList<>();
+        for (int node = 0; node < gathered.answers().size(); node++) {
+            ranked.add(owned(gathered.map(), node, gathered.answers().get(node).path("query_result")));
+        }
+        List<JsonNode> books = new ArrayList<>();
+        for (int rank = 0; books.size() < max; rank++) {
+            boolean more = false;
+            for (List<JsonNode> results : ranked) {
+                if (rank < results.size() && books.size() < max) {
+                    books.add(results.get(rank));
+                    more = true;
+                }
+            }
+            if (!more) {
+                break;
+            }
+        }
+        return result(books, null);
+    }
+
+    /**
+     * Sends a listing to every node and returns every book they hold, in ID order.
+     *
+     * @param request the listing to send
+     * @return all books, or the answer of the first node that failed
+     */
+    public ResponseEntity<?> gatherAll(HttpServletRequest request) {
+        Gathered gathered = scatter(request);
+        if (gathered.failure() != null) {
+            return gathered.failure();
+        }
+        List<JsonNode> books = new ArrayList<>();
+        for (int node = 0; node < gathered.answers().size(); node++) {
+            books.addAll(owned(gathered.map(), node, gathered.answers().get(node).path("query_result")));
+        }
+        books.sort(Comparator.comparingLong(ShardRouter::id));
+        return result(books, null);
+    }
+
+    /**
+     * Adds a node, then moves to it the partitions it takes over in the balanced map. Adding a node already in
+     * the map finishes a move that failed part of the way.
+     *
+     * @param node the base URL of the node, which must be running and empty or hold only books left by a
+     *             failed move
+     * @return the partitions moved
+     * @throws InvalidShardRequestException if the node is already in the map and nothing remains to be moved,
+     *                                      or a node refuses to move partitions holding registered copies
+     */
+    public List<Integer> addNode(String node) {
+        rebalanceLock.lock();
+        try {
+            ShardMap map = routing.map();
+            List<String> nodes = new ArrayList<>(map.nodes());
+            if (!nodes.contains(node)) {
+                nodes.add(node);
+            }
+            ShardMap target = ShardMap.balanced(nodes, map.partitions());
+            List<Integer> moving = map.partitionsMovingTo(target);
+            if (moving.isEmpty()) {
+                throw new InvalidShardRequestException(getFormattedMessage(INVALID_SHARD_NODE, node, map.nodes()));
+            }
+            map = map.withOwnersOf(target, List.of());
+            switchTo(map, Set.of());
+            // Partitions are exported a group from one node at a time
+            Map<Integer, List<Integer>> bySource = new LinkedHashMap<>();
+            for (int partition : moving) {
+                bySource.computeIfAbsent(map.ownerOf(partition), owner -> new ArrayList<>()).add(partition);
+            }
+            for (List<Integer> partitions : bySource.values()) {
+                for (int from = 0; from < partitions.size(); from += partitionsPerMove) {
+                    map = move(map, target, partitions.subList(from, Math.min(partitions.size(),
+                            from + partitionsPerMove)));
+                }
+            }
+            return moving;
+        } finally {
+            rebalanceLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        httpClient.close();
+        executor.close();
+    }
+
+    /**
+     * Moves a group of partitions owned by one node to their owner in the target map.
+     *
+     * @return the map in which the group belongs to its new owner
+     */
+    private ShardMap move(ShardMap map, ShardMap target, List<Integer> partitions) {
+        String source = map.nodes().get(map.ownerOf(partitions.get(0)));
+        String destination = target.nodes().get(target.ownerOf(partitions.get(0)));
+        String query = "?partitions=" + partitions.stream().map(String::valueOf).collect(Collectors.joining(","));
+        long start = System.nanoTime();
+        switchTo(map, Set.copyOf(partitions));
+        try {
+            transfer(source + SHARD_PATH + query, destination + SHARD_PATH);
+        } catch (RuntimeException ex) {
+            switchTo(map, Set.of());
+            throw ex;
+        }
+        ShardMap moved = map.withOwnersOf(target, partitions);
+        switchTo(moved, Set.of());
+        try {
+            HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create(source + SHARD_PATH
+                    + query)).timeout(moveTimeout).DELETE().build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+        } catch (IOException ex) {
+            // The old copies are no longer served, and a later move back overwrites them
+            log.warn("Removing partitions {} from {} after moving them failed", partitions, source, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Moved {} partition(s) from {} to {} in {} ms", partitions.size(), source, destination,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return moved;
+    }
+
+    /**
+     * Streams the snapshot the source node answers with straight into the destination node.
+     */
+    private void transfer(String source, String destination) {
+        try {
+            HttpResponse<InputStream> exported = httpClient.send(HttpRequest.newBuilder(URI.create(source))
+                    .timeout(moveTimeout).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream books = exported.body()) {
+                if (exported.statusCode() == HttpStatus.BAD_REQUEST.value()) {
+                    // The source refuses to let the partitions go, which trying again does not change
+                    throw new InvalidShardRequestException(objectMapper.readTree(books).path("response_message")
+                            .asText());
+                }
+                if (exported.statusCode() != HttpStatus.OK.value()) {
+                    throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, source),
+                            RETRY_AFTER_SECONDS);
+                }
+                HttpResponse<byte[]> imported = httpClient.send(HttpRequest.newBuilder(URI.create(destination))
+                        .timeout(moveTimeout)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofInputStream(() -> books))
+                        .build(), HttpResponse.BodyHandlers.ofByteArray());
+                if (imported.statusCode() != HttpStatus.OK.value()) {
+                    throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, destination),
+                            RETRY_AFTER_SECONDS);
+                }
+            }
+        } catch (IOException ex) {
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, source + " or "
+                    + destination), RETRY_AFTER_SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, destination),
+                    RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Registers a request with the current routing. A request that registered just as the routing was
+     * replaced registers again with the new one, so that once a replaced routing has no request in progress,
+     * none can start with it.
+     */
+    private Routing enter() {
+        while (true) {
+            Routing current = routing;
+            current.inFlight().increment();
+            if (current == routing) {
+                return current;
+            }
+            current.inFlight().decrement();
+        }
+    }
+
+    /**
+     * Routes new requests by the given map, holding off writes to the given partitions, and waits until the
+     * requests routed before are done. They time out after the request timeout, so the wait is bounded.
+     */
+    private void switchTo(ShardMap map, Set<Integer> frozen) {
+        Routing previous = routing;
+        routing = new Routing(map, frozen, new LongAdder());
+        long deadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (previous.inFlight().sum() > 0) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Requests routed by the previous shard map did not finish");
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private Gathered scatter(HttpServletRequest request) {
+        Routing current = enter();
+        try {
+            ShardMap map = current.map();
+            String query = request.getQueryString();
+            String path = request.getRequestURI() + (query == null ? "" : "?" + query);
+            List<CompletableFuture<HttpResponse<byte[]>>> futures = map.nodes().stream()
+                    .map(node -> request(node, path, request.getMethod(), request, null, SCATTERED_REQUEST_HEADERS)
+                            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                            .build())
+                    .map(nodeRequest -> httpClient.sendAsync(nodeRequest, HttpResponse.BodyHandlers.ofByteArray()))
+                    .toList();
+            List<JsonNode> answers = new ArrayList<>(futures.size());
+            for (int node = 0; node < futures.size(); node++) {
+                HttpResponse<byte[]> response;
+                try {
+                    response = futures.get(node).join();
+                } catch (CompletionException ex) {
+                    throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE,
+                            map.nodes().get(node)), RETRY_AFTER_SECONDS);
+                }
+                if (response.statusCode() != HttpStatus.OK.value()) {
+                    return new Gathered(map, null, answer(response));
+                }
+                answers.add(objectMapper.readTree(response.body()));
+            }
+            return new Gathered(map, answers, null);
+        } catch (IOException ex) {
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, ex.getMessage()),
+                    RETRY_AFTER_SECONDS);
+        } finally {
+            current.inFlight().decrement();
+        }
+    }
+
+    private ResponseEntity<byte[]> send(String node, String path, String method, HttpServletRequest request,
+                                        byte[] body) {
+        try {
+            HttpRequest nodeRequest = request(node, path, method, request, body, FORWARDED_REQUEST_HEADERS).build();
+            return answer(httpClient.send(nodeRequest, HttpResponse.BodyHandlers.ofByteArray()));
+        } catch (IOException ex) {
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, node), RETRY_AFTER_SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException(getFormattedMessage(SHARD_UNAVAILABLE, node), RETRY_AFTER_SECONDS);
+        }
+    }
+
+    private HttpRequest.Builder request(String node, String path, String method, HttpServletRequest request,
+                                        byte[] body, List<String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(requestTimeout)
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String header : headers) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                builder.header(header, value);
+            }
+        }
+        return builder;
+    }
+
+    private static ResponseEntity<byte[]> answer(HttpResponse<byte[]> response) {
+        ResponseEntity.BodyBuilder answer = ResponseEntity.status(response.statusCode());
+        for (String header : FORWARDED_RESPONSE_HEADERS) {
+            response.headers().firstValue(header).ifPresent(value -> answer.header(header, value));
+        }
+        return answer.body(response.body());
+    }
+
+    private static List<JsonNode> owned(ShardMap map, int node, JsonNode books) {
+        List<JsonNode> owned = new ArrayList<>(books.size());
+        for (JsonNode book : books) {
+            if (map.owns(node, id(book))) {
+                owned.add(book);
+            }
+        }
+        return owned;
+    }
+
+    private static long id(JsonNode book) {
+        return book.path("id").asLong();
+    }
+
+    private static ResponseEntity<ResponseResult> result(List<JsonNode> books, Long nextCursor) {
+        ResponseResult result = new ResponseResult.Builder()
+                .statusCode(HttpStatus.OK.value())
+                .responseMessage(ApiConstant.BOOK_QUERY_ALL, books.size())
+                .timestamp(CoarseClock.now())
+                .queryResult(books)
+                .nextCursor(nextCursor)
+                .build();
+        return ResponseEntity.ok(result);
+    }
+}
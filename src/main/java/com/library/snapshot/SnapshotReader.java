@@ -0,0 +1,187 @@
+package com.library.snapshot;
+
+import com.library.entity.Book;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static com.library.snapshot.SnapshotWriter.FIRST_AUTHOR_INDEX;
+import static com.library.snapshot.SnapshotWriter.MAGIC;
+import static com.library.snapshot.SnapshotWriter.NEW_AUTHOR;
+import static com.library.snapshot.SnapshotWriter.NULL_AUTHOR;
+
+/**
+ * Reads back the books of a snapshot written by {@link SnapshotWriter}, in ascending ID order.
+ * <p>
+ * The trailer is checked once the last book has been read, so a caller must not commit what it read until
+ * {@link #next()} has returned null: a truncated or corrupted snapshot fails with an IOException at the
+ * latest there.
+ * </p>
+ */
+public final class SnapshotReader implements Closeable {
+
+    private final InputStream in;
+
+    private final byte[] buffer = new byte[SnapshotWriter.BUFFER_SIZE];
+
+    private final CRC32C crc = new CRC32C();
+
+    private final List<String> authors = new ArrayList<>();
+
+    private int position;
+
+    private int limit;
+
+    // Start of the buffered bytes not yet added to the checksum
+    private int checksummed;
+
+    private long lastId;
+
+    private long count;
+
+    private boolean finished;
+
+    /**
+     * Opens a snapshot on the given stream, which is closed with the reader.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the stream does not start with the snapshot magic number
+     */
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = in;
+        if (readFixedLong() != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+    }
+
+    /**
+     * Reads the next book, as an unmanaged {@link Book}.
+     *
+     * @return the next book, or null once every book was read and the trailer checked
+     * @throws IOException if the snapshot is truncated or corrupted
+     */
+    public Book next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        long gap = readVarLong();
+        if (gap == 0) {
+            verifyTrailer();
+            finished = true;
+            return null;
+        }
+        long id = lastId + gap;
+        lastId = id;
+        String title = readString();
+        long reference = readVarLong();
+        String author;
+        if (reference == NULL_AUTHOR) {
+            author = null;
+        } else if (reference == NEW_AUTHOR) {
+            author = readString();
+            authors.add(author);
+        } else if (reference - FIRST_AUTHOR_INDEX < authors.size()) {
+            author = authors.get((int) (reference - FIRST_AUTHOR_INDEX));
+        } else {
+            throw new IOException("Corrupt catalog snapshot: unknown author " + reference + " for book " + id);
+        }
+        int totalCopies = (int) unZigZag(readVarLong());
+        int borrowedCopies = (int) unZigZag(readVarLong());
+        long version = unZigZag(readVarLong());
+        count++;
+        return new Book(id, title, author, totalCopies, borrowedCopies, version);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void verifyTrailer() throws IOException {
+        long expected = readFixedLong();
+        crc.update(buffer, checksummed, position - checksummed);
+        checksummed = position;
+        int actual = (int) crc.getValue();
+        int stored = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            stored = (stored << 8) | (readByte() & 0xFF);
+        }
+        if (stored != actual || expected != count) {
+            throw new IOException("Corrupt catalog snapshot: checksum or book count does not match, "
+                    + count + " of " + expected + " book(s) read");
+        }
+    }
+
+    private String readString() throws IOException {
+        long length = readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt catalog snapshot: string of " + length + " bytes");
+        }
+        int size = (int) length;
+        if (limit - position >= size) {
+            String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = readByte();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt catalog snapshot: malformed number");
+    }
+
+    private long readFixedLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (readByte() & 0xFF);
+        }
+        return value;
+    }
+
+    private byte readByte() throws IOException {
+        if (position == limit) {
+            fill();
+        }
+        return buffer[position++];
+    }
+
+    private void fill() throws IOException {
+        crc.update(buffer, checksummed, position - checksummed);
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            throw new EOFException("Catalog snapshot is truncated after " + count + " book(s)");
+        }
+        position = 0;
+        checksummed = 0;
+        limit = read;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,193 @@
+package com.library.snapshot;
+
+import com.library.entity.Book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes books to a catalog snapshot, in ascending ID order.
+ * <p>
+ * A snapshot is a magic number, one record per book, an end marker and a trailer holding the number of
+ * books and a CRC32C of everything before it. A record stores the ID as the gap from the previous one and the
+ * numbers as variable-length integers. Each author is written out once and referred to by index afterwards,
+ * so a typical record takes little more than its title. The layout is read back by {@link SnapshotReader}.
+ * </p>
+ */
+public final class SnapshotWriter implements Closeable {
+
+    // "LIBSNAP1"
+    static final long MAGIC = 0x4C4942534E415031L;
+
+    // Author references: no author, an author written out in full after the reference, or a dictionary index
+    // offset by FIRST_AUTHOR_INDEX
+    static final int NULL_AUTHOR = 0;
+
+    static final int NEW_AUTHOR = 1;
+
+    static final int FIRST_AUTHOR_INDEX = 2;
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final CRC32C crc = new CRC32C();
+
+    private final Map<String, Integer> authors = new HashMap<>();
+
+    private int position;
+
+    private long lastId;
+
+    private long count;
+
+    private long bytesWritten;
+
+    private boolean finished;
+
+    /**
+     * Starts a snapshot on the given stream, which is closed with the writer.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing the magic number fails
+     */
+    public SnapshotWriter(OutputStream out) throws IOException {
+        this.out = out;
+        writeFixedLong(MAGIC);
+    }
+
+    /**
+     * Appends a book, whose ID must be greater than that of the book before it.
+     *
+     * @param book the book to append
+     * @throws IOException if writing fails
+     */
+    public void write(Book book) throws IOException {
+        long id = book.getId();
+        if (id <= lastId) {
+            throw new IllegalArgumentException("Books must be written in ascending ID order, got " + id
+                    + " after " + lastId);
+        }
+        writeVarLong(id - lastId);
+        lastId = id;
+        writeString(book.getTitle());
+        String author = book.getAuthor();
+        if (author == null) {
+            writeVarLong(NULL_AUTHOR);
+        } else {
+            Integer index = authors.get(author);
+            if (index == null) {
+                authors.put(author, authors.size());
+                writeVarLong(NEW_AUTHOR);
+                writeString(author);
+            } else {
+                writeVarLong(FIRST_AUTHOR_INDEX + index);
+            }
+        }
+        writeVarLong(zigZag(book.getTotalCopies()));
+        writeVarLong(zigZag(book.getBorrowedCopies()));
+        writeVarLong(zigZag(book.getVersion()));
+        count++;
+    }
+
+    /**
+     * Writes the end marker and the trailer. Until then, the snapshot is incomplete and will not be read.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        // IDs are strictly ascending, so a zero gap cannot start a record
+        writeVarLong(0);
+        writeFixedLong(count);
+        flushBuffer();
+        int checksum = (int) crc.getValue();
+        out.write(new byte[]{(byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8),
+                (byte) checksum});
+        bytesWritten += Integer.BYTES;
+        out.flush();
+        finished = true;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the size of the snapshot written so far, in bytes.
+     */
+    public long bytesWritten() {
+        return bytesWritten + position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                crc.update(bytes);
+                out.write(bytes);
+                bytesWritten += bytes.length;
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        if (buffer.length - position < 10) {
+            flushBuffer();
+        }
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeFixedLong(long value) throws IOException {
+        if (buffer.length - position < Long.BYTES) {
+            flushBuffer();
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            crc.update(buffer, 0, position);
+            out.write(buffer, 0, position);
+            bytesWritten += position;
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.library.stats;
+
+import com.library.api.AuthorCirculation;
+import com.library.api.CirculationSummary;
+import com.library.api.TitleCirculation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Running totals of the catalog's circulation, per title, per author and overall.
+ * <p>
+ * Every change adjusts the totals it affects, so its cost does not depend on catalog size. Titles and
+ * authors with copies borrowed are also kept in sorted sets, hottest first, from which the top K are read
+ * in O(K); titles with every copy borrowed are kept in ID order the same way. A title is taken out of its
+ * sets before its counts change and put back after, since the sets order by those counts. Not thread-safe;
+ * {@link CirculationStats} guards it.
+ * </p>
+ */
+final class CirculationAggregates {
+
+    private static final Comparator<Title> HOTTEST_TITLES = Comparator
+            .comparingInt((Title title) -> title.borrowedCopies)
+            .reversed()
+            .thenComparingLong(title -> title.id);
+
+    private static final Comparator<Author> BUSIEST_AUTHORS = Comparator
+            .comparingLong((Author author) -> author.borrowedCopies)
+            .reversed()
+            .thenComparing(author -> author.name, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<Long, Title> titles = new HashMap<>();
+
+    private final Map<String, Author> authors = new HashMap<>();
+
+    private final TreeSet<Title> hottestTitles = new TreeSet<>(HOTTEST_TITLES);
+
+    private final TreeSet<Author> busiestAuthors = new TreeSet<>(BUSIEST_AUTHORS);
+
+    private final TreeSet<Title> fullyBorrowed = new TreeSet<>(Comparator.comparingLong(title -> title.id));
+
+    private long totalCopies;
+
+    private long borrowedCopies;
+
+    private static final class Title {
+
+        final long id;
+
+        String title;
+
+        Author author;
+
+        int totalCopies;
+
+        int borrowedCopies;
+
+        Title(long id) {
+            this.id = id;
+        }
+
+        TitleCirculation toCirculation() {
+            return new TitleCirculation(id, title, author.name, totalCopies, borrowedCopies);
+        }
+    }
+
+    private static final class Author {
+
+        final String name;
+
+        long titles;
+
+        long totalCopies;
+
+        long borrowedCopies;
+
+        Author(String name) {
+            this.name = name;
+        }
+
+        AuthorCirculation toCirculation() {
+            return new AuthorCirculation(name, titles, totalCopies, borrowedCopies,
+                    utilization(borrowedCopies, totalCopies));
+        }
+    }
+
+    int size() {
+        return titles.size();
+    }
+
+    /**
+     * Adds a title, or replaces everything known about it.
+     */
+    void put(long id, String title, String author, int totalCopies, int borrowedCopies) {
+        Title entry = titles.get(id);
+        if (entry == null) {
+            entry = new Title(id);
+            titles.put(id, entry);
+        } else {
+            detach(entry);
+        }
+        entry.title = title;
+        entry.totalCopies = totalCopies;
+        entry.borrowedCopies = borrowedCopies;
+        attach(entry, author);
+    }
+
+    /**
+     * Updates the details of a title, keeping the borrowed copies counted so far unless the title is new. Edits
+     * never change borrowed copies, and the saved row may lag behind borrows the ledger has not flushed yet.
+     */
+    void update(long id, String title, String author, int totalCopies, int borrowedCopies) {
+        Title entry = titles.get(id);
+        put(id, title, author, totalCopies, entry == null ? borrowedCopies : entry.borrowedCopies);
+    }
+
+    void remove(long id) {
+        Title entry = titles.remove(id);
+        if (entry != null) {
+            detach(entry);
+        }
+    }
+
+    /**
+     * Adds a borrow (+1) or a return (-1) to a title. Titles not in the aggregates are ignored.
+     */
+    void adjustBorrowed(long id, int delta) {
+        Title entry = titles.get(id);
+        if (entry != null) {
+            setBorrowed(entry, entry.borrowedCopies + delta);
+        }
+    }
+
+    /**
+     * Replaces the borrowed copies of a title with a count read from the database. Titles not in the
+     * aggregates are ignored.
+     */
+    void resetBorrowed(long id, int borrowedCopies) {
+        Title entry = titles.get(id);
+        if (entry != null) {
+            setBorrowed(entry, borrowedCopies);
+        }
+    }
+
+    AuthorCirculation author(String name) {
+        Author author = authors.get(name);
+        return author == null ? new AuthorCirculation(name, 0, 0, 0, 0.0) : author.toCirculation();
+    }
+
+    /**
+     * Summarizes the whole catalog with the top {@code k} titles and authors, in O(k).
+     */
+    CirculationSummary summary(int k) {
+        return new CirculationSummary(titles.size(), totalCopies, borrowedCopies,
+                utilization(borrowedCopies, totalCopies), fullyBorrowed.size(),
+                first(hottestTitles.iterator(), k, Title::toCirculation),
+                first(busiestAuthors.iterator(), k, Author::toCirculation),
+                first(fullyBorrowed.iterator(), k, Title::toCirculation));
+    }
+
+    private void setBorrowed(Title entry, int borrowedCopies) {
+        Author author = entry.author;
+        detach(entry);
+        entry.borrowedCopies = borrowedCopies;
+        attach(entry, author.name);
+    }
+
+    /**
+     * Takes a title out of its author, the overall totals and the sorted sets.
+     */
+    private void detach(Title entry) {
+        Author author = entry.author;
+        busiestAuthors.remove(author);
+        hottestTitles.remove(entry);
+        fullyBorrowed.remove(entry);
+        author.titles--;
+        author.totalCopies -= entry.totalCopies;
+        author.borrowedCopies -= entry.borrowedCopies;
+        totalCopies -= entry.totalCopies;
+        borrowedCopies -= entry.borrowedCopies;
+        if (author.titles == 0) {
+            authors.remove(author.name);
+        } else if (author.borrowedCopies > 0) {
+            busiestAuthors.add(author);
+        }
+        entry.author = null;
+    }
+
+    /**
+     * Adds a title, whose counts are set, to the given author, the overall totals and the sorted sets.
+     */
+    private void attach(Title entry, String authorName) {
+        Author author = authors.computeIfAbsent(authorName, Author::new);
+        busiestAuthors.remove(author);
+        author.titles++;
+        author.totalCopies += entry.totalCopies;
+        author.borrowedCopies += entry.borrowedCopies;
+        totalCopies += entry.totalCopies;
+        borrowedCopies += entry.borrowedCopies;
+        entry.author = author;
+        if (author.borrowedCopies > 0) {
+            busiestAuthors.add(author);
+        }
+        if (entry.borrowedCopies > 0) {
+            hottestTitles.add(entry);
+        }
+        if (entry.totalCopies > 0 && entry.borrowedCopies >= entry.totalCopies) {
+            fullyBorrowed.add(entry);
+        }
+    }
+
+    private static <T, R> List<R> first(Iterator<T> iterator, int k, Function<T, R> mapper) {
+        List<R> result = new ArrayList<>(k);
+        while (result.size() < k && iterator.hasNext()) {
+            result.add(mapper.apply(iterator.next()));
+        }
+        return result;
+    }
+
+    private static double utilization(long borrowed, long total) {
+        return total == 0 ? 0.0 : (double) borrowed / total;
+    }
+}
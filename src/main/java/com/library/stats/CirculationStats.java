@@ -0,0 +1,266 @@
+package com.library.stats;
+
+import com.library.api.AuthorCirculation;
+import com.library.api.CirculationSummary;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Circulation statistics of the whole catalog, kept current as books change instead of computed on request.
+ * <p>
+ * The aggregates are built from {@link BookRepository} once the application is ready and then adjusted by
+ * every committed {@link BookChangedEvent} the service layer publishes, so a dashboard query costs O(1) for
+ * the totals and O(K) for the top K, whatever the size of the catalog. Queries share a read lock.
+ * </p>
+ * <p>
+ * Borrowed copies are counted from the events rather than read back, since the database lags behind the
+ * {@link AvailabilityLedger} when it is enabled. A rebuild cannot tell whether its scan saw a borrow or return
+ * made meanwhile, so instead of replaying those it reads the books involved again once the scan is done.
+ * </p>
+ */
+@Component
+public class CirculationStats {
+
+    // Rounds of re-reading books that keep circulating during the re-read, after which their counts are left
+    // as adjusted by the events
+    private static final int MAX_REREADS = 5;
+
+    private final BookRepository bookRepository;
+
+    private final AvailabilityLedger availabilityLedger;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private CirculationAggregates aggregates = new CirculationAggregates();
+
+    // Changes made while a rebuild is reading the table, replayed onto the rebuilt aggregates before they are swapped in
+    private List<Consumer<CirculationAggregates>> pendingChanges;
+
+    // Books borrowed or returned while a rebuild is reading the table, read again once it is swapped in, and
+    // while those are read again
+    private Set<Long> pendingCirculation;
+
+    /**
+     * Constructs a new CirculationStats.
+     *
+     * @param bookRepository      the BookRepository the statistics are rebuilt from
+     * @param availabilityLedger  the AvailabilityLedger whose unflushed counts the rebuild includes
+     * @param transactionTemplate the TransactionTemplate the rebuild reads the table in
+     * @param entityManager       the EntityManager books are detached from once counted
+     */
+    public CirculationStats(BookRepository bookRepository, AvailabilityLedger availabilityLedger,
+                            TransactionTemplate transactionTemplate, EntityManager entityManager) {
+        this.bookRepository = bookRepository;
+        this.availabilityLedger = availabilityLedger;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Summarizes the circulation of the whole catalog.
+     *
+     * @param top the number of hottest titles, busiest authors and fully borrowed titles to include
+     * @return the totals and the top titles and authors
+     */
+    public CirculationSummary summary(int top) {
+        lock.readLock().lock();
+        try {
+            return aggregates.summary(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Summarizes the circulation of the titles by one author.
+     *
+     * @param author the exact author
+     * @return the totals of the author, all zero if the catalog has no title by them
+     */
+    public AuthorCirculation author(String author) {
+        lock.readLock().lock();
+        try {
+            return aggregates.author(author);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return aggregates.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a committed change.
+     *
+     * @param event the change that was made
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        long id = event.bookId();
+        Book book = event.book();
+        switch (event.type()) {
+            case CREATED -> apply(target -> target.put(id, book.getTitle(), book.getAuthor(), book.getTotalCopies(),
+                    book.getBorrowedCopies()));
+            case UPDATED -> apply(target -> target.update(id, book.getTitle(), book.getAuthor(), book.getTotalCopies(),
+                    book.getBorrowedCopies()));
+            case DELETED -> apply(target -> target.remove(id));
+            case BORROWED -> adjustBorrowed(id, 1);
+            case RETURNED -> adjustBorrowed(id, -1);
+        }
+    }
+
+    /**
+     * Rebuilds the statistics from the database, streaming the table so that only the aggregates are held in
+     * memory. Queries keep using the previous aggregates until the new ones are complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            setPendingChanges(new ArrayList<>());
+            CirculationAggregates rebuilt = new CirculationAggregates();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Book> books = bookRepository.streamAll()) {
+                        books.forEach(book -> {
+                            Book current = availabilityLedger.overlay(book);
+                            rebuilt.put(current.getId(), current.getTitle(), current.getAuthor(),
+                                    current.getTotalCopies(), current.getBorrowedCopies());
+                            entityManager.detach(book);
+                        });
+                    }
+                });
+            } catch (RuntimeException ex) {
+                setPendingChanges(null);
+                throw ex;
+            }
+            Set<Long> circulated;
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                circulated = pendingCirculation;
+                pendingChanges = null;
+                pendingCirculation = null;
+                aggregates = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!circulated.isEmpty()) {
+                reread(circulated);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void adjustBorrowed(long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            aggregates.adjustBorrowed(id, delta);
+            if (pendingCirculation != null) {
+                pendingCirculation.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the borrowed copies of the given books with their current counts. Books deleted meanwhile are
+     * no longer in the aggregates and are skipped.
+     * <p>
+     * A borrow or return committing while the books are read may or may not be in the count read, so the books
+     * it touched keep their adjusted count and are read again, up to {@link #MAX_REREADS} times.
+     * </p>
+     */
+    private void reread(Set<Long> ids) {
+        Set<Long> remaining = ids;
+        for (int round = 0; round < MAX_REREADS && !remaining.isEmpty(); round++) {
+            Set<Long> requested = remaining;
+            setPendingCirculation(new HashSet<>());
+            List<Book> books;
+            try {
+                books = transactionTemplate.execute(status -> bookRepository.findAllById(requested).stream()
+                        .map(availabilityLedger::overlay)
+                        .toList());
+            } catch (RuntimeException ex) {
+                setPendingCirculation(null);
+                throw ex;
+            }
+            lock.writeLock().lock();
+            try {
+                Set<Long> touched = pendingCirculation;
+                pendingCirculation = null;
+                for (Book book : books) {
+                    if (!touched.contains(book.getId())) {
+                        aggregates.resetBorrowed(book.getId(), book.getBorrowedCopies());
+                    }
+                }
+                touched.retainAll(requested);
+                remaining = touched;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(Consumer<CirculationAggregates> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(aggregates);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPendingCirculation(Set<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            pendingCirculation = ids;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPendingChanges(List<Consumer<CirculationAggregates>> changes) {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = changes;
+            pendingCirculation = changes == null ? null : new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -25,7 +25,36 @@ public class BookUtils {
      *         template does not match the number of arguments
      */
     public static String getFormattedMessage(String template, Object... args) {
-        return String.format(template, args);
+        String formatted = substitutePlainPlaceholders(template, args);
+        return formatted != null ? formatted : String.format(template, args);
+    }
+
+    /**
+     * Substitutes the arguments for the placeholders of a template that only uses {@code %s}, which is
+     * what String.format would produce without parsing the template into a Formatter each call.
+     *
+     * @return the formatted message, or null if the template needs the full Formatter
+     */
+    private static String substitutePlainPlaceholders(String template, Object[] args) {
+        StringBuilder formatted = null;
+        int argIndex = 0;
+        int start = 0;
+        int percent = template.indexOf('%');
+        while (percent >= 0) {
+            if (percent + 1 >= template.length() || template.charAt(percent + 1) != 's' || argIndex >= args.length) {
+                return null;
+            }
+            if (formatted == null) {
+                formatted = new StringBuilder(template.length() + 16);
+            }
+            formatted.append(template, start, percent).append(args[argIndex++]);
+            start = percent + 2;
+            percent = template.indexOf('%', start);
+        }
+        if (formatted == null) {
+            return template;
+        }
+        return formatted.append(template, start, template.length()).toString();
     }
 
 }
@@ -0,0 +1,40 @@
+package com.library.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Millisecond-resolution wall clock for response timestamps.
+ * <p>
+ * {@link LocalDateTime#now()} resolves the default time zone and allocates a new date-time on every call.
+ * This clock keeps the date-time of the current millisecond and hands the same instance to every caller
+ * within it, so under load the zone lookup and the allocation happen at most once per millisecond.
+ * </p>
+ */
+public final class CoarseClock {
+
+    private static volatile Tick current = new Tick(Long.MIN_VALUE, null);
+
+    private record Tick(long epochMilli, LocalDateTime dateTime) {
+    }
+
+    private CoarseClock() {
+        // No-op
+    }
+
+    /**
+     * Returns the current date-time in the default time zone, truncated to the millisecond.
+     *
+     * @return the current date-time, shared by every caller within the same millisecond
+     */
+    public static LocalDateTime now() {
+        long epochMilli = System.currentTimeMillis();
+        Tick tick = current;
+        if (tick.epochMilli() != epochMilli) {
+            tick = new Tick(epochMilli, LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault()));
+            current = tick;
+        }
+        return tick.dateTime();
+    }
+}
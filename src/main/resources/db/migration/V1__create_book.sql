@@ -0,0 +1,16 @@
+-- Pooled sequence matching the allocation size of Book's ID generator
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    title varchar(255),
+    author varchar(255),
+    total_copies integer not null,
+    borrowed_copies integer not null,
+    version bigint not null,
+    primary key (id)
+);
+
+-- The ID is the last column so that lookups by author or title return rows in ID order for keyset pagination
+create index idx_book_author on book (author, id);
+create index idx_book_title on book (title, id);
@@ -0,0 +1,11 @@
+create table book_copy (
+    barcode bigint not null,
+    book_id bigint not null,
+    status varchar(255) check (status in ('AVAILABLE','BORROWED')),
+    location varchar(255),
+    version bigint not null,
+    primary key (barcode)
+);
+
+-- The barcode is the last column so that the copies of a book are listed in barcode order from the index
+create index idx_book_copy_book on book_copy (book_id, barcode);
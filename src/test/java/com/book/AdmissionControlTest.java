@@ -0,0 +1,196 @@
+package com.book;
+
+import com.library.admission.AdaptiveConcurrencyLimit;
+import com.library.admission.AdaptiveConcurrencyLimit.Priority;
+import com.library.admission.AdmissionInterceptor;
+import com.library.admission.TokenBucket;
+import com.library.cache.CatalogVersion;
+import com.library.controller.BookController;
+import com.library.entity.Book;
+import com.library.exception.GlobalExceptionHandler;
+import com.library.exception.ServiceOverloadedException;
+import com.library.exception.TooManyRequestsException;
+import com.library.feed.AvailabilityFeed;
+import com.library.service.BookExportService;
+import com.library.service.BookImportService;
+import com.library.service.BookSearchService;
+import com.library.service.BookService;
+import com.library.service.BookSnapshotService;
+import com.library.service.BookStatsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.library.constant.TestConstant.ADMISSION_LIMIT_ADAPTS;
+import static com.library.constant.TestConstant.ADMISSION_WRITES_KEEP_HEADROOM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AdmissionControlTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private BookService bookService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        BookController bookController = new BookController(bookService, mock(BookExportService.class),
+                mock(BookImportService.class), mock(BookSearchService.class), new CatalogVersion(),
+                mock(BookStatsService.class), mock(BookSnapshotService.class), mock(AvailabilityFeed.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(bookController)
+                .addInterceptors(interceptor(1, 2, 20))
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .build();
+    }
+
+    @Test
+    void testTokenBucket_AllowsBurstThenRate() {
+        // Arrange
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(10, 3, now);
+
+        // Simulate
+        long first = bucket.tryAcquire(now);
+        long second = bucket.tryAcquire(now);
+        long third = bucket.tryAcquire(now);
+        long fourth = bucket.tryAcquire(now);
+        long afterRefill = bucket.tryAcquire(now + 100 * MILLISECOND);
+
+        // Assertions
+        assertEquals(0, first + second + third);
+        assertEquals(100 * MILLISECOND, fourth);
+        assertEquals(0, afterRefill);
+    }
+
+    @Test
+    void testConcurrencyLimit_FollowsLatency() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 1.5, 0.8);
+
+        // Simulate
+        runAtLimit(limit, 100, 40);
+        int roomy = limit.limit(Priority.WRITE);
+        runAtLimit(limit, 20, 40);
+        int slowed = limit.limit(Priority.WRITE);
+
+        // Assertions
+        assertTrue(roomy > 100 && roomy <= 200, ADMISSION_LIMIT_ADAPTS);
+        assertTrue(slowed > 20 && slowed < 60, ADMISSION_LIMIT_ADAPTS);
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void testConcurrencyLimit_ReadsShedBeforeWrites() {
+        // Arrange
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 10, 200, 1.5, 0.8);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limit.tryAcquire(Priority.READ));
+        }
+
+        // Simulate
+        boolean read = limit.tryAcquire(Priority.READ);
+        boolean firstWrite = limit.tryAcquire(Priority.WRITE);
+        boolean secondWrite = limit.tryAcquire(Priority.WRITE);
+        boolean thirdWrite = limit.tryAcquire(Priority.WRITE);
+
+        // Assertions
+        assertFalse(read, ADMISSION_WRITES_KEEP_HEADROOM);
+        assertTrue(firstWrite && secondWrite, ADMISSION_WRITES_KEEP_HEADROOM);
+        assertFalse(thirdWrite);
+    }
+
+    @Test
+    void testInterceptor_ClientOverRateAnsweredWith429() throws Exception {
+        // Arrange
+        when(bookService.findBookById(1L)).thenReturn(new Book(1L, "Title", "Author", 1, 0, 0));
+
+        // Simulate & Assertions
+        mockMvc.perform(get("/api/books/1").header("X-Client-Id", "greedy")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/1").header("X-Client-Id", "greedy")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/1").header("X-Client-Id", "greedy"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        mockMvc.perform(get("/api/books/1").header("X-Client-Id", "other")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testInterceptor_RequestOverLimitAnsweredWith503() throws Exception {
+        // Arrange
+        AdmissionInterceptor interceptor = interceptor(1000, 1000, 1);
+        MockHttpServletRequest borrow = new MockHttpServletRequest("POST", "/api/books/1/borrow");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(borrow, response, null));
+
+        // Simulate
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/api/books/2/borrow");
+        assertThrows(ServiceOverloadedException.class, () -> interceptor.preHandle(other, response, null));
+        interceptor.afterCompletion(borrow, response, null, null);
+        interceptor.afterCompletion(borrow, response, null, null);
+
+        // Assertions
+        assertTrue(interceptor.preHandle(other, response, null));
+        mockMvc.perform(post("/api/books/1/borrow")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testInterceptor_ClientHeaderIgnoredUnlessConfigured() {
+        // Arrange
+        AdmissionInterceptor interceptor = interceptor("", 1, 1, 20);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/books/1");
+        first.addHeader("X-Client-Id", "first");
+        assertTrue(interceptor.preHandle(first, response, null));
+
+        // Simulate
+        // Same address, a different value of the header
+        MockHttpServletRequest rotated = new MockHttpServletRequest("GET", "/api/books/1");
+        rotated.addHeader("X-Client-Id", "rotated");
+
+        // Assertions
+        assertThrows(TooManyRequestsException.class, () -> interceptor.preHandle(rotated, response, null));
+    }
+
+    private static AdmissionInterceptor interceptor(double rate, int burst, int limit) {
+        return interceptor("X-Client-Id", rate, burst, limit);
+    }
+
+    private static AdmissionInterceptor interceptor(String clientHeader, double rate, int burst, int limit) {
+        return new AdmissionInterceptor(new SimpleMeterRegistry(), true, clientHeader, rate, burst, 1000,
+                Duration.ofMinutes(1), limit, 1, 200, 1.5, 0.8);
+    }
+
+    /**
+     * Fills the limit with writes and completes them all, for the given number of rounds, as a service that
+     * takes a millisecond per request and serves the given number at once, queueing the rest.
+     */
+    private static void runAtLimit(AdaptiveConcurrencyLimit limit, int capacity, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (limit.tryAcquire(Priority.WRITE)) {
+                admitted++;
+            }
+            long latencyNanos = MILLISECOND * Math.max(capacity, admitted) / capacity;
+            for (int i = 0; i < admitted; i++) {
+                limit.release(latencyNanos);
+            }
+        }
+    }
+}
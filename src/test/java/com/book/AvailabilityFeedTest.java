@@ -0,0 +1,211 @@
+package com.book;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.LibraryManagementApplication;
+import com.library.cache.CatalogVersion;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.feed.AvailabilityFeed;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.library.constant.TestConstant.FEED_DELTAS_COALESCED;
+import static com.library.constant.TestConstant.FEED_RESUMED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Its own database, and deltas are only published when the test asks for it
+@SpringBootTest(classes = LibraryManagementApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:feed;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "library.feed.publish-interval=1h", "library.feed.buffer-size=8"})
+public class AvailabilityFeedTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.shutdownNow();
+    }
+
+    @Test
+    void testFeed_StreamsCoalescedDeltasAndResumes() throws Exception {
+        // Arrange
+        Book first = bookRepository.save(book(3));
+        Book second = bookRepository.save(book(2));
+        Book third = bookRepository.save(book(1));
+        BlockingQueue<Map<String, String>> live = subscribe(null);
+        long ready = Long.parseLong(next(live).get("id"));
+
+        // Simulate
+        for (int i = 0; i < 3; i++) {
+            bookService.borrowBook(first.getId());
+        }
+        bookService.borrowBook(second.getId());
+        bookService.returnBook(second.getId());
+        bookService.deleteBook(third.getId());
+        availabilityFeed.publish();
+        Map<String, String> update = next(live);
+        BlockingQueue<Map<String, String>> resumed = subscribe(ready);
+        next(resumed);
+        Map<String, String> missed = next(resumed);
+
+        // Assertions
+        assertEquals(AvailabilityFeed.AVAILABILITY_EVENT, update.get("event"));
+        assertEquals(String.valueOf(ready + 3), update.get("id"), FEED_DELTAS_COALESCED);
+        JsonNode deltas = objectMapper.readTree(update.get("data"));
+        assertEquals(3, deltas.size(), FEED_DELTAS_COALESCED);
+        assertDelta(deltas.get(0), first.getId(), 3, 3, false);
+        assertDelta(deltas.get(1), second.getId(), 0, 2, false);
+        assertDelta(deltas.get(2), third.getId(), 0, 0, true);
+        assertEquals(update, missed, FEED_RESUMED);
+    }
+
+    @Test
+    void testPublish_FailedReadKeepsBooksChanged() {
+        // Arrange
+        BookRepository failingRepository = mock(BookRepository.class);
+        AvailabilityLedger disabledLedger = new AvailabilityLedger(failingRepository, null, null, new CatalogVersion(),
+                false, Duration.ofMillis(200));
+        AvailabilityFeed feed = new AvailabilityFeed(failingRepository, disabledLedger, 8, Duration.ofHours(1),
+                Duration.ofSeconds(15), Duration.ofMinutes(30), 10);
+        when(failingRepository.findRowsByIdIn(List.of(1L)))
+                .thenThrow(new QueryTimeoutException("timed out"))
+                .thenReturn(List.of(new Book(1L, "Title", "Author", 1, 1, 1)));
+        feed.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+
+        // Simulate
+        assertThrows(QueryTimeoutException.class, feed::publish);
+        feed.publish();
+        feed.publish();
+
+        // Assertions
+        verify(failingRepository, times(2)).findRowsByIdIn(List.of(1L));
+    }
+
+    @Test
+    void testFeed_ResumeFromLostPositionIsReset() throws Exception {
+        // Arrange
+        BlockingQueue<Map<String, String>> live = subscribe(null);
+        long ready = Long.parseLong(next(live).get("id"));
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            books.add(bookRepository.save(book(1)));
+        }
+        for (Book book : books) {
+            bookService.borrowBook(book.getId());
+        }
+        availabilityFeed.publish();
+
+        // Simulate
+        BlockingQueue<Map<String, String>> lapped = subscribe(ready);
+        BlockingQueue<Map<String, String>> restarted = subscribe(1L);
+
+        // Assertions
+        assertEquals(AvailabilityFeed.READY_EVENT, next(lapped).get("event"));
+        assertEquals(AvailabilityFeed.RESET_EVENT, next(lapped).get("event"), FEED_RESUMED);
+        assertEquals(AvailabilityFeed.READY_EVENT, next(restarted).get("event"));
+        assertEquals(AvailabilityFeed.RESET_EVENT, next(restarted).get("event"), FEED_RESUMED);
+    }
+
+    private void assertDelta(JsonNode delta, long bookId, int borrowedCopies, int totalCopies, boolean deleted) {
+        assertEquals(bookId, delta.get("book_id").asLong());
+        assertEquals(borrowedCopies, delta.get("borrowed_copies").asInt(), FEED_DELTAS_COALESCED);
+        assertEquals(totalCopies, delta.get("total_copies").asInt());
+        assertEquals(deleted, delta.get("deleted").asBoolean());
+    }
+
+    /**
+     * Opens the feed and collects its events, each as its fields, on a virtual thread.
+     */
+    private BlockingQueue<Map<String, String>> subscribe(Long lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/feed"));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", String.valueOf(lastEventId));
+        }
+        BlockingQueue<Map<String, String>> events = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            try (Stream<String> lines = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines()).body()) {
+                Map<String, String> event = new HashMap<>();
+                for (String line : (Iterable<String>) lines::iterator) {
+                    if (line.isEmpty()) {
+                        if (!event.isEmpty()) {
+                            events.add(event);
+                        }
+                        event = new HashMap<>();
+                    } else if (!line.startsWith(":")) {
+                        int colon = line.indexOf(':');
+                        event.merge(line.substring(0, colon), line.substring(colon + 1).strip(),
+                                (previous, more) -> previous + "\n" + more);
+                    }
+                }
+            } catch (Exception ex) {
+                // The stream is closed when the test ends
+            }
+        });
+        return events;
+    }
+
+    private static Map<String, String> next(BlockingQueue<Map<String, String>> events) throws InterruptedException {
+        Map<String, String> event = events.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event, "No event received");
+        assertTrue(event.containsKey("event"));
+        return event;
+    }
+
+    private static Book book(int totalCopies) {
+        Book book = new Book();
+        book.setTitle("Feed Test Book");
+        book.setAuthor("Feed Author");
+        book.setTotalCopies(totalCopies);
+        return book;
+    }
+}
@@ -0,0 +1,307 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.constant.BatchMode;
+import com.library.constant.CirculationOperation;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.exception.BatchRolledBackException;
+import com.library.exception.NoAvailableCopiesException;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookRepository;
+import com.library.service.BookCopyService;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.library.constant.TestConstant.BORROWED_COPIES_MATCH;
+import static com.library.constant.TestConstant.COPY_COUNTS_CONSISTENT;
+import static com.library.constant.TestConstant.LEDGER_FLUSHED;
+import static com.library.constant.TestConstant.NO_OVER_BORROWING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(classes = LibraryManagementApplication.class, properties = {
+        "library.circulation.ledger.enabled=true",
+        // Flushed explicitly by the tests
+        "library.circulation.ledger.flush-interval=1h"
+})
+public class AvailabilityLedgerTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Autowired
+    private AvailabilityLedger availabilityLedger;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    @Test
+    void testConcurrentBorrow_NeverOversellsAndFlushesOnce() throws Exception {
+        // Arrange
+        int totalCopies = 100;
+        Long id = saveBook(totalCopies).getId();
+        AtomicInteger borrowed = new AtomicInteger();
+
+        // Simulate
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        try {
+                            bookService.borrowBook(id);
+                            borrowed.incrementAndGet();
+                        } catch (NoAvailableCopiesException ex) {
+                            // Expected once every copy is out
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int beforeFlush = bookRepository.findById(id).orElseThrow().getBorrowedCopies();
+        availabilityLedger.flush();
+
+        // Assertions
+        assertEquals(totalCopies, borrowed.get(), NO_OVER_BORROWING);
+        assertEquals(0, beforeFlush, BORROWED_COPIES_MATCH);
+        assertEquals(totalCopies, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), LEDGER_FLUSHED);
+        assertEquals(totalCopies, bookService.findBookById(id).getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testBorrowAndReturn_CoalescedIntoNetChange() {
+        // Arrange
+        Long id = saveBook(5).getId();
+
+        // Simulate
+        bookService.borrowBook(id);
+        bookService.borrowBook(id);
+        bookService.borrowBook(id);
+        bookService.returnBook(id);
+        availabilityLedger.flush();
+
+        // Assertions
+        assertEquals(2, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), LEDGER_FLUSHED);
+    }
+
+    @Test
+    void testAllOrNothingBatch_AppliesNothingOnFailure() {
+        // Arrange
+        Long available = saveBook(1).getId();
+        Long exhausted = saveBook(0).getId();
+
+        // Simulate
+        assertThrows(BatchRolledBackException.class, () -> bookService.processBatch(CirculationOperation.BORROW,
+                List.of(available, exhausted), BatchMode.ALL_OR_NOTHING));
+        bookService.borrowBook(available);
+        availabilityLedger.flush();
+
+        // Assertions
+        assertEquals(1, bookRepository.findById(available).orElseThrow().getBorrowedCopies(), LEDGER_FLUSHED);
+    }
+
+    @Test
+    void testUpdateBook_NewTotalAppliesToLedger() {
+        // Arrange
+        Book book = saveBook(1);
+        bookService.borrowBook(book.getId());
+        Book updated = new Book();
+        updated.setTitle(book.getTitle());
+        updated.setAuthor(book.getAuthor());
+        updated.setTotalCopies(2);
+
+        // Simulate
+        bookService.updateBook(book.getId(), updated);
+        bookService.borrowBook(book.getId());
+        availabilityLedger.flush();
+
+        // Assertions
+        assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(book.getId()));
+        assertEquals(2, bookRepository.findById(book.getId()).orElseThrow().getBorrowedCopies(), LEDGER_FLUSHED);
+    }
+
+    @Test
+    void testBorrow_UndoneWhenItsTransactionRollsBack() {
+        // Arrange
+        Long id = saveBook(1).getId();
+
+        // Simulate
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.borrowBook(id);
+            status.setRollbackOnly();
+        });
+        bookService.borrowBook(id);
+        availabilityLedger.flush();
+
+        // Assertions
+        assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(id), NO_OVER_BORROWING);
+        assertEquals(1, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), LEDGER_FLUSHED);
+    }
+
+    @Test
+    void testConcurrentBorrowAndRemoveCopy_NeverTakeTheSameCopy() throws Exception {
+        // Arrange
+        int copies = 40;
+        Long id = saveBook(0).getId();
+        for (int i = 1; i <= copies; i++) {
+            bookCopyService.registerCopy(id, new BookCopy(id * 1000 + i, 0, null, "Stacks"));
+        }
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+
+        // Simulate
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?> borrower = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < copies; i++) {
+                    try {
+                        bookService.borrowBook(id);
+                        borrowed.incrementAndGet();
+                    } catch (NoAvailableCopiesException ex) {
+                        // Expected once the remaining copies are out or removed
+                    }
+                }
+                return null;
+            });
+            Future<?> remover = executor.submit(() -> {
+                start.await();
+                for (int i = 1; i <= copies; i++) {
+                    try {
+                        bookCopyService.removeCopy(id * 1000 + i);
+                        removed.incrementAndGet();
+                    } catch (NoAvailableCopiesException ex) {
+                        // Expected once every remaining copy is borrowed
+                    }
+                }
+                return null;
+            });
+            start.countDown();
+            borrower.get();
+            remover.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        availabilityLedger.flush();
+
+        // Assertions
+        Book current = bookService.findBookById(id);
+        Book stored = bookRepository.findById(id).orElseThrow();
+        assertEquals(copies, borrowed.get() + removed.get(), COPY_COUNTS_CONSISTENT);
+        assertEquals(borrowed.get(), current.getBorrowedCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(copies - removed.get(), current.getTotalCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(current.getTotalCopies(), stored.getTotalCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(current.getBorrowedCopies(), stored.getBorrowedCopies(), LEDGER_FLUSHED);
+    }
+
+    @Test
+    void testUpdate_RowReadBeforeFlushKeepsFlushedBorrows() {
+        // Arrange
+        Book book = saveBook(2);
+        bookService.borrowBook(book.getId());
+        // An edit reads its row before the flush commits and is announced after it
+        Book edited = bookRepository.findRowById(book.getId()).orElseThrow();
+        edited.setVersion(edited.getVersion() + 1);
+
+        // Simulate
+        availabilityLedger.flush();
+        availabilityLedger.onBookChanged(new BookChangedEvent(ChangeType.UPDATED, book.getId(), edited));
+        bookService.borrowBook(book.getId());
+
+        // Assertions
+        assertEquals(0, edited.getBorrowedCopies());
+        assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(book.getId()), NO_OVER_BORROWING);
+        assertEquals(2, bookService.findBookById(book.getId()).getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testConcurrentFlushAndUpdates_NeverOversell() throws Exception {
+        // Arrange
+        int totalCopies = 200;
+        Book book = saveBook(totalCopies);
+        Book updated = new Book();
+        updated.setTitle(book.getTitle());
+        updated.setAuthor(book.getAuthor());
+        updated.setTotalCopies(totalCopies);
+        AtomicBoolean done = new AtomicBoolean();
+        int borrowed = 0;
+
+        // Simulate
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (!done.get()) {
+                    availabilityLedger.flush();
+                }
+            });
+            Future<?> updater = executor.submit(() -> {
+                while (!done.get()) {
+                    bookService.updateBook(book.getId(), updated);
+                }
+            });
+            for (int i = 0; i < 2 * totalCopies; i++) {
+                try {
+                    bookService.borrowBook(book.getId());
+                    borrowed++;
+                } catch (NoAvailableCopiesException ex) {
+                    // Expected once every copy is out
+                }
+            }
+            done.set(true);
+            flusher.get();
+            updater.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        availabilityLedger.flush();
+
+        // Assertions
+        assertEquals(totalCopies, borrowed, NO_OVER_BORROWING);
+        assertEquals(totalCopies, bookRepository.findById(book.getId()).orElseThrow().getBorrowedCopies(),
+                LEDGER_FLUSHED);
+    }
+
+    private Book saveBook(int totalCopies) {
+        Book book = new Book();
+        book.setTitle("Ledger Test Book");
+        book.setAuthor("Test Author");
+        book.setTotalCopies(totalCopies);
+        return bookRepository.save(book);
+    }
+}
@@ -0,0 +1,95 @@
+package com.book;
+
+import com.library.cache.BarcodeIndex;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookCopyChangedEvent;
+import com.library.event.BookCopyChangedEvent.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.library.constant.TestConstant.BARCODE_INDEX_MATCHES_COPIES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BarcodeIndexTest {
+
+    private static final int COPIES = 10_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private BarcodeIndex barcodeIndex;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:barcodes;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE book_copy (barcode BIGINT PRIMARY KEY, book_id BIGINT NOT NULL)");
+        barcodeIndex = new BarcodeIndex(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE book_copy");
+    }
+
+    @Test
+    void testBookIdOf_BeforeFirstBuildQueriesTable() {
+        // Arrange
+        jdbcTemplate.update("INSERT INTO book_copy VALUES (?, ?)", 4006381333931L, 7L);
+
+        // Assertions
+        assertEquals(7L, barcodeIndex.bookIdOf(4006381333931L));
+        assertEquals(BarcodeIndex.NOT_FOUND, barcodeIndex.bookIdOf(4006381333932L));
+        assertEquals(0, barcodeIndex.size());
+    }
+
+    @Test
+    void testRebuild_MatchesCopiesThroughRandomChanges() {
+        // Arrange
+        // Sequential barcodes, like a roll of labels, spread over books of ten copies each
+        Map<Long, Long> expected = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (long barcode = 1; barcode <= COPIES; barcode++) {
+            expected.put(barcode, barcode / 10);
+            rows.add(new Object[]{barcode, barcode / 10});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_copy VALUES (?, ?)", rows);
+        Random random = new Random(42);
+
+        // Simulate
+        barcodeIndex.rebuild();
+        for (int i = 0; i < 4 * COPIES; i++) {
+            long barcode = 1 + random.nextInt(2 * COPIES);
+            if (random.nextBoolean()) {
+                long bookId = random.nextInt(COPIES / 5);
+                barcodeIndex.onCopyChanged(new BookCopyChangedEvent(ChangeType.REGISTERED, barcode, bookId));
+                expected.put(barcode, bookId);
+            } else {
+                barcodeIndex.onCopyChanged(new BookCopyChangedEvent(ChangeType.REMOVED, barcode, 0));
+                expected.remove(barcode);
+            }
+        }
+        List<Long> copiesOfThree = expected.entrySet().stream().filter(entry -> entry.getValue() == 3L)
+                .map(Map.Entry::getKey).toList();
+        barcodeIndex.onBookChanged(BookChangedEvent.deleted(3L, copiesOfThree));
+        expected.values().removeIf(bookId -> bookId == 3L);
+
+        // Assertions
+        assertEquals(expected.size(), barcodeIndex.size(), BARCODE_INDEX_MATCHES_COPIES);
+        for (long barcode = 1; barcode <= 2 * COPIES; barcode++) {
+            assertEquals(expected.getOrDefault(barcode, BarcodeIndex.NOT_FOUND), barcodeIndex.bookIdOf(barcode),
+                    BARCODE_INDEX_MATCHES_COPIES);
+        }
+        // Two longs per slot, and a slot for every copy
+        assertEquals(0, barcodeIndex.sizeInBytes() % 16);
+        assertTrue(barcodeIndex.sizeInBytes() >= 16L * barcodeIndex.size());
+    }
+}
@@ -0,0 +1,137 @@
+package com.book;
+
+import com.library.cache.BookCache;
+import com.library.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.library.constant.TestConstant.CACHE_NOT_STALE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookCacheTest {
+
+    private BookCache bookCache;
+
+    @BeforeEach
+    void setUp() {
+        bookCache = new BookCache(2, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testGet_MissingBookIsNotCached() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Simulate
+        bookCache.get(1L, id -> { loads.incrementAndGet(); return null; });
+        Book result = bookCache.get(1L, id -> { loads.incrementAndGet(); return null; });
+
+        // Assertions
+        assertNull(result);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGet_EvictsBeyondMaximumSize() {
+        // Simulate
+        for (long id = 1; id <= 10; id++) {
+            bookCache.get(id, BookCacheTest::book);
+        }
+
+        // Assertions
+        // Caffeine evicts asynchronously, so wait for its maintenance to settle
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bookCache.stats().size() > 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(bookCache.stats().size() <= 2);
+        assertTrue(bookCache.stats().evictionCount() >= 8);
+    }
+
+    @Test
+    void testInvalidate_DuringInFlightLoadDropsTheLoadedValue() throws Exception {
+        // Arrange
+        AtomicInteger borrowedInDatabase = new AtomicInteger(0);
+        CountDownLatch loadRead = new CountDownLatch(1);
+        CountDownLatch writeCommitted = new CountDownLatch(1);
+
+        // Simulate
+        // The reader reads the row before the write commits, but finishes loading only afterwards
+        CompletableFuture<Book> reader = CompletableFuture.supplyAsync(() -> bookCache.get(1L, id -> {
+            Book stale = book(id, borrowedInDatabase.get());
+            loadRead.countDown();
+            await(writeCommitted);
+            return stale;
+        }));
+        loadRead.await();
+        borrowedInDatabase.set(1);
+        // Invalidating must not wait for the in-flight load, or committed writers would queue behind reads
+        bookCache.invalidate(1L);
+        writeCommitted.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        // Assertions
+        Book cached = bookCache.get(1L, id -> book(id, borrowedInDatabase.get()));
+        assertEquals(1, cached.getBorrowedCopies(), CACHE_NOT_STALE);
+    }
+
+    @Test
+    void testConcurrentWritesAndReads_CacheConvergesToLastCommit() throws Exception {
+        // Arrange
+        AtomicInteger borrowedInDatabase = new AtomicInteger();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+
+        // Simulate
+        for (int i = 0; i < 8; i++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                while (writing.get()) {
+                    Book cached = bookCache.get(1L, id -> book(id, borrowedInDatabase.get()));
+                    // A value can trail the database only between a commit and its invalidation
+                    assertTrue(cached.getBorrowedCopies() <= borrowedInDatabase.get(), CACHE_NOT_STALE);
+                }
+            }));
+        }
+        for (int i = 1; i <= 10_000; i++) {
+            borrowedInDatabase.set(i);
+            bookCache.invalidate(1L);
+        }
+        writing.set(false);
+        for (CompletableFuture<Void> reader : readers) {
+            reader.get(5, TimeUnit.SECONDS);
+        }
+
+        // Assertions
+        assertEquals(10_000, bookCache.get(1L, id -> book(id, borrowedInDatabase.get())).getBorrowedCopies(), CACHE_NOT_STALE);
+    }
+
+    private static Book book(Long id) {
+        return book(id, 0);
+    }
+
+    private static Book book(Long id, int borrowedCopies) {
+        Book book = new Book();
+        book.setId(id);
+        book.setBorrowedCopies(borrowedCopies);
+        return book;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
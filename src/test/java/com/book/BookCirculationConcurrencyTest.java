@@ -0,0 +1,259 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.cache.BookIdFilter;
+import com.library.constant.BatchMode;
+import com.library.constant.CirculationOperation;
+import com.library.entity.Book;
+import com.library.exception.BatchRolledBackException;
+import com.library.exception.NoAvailableCopiesException;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+import static com.library.constant.TestConstant.BORROWED_COPIES_MATCH;
+import static com.library.constant.TestConstant.CACHE_NOT_STALE;
+import static com.library.constant.TestConstant.FALSE_POSITIVE_RATE_BOUNDED;
+import static com.library.constant.TestConstant.NO_FALSE_NEGATIVES;
+import static com.library.constant.TestConstant.NO_OVER_BORROWING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = LibraryManagementApplication.class)
+public class BookCirculationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookIdFilter bookIdFilter;
+
+    @Test
+    void testConcurrentBorrow_NeverOverBorrows() throws Exception {
+        // Arrange
+        int totalCopies = 100;
+        Long id = saveBook(totalCopies).getId();
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // Simulate
+        runConcurrently(bookId -> {
+            try {
+                bookService.borrowBook(bookId);
+                borrowed.incrementAndGet();
+            } catch (NoAvailableCopiesException ex) {
+                rejected.incrementAndGet();
+            }
+        }, id);
+
+        // Assertions
+        assertEquals(totalCopies, borrowed.get(), NO_OVER_BORROWING);
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - totalCopies, rejected.get());
+        assertEquals(totalCopies, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testConcurrentReturn_NeverGoesNegative() throws Exception {
+        // Arrange
+        int borrowedCopies = 100;
+        Book book = saveBook(borrowedCopies);
+        book.setBorrowedCopies(borrowedCopies);
+        bookRepository.save(book);
+        AtomicInteger returned = new AtomicInteger();
+
+        // Simulate
+        runConcurrently(bookId -> {
+            try {
+                bookService.returnBook(bookId);
+                returned.incrementAndGet();
+            } catch (NoAvailableCopiesException ex) {
+                // Expected once every copy is back
+            }
+        }, book.getId());
+
+        // Assertions
+        assertEquals(borrowedCopies, returned.get(), BORROWED_COPIES_MATCH);
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testConcurrentBorrow_LosesNoUpdates() throws Exception {
+        // Arrange
+        int copies = THREADS * ATTEMPTS_PER_THREAD;
+        Long id = saveBook(copies).getId();
+
+        // Simulate
+        runConcurrently(bookService::borrowBook, id);
+
+        // Assertions
+        assertEquals(copies, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testConcurrentUpdate_LosesNoBorrows() throws Exception {
+        // Arrange
+        int copies = THREADS * ATTEMPTS_PER_THREAD;
+        Long id = saveBook(copies).getId();
+        AtomicInteger turn = new AtomicInteger();
+
+        // Simulate
+        // Every other thread edits the book while the rest borrow it
+        runConcurrently(bookId -> {
+            if (turn.incrementAndGet() % 2 == 0) {
+                Book update = new Book();
+                update.setTitle("Renamed Concurrency Test Book");
+                update.setAuthor("Test Author");
+                update.setTotalCopies(copies);
+                bookService.updateBook(bookId, update);
+            } else {
+                bookService.borrowBook(bookId);
+            }
+        }, id);
+
+        // Assertions
+        assertEquals(copies / 2, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testSaveBook_ExistingIdOfCirculatedBookUpdatesIt() {
+        // Arrange
+        Long id = saveBook(2).getId();
+        bookService.borrowBook(id);
+        bookService.returnBook(id);
+        bookService.borrowBook(id);
+        // As deserialized from a client, which cannot send the version and leaves borrowed copies at 0
+        Book posted = new Book();
+        posted.setId(id);
+        posted.setTitle("Resaved Concurrency Test Book");
+        posted.setAuthor("Test Author");
+        posted.setTotalCopies(3);
+
+        // Simulate
+        bookService.saveBook(posted);
+
+        // Assertions
+        Book stored = bookRepository.findById(id).orElseThrow();
+        assertEquals("Resaved Concurrency Test Book", stored.getTitle());
+        assertEquals(3, stored.getTotalCopies());
+        assertEquals(1, stored.getBorrowedCopies());
+    }
+
+    @Test
+    void testConcurrentBorrow_CachedLookupsSeeEveryCommit() throws Exception {
+        // Arrange
+        int totalCopies = THREADS * ATTEMPTS_PER_THREAD;
+        Long id = saveBook(totalCopies).getId();
+
+        // Simulate
+        runConcurrently(bookId -> {
+            bookService.borrowBook(bookId);
+            bookService.findBookById(bookId);
+        }, id);
+
+        // Assertions
+        assertEquals(totalCopies, bookService.findBookById(id).getBorrowedCopies(), CACHE_NOT_STALE);
+    }
+
+    @Test
+    void testConcurrentBatches_OpposingOrdersDoNotDeadlock() throws Exception {
+        // Arrange
+        Long first = saveBook(THREADS * ATTEMPTS_PER_THREAD).getId();
+        Long second = saveBook(THREADS * ATTEMPTS_PER_THREAD).getId();
+
+        // Simulate
+        // Half the threads ask for the books in one order, half in the other
+        AtomicInteger turn = new AtomicInteger();
+        runConcurrently(ignored -> {
+            List<Long> ids = turn.incrementAndGet() % 2 == 0 ? List.of(first, second) : List.of(second, first);
+            bookService.processBatch(CirculationOperation.BORROW, ids, BatchMode.ALL_OR_NOTHING);
+        }, 0L);
+
+        // Assertions
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, bookRepository.findById(first).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD, bookRepository.findById(second).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testAllOrNothingBatch_RollsBackEarlierItems() {
+        // Arrange
+        Long available = saveBook(1).getId();
+        Long exhausted = saveBook(0).getId();
+
+        // Simulate
+        assertThrows(BatchRolledBackException.class,
+                () -> bookService.processBatch(CirculationOperation.BORROW, List.of(available, exhausted), BatchMode.ALL_OR_NOTHING));
+
+        // Assertions
+        assertEquals(0, bookRepository.findById(available).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+
+    @Test
+    void testIdFilter_KnowsSavedBooksAndRulesOutMissingOnes() {
+        // Arrange
+        Long id = saveBook(1).getId();
+
+        // Simulate
+        long missingReportedPresent = LongStream.range(0, 1000).map(i -> Long.MAX_VALUE - i)
+                .filter(bookIdFilter::mightContain)
+                .count();
+
+        // Assertions
+        assertTrue(bookIdFilter.mightContain(id), NO_FALSE_NEGATIVES);
+        assertTrue(missingReportedPresent < 50, FALSE_POSITIVE_RATE_BOUNDED);
+    }
+
+    private Book saveBook(int totalCopies) {
+        Book book = new Book();
+        book.setTitle("Concurrency Test Book");
+        book.setAuthor("Test Author");
+        book.setTotalCopies(totalCopies);
+        return bookRepository.save(book);
+    }
+
+    /**
+     * Runs the operation ATTEMPTS_PER_THREAD times on each of THREADS threads, released together, and waits
+     * until every thread finished.
+     */
+    private void runConcurrently(LongConsumer operation, long id) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                        operation.accept(id);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.book;
+
+import com.library.cache.CatalogVersion;
+import com.library.controller.BookController;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.feed.AvailabilityFeed;
+import com.library.service.BookExportService;
+import com.library.service.BookImportService;
+import com.library.service.BookSearchService;
+import com.library.service.BookService;
+import com.library.service.BookSnapshotService;
+import com.library.service.BookStatsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static com.library.constant.TestConstant.NOT_MODIFIED_WITHOUT_QUERY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookControllerConditionalGetTest {
+
+    private BookService bookService;
+    private CatalogVersion catalogVersion;
+    private BookController bookController;
+
+    @BeforeEach
+    void setUp() {
+        bookService = mock(BookService.class);
+        catalogVersion = new CatalogVersion();
+        bookController = new BookController(bookService, mock(BookExportService.class), mock(BookImportService.class),
+                mock(BookSearchService.class), catalogVersion, mock(BookStatsService.class),
+                mock(BookSnapshotService.class), mock(AvailabilityFeed.class));
+    }
+
+    @Test
+    void testGetAllBooks_UnchangedCatalogAnsweredWithNotModified() {
+        // Arrange
+        when(bookService.findAllBooks()).thenReturn(List.of(book(1L, 0)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertNotNull(bookController.getAllBooks(new ServletWebRequest(new MockHttpServletRequest("GET", "/api/books/get"), first)));
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+
+        // Simulate
+        MockHttpServletResponse poll = new MockHttpServletResponse();
+        Object pollResult = bookController.getAllBooks(conditional(eTag, poll));
+
+        // Assertions
+        assertNotNull(eTag);
+        assertNotNull(first.getHeader(HttpHeaders.LAST_MODIFIED));
+        assertNull(pollResult, NOT_MODIFIED_WITHOUT_QUERY);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), poll.getStatus(), NOT_MODIFIED_WITHOUT_QUERY);
+        verify(bookService, times(1)).findAllBooks();
+    }
+
+    @Test
+    void testGetAllBooks_CommittedChangeInvalidatesETag() {
+        // Arrange
+        when(bookService.findAllBooks()).thenReturn(List.of(book(1L, 0)));
+        String eTag = catalogVersion.catalogETag();
+        catalogVersion.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+
+        // Simulate
+        MockHttpServletResponse poll = new MockHttpServletResponse();
+        Object pollResult = bookController.getAllBooks(conditional(eTag, poll));
+
+        // Assertions
+        assertNotNull(pollResult);
+        assertEquals(HttpStatus.OK.value(), poll.getStatus());
+        assertNotEquals(eTag, poll.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGetBook_ETagFollowsVersionAndCirculation() {
+        // Arrange
+        Book stored = book(7L, 3);
+        Book borrowedInLedger = book(7L, 3);
+        borrowedInLedger.setBorrowedCopies(1);
+        when(bookService.findBookById(7L)).thenReturn(stored, borrowedInLedger);
+        String eTag = CatalogVersion.bookETag(stored);
+
+        // Simulate
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        Object unchangedResult = bookController.getBook(7L, conditional(eTag, unchanged));
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        Object changedResult = bookController.getBook(7L, conditional(eTag, changed));
+
+        // Assertions
+        assertNull(unchangedResult);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), unchanged.getStatus());
+        assertNotNull(changedResult);
+        assertEquals(CatalogVersion.bookETag(borrowedInLedger), changed.getHeader(HttpHeaders.ETAG));
+    }
+
+    private static ServletWebRequest conditional(String eTag, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/get");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        return new ServletWebRequest(request, response);
+    }
+
+    private static Book book(Long id, long version) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Conditional Test Book");
+        book.setAuthor("Test Author");
+        book.setTotalCopies(2);
+        book.setVersion(version);
+        return book;
+    }
+}
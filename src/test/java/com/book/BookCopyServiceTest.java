@@ -0,0 +1,167 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.cache.BarcodeIndex;
+import com.library.constant.CopyStatus;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.exception.CopyNotFoundException;
+import com.library.exception.InvalidCopyRequestException;
+import com.library.exception.NoAvailableCopiesException;
+import com.library.repository.BookRepository;
+import com.library.service.BookCopyService;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.library.constant.TestConstant.BARCODE_INDEX_MATCHES_COPIES;
+import static com.library.constant.TestConstant.COPY_COUNTS_CONSISTENT;
+import static com.library.constant.TestConstant.SINGLE_CHECKOUT_PER_COPY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Its own database, so barcodes registered here do not collide with other contexts
+@SpringBootTest(classes = LibraryManagementApplication.class,
+        properties = "spring.datasource.url=jdbc:h2:mem:copies;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class BookCopyServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookCopyService bookCopyService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+
+    @Test
+    void testCheckoutAndReturn_KeepBookCountsConsistent() {
+        // Arrange
+        Long id = saveBook(1).getId();
+        bookCopyService.registerCopy(id, new BookCopy(1001L, 0, null, "Shelf A"));
+        bookCopyService.registerCopy(id, new BookCopy(1002L, 0, null, "Shelf B"));
+
+        // Simulate
+        long bookId = bookCopyService.checkoutCopy(1001L);
+        Book borrowed = bookRepository.findById(id).orElseThrow();
+        NoAvailableCopiesException twice = assertThrows(NoAvailableCopiesException.class,
+                () -> bookCopyService.checkoutCopy(1001L));
+        bookCopyService.returnCopy(1001L);
+
+        // Assertions
+        assertEquals(id, bookId);
+        assertEquals(3, borrowed.getTotalCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(1, borrowed.getBorrowedCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals("Copy with barcode 1001 is not available to check out", twice.getMessage());
+        assertEquals(0, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(CopyStatus.AVAILABLE, bookCopyService.findCopy(1001L).getStatus());
+        assertEquals(id, bookCopyService.findBookByBarcode(1002L).getId(), BARCODE_INDEX_MATCHES_COPIES);
+        assertThrows(NoAvailableCopiesException.class, () -> bookCopyService.returnCopy(1002L));
+    }
+
+    @Test
+    void testCheckout_RefusedBorrowLeavesCopyAvailable() {
+        // Arrange
+        Long id = saveBook(0).getId();
+        bookCopyService.registerCopy(id, new BookCopy(2001L, 0, null, "Desk"));
+        // The only copy is out without its barcode being scanned
+        bookService.borrowBook(id);
+
+        // Simulate
+        assertThrows(NoAvailableCopiesException.class, () -> bookCopyService.checkoutCopy(2001L));
+
+        // Assertions
+        assertEquals(CopyStatus.AVAILABLE, bookCopyService.findCopy(2001L).getStatus(), COPY_COUNTS_CONSISTENT);
+        assertEquals(1, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), COPY_COUNTS_CONSISTENT);
+        assertThrows(NoAvailableCopiesException.class, () -> bookCopyService.removeCopy(2001L));
+    }
+
+    @Test
+    void testRegisterAndRemove_ChangeTotalCopies() {
+        // Arrange
+        Long id = saveBook(0).getId();
+        bookCopyService.registerCopy(id, new BookCopy(3001L, 0, null, "Stacks"));
+        bookCopyService.registerCopy(id, new BookCopy(3002L, 0, null, "Stacks"));
+        bookCopyService.checkoutCopy(3002L);
+        Book update = new Book();
+        update.setTitle("Copies Test Book");
+        update.setAuthor("Copies Author");
+        update.setTotalCopies(1);
+
+        // Simulate
+        assertThrows(InvalidCopyRequestException.class,
+                () -> bookCopyService.registerCopy(id, new BookCopy(3001L, 0, null, "Stacks")));
+        assertThrows(InvalidCopyRequestException.class, () -> bookService.updateBook(id, update));
+        assertThrows(NoAvailableCopiesException.class, () -> bookCopyService.removeCopy(3002L));
+        bookCopyService.removeCopy(3001L);
+
+        // Assertions
+        assertEquals(1, bookRepository.findById(id).orElseThrow().getTotalCopies(), COPY_COUNTS_CONSISTENT);
+        assertEquals(List.of(3002L), bookCopyService.findCopiesOfBook(id).stream().map(BookCopy::getBarcode).toList());
+        assertEquals(BarcodeIndex.NOT_FOUND, barcodeIndex.bookIdOf(3001L), BARCODE_INDEX_MATCHES_COPIES);
+        assertThrows(CopyNotFoundException.class, () -> bookCopyService.checkoutCopy(3001L));
+        bookService.deleteBook(id);
+        assertEquals(BarcodeIndex.NOT_FOUND, barcodeIndex.bookIdOf(3002L), BARCODE_INDEX_MATCHES_COPIES);
+    }
+
+    @Test
+    void testConcurrentCheckout_OneScanWins() throws Exception {
+        // Arrange
+        Long id = saveBook(0).getId();
+        bookCopyService.registerCopy(id, new BookCopy(4001L, 0, null, "Returns cart"));
+        AtomicInteger checkedOut = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Simulate
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        bookCopyService.checkoutCopy(4001L);
+                        checkedOut.incrementAndGet();
+                    } catch (NoAvailableCopiesException ex) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assertions
+        assertEquals(1, checkedOut.get(), SINGLE_CHECKOUT_PER_COPY);
+        assertEquals(THREADS - 1, rejected.get(), SINGLE_CHECKOUT_PER_COPY);
+        assertEquals(1, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), COPY_COUNTS_CONSISTENT);
+    }
+
+    private Book saveBook(int totalCopies) {
+        Book book = new Book();
+        book.setTitle("Copies Test Book");
+        book.setAuthor("Copies Author");
+        book.setTotalCopies(totalCopies);
+        return bookRepository.save(book);
+    }
+}
@@ -0,0 +1,126 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.constant.ExportFormat;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookExportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.library.constant.TestConstant.EXPORT_ROW_COUNT_MATCH;
+import static com.library.constant.TestConstant.PERSISTENCE_CONTEXT_BOUNDED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = LibraryManagementApplication.class)
+public class BookExportServiceTest {
+
+    private static final int CATALOG_SIZE = 5_000;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Book book = new Book();
+            book.setTitle(i % 100 == 0 ? "Title, \"quoted\" " + i : "Title " + i);
+            book.setAuthor("Author " + i % 50);
+            book.setTotalCopies(3);
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @Test
+    void testExportBooks_NdjsonWritesOneLinePerBook() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Simulate
+        long written = bookExportService.exportBooks(ExportFormat.NDJSON, out);
+
+        // Assertions
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CATALOG_SIZE, written, EXPORT_ROW_COUNT_MATCH);
+        assertEquals(CATALOG_SIZE, lines.length, EXPORT_ROW_COUNT_MATCH);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+    }
+
+    @Test
+    void testExportBooks_CsvQuotesSpecialCharacters() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Simulate
+        bookExportService.exportBooks(ExportFormat.CSV, out);
+
+        // Assertions
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(CATALOG_SIZE + 1, lines.length, EXPORT_ROW_COUNT_MATCH);
+        assertEquals("id,title,author,totalCopies,borrowedCopies", lines[0]);
+        assertTrue(lines[1].endsWith(",\"Title, \"\"quoted\"\" 0\",Author 0,3,0"));
+    }
+
+    @Test
+    void testExportBooks_PersistenceContextStaysBounded() throws IOException {
+        // Arrange
+        ProbingOutputStream out = new ProbingOutputStream();
+
+        // Simulate
+        bookExportService.exportBooks(ExportFormat.NDJSON, out);
+
+        // Assertions
+        // Writes happen inside the export transaction, so the probe sees the live persistence context.
+        // Without detaching, it would hold every book read so far by the last write.
+        assertTrue(out.writes > 10);
+        assertTrue(out.maxManagedEntities <= 1, PERSISTENCE_CONTEXT_BOUNDED);
+    }
+
+    /**
+     * Discards the export while recording the largest persistence context seen on any write.
+     */
+    private class ProbingOutputStream extends OutputStream {
+
+        private int writes;
+
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            probe();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            probe();
+        }
+
+        private void probe() {
+            writes++;
+            int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+            maxManagedEntities = Math.max(maxManagedEntities, managed);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.book;
+
+import com.library.cache.BookIdFilter;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.LongStream;
+
+import static com.library.constant.TestConstant.FALSE_POSITIVE_RATE_BOUNDED;
+import static com.library.constant.TestConstant.NO_FALSE_NEGATIVES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BookIdFilterTest {
+
+    private static final int BOOKS = 100_000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private BookRepository bookRepository;
+    private BookIdFilter bookIdFilter;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        bookIdFilter = new BookIdFilter(bookRepository, mock(PlatformTransactionManager.class), BOOKS, FALSE_POSITIVE_RATE);
+    }
+
+    @Test
+    void testMightContain_BeforeFirstBuildEveryIdMightExist() {
+        // Assertions
+        assertTrue(bookIdFilter.mightContain(42L));
+        assertEquals(0, bookIdFilter.sizeInBytes());
+    }
+
+    @Test
+    void testRebuild_NoFalseNegativesAndBoundedFalsePositives() {
+        // Arrange
+        // IDs in blocks of 50, like the pooled sequence hands them out
+        when(bookRepository.count()).thenReturn((long) BOOKS);
+        when(bookRepository.streamAllIds()).thenReturn(LongStream.range(0, BOOKS).map(i -> 1 + i * 50).boxed());
+
+        // Simulate
+        bookIdFilter.rebuild();
+        long falsePositives = LongStream.range(0, BOOKS).map(i -> 2 + i * 50)
+                .filter(bookIdFilter::mightContain)
+                .count();
+
+        // Assertions
+        for (long i = 0; i < BOOKS; i++) {
+            assertTrue(bookIdFilter.mightContain(1 + i * 50), NO_FALSE_NEGATIVES);
+        }
+        assertTrue(falsePositives < BOOKS * FALSE_POSITIVE_RATE * 1.5, FALSE_POSITIVE_RATE_BOUNDED);
+        // About 9.6 bits per book at 1%
+        assertTrue(bookIdFilter.sizeInBytes() < BOOKS * 2L * 10 / 8, "The filter should stay compact");
+    }
+
+    @Test
+    void testAdd_IdsInsertedAfterBuildArePresent() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIds()).thenReturn(LongStream.empty().boxed());
+        bookIdFilter.rebuild();
+
+        // Simulate
+        bookIdFilter.add(7L);
+
+        // Assertions
+        assertTrue(bookIdFilter.mightContain(7L), NO_FALSE_NEGATIVES);
+    }
+
+    @Test
+    void testOnBookChanged_IdPersistedBeforeRebuildButInsertedAfterScanIsPresent() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIds()).thenReturn(LongStream.empty().boxed(), LongStream.empty().boxed());
+        bookIdFilter.rebuild();
+        // Persisted into the old filter, but its batched INSERT had not run when the rebuild scanned the table
+        bookIdFilter.add(7L);
+        bookIdFilter.rebuild();
+
+        // Simulate
+        bookIdFilter.onBookChanged(BookChangedEvent.of(ChangeType.CREATED, 7L));
+
+        // Assertions
+        assertTrue(bookIdFilter.mightContain(7L), NO_FALSE_NEGATIVES);
+    }
+}
@@ -0,0 +1,157 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.api.ImportChunkResult;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookImportService;
+import com.library.service.BookService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.library.constant.ExceptionConstant.IMPORT_BODY_UNREADABLE;
+import static com.library.constant.ExceptionConstant.IMPORT_CHUNK_FAILED;
+import static com.library.constant.TestConstant.IMPORTED_COUNT_MATCH;
+import static com.library.util.BookUtils.getFormattedMessage;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = LibraryManagementApplication.class)
+public class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testImportBooks_JsonArrayInChunks() throws IOException {
+        // Arrange
+        String body = "[" + String.join(",", List.of(json(1), json(2), json(3), json(4), json(5))) + "]";
+
+        // Simulate
+        List<ImportChunkResult> chunks = bookImportService.importBooks(stream(body), 2);
+
+        // Assertions
+        assertEquals(3, chunks.size());
+        assertEquals(List.of(0L, 2L, 4L), chunks.stream().map(ImportChunkResult::firstRecord).toList());
+        assertTrue(chunks.stream().allMatch(ImportChunkResult::succeeded));
+        assertEquals(5, bookRepository.count(), IMPORTED_COUNT_MATCH);
+    }
+
+    @Test
+    void testImportBooks_FailedChunkIsRolledBackAlone() throws IOException {
+        // Arrange
+        String tooLongTitle = "x".repeat(300);
+        String body = json(1) + "\n" + json(2) + "\n"
+                + "{\"title\":\"" + tooLongTitle + "\",\"author\":\"A\",\"totalCopies\":1}\n" + json(4) + "\n"
+                + json(5) + "\n";
+
+        // Simulate
+        List<ImportChunkResult> chunks = bookImportService.importBooks(stream(body), 2);
+
+        // Assertions
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.get(0).succeeded());
+        assertEquals(getFormattedMessage(IMPORT_CHUNK_FAILED, 2L, 3L), chunks.get(1).error());
+        assertEquals(0, chunks.get(1).imported());
+        assertTrue(chunks.get(2).succeeded());
+        assertEquals(3, bookRepository.count(), IMPORTED_COUNT_MATCH);
+    }
+
+    @Test
+    void testImportBooks_MalformedBodyKeepsRecordsReadSoFar() throws IOException {
+        // Arrange
+        String body = json(1) + "\n" + json(2) + "\n{\"title\": ";
+
+        // Simulate
+        List<ImportChunkResult> chunks = bookImportService.importBooks(stream(body), 10);
+
+        // Assertions
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).imported());
+        assertEquals(getFormattedMessage(IMPORT_BODY_UNREADABLE, 2L), chunks.get(1).error());
+        assertEquals(2, bookRepository.count(), IMPORTED_COUNT_MATCH);
+    }
+
+    @Test
+    void testImportBooks_LargeBodyAlongsideSingleSaves() throws IOException {
+        // Arrange
+        int bulkRows = 20_000;
+        int singleRows = 100;
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < bulkRows; i++) {
+            body.append(json(i)).append('\n');
+        }
+
+        // Simulate
+        List<ImportChunkResult> chunks = bookImportService.importBooks(stream(body.toString()), null);
+        for (int i = 0; i < singleRows; i++) {
+            Book book = new Book();
+            book.setTitle("Title " + i);
+            book.setAuthor("Author " + i);
+            book.setTotalCopies(1);
+            bookService.saveBook(book);
+        }
+
+        // Assertions
+        assertTrue(chunks.stream().allMatch(ImportChunkResult::succeeded));
+        assertEquals(bulkRows + singleRows, bookRepository.count(), IMPORTED_COUNT_MATCH);
+    }
+
+    @Test
+    void testImportBooks_LeavesCallersEntitiesManaged() {
+        // Arrange
+        Long id = bookRepository.save(new Book(null, "Loaded", "Author", 1, 0, 0)).getId();
+
+        // Simulate
+        // Like a request whose persistence context stays open, the import shares the caller's one
+        Boolean managed = transactionTemplate.execute(status -> {
+            Book loaded = entityManager.find(Book.class, id);
+            try {
+                bookImportService.importBooks(stream(json(1) + "\n" + json(2)), 1);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return entityManager.contains(loaded);
+        });
+
+        // Assertions
+        assertTrue(managed);
+        assertEquals(3, bookRepository.count(), IMPORTED_COUNT_MATCH);
+    }
+
+    private static String json(int i) {
+        return "{\"title\":\"Title " + i + "\",\"author\":\"Author " + i + "\",\"totalCopies\":" + (i % 5 + 1) + "}";
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
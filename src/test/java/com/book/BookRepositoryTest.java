@@ -0,0 +1,204 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.library.constant.TestConstant.BOOK_VERSION_MATCH;
+import static com.library.constant.TestConstant.QUERY_USES_INDEX;
+import static com.library.constant.TestConstant.ROW_NOT_MANAGED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.book.BookRepositoryTest$LastStatement")
+@ContextConfiguration(classes = LibraryManagementApplication.class)
+public class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Book> saved;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository.deleteAll();
+        saved = bookRepository.saveAll(List.of(
+                book("Dune", "Frank Herbert"),
+                book("Dune Messiah", "Frank Herbert"),
+                book("Emma", "Jane Austen"),
+                book("Children of Dune", "Frank Herbert")));
+    }
+
+    @Test
+    void testFindPageAfter_WalksAllBooksInIdOrder() {
+        // Simulate
+        List<Book> first = bookRepository.findPageAfter(0L, null, null, null, Limit.of(2));
+        List<Book> second = bookRepository.findPageAfter(first.get(1).getId(), null, null, null, Limit.of(2));
+
+        // Assertions
+        assertEquals(saved.subList(0, 2), first);
+        assertEquals(saved.subList(2, 4), second);
+    }
+
+    @Test
+    void testFindPageAfter_AppliesAuthorAndTitleFilters() {
+        // Simulate
+        List<Book> byAuthor = bookRepository.findPageAfter(0L, "Frank Herbert", null, null, Limit.of(10));
+        List<Book> byAuthorAndTitle = bookRepository.findPageAfter(0L, "Frank Herbert", "Dune", "Dunf", Limit.of(10));
+        List<Book> byWildcard = bookRepository.findPageAfter(0L, null, "_", "`", Limit.of(10));
+
+        // Assertions
+        assertEquals(List.of(saved.get(0), saved.get(1), saved.get(3)), byAuthor);
+        assertEquals(List.of(saved.get(0), saved.get(1)), byAuthorAndTitle);
+        assertEquals(List.of(), byWildcard);
+    }
+
+    @Test
+    void testWrites_IncrementVersion() {
+        // Arrange
+        Long id = saved.get(0).getId();
+
+        // Simulate
+        bookRepository.incrementBorrowedCopies(id);
+        bookRepository.decrementBorrowedCopies(id);
+        entityManager.clear();
+        Book afterCirculation = bookRepository.findById(id).orElseThrow();
+        long circulationVersion = afterCirculation.getVersion();
+        afterCirculation.setTitle("Dune (Revised)");
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assertions
+        assertEquals(2, circulationVersion, BOOK_VERSION_MATCH);
+        assertEquals(3, bookRepository.findById(id).orElseThrow().getVersion(), BOOK_VERSION_MATCH);
+    }
+
+    @Test
+    void testRowQueries_ReturnUnmanagedBooks() {
+        // Arrange
+        Long id = saved.get(2).getId();
+        bookRepository.incrementBorrowedCopies(id);
+        entityManager.clear();
+
+        // Simulate
+        List<Book> all = bookRepository.findAllRows();
+        Book row = all.get(2);
+        List<Book> byIds = bookRepository.findRowsByIdIn(List.of(saved.get(3).getId(), id, -1L));
+        row.setTitle("Emma (Revised)");
+        entityManager.flush();
+
+        // Assertions
+        assertEquals(saved, all);
+        assertEquals("Emma", bookRepository.findById(id).orElseThrow().getTitle(), ROW_NOT_MANAGED);
+        assertEquals(1, row.getBorrowedCopies());
+        assertEquals(1, row.getVersion(), BOOK_VERSION_MATCH);
+        assertEquals(Set.of(saved.get(2), saved.get(3)), Set.copyOf(byIds));
+        all.forEach(book -> assertFalse(entityManager.getEntityManager().contains(book), ROW_NOT_MANAGED));
+    }
+
+    @Test
+    void testIndexedLookups_MatchExactPrefixAndAvailability() {
+        // Arrange
+        Long borrowedId = saved.get(1).getId();
+        bookRepository.incrementBorrowedCopies(borrowedId);
+        entityManager.clear();
+
+        // Simulate
+        List<Book> byAuthor = bookRepository.findByAuthor("Frank Herbert", 0L, false, Limit.of(10));
+        List<Book> availableByAuthor = bookRepository.findByAuthor("Frank Herbert", 0L, true, Limit.of(10));
+        List<Book> byTitle = bookRepository.findByTitle("Emma", 0L, false, Limit.of(10));
+        List<Book> byTitlePrefix = bookRepository.findByTitleRange("Dune", "Duno", false, Limit.of(10));
+        List<Book> byAuthorPrefix = bookRepository.findByAuthorRange("J", "K", false, Limit.of(10));
+
+        // Assertions
+        assertEquals(ids(saved.get(0), saved.get(1), saved.get(3)), ids(byAuthor));
+        assertEquals(ids(saved.get(0), saved.get(3)), ids(availableByAuthor));
+        assertEquals(ids(saved.get(2)), ids(byTitle));
+        assertEquals(ids(saved.get(0), saved.get(1)), ids(byTitlePrefix));
+        assertEquals(ids(saved.get(2)), ids(byAuthorPrefix));
+    }
+
+    @Test
+    void testIndexedLookups_PlannedOnIndexes() {
+        // Simulate
+        String byAuthor = plan(() -> bookRepository.findByAuthor("Frank Herbert", 0L, true, Limit.of(10)),
+                "Frank Herbert", 0L, true, 10);
+        String byAuthorPrefix = plan(() -> bookRepository.findByAuthorRange("Fr", "Fs", true, Limit.of(10)),
+                "Fr", "Fs", true, 10);
+        String byTitle = plan(() -> bookRepository.findByTitle("Dune", 0L, false, Limit.of(10)),
+                "Dune", 0L, false, 10);
+        String byTitlePrefix = plan(() -> bookRepository.findByTitleRange("Du", "Dv", false, Limit.of(10)),
+                "Du", "Dv", false, 10);
+
+        // Assertions
+        assertTrue(byAuthor.contains("IDX_BOOK_AUTHOR: AUTHOR = ?1"), QUERY_USES_INDEX);
+        assertTrue(byAuthorPrefix.contains("IDX_BOOK_AUTHOR: AUTHOR >= ?1"), QUERY_USES_INDEX);
+        assertTrue(byTitle.contains("IDX_BOOK_TITLE: TITLE = ?1"), QUERY_USES_INDEX);
+        assertTrue(byTitlePrefix.contains("IDX_BOOK_TITLE: TITLE >= ?1"), QUERY_USES_INDEX);
+        // Rows come off the index in order, so the limit stops the scan instead of a sort of every match
+        for (String plan : List.of(byAuthor, byAuthorPrefix, byTitle, byTitlePrefix)) {
+            assertTrue(plan.contains("index sorted"), QUERY_USES_INDEX);
+        }
+    }
+
+    /**
+     * Runs a repository query and returns the H2 plan of the SQL Hibernate generated for it.
+     */
+    private String plan(Runnable query, Object... parameters) {
+        LastStatement.sql = null;
+        query.run();
+        assertNotNull(LastStatement.sql);
+        return jdbcTemplate.queryForObject("EXPLAIN " + LastStatement.sql, String.class, parameters);
+    }
+
+    private static List<Long> ids(Book... books) {
+        return ids(List.of(books));
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+
+    /**
+     * Records the last SQL statement Hibernate prepared, so that its plan can be checked.
+     */
+    public static class LastStatement implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            sql = statement;
+            return statement;
+        }
+    }
+
+    private static Book book(String title, String author) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setTotalCopies(1);
+        return book;
+    }
+}
@@ -0,0 +1,81 @@
+package com.book;
+
+import com.library.search.BookSearchIndex;
+import com.library.search.SearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.library.constant.TestConstant.SEARCH_RANKING_MATCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // The repository is only needed to rebuild from the database
+        index = new BookSearchIndex(null, null, null);
+        index.put(1, "Dune", "Frank Herbert");
+        index.put(2, "Dune Messiah", "Frank Herbert");
+        index.put(3, "Les Misérables", "Victor Hugo");
+        index.put(4, "The Herbalist", "Niamh Boyce");
+        index.put(5, "Dunes of the World", "Jane Doe");
+    }
+
+    @Test
+    void testSearch_EveryTermMustMatchAsWordOrPrefix() {
+        // Simulate
+        List<Long> ids = ids(index.search("dune herb", 10));
+
+        // Assertions
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    void testSearch_IgnoresCaseAndAccents() {
+        // Simulate
+        List<Long> ids = ids(index.search("MISER", 10));
+
+        // Assertions
+        assertEquals(List.of(3L), ids);
+    }
+
+    @Test
+    void testSearch_RanksExactTitleMatchesFirst() {
+        // Simulate
+        List<Long> ids = ids(index.search("dune", 10));
+
+        // Assertions
+        // Exact matches on the shorter list first, then the prefix match on "dunes"
+        assertEquals(List.of(1L, 2L, 5L), ids, SEARCH_RANKING_MATCH);
+    }
+
+    @Test
+    void testSearch_RanksTitleMatchesAboveAuthorMatches() {
+        // Simulate
+        List<Long> ids = ids(index.search("herb", 10));
+
+        // Assertions
+        assertEquals(4L, ids.get(0), SEARCH_RANKING_MATCH);
+        assertEquals(3, ids.size());
+    }
+
+    @Test
+    void testPut_ReplacesPreviousTerms() {
+        // Simulate
+        index.put(1, "Children of Dune", "Frank Herbert");
+        index.remove(2);
+
+        // Assertions
+        assertEquals(List.of(1L), ids(index.search("children", 10)));
+        assertEquals(List.of(), ids(index.search("messiah", 10)));
+        assertEquals(4, index.size());
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::bookId).toList();
+    }
+}
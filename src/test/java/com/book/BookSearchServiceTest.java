@@ -0,0 +1,71 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.search.BookSearchIndex;
+import com.library.service.BookSearchService;
+import com.library.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = LibraryManagementApplication.class)
+public class BookSearchServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void testSearchBooks_FollowsSaveUpdateAndDelete() {
+        // Arrange
+        Book book = bookService.saveBook(book("Zanzibar Chronicles", "Quentin Oddfellow"));
+
+        // Simulate & Assertions
+        assertEquals(List.of(book), bookSearchService.searchBooks("zanzib oddfel", null));
+
+        Book renamed = book("Xylophone Tales", "Quentin Oddfellow");
+        bookService.updateBook(book.getId(), renamed);
+        assertTrue(bookSearchService.searchBooks("zanzibar", null).isEmpty());
+        assertEquals(List.of(book), bookSearchService.searchBooks("xylophone", null));
+
+        bookService.deleteBook(book.getId());
+        assertTrue(bookSearchService.searchBooks("xylophone", null).isEmpty());
+    }
+
+    @Test
+    void testRebuild_IndexesBooksWrittenBehindItsBack() {
+        // Arrange
+        Book book = bookRepository.save(book("Quasar Gardens", "Ymir Plaskett"));
+        assertTrue(bookSearchService.searchBooks("quasar", null).isEmpty());
+
+        // Simulate
+        bookSearchIndex.rebuild();
+
+        // Assertions
+        assertEquals(List.of(book), bookSearchService.searchBooks("quasar", null));
+        assertEquals(bookRepository.count(), bookSearchIndex.size());
+    }
+
+    private static Book book(String title, String author) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setTotalCopies(1);
+        return book;
+    }
+}
@@ -1,24 +1,59 @@
 package com.book;
 
+import com.library.api.BatchItemResult;
+import com.library.api.BookPage;
+import com.library.cache.BookCache;
+import com.library.cache.BookIdFilter;
+import com.library.cache.CatalogVersion;
+import com.library.constant.BatchMode;
+import com.library.constant.CirculationOperation;
 import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.exception.BatchRolledBackException;
 import com.library.exception.BookNotFoundException;
+import com.library.exception.InvalidBatchException;
 import com.library.exception.NoAvailableCopiesException;
+import com.library.journal.CirculationJournal;
+import com.library.ledger.AvailabilityLedger;
+import com.library.metrics.CirculationMetrics;
+import com.library.repository.BookCopyRepository;
 import com.library.repository.BookRepository;
 import com.library.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
+import static com.library.constant.ApiConstant.DEFAULT_PAGE_SIZE;
+import static com.library.constant.ApiConstant.MAX_PAGE_SIZE;
 import static com.library.constant.ExceptionConstant.BOOK_NOT_FOUND;
 import static com.library.constant.ExceptionConstant.NO_AVAILABLE_COPIES;
 import static com.library.constant.ExceptionConstant.NO_BORROWED_COPIES;
 import static com.library.constant.TestConstant.BOOK_TITLE_MATCH;
+import static com.library.constant.TestConstant.METRIC_COUNT_MATCH;
 import static com.library.constant.TestConstant.RETURN_BOOK_SHOULD_NOT_NULL;
 import static com.library.util.BookUtils.getFormattedMessage;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -28,12 +63,28 @@ import static org.mockito.Mockito.when;
 public class BookServiceTest {
 
     private BookRepository bookRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private BookCache bookCache;
+    private MeterRegistry meterRegistry;
     private BookService bookService;
+    private CirculationJournal disabledJournal;
+    private BookCopyRepository bookCopyRepository;
 
     @BeforeEach
     void setUp() {
         bookRepository = mock(BookRepository.class);
-        bookService = new BookService(bookRepository);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        bookCopyRepository = mock(BookCopyRepository.class);
+        bookCache = new BookCache(100, Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        AvailabilityLedger disabledLedger = new AvailabilityLedger(bookRepository, null, null, new CatalogVersion(), false, Duration.ofMillis(200));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        // Not built, so every ID might exist and lookups reach the mocked repository
+        BookIdFilter unbuiltFilter = new BookIdFilter(bookRepository, null, 1000, 0.01);
+        disabledJournal = new CirculationJournal(false, "journal", DataSize.ofMegabytes(1), Duration.ofMillis(5), true, 8);
+        bookService = new BookService(bookRepository, bookCache, unbuiltFilter, eventPublisher,
+                new CirculationMetrics(meterRegistry), disabledLedger, transactionTemplate, disabledJournal,
+                bookCopyRepository);
     }
 
     @Test
@@ -69,70 +120,353 @@ public class BookServiceTest {
     }
 
     @Test
-    void testBorrowBook_Success() {
+    void testFindBookById_FilteredIdSkipsDatabase() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(1L);
+        when(bookRepository.streamAllIds()).thenReturn(Stream.of(1L));
+        BookIdFilter builtFilter = new BookIdFilter(bookRepository, mock(PlatformTransactionManager.class), 1000, 0.01);
+        builtFilter.rebuild();
+        bookService = new BookService(bookRepository, bookCache, builtFilter, eventPublisher,
+                new CirculationMetrics(meterRegistry), new AvailabilityLedger(bookRepository, null, null, new CatalogVersion(), false, Duration.ofMillis(200)),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), disabledJournal, bookCopyRepository);
+
+        // Simulate
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookService.findBookById(2L));
+
+        // Assertions
+        assertEquals(getFormattedMessage(BOOK_NOT_FOUND, 2L), exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+        verify(bookRepository, never()).findById(anyLong());
+        assertThrows(BookNotFoundException.class, () -> bookService.borrowBook(2L));
+        verify(bookRepository, never()).incrementBorrowedCopies(anyLong());
+        verify(bookRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void testFindBookById_SecondLookupServedFromCache() {
         // Arrange
         Book book = new Book();
         book.setId(1L);
-        book.setTotalCopies(5);
-        book.setBorrowedCopies(3);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
 
+        // Simulate
+        bookService.findBookById(1L);
+        Book result = bookService.findBookById(1L);
+
+        // Assertions
+        assertEquals(book, result);
+        verify(bookRepository, times(1)).findById(1L);
+        assertEquals(1, bookService.getCacheStats().hitCount());
+    }
+
+    @Test
+    void testUpdateBook_GuardedUpdateAndAnnouncesStoredRow() {
+        // Arrange
+        Book existing = new Book();
+        existing.setId(1L);
+        Book updated = new Book();
+        updated.setTitle("New Title");
+        updated.setTotalCopies(3);
+        Book stored = new Book(1L, "New Title", null, 3, 2, 7);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(bookRepository.updateDetails(1L, "New Title", null, 3)).thenReturn(1);
+        when(bookRepository.findRowById(1L)).thenReturn(Optional.of(stored));
+        bookService.findBookById(1L);
+
+        // Simulate
+        Book result = bookService.updateBook(1L, updated);
+
+        // Assertions
+        assertEquals(stored, result);
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new BookChangedEvent(ChangeType.UPDATED, 1L, stored));
+    }
+
+    @Test
+    void testUpdateBook_MissingBookThrows() {
+        // Arrange
+        when(bookRepository.updateDetails(1L, null, null, 0)).thenReturn(0);
+
+        // Simulate
+        assertThrows(BookNotFoundException.class, () -> bookService.updateBook(1L, new Book()));
+
+        // Assertions
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testSaveBook_ExistingIdUpdatesDetailsAndKeepsBorrowedCopies() {
+        // Arrange
+        Book stored = new Book(1L, "New Title", "Author", 4, 2, 6);
+        Book posted = new Book();
+        posted.setId(1L);
+        posted.setTitle("New Title");
+        posted.setAuthor("Author");
+        posted.setTotalCopies(4);
+        posted.setBorrowedCopies(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+        when(bookRepository.updateDetails(1L, "New Title", "Author", 4)).thenReturn(1);
+        when(bookRepository.findRowById(1L)).thenReturn(Optional.of(stored));
+
+        // Simulate
+        Book result = bookService.saveBook(posted);
+
+        // Assertions
+        assertEquals(stored, result);
+        assertEquals("New Title", result.getTitle(), BOOK_TITLE_MATCH);
+        assertEquals(2, result.getBorrowedCopies());
+        verify(bookRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new BookChangedEvent(ChangeType.UPDATED, 1L, stored));
+    }
+
+    @Test
+    void testFindBooksPage_ReturnsNextCursorWhenMoreBooksFollow() {
+        // Arrange
+        when(bookRepository.findPageAfter(10L, "Author", null, null, Limit.of(3))).thenReturn(books(11, 12, 13));
+
+        // Simulate
+        BookPage page = bookService.findBooksPage(10L, 2, "Author", " ");
+
+        // Assertions
+        assertEquals(2, page.books().size());
+        assertEquals(12L, page.nextCursor());
+    }
+
+    @Test
+    void testFindBooksPage_LastPageHasNoCursor() {
+        // Arrange
+        when(bookRepository.findPageAfter(0L, null, null, null, Limit.of(DEFAULT_PAGE_SIZE + 1))).thenReturn(books(1, 2));
+
+        // Simulate
+        BookPage page = bookService.findBooksPage(null, null, null, null);
+
+        // Assertions
+        assertEquals(2, page.books().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testFindBooksPage_CapsPageSize() {
+        // Simulate
+        bookService.findBooksPage(0L, Integer.MAX_VALUE, null, null);
+
+        // Assertions
+        verify(bookRepository, times(1)).findPageAfter(0L, null, null, null, Limit.of(MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testFindBooksPage_PassesTitlePrefixAsRange() {
+        // Simulate
+        bookService.findBooksPage(0L, 2, null, "Dun");
+
+        // Assertions
+        verify(bookRepository, times(1)).findPageAfter(0L, null, "Dun", "Duo", Limit.of(3));
+    }
+
+    @Test
+    void testFindBooksByAuthor_ExactMatchPagesByCursor() {
+        // Arrange
+        when(bookRepository.findByAuthor("Author", 10L, true, Limit.of(3))).thenReturn(books(11, 12, 13));
+
+        // Simulate
+        BookPage page = bookService.findBooksByAuthor("Author", false, true, 10L, 2);
+
+        // Assertions
+        assertEquals(2, page.books().size());
+        assertEquals(12L, page.nextCursor());
+    }
+
+    @Test
+    void testFindBooksByTitle_PrefixBecomesIndexRange() {
+        // Simulate
+        BookPage page = bookService.findBooksByTitle("Dune", true, false, null, null);
+        bookService.findBooksByTitle("Dun\uffff", true, false, null, null);
+
+        // Assertions
+        assertNull(page.nextCursor());
+        verify(bookRepository, times(1)).findByTitleRange("Dune", "Dunf", false, Limit.of(DEFAULT_PAGE_SIZE));
+        verify(bookRepository, times(1)).findByTitleRange("Dun\uffff", "Duo", false, Limit.of(DEFAULT_PAGE_SIZE));
+    }
+
+    @Test
+    void testBorrowBook_Success() {
+        // Arrange
+        when(bookRepository.incrementBorrowedCopies(1L)).thenReturn(1);
+
         // Simulate
         bookService.borrowBook(1L);
 
         // Assertions
-        assertEquals(4, book.getBorrowedCopies());
-        verify(bookRepository, times(1)).save(book);
+        verify(bookRepository, times(1)).incrementBorrowedCopies(1L);
+        verify(bookRepository, never()).existsById(1L);
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+    }
+
+    @Test
+    void testBorrowBook_ThrowsNoAvailableCopiesException() {
+        // Arrange
+        Long id = 1L;
+        when(bookRepository.incrementBorrowedCopies(id)).thenReturn(0);
+        when(bookRepository.existsById(id)).thenReturn(true);
+
+        // Simulate
+        Exception exception = assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(id));
+
+        // Assertions
+        assertEquals(getFormattedMessage(NO_AVAILABLE_COPIES, id), exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
     void testBorrowBook_ThrowsBookNotFoundException() {
         // Arrange
-        Book book = new Book();
-        book.setId(1L);
-        book.setTotalCopies(2);
-        book.setBorrowedCopies(2);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        Long id = 1L;
+        when(bookRepository.incrementBorrowedCopies(id)).thenReturn(0);
+        when(bookRepository.existsById(id)).thenReturn(false);
 
         // Simulate
-        Exception exception = assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(1L));
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookService.borrowBook(id));
 
         // Assertions
-        assertEquals(getFormattedMessage(NO_AVAILABLE_COPIES, book.getId()), exception.getMessage());
-        verify(bookRepository, never()).save(book);
+        assertEquals(getFormattedMessage(BOOK_NOT_FOUND, id), exception.getMessage());
     }
 
     @Test
     void testReturnBook_Success() {
         // Arrange
-        Book book = new Book();
-        book.setId(1L);
-        book.setTotalCopies(5);
-        book.setBorrowedCopies(3);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.decrementBorrowedCopies(1L)).thenReturn(1);
 
         // Simulate
         bookService.returnBook(1L);
 
         // Assertions
-        assertEquals(2, book.getBorrowedCopies());
-        verify(bookRepository, times(1)).save(book);
+        verify(bookRepository, times(1)).decrementBorrowedCopies(1L);
+        verify(bookRepository, never()).existsById(1L);
+        verify(eventPublisher, times(1)).publishEvent(BookChangedEvent.of(ChangeType.RETURNED, 1L));
+    }
+
+    @Test
+    void testReturnBook_ThrowsNoAvailableCopiesException() {
+        // Arrange
+        Long id = 1L;
+        when(bookRepository.decrementBorrowedCopies(id)).thenReturn(0);
+        when(bookRepository.existsById(id)).thenReturn(true);
+
+        // Simulate
+        Exception exception = assertThrows(NoAvailableCopiesException.class, () -> bookService.returnBook(id));
+
+        // Assertions
+        assertEquals(getFormattedMessage(NO_BORROWED_COPIES, id), exception.getMessage());
     }
 
     @Test
     void testReturnBook_ThrowsBookNotFoundException() {
         // Arrange
-        Book book = new Book();
-        book.setId(1L);
-        book.setTotalCopies(5);
-        book.setBorrowedCopies(0);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        Long id = 1L;
+        when(bookRepository.decrementBorrowedCopies(id)).thenReturn(0);
+        when(bookRepository.existsById(id)).thenReturn(false);
 
         // Simulate
-        Exception exception = assertThrows(NoAvailableCopiesException.class, () -> bookService.returnBook(1L));
+        Exception exception = assertThrows(BookNotFoundException.class, () -> bookService.returnBook(id));
 
         // Assertions
-        assertEquals(getFormattedMessage(NO_BORROWED_COPIES, book.getId()), exception.getMessage());
-        verify(bookRepository, never()).save(book);
+        assertEquals(getFormattedMessage(BOOK_NOT_FOUND, id), exception.getMessage());
+    }
+
+    @Test
+    void testBorrowAndReturn_RecordsLatencyPerOutcome() {
+        // Arrange
+        when(bookRepository.incrementBorrowedCopies(1L)).thenReturn(1);
+        when(bookRepository.incrementBorrowedCopies(2L)).thenReturn(0);
+        when(bookRepository.existsById(2L)).thenReturn(true);
+        when(bookRepository.decrementBorrowedCopies(3L)).thenReturn(0);
+        when(bookRepository.existsById(3L)).thenReturn(false);
+
+        // Simulate
+        bookService.borrowBook(1L);
+        bookService.borrowBook(1L);
+        assertThrows(NoAvailableCopiesException.class, () -> bookService.borrowBook(2L));
+        assertThrows(BookNotFoundException.class, () -> bookService.returnBook(3L));
+
+        // Assertions
+        assertEquals(2, circulationCount("borrow", "success"), METRIC_COUNT_MATCH);
+        assertEquals(1, circulationCount("borrow", "no_available_copies"), METRIC_COUNT_MATCH);
+        assertEquals(1, circulationCount("return", "not_found"), METRIC_COUNT_MATCH);
+        assertEquals(0, circulationCount("return", "success"), METRIC_COUNT_MATCH);
+        assertEquals(0, meterRegistry.get(CirculationMetrics.ACTIVE_GAUGE_NAME).tag("operation", "borrow").gauge().value());
+    }
+
+    @Test
+    void testProcessBatch_ProcessesBooksInAscendingIdOrder() {
+        // Arrange
+        when(bookRepository.incrementBorrowedCopies(anyLong())).thenReturn(1);
+
+        // Simulate
+        List<BatchItemResult> results = bookService.processBatch(CirculationOperation.BORROW, List.of(3L, 1L, 2L), null);
+
+        // Assertions
+        InOrder order = inOrder(bookRepository);
+        order.verify(bookRepository).incrementBorrowedCopies(1L);
+        order.verify(bookRepository).incrementBorrowedCopies(2L);
+        order.verify(bookRepository).incrementBorrowedCopies(3L);
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(BatchItemResult::id).toList());
+        assertTrue(results.stream().allMatch(result -> result.statusCode() == 200));
+    }
+
+    @Test
+    void testProcessBatch_BestEffortReportsEachFailure() {
+        // Arrange
+        when(bookRepository.decrementBorrowedCopies(1L)).thenReturn(1);
+        when(bookRepository.decrementBorrowedCopies(2L)).thenReturn(0);
+        when(bookRepository.existsById(2L)).thenReturn(false);
+        when(bookRepository.decrementBorrowedCopies(3L)).thenReturn(0);
+        when(bookRepository.existsById(3L)).thenReturn(true);
+
+        // Simulate
+        List<BatchItemResult> results = bookService.processBatch(CirculationOperation.RETURN, List.of(1L, 2L, 3L), BatchMode.BEST_EFFORT);
+
+        // Assertions
+        assertEquals(List.of(200, 404, 409), results.stream().map(BatchItemResult::statusCode).toList());
+        assertEquals(getFormattedMessage(BOOK_NOT_FOUND, 2L), results.get(1).responseMessage());
+        assertEquals(getFormattedMessage(NO_BORROWED_COPIES, 3L), results.get(2).responseMessage());
+    }
+
+    @Test
+    void testProcessBatch_AllOrNothingStopsAtFirstFailure() {
+        // Arrange
+        when(bookRepository.incrementBorrowedCopies(1L)).thenReturn(1);
+        when(bookRepository.incrementBorrowedCopies(2L)).thenReturn(0);
+        when(bookRepository.existsById(2L)).thenReturn(true);
+
+        // Simulate
+        BatchRolledBackException exception = assertThrows(BatchRolledBackException.class,
+                () -> bookService.processBatch(CirculationOperation.BORROW, List.of(1L, 2L, 3L), BatchMode.ALL_OR_NOTHING));
+
+        // Assertions
+        assertEquals(409, exception.getStatusCode());
+        assertEquals(List.of(424, 409, 424), exception.getResults().stream().map(BatchItemResult::statusCode).toList());
+        verify(bookRepository, never()).incrementBorrowedCopies(3L);
+    }
+
+    @Test
+    void testProcessBatch_RejectsEmptyBatch() {
+        // Simulate
+        assertThrows(InvalidBatchException.class, () -> bookService.processBatch(CirculationOperation.BORROW, List.of(), null));
+    }
+
+    private static List<Book> books(long... ids) {
+        return LongStream.of(ids).mapToObj(id -> {
+            Book book = new Book();
+            book.setId(id);
+            return book;
+        }).toList();
+    }
+
+    private long circulationCount(String operation, String outcome) {
+        return meterRegistry.get(CirculationMetrics.TIMER_NAME)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.api.SnapshotResult;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.library.constant.TestConstant.SNAPSHOT_RESTORED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Its own database, since the tests empty the book table
+@SpringBootTest(classes = LibraryManagementApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = "spring.datasource.url=jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class BookSnapshotServiceTest {
+
+    @TempDir
+    static Path directory;
+
+    @Autowired
+    private BookSnapshotService bookSnapshotService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) {
+        registry.add("library.snapshot.file", () -> directory.resolve("catalog.snapshot").toString());
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM book");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            books.add(book("Title " + i, i % 7 == 0 ? null : "Author " + i % 40, i % 5));
+        }
+        books.add(book(null, "Anonymous", 1));
+        books.add(book("Les Misérables", "Victor Hugo", 3));
+        bookRepository.saveAll(books);
+        jdbcTemplate.update("UPDATE book SET borrowed_copies = total_copies, version = version + 1"
+                + " WHERE MOD(id, 3) = 0");
+    }
+
+    @Test
+    void testTakeSnapshotAndRestore_RoundTripsCatalog() throws IOException {
+        // Arrange
+        List<String> before = rows();
+        SnapshotResult snapshot = bookSnapshotService.takeSnapshot();
+        jdbcTemplate.update("DELETE FROM book");
+
+        // Simulate
+        SnapshotResult restored = bookSnapshotService.restore();
+        SnapshotResult again = bookSnapshotService.restore();
+        List<String> after = rows();
+        Long maxRestoredId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM book", Long.class);
+        Book added = bookRepository.save(book("After Restore", "Author 1", 1));
+
+        // Assertions
+        assertEquals(before.size(), snapshot.books());
+        assertEquals(before.size(), restored.books());
+        assertEquals(snapshot.bytes(), restored.bytes());
+        assertEquals(before, after, SNAPSHOT_RESTORED);
+        assertNull(again);
+        assertTrue(added.getId() > maxRestoredId, SNAPSHOT_RESTORED);
+        assertEquals(List.of("IDX_BOOK_AUTHOR", "IDX_BOOK_TITLE"), indexes());
+    }
+
+    @Test
+    void testRestore_CorruptSnapshotRestoresNothing() throws IOException {
+        // Arrange
+        SnapshotResult snapshot = bookSnapshotService.takeSnapshot();
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.file(), "rw")) {
+            file.seek(snapshot.bytes() / 2);
+            int b = file.read();
+            file.seek(snapshot.bytes() / 2);
+            file.write(b ^ 0x20);
+        }
+        jdbcTemplate.update("DELETE FROM book");
+
+        // Simulate
+        assertThrows(IOException.class, () -> bookSnapshotService.restore());
+
+        // Assertions
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book", Long.class));
+        assertEquals(List.of("IDX_BOOK_AUTHOR", "IDX_BOOK_TITLE"), indexes());
+    }
+
+    private List<String> rows() {
+        return jdbcTemplate.query("SELECT id, title, author, total_copies, borrowed_copies, version FROM book"
+                + " ORDER BY id", (resultSet, rowNum) -> new Book(resultSet.getLong(1), resultSet.getString(2),
+                resultSet.getString(3), resultSet.getInt(4), resultSet.getInt(5), resultSet.getLong(6)).toString());
+    }
+
+    private List<String> indexes() {
+        return jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE TABLE_NAME = 'BOOK' AND INDEX_NAME LIKE 'IDX_BOOK_%' ORDER BY INDEX_NAME", String.class);
+    }
+
+    private static Book book(String title, String author, int totalCopies) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setTotalCopies(totalCopies);
+        return book;
+    }
+}
@@ -0,0 +1,244 @@
+package com.book;
+
+import com.library.constant.CirculationOperation;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.journal.CirculationJournal;
+import com.library.journal.JournalRecord;
+import com.library.metrics.CirculationMetrics.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static com.library.constant.TestConstant.COMPACTION_KEEPS_BALANCE;
+import static com.library.constant.TestConstant.GROUP_COMMIT_BATCHED;
+import static com.library.constant.TestConstant.JOURNAL_RECOVERED;
+import static com.library.constant.TestConstant.JOURNAL_REPLAY_MATCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CirculationJournalTest {
+
+    // Header plus ten records
+    private static final DataSize SMALL_SEGMENT = DataSize.ofBytes(32 + 10 * 32);
+
+    @TempDir
+    Path directory;
+
+    private final List<CirculationJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (CirculationJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void testConcurrentAppend_EveryRecordReplayedWithGroupCommit() throws Exception {
+        // Arrange
+        int threads = 8;
+        int appendsPerThread = 1000;
+        CirculationJournal journal = open(DataSize.ofMegabytes(1), 100);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Simulate
+        for (int t = 0; t < threads; t++) {
+            long bookId = t + 1;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < appendsPerThread; i++) {
+                    journal.append(bookId, CirculationOperation.BORROW, Outcome.SUCCESS);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assertions
+        Map<Long, Integer> borrowed = journal.borrowedCopies();
+        assertEquals(threads, borrowed.size(), JOURNAL_REPLAY_MATCH);
+        borrowed.values().forEach(count -> assertEquals(appendsPerThread, count, JOURNAL_REPLAY_MATCH));
+        assertTrue(journal.commitCount() < threads * appendsPerThread, GROUP_COMMIT_BATCHED);
+    }
+
+    @Test
+    void testAppend_RollsOverFullSegments() throws Exception {
+        // Arrange
+        CirculationJournal journal = open(SMALL_SEGMENT, 100);
+
+        // Simulate
+        for (long bookId = 1; bookId <= 35; bookId++) {
+            journal.append(bookId, CirculationOperation.BORROW, Outcome.SUCCESS);
+        }
+        List<Long> replayed = new ArrayList<>();
+        journal.replay(record -> replayed.add(record.bookId()));
+
+        // Assertions
+        assertEquals(4, journal.segmentCount());
+        assertEquals(35, replayed.size(), JOURNAL_REPLAY_MATCH);
+        for (int i = 0; i < replayed.size(); i++) {
+            assertEquals(i + 1, replayed.get(i), JOURNAL_REPLAY_MATCH);
+        }
+    }
+
+    @Test
+    void testReplay_RebuildsBorrowedCopies() throws Exception {
+        // Arrange
+        CirculationJournal journal = open(SMALL_SEGMENT, 100);
+        Book book = new Book();
+        book.setId(1L);
+        book.setTotalCopies(5);
+        book.setBorrowedCopies(2);
+
+        // Simulate
+        journal.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 1L, book));
+        journal.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+        journal.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+        journal.onBookChanged(BookChangedEvent.of(ChangeType.RETURNED, 1L));
+        journal.onBookChanged(BookChangedEvent.of(ChangeType.UPDATED, 1L));
+        journal.appendFailure(1L, CirculationOperation.BORROW, Outcome.NO_AVAILABLE_COPIES);
+        journal.appendFailure(2L, CirculationOperation.RETURN, Outcome.NOT_FOUND);
+
+        // Assertions
+        assertEquals(3, journal.borrowedCopies(1L));
+        assertEquals(0, journal.borrowedCopies(2L));
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        assertEquals(6, records.size(), JOURNAL_REPLAY_MATCH);
+        assertEquals(JournalRecord.Type.BALANCE, records.get(0).type());
+        assertEquals(Outcome.NOT_FOUND, records.get(5).outcome());
+    }
+
+    @Test
+    void testOpen_RecoversUpToTornRecord() throws Exception {
+        // Arrange
+        CirculationJournal journal = open(SMALL_SEGMENT, 100);
+        for (int i = 0; i < 5; i++) {
+            journal.append(1L, CirculationOperation.BORROW, Outcome.SUCCESS);
+        }
+        journal.close();
+        Path segment = segments().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            byte[] complete = new byte[32];
+            file.seek(32);
+            file.readFully(complete);
+            // A record torn halfway through by the crash, and a complete one written after it
+            file.seek(32 + 5 * 32);
+            file.write(complete, 0, 16);
+            file.seek(32 + 6 * 32);
+            file.write(complete);
+        }
+
+        // Simulate
+        CirculationJournal recovered = open(SMALL_SEGMENT, 100);
+        int afterRecovery = recovered.borrowedCopies(1L);
+        recovered.append(1L, CirculationOperation.RETURN, Outcome.SUCCESS);
+        recovered.close();
+        CirculationJournal reopened = open(SMALL_SEGMENT, 100);
+
+        // Assertions
+        assertEquals(5, afterRecovery, JOURNAL_RECOVERED);
+        assertEquals(4, reopened.borrowedCopies(1L), JOURNAL_RECOVERED);
+        List<JournalRecord> records = new ArrayList<>();
+        reopened.replay(records::add);
+        assertEquals(6, records.size(), JOURNAL_RECOVERED);
+    }
+
+    @Test
+    void testCompact_KeepsBorrowedCopiesAcrossRestart() throws Exception {
+        // Arrange
+        CirculationJournal journal = open(SMALL_SEGMENT, 100);
+        for (int i = 0; i < 45; i++) {
+            long bookId = i % 3 + 1;
+            journal.append(bookId, i % 4 == 3 ? CirculationOperation.RETURN : CirculationOperation.BORROW,
+                    Outcome.SUCCESS);
+        }
+        Map<Long, Integer> before = journal.borrowedCopies();
+        // Copies of the folded segments, put back below as if the process died before deleting them
+        List<Path> sealed = segments().subList(0, 4);
+        Path backup = Files.createDirectory(directory.resolve("backup"));
+        for (Path segment : sealed) {
+            Files.copy(segment, backup.resolve(segment.getFileName()));
+        }
+
+        // Simulate
+        journal.compact();
+        int compactedSegments = journal.segmentCount();
+        Map<Long, Integer> afterCompaction = journal.borrowedCopies();
+        journal.append(1L, CirculationOperation.BORROW, Outcome.SUCCESS);
+        journal.close();
+        for (Path segment : sealed.subList(0, 3)) {
+            Files.copy(backup.resolve(segment.getFileName()), segment);
+        }
+        Files.writeString(directory.resolve(sealed.get(3).getFileName() + ".compacting"), "unfinished");
+        CirculationJournal reopened = open(SMALL_SEGMENT, 100);
+
+        // Assertions
+        assertEquals(2, compactedSegments);
+        assertEquals(before, afterCompaction, COMPACTION_KEEPS_BALANCE);
+        before.merge(1L, 1, Integer::sum);
+        assertEquals(before, reopened.borrowedCopies(), COMPACTION_KEEPS_BALANCE);
+        assertEquals(2, reopened.segmentCount());
+        assertEquals(2, segments().size());
+    }
+
+    @Test
+    void testAppendFailure_DoesNotWaitForGroupCommit() throws IOException {
+        // Arrange
+        // Synchronous, with a group commit only when an append waits for one
+        CirculationJournal journal = new CirculationJournal(true, directory.toString(), SMALL_SEGMENT,
+                Duration.ofHours(1), true, 100);
+        journal.open();
+        opened.add(journal);
+
+        // Simulate
+        journal.appendFailure(1L, CirculationOperation.BORROW, Outcome.NO_AVAILABLE_COPIES);
+        journal.appendFailure(2L, CirculationOperation.RETURN, Outcome.NOT_FOUND);
+        long commitsAfterFailures = journal.commitCount();
+        journal.append(1L, CirculationOperation.BORROW, Outcome.SUCCESS);
+
+        // Assertions
+        assertEquals(0, commitsAfterFailures, GROUP_COMMIT_BATCHED);
+        assertEquals(1, journal.commitCount(), GROUP_COMMIT_BATCHED);
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(records::add);
+        assertEquals(3, records.size(), JOURNAL_REPLAY_MATCH);
+    }
+
+    private CirculationJournal open(DataSize segmentSize, int compactAfterSegments) throws IOException {
+        CirculationJournal journal = new CirculationJournal(true, directory.toString(), segmentSize,
+                Duration.ofMillis(2), true, compactAfterSegments);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.book;
+
+import com.library.api.AuthorCirculation;
+import com.library.api.CirculationSummary;
+import com.library.api.TitleCirculation;
+import com.library.cache.CatalogVersion;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.event.BookChangedEvent.ChangeType;
+import com.library.ledger.AvailabilityLedger;
+import com.library.repository.BookRepository;
+import com.library.stats.CirculationStats;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.library.constant.TestConstant.STATS_MATCH_CATALOG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CirculationStatsTest {
+
+    private static final int TOP = 5;
+
+    private BookRepository bookRepository;
+    private CirculationStats stats;
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = mock(BookRepository.class);
+        AvailabilityLedger disabledLedger = new AvailabilityLedger(bookRepository, null, null, new CatalogVersion(), false, Duration.ofMillis(200));
+        stats = new CirculationStats(bookRepository, disabledLedger,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(EntityManager.class));
+    }
+
+    @Test
+    void testOnBookChanged_MaintainsTotalsAndTopTitles() {
+        // Arrange
+        stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 1L, book(1L, "Dune", "Frank Herbert", 2, 0)));
+        stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 2L, book(2L, "Emma", "Jane Austen", 3, 1)));
+        stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 3L, book(3L, "Persuasion", "Jane Austen", 1, 0)));
+
+        // Simulate
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 3L));
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.RETURNED, 2L));
+        CirculationSummary summary = stats.summary(TOP);
+
+        // Assertions
+        assertEquals(3, summary.titles());
+        assertEquals(6, summary.totalCopies());
+        assertEquals(3, summary.borrowedCopies());
+        assertEquals(0.5, summary.utilization());
+        assertEquals(List.of(1L, 3L), summary.hottestTitles().stream().map(TitleCirculation::id).toList());
+        assertEquals(List.of(1L, 3L), summary.fullyBorrowedTitles().stream().map(TitleCirculation::id).toList());
+        assertEquals(new AuthorCirculation("Jane Austen", 2, 4, 1, 0.25), stats.author("Jane Austen"));
+    }
+
+    @Test
+    void testOnBookChanged_UpdateKeepsCountedBorrowsAndDeleteRemovesTitle() {
+        // Arrange
+        stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 1L, book(1L, "Dune", "Frank Herbert", 2, 0)));
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+
+        // Simulate
+        // The saved row may lag behind circulation when the ledger is enabled
+        stats.onBookChanged(new BookChangedEvent(ChangeType.UPDATED, 1L, book(1L, "Dune", "F. Herbert", 4, 0)));
+        AuthorCirculation renamed = stats.author("F. Herbert");
+        stats.onBookChanged(BookChangedEvent.of(ChangeType.DELETED, 1L));
+
+        // Assertions
+        assertEquals(new AuthorCirculation("F. Herbert", 1, 4, 1, 0.25), renamed);
+        assertEquals(new AuthorCirculation("Frank Herbert", 0, 0, 0, 0.0), stats.author("Frank Herbert"));
+        assertEquals(new CirculationSummary(0, 0, 0, 0.0, 0, List.of(), List.of(), List.of()), stats.summary(TOP));
+    }
+
+    @Test
+    void testRandomChanges_MatchCatalogAndRebuild() {
+        // Arrange
+        Random random = new Random(42);
+        Map<Long, Book> catalog = new TreeMap<>();
+        String[] authors = {"Frank Herbert", "Jane Austen", "Victor Hugo", "Mary Shelley", null};
+        long nextId = 1;
+
+        // Simulate
+        for (int i = 0; i < 5000; i++) {
+            int action = random.nextInt(10);
+            List<Long> ids = new ArrayList<>(catalog.keySet());
+            Book existing = ids.isEmpty() ? null : catalog.get(ids.get(random.nextInt(ids.size())));
+            if (existing == null || action == 0) {
+                Book created = book(nextId++, "Title " + i, authors[random.nextInt(authors.length)],
+                        random.nextInt(5), 0);
+                created.setBorrowedCopies(random.nextInt(created.getTotalCopies() + 1));
+                catalog.put(created.getId(), created);
+                stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, created.getId(), copy(created)));
+            } else if (action == 1) {
+                existing.setAuthor(authors[random.nextInt(authors.length)]);
+                existing.setTotalCopies(existing.getBorrowedCopies() + random.nextInt(3));
+                stats.onBookChanged(new BookChangedEvent(ChangeType.UPDATED, existing.getId(), copy(existing)));
+            } else if (action == 2) {
+                catalog.remove(existing.getId());
+                stats.onBookChanged(BookChangedEvent.of(ChangeType.DELETED, existing.getId()));
+            } else if (action < 6 && existing.getBorrowedCopies() < existing.getTotalCopies()) {
+                existing.setBorrowedCopies(existing.getBorrowedCopies() + 1);
+                stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, existing.getId()));
+            } else if (action >= 6 && existing.getBorrowedCopies() > 0) {
+                existing.setBorrowedCopies(existing.getBorrowedCopies() - 1);
+                stats.onBookChanged(BookChangedEvent.of(ChangeType.RETURNED, existing.getId()));
+            }
+        }
+        CirculationSummary incremental = stats.summary(TOP);
+        when(bookRepository.streamAll()).thenReturn(catalog.values().stream().map(CirculationStatsTest::copy));
+        stats.rebuild();
+
+        // Assertions
+        assertEquals(expectedSummary(catalog), incremental, STATS_MATCH_CATALOG);
+        assertEquals(incremental, stats.summary(TOP), STATS_MATCH_CATALOG);
+        for (String author : authors) {
+            List<Book> byAuthor = catalog.values().stream()
+                    .filter(book -> Objects.equals(book.getAuthor(), author))
+                    .toList();
+            assertEquals(expectedAuthor(author, byAuthor), stats.author(author), STATS_MATCH_CATALOG);
+        }
+    }
+
+    @Test
+    void testRebuild_RereadsBooksCirculatingDuringTheReread() {
+        // Arrange
+        stats.onBookChanged(new BookChangedEvent(ChangeType.CREATED, 1L, book(1L, "Dune", "Frank Herbert", 5, 0)));
+        // The scan reads the row before a borrow commits
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book(1L, "Dune", "Frank Herbert", 5, 0))
+                .peek(book -> stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L))));
+        // The first re-read sees that borrow, but not a second one committing while it runs
+        when(bookRepository.findAllById(any()))
+                .thenAnswer(invocation -> {
+                    stats.onBookChanged(BookChangedEvent.of(ChangeType.BORROWED, 1L));
+                    return List.of(book(1L, "Dune", "Frank Herbert", 5, 1));
+                })
+                .thenReturn(List.of(book(1L, "Dune", "Frank Herbert", 5, 2)));
+
+        // Simulate
+        stats.rebuild();
+
+        // Assertions
+        assertEquals(2, stats.author("Frank Herbert").borrowedCopies(), STATS_MATCH_CATALOG);
+    }
+
+    /**
+     * Computes the summary the slow way, from every book in the catalog.
+     */
+    private static CirculationSummary expectedSummary(Map<Long, Book> catalog) {
+        long totalCopies = catalog.values().stream().mapToLong(Book::getTotalCopies).sum();
+        long borrowedCopies = catalog.values().stream().mapToLong(Book::getBorrowedCopies).sum();
+        List<Book> fullyBorrowed = catalog.values().stream()
+                .filter(book -> book.getTotalCopies() > 0 && book.getBorrowedCopies() >= book.getTotalCopies())
+                .toList();
+        List<TitleCirculation> hottest = catalog.values().stream()
+                .filter(book -> book.getBorrowedCopies() > 0)
+                .sorted(Comparator.comparingInt(Book::getBorrowedCopies).reversed().thenComparing(Book::getId))
+                .limit(TOP)
+                .map(CirculationStatsTest::circulation)
+                .toList();
+        List<AuthorCirculation> busiest = catalog.values().stream()
+                .collect(Collectors.groupingBy(book -> String.valueOf(book.getAuthor())))
+                .values().stream()
+                .map(books -> expectedAuthor(books.get(0).getAuthor(), books))
+                .filter(author -> author.borrowedCopies() > 0)
+                .sorted(Comparator.comparingLong(AuthorCirculation::borrowedCopies).reversed()
+                        .thenComparing(AuthorCirculation::author, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .limit(TOP)
+                .toList();
+        return new CirculationSummary(catalog.size(), totalCopies, borrowedCopies,
+                totalCopies == 0 ? 0.0 : (double) borrowedCopies / totalCopies, fullyBorrowed.size(), hottest,
+                busiest, fullyBorrowed.stream().limit(TOP).map(CirculationStatsTest::circulation).toList());
+    }
+
+    private static AuthorCirculation expectedAuthor(String author, List<Book> books) {
+        long totalCopies = books.stream().mapToLong(Book::getTotalCopies).sum();
+        long borrowedCopies = books.stream().mapToLong(Book::getBorrowedCopies).sum();
+        return new AuthorCirculation(author, books.size(), totalCopies, borrowedCopies,
+                totalCopies == 0 ? 0.0 : (double) borrowedCopies / totalCopies);
+    }
+
+    private static TitleCirculation circulation(Book book) {
+        return new TitleCirculation(book.getId(), book.getTitle(), book.getAuthor(), book.getTotalCopies(),
+                book.getBorrowedCopies());
+    }
+
+    private static Book book(long id, String title, String author, int totalCopies, int borrowedCopies) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setTotalCopies(totalCopies);
+        book.setBorrowedCopies(borrowedCopies);
+        return book;
+    }
+
+    private static Book copy(Book book) {
+        return book(book.getId(), book.getTitle(), book.getAuthor(), book.getTotalCopies(), book.getBorrowedCopies());
+    }
+}
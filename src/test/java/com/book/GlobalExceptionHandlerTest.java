@@ -0,0 +1,60 @@
+package com.book;
+
+import com.library.api.ResponseError;
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.GlobalExceptionHandler;
+import com.library.exception.NoAvailableCopiesException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static com.library.constant.TestConstant.METRIC_COUNT_MATCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GlobalExceptionHandlerTest {
+
+    private MeterRegistry meterRegistry;
+    private GlobalExceptionHandler exceptionHandler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        exceptionHandler = new GlobalExceptionHandler(meterRegistry);
+    }
+
+    @Test
+    void testHandlers_CountErrorsByType() {
+        // Simulate
+        exceptionHandler.handleBookNotFoundException(new BookNotFoundException("missing"));
+        exceptionHandler.handleNoAvailableCopiesException(new NoAvailableCopiesException("exhausted"));
+        exceptionHandler.handleNoAvailableCopiesException(new NoAvailableCopiesException("exhausted"));
+
+        // Assertions
+        assertEquals(1, errorCount("BookNotFoundException", HttpStatus.NOT_FOUND), METRIC_COUNT_MATCH);
+        assertEquals(2, errorCount("NoAvailableCopiesException", HttpStatus.CONFLICT), METRIC_COUNT_MATCH);
+    }
+
+    @Test
+    void testOptimisticLockingFailure_AnsweredWithConflict() {
+        // Simulate
+        ResponseEntity<ResponseError> response = exceptionHandler.handleOptimisticLockingFailureException(
+                new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        // Assertions
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(1, errorCount("ObjectOptimisticLockingFailureException", HttpStatus.CONFLICT), METRIC_COUNT_MATCH);
+    }
+
+    private double errorCount(String exception, HttpStatus status) {
+        return meterRegistry.get(GlobalExceptionHandler.ERROR_COUNTER_NAME)
+                .tag("exception", exception)
+                .tag("status", String.valueOf(status.value()))
+                .counter()
+                .count();
+    }
+}
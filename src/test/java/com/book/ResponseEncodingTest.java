@@ -0,0 +1,158 @@
+package com.book;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.ZstdInputStream;
+import com.library.LibraryManagementApplication;
+import com.library.api.ResponseEnvelopeConverter;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.library.constant.TestConstant.COMPRESSED_ABOVE_THRESHOLD;
+import static com.library.constant.TestConstant.ENCODINGS_CARRY_SAME_RESULT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Its own database, so the catalog holds exactly the books saved here
+@SpringBootTest(classes = LibraryManagementApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:encoding;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "library.compression.min-response-size=2KB"})
+public class ResponseEncodingTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+        bookRepository.deleteAll();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Book book = new Book();
+            book.setTitle("Encoding Title " + i);
+            book.setAuthor("Encoding Author " + i % 7);
+            book.setTotalCopies(1 + i % 3);
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+    }
+
+    @Test
+    void testCatalog_NegotiatesBinaryAndColumnarEncodings() throws Exception {
+        // Arrange
+        JsonNode expected = json.readTree(get("/api/books/get", "application/json", null).body());
+
+        // Simulate
+        HttpResponse<byte[]> any = get("/api/books/get", null, null);
+        HttpResponse<byte[]> cbor = get("/api/books/get", "application/cbor", null);
+        HttpResponse<byte[]> smile = get("/api/books/get", "application/x-jackson-smile", null);
+        HttpResponse<byte[]> columnar = get("/api/books/get", ResponseEnvelopeConverter.COLUMNAR_JSON_VALUE, null);
+
+        // Assertions
+        assertTrue(contentType(any).startsWith(MediaType.APPLICATION_JSON_VALUE));
+        assertEquals(expected.path("query_result"), json.readTree(any.body()).path("query_result"));
+        assertTrue(contentType(cbor).startsWith("application/cbor"));
+        assertEquals(expected.path("query_result"), new ObjectMapper(new CBORFactory()).readTree(cbor.body())
+                .path("query_result"), ENCODINGS_CARRY_SAME_RESULT);
+        assertTrue(contentType(smile).startsWith("application/x-jackson-smile"));
+        assertEquals(expected.path("query_result"), new ObjectMapper(new SmileFactory()).readTree(smile.body())
+                .path("query_result"), ENCODINGS_CARRY_SAME_RESULT);
+        assertTrue(contentType(columnar).startsWith(ResponseEnvelopeConverter.COLUMNAR_JSON_VALUE));
+        JsonNode columns = json.readTree(columnar.body()).path("query_result");
+        assertTrue(columns.isObject());
+        for (int row = 0; row < expected.path("query_result").size(); row++) {
+            JsonNode book = expected.path("query_result").get(row);
+            for (String field : List.of("id", "title", "author", "totalCopies", "borrowedCopies", "version")) {
+                assertEquals(book.path(field), columns.path(field).get(row), ENCODINGS_CARRY_SAME_RESULT);
+            }
+        }
+        assertTrue(cbor.body().length < any.body().length);
+        assertTrue(columnar.body().length < any.body().length);
+    }
+
+    @Test
+    void testCatalog_CompressedAboveMinimumSize() throws Exception {
+        // Arrange
+        HttpResponse<byte[]> plain = get("/api/books/get", null, null);
+        long id = json.readTree(plain.body()).path("query_result").get(0).path("id").asLong();
+
+        // Simulate
+        HttpResponse<byte[]> gzip = get("/api/books/get", null, "gzip");
+        HttpResponse<byte[]> zstd = get("/api/books/get", null, "gzip;q=0.5, zstd");
+        HttpResponse<byte[]> refused = get("/api/books/get", null, "zstd;q=0, identity");
+        HttpResponse<byte[]> small = get("/api/books/" + id, null, "gzip");
+
+        // Assertions
+        JsonNode expected = json.readTree(plain.body()).path("query_result");
+        assertEquals("gzip", gzip.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null), COMPRESSED_ABOVE_THRESHOLD);
+        assertEquals(expected, json.readTree(new GZIPInputStream(new ByteArrayInputStream(gzip.body())))
+                .path("query_result"), COMPRESSED_ABOVE_THRESHOLD);
+        assertTrue(gzip.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"));
+        assertTrue(gzip.headers().allValues(HttpHeaders.VARY).toString().contains(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue(gzip.body().length < plain.body().length / 2);
+        assertEquals("zstd", zstd.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null), COMPRESSED_ABOVE_THRESHOLD);
+        assertEquals(expected, json.readTree(unzstd(zstd.body())).path("query_result"), COMPRESSED_ABOVE_THRESHOLD);
+        assertFalse(refused.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent(), COMPRESSED_ABOVE_THRESHOLD);
+        assertFalse(small.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent(), COMPRESSED_ABOVE_THRESHOLD);
+        assertEquals(String.valueOf(small.body().length),
+                small.headers().firstValue(HttpHeaders.CONTENT_LENGTH).orElse(null));
+        assertEquals(id, json.readTree(small.body()).path("query_result").get(0).path("id").asLong());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private static String contentType(HttpResponse<?> response) {
+        return response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse("");
+    }
+
+    private static byte[] unzstd(byte[] compressed) throws IOException {
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.book;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.LibraryManagementApplication;
+import com.library.api.BaseResponse;
+import com.library.api.ResponseEnvelopeConverter;
+import com.library.api.ResponseError;
+import com.library.api.ResponseResult;
+import com.library.constant.ApiConstant;
+import com.library.entity.Book;
+import com.library.util.CoarseClock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.library.constant.TestConstant.ENVELOPE_BYTES_MATCH;
+import static com.library.constant.TestConstant.ENVELOPE_CONVERTER_USED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = LibraryManagementApplication.class)
+public class ResponseEnvelopeConverterTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResponseEnvelopeConverter converter;
+
+    @Autowired
+    private HttpMessageConverters httpMessageConverters;
+
+    @Test
+    void testWrite_TemplateMessageMatchesObjectMapper() throws IOException {
+        // Arrange
+        ResponseResult response = new ResponseResult.Builder()
+                .statusCode(200)
+                .responseMessage(ApiConstant.BOOK_BORROW_SUCCESS, 42L)
+                .timestamp(CoarseClock.now())
+                .build();
+
+        // Simulate
+        String written = write(response);
+
+        // Assertions
+        assertEquals(objectMapper.writeValueAsString(response), written, ENVELOPE_BYTES_MATCH);
+    }
+
+    @Test
+    void testWrite_QueryResultAndCursorMatchObjectMapper() throws IOException {
+        // Arrange
+        Book book = new Book();
+        book.setId(7L);
+        book.setTitle("Quotes \" and \\ backslashes, ünïcödé and   separators");
+        book.setAuthor("Tab\tand\nnewline");
+        book.setTotalCopies(3);
+        ResponseResult response = new ResponseResult.Builder()
+                .statusCode(200)
+                .responseMessage(ApiConstant.BOOK_IMPORT_RESULT, 1, 2L, 3, -4)
+                .timestamp(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 6_000))
+                .queryResult(List.of(book))
+                .nextCursor(7L)
+                .build();
+
+        // Simulate
+        String written = write(response);
+
+        // Assertions
+        assertEquals(objectMapper.writeValueAsString(response), written, ENVELOPE_BYTES_MATCH);
+    }
+
+    @Test
+    void testWrite_PlainAndMissingMessagesMatchObjectMapper() throws IOException {
+        // Arrange
+        ResponseError plain = new ResponseError.Builder()
+                .statusCode(404)
+                .responseMessage("Book with ID 9 \"not\" found")
+                .build();
+        ResponseError missing = new ResponseError.Builder()
+                .statusCode(500)
+                .timestamp(LocalDateTime.of(2024, 1, 2, 3, 4))
+                .build();
+
+        // Simulate
+        String writtenPlain = write(plain);
+        String writtenMissing = write(missing);
+
+        // Assertions
+        assertEquals(objectMapper.writeValueAsString(plain), writtenPlain, ENVELOPE_BYTES_MATCH);
+        assertEquals(objectMapper.writeValueAsString(missing), writtenMissing, ENVELOPE_BYTES_MATCH);
+    }
+
+    @Test
+    void testWrite_TemplateNeedingFormatterFallsBack() throws IOException {
+        // Arrange
+        ResponseResult response = new ResponseResult.Builder()
+                .statusCode(200)
+                .responseMessage("%05d of %.2f", 42, 0.5)
+                .build();
+
+        // Simulate
+        String written = write(response);
+
+        // Assertions
+        assertTrue(written.contains("\"response_message\":\"" + String.format("%05d of %.2f", 42, 0.5) + "\""), ENVELOPE_BYTES_MATCH);
+        assertEquals(objectMapper.writeValueAsString(response), written, ENVELOPE_BYTES_MATCH);
+    }
+
+    @Test
+    void testConverters_EnvelopeConverterChosenForResponses() {
+        // Simulate
+        Object chosen = httpMessageConverters.getConverters().stream()
+                .filter(candidate -> candidate.canWrite(ResponseResult.class, MediaType.APPLICATION_JSON))
+                .findFirst()
+                .orElseThrow();
+
+        // Assertions
+        assertInstanceOf(ResponseEnvelopeConverter.class, chosen, ENVELOPE_CONVERTER_USED);
+    }
+
+    private String write(BaseResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.write(response, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.library.constant.TestConstant.MIGRATION_MATCH_ENTITY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Hibernate validates the migrated schema against the entities at startup, which fails the context on any
+// missing column or mismatched type. Its own database, since other contexts create testdb from the entities
+@SpringBootTest(classes = LibraryManagementApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:migrated;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.hibernate.ddl-auto=validate"
+        })
+@ActiveProfiles("fast-startup")
+public class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testMigrations_CreateSchemaOfEntities() {
+        // Arrange
+        Book book = new Book();
+        book.setTitle("Migrated Book");
+        book.setAuthor("Migrated Author");
+        book.setTotalCopies(2);
+
+        // Simulate
+        Long id = bookRepository.save(book).getId();
+        List<String> indexes = jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE TABLE_NAME = 'BOOK' AND INDEX_NAME LIKE 'IDX_BOOK_%' ORDER BY INDEX_NAME", String.class);
+        List<String> copyIndexes = jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES"
+                + " WHERE TABLE_NAME = 'BOOK_COPY' AND INDEX_NAME LIKE 'IDX_%'", String.class);
+
+        // Assertions
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+        assertEquals(book, bookRepository.findById(id).orElseThrow());
+        assertEquals(List.of("IDX_BOOK_AUTHOR", "IDX_BOOK_TITLE"), indexes, MIGRATION_MATCH_ENTITY);
+        assertEquals(List.of("IDX_BOOK_COPY_BOOK"), copyIndexes, MIGRATION_MATCH_ENTITY);
+    }
+}
@@ -0,0 +1,229 @@
+package com.book;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.LibraryManagementApplication;
+import com.library.shard.ShardMap;
+import com.library.shard.ShardRouter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.library.constant.TestConstant.SHARD_BOOKS_ON_OWNER;
+import static com.library.constant.TestConstant.SHARD_COPIES_STAY;
+import static com.library.constant.TestConstant.SHARD_PAGES_MERGED;
+import static com.library.constant.TestConstant.SHARD_REBALANCE_MOVES_SHARE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Every node and the router run in this JVM, each with its own database and port
+public class ShardRoutingTest {
+
+    private static final int PARTITIONS = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    private HttpClient httpClient;
+
+    private List<String> nodes;
+
+    private String router;
+
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+        nodes = new ArrayList<>(List.of(startNode(), startNode()));
+        ConfigurableApplicationContext context = start("--spring.profiles.active=router",
+                "--library.shard.nodes=" + String.join(",", nodes), "--library.shard.partitions-per-move=4");
+        router = baseUrl(context);
+        shardRouter = context.getBean(ShardRouter.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void testRouter_RoutesBooksAndMergesPages() throws Exception {
+        // Arrange
+        for (int i = 0; i < 30; i++) {
+            createBook(i);
+        }
+
+        // Simulate
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        do {
+            JsonNode page = get(router + "/api/books/page?size=7" + (cursor == null ? "" : "&cursor=" + cursor));
+            page.path("query_result").forEach(book -> paged.add(book.path("id").asLong()));
+            cursor = page.hasNonNull("next_cursor") ? page.path("next_cursor").asLong() : null;
+        } while (cursor != null);
+        long borrowedId = paged.get(11);
+        post(router + "/api/books/" + borrowedId + "/borrow");
+        JsonNode prefixed = get(router + "/api/books/by-author?name=Author&prefix=true&size=100");
+
+        // Assertions
+        List<Long> stored = new ArrayList<>();
+        for (int node = 0; node < nodes.size(); node++) {
+            List<Long> ids = assertOwned(node);
+            assertTrue(ids.size() > 5, SHARD_BOOKS_ON_OWNER);
+            stored.addAll(ids);
+        }
+        assertEquals(stored.stream().sorted().toList(), paged, SHARD_PAGES_MERGED);
+        JsonNode borrowed = get(shardRouter.shardMap().nodeOf(borrowedId) + "/api/books/" + borrowedId);
+        assertEquals(1, borrowed.path("query_result").get(0).path("borrowedCopies").asInt(), SHARD_BOOKS_ON_OWNER);
+        assertEquals(30, prefixed.path("query_result").size());
+        assertNull(prefixed.get("next_cursor"));
+        assertEquals("Author 0", prefixed.path("query_result").get(0).path("author").asText());
+    }
+
+    @Test
+    void testAddNode_MovesItsShareOfPartitions() throws Exception {
+        // Arrange
+        for (int i = 0; i < 40; i++) {
+            createBook(i);
+        }
+        List<Long> before = ids(get(router + "/api/books/get"));
+        for (int i = 0; i < 40; i += 3) {
+            post(router + "/api/books/" + before.get(i) + "/borrow");
+        }
+        String added = startNode();
+        nodes.add(added);
+
+        // Simulate
+        JsonNode rebalanced = post(router + "/api/shards/nodes?url=" + added);
+        for (int i = 40; i < 50; i++) {
+            createBook(i);
+        }
+
+        // Assertions
+        ShardMap map = shardRouter.shardMap();
+        assertEquals(nodes, map.nodes());
+        assertEquals(ShardMap.balanced(nodes, PARTITIONS).partitionCounts(), map.partitionCounts(),
+                SHARD_REBALANCE_MOVES_SHARE);
+        assertEquals(PARTITIONS / 3, rebalanced.path("query_result").get(2).path("partitions").asInt());
+        int stored = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            stored += assertOwned(node).size();
+        }
+        assertEquals(50, stored, SHARD_REBALANCE_MOVES_SHARE);
+        JsonNode all = get(router + "/api/books/get");
+        assertEquals(50, all.path("query_result").size());
+        int borrowed = 0;
+        for (JsonNode book : all.path("query_result")) {
+            borrowed += book.path("borrowedCopies").asInt();
+        }
+        assertEquals(14, borrowed, SHARD_REBALANCE_MOVES_SHARE);
+        assertTrue(ids(get(added + "/api/books/get")).containsAll(before.stream()
+                .filter(id -> map.nodeOf(id).equals(added)).toList()));
+    }
+
+    @Test
+    void testAddNode_KeepsPartitionsHoldingCopies() throws Exception {
+        // Arrange
+        for (int i = 0; i < 40; i++) {
+            createBook(i);
+        }
+        long id = ids(get(router + "/api/books/get")).get(0);
+        String owner = shardRouter.shardMap().nodeOf(id);
+        HttpResponse<String> registered = httpClient.send(HttpRequest.newBuilder(
+                        URI.create(owner + "/api/books/" + id + "/copies"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"barcode\":4006381333931,\"location\":\"Stacks\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, registered.statusCode(), registered.body());
+        String added = startNode();
+
+        // Simulate
+        HttpResponse<String> rebalanced = httpClient.send(HttpRequest.newBuilder(
+                        URI.create(router + "/api/shards/nodes?url=" + added))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+        // Assertions
+        assertEquals(400, rebalanced.statusCode(), rebalanced.body());
+        assertEquals(owner, shardRouter.shardMap().nodeOf(id), SHARD_COPIES_STAY);
+        assertEquals(id, get(owner + "/api/copies/4006381333931/book").path("query_result").get(0).path("id")
+                .asLong(), SHARD_COPIES_STAY);
+        assertEquals(3, get(router + "/api/books/" + id).path("query_result").get(0).path("totalCopies").asInt(),
+                SHARD_COPIES_STAY);
+        assertEquals(40, get(router + "/api/books/get").path("query_result").size(), SHARD_COPIES_STAY);
+    }
+
+    /**
+     * Asserts that every book a node holds belongs to a partition it owns, and returns their IDs.
+     */
+    private List<Long> assertOwned(int node) throws Exception {
+        List<Long> ids = ids(get(nodes.get(node) + "/api/books/get"));
+        for (long id : ids) {
+            assertTrue(shardRouter.shardMap().owns(node, id), SHARD_BOOKS_ON_OWNER);
+        }
+        return ids;
+    }
+
+    private void createBook(int i) throws Exception {
+        String book = "{\"title\":\"Title " + i + "\",\"author\":\"Author " + i % 3 + "\",\"totalCopies\":2}";
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(router + "/api/books/save"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(book))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+    }
+
+    private JsonNode get(String url) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private JsonNode post(String url) throws Exception {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<Long> ids(JsonNode result) {
+        List<Long> ids = new ArrayList<>();
+        result.path("query_result").forEach(book -> ids.add(book.path("id").asLong()));
+        return ids;
+    }
+
+    private String startNode() {
+        return baseUrl(start());
+    }
+
+    private ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--library.shard.partitions=" + PARTITIONS));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .run(args.toArray(String[]::new));
+        contexts.add(context);
+        return context;
+    }
+
+    private static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,75 @@
+package com.book;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.library.constant.TestConstant.BORROWED_COPIES_MATCH;
+import static com.library.constant.TestConstant.VIRTUAL_THREAD_EXECUTION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(classes = LibraryManagementApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual-threads")
+public class VirtualThreadProfileTest {
+
+    private static final int CLIENTS = 1000;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void testProfile_TomcatUsesVirtualThreads() {
+        // Simulate
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        // Assertions
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor(), VIRTUAL_THREAD_EXECUTION);
+    }
+
+    @Test
+    void testBorrow_ManyMoreClientsThanConnections() throws Exception {
+        // Arrange
+        Book book = new Book();
+        book.setTitle("Virtual Thread Test Book");
+        book.setAuthor("Test Author");
+        book.setTotalCopies(CLIENTS);
+        Long id = bookRepository.save(book).getId();
+
+        // Simulate
+        // Far more blocked callers than pooled connections; they wait for a connection without starving carriers
+        List<Future<?>> futures = new ArrayList<>(CLIENTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(executor.submit(() -> bookService.borrowBook(id)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assertions
+        assertEquals(CLIENTS, bookRepository.findById(id).orElseThrow().getBorrowedCopies(), BORROWED_COPIES_MATCH);
+    }
+}